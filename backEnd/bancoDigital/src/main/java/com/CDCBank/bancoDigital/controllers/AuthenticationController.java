@@ -68,7 +68,7 @@ public ResponseEntity<LoginResponse> login(
        
         
 
-        var usuario = (Usuario) auth.getPrincipal();
+        var usuario = usuarioService.carregarSaldoDistribuido((Usuario) auth.getPrincipal());
         
         
         
@@ -2,10 +2,26 @@ package com.CDCBank.bancoDigital.controllers;
 
 
 import com.CDCBank.bancoDigital.dto.error.ErrorResponseDTO;
+import com.CDCBank.bancoDigital.dto.request.LoteTransacaoRequestDTO;
+import com.CDCBank.bancoDigital.dto.request.TransacaoAgendadaRequestDTO;
 import com.CDCBank.bancoDigital.dto.request.TransacaoRequestDTO;
+import com.CDCBank.bancoDigital.dto.response.HistoricoCursorDTO;
 import com.CDCBank.bancoDigital.dto.response.HistoricoTransacaoDTO;
+import com.CDCBank.bancoDigital.dto.response.LoteTransacaoResponseDTO;
+import com.CDCBank.bancoDigital.dto.response.ResumoMensalDTO;
+import com.CDCBank.bancoDigital.dto.response.StatusTransacaoDTO;
+import com.CDCBank.bancoDigital.dto.response.TransacaoAgendadaResponseDTO;
 import com.CDCBank.bancoDigital.dto.response.TransacaoResponseDTO;
+import com.CDCBank.bancoDigital.exception.ChaveIdempotenciaReutilizadaException;
+import com.CDCBank.bancoDigital.exception.FilaCheiaException;
+import com.CDCBank.bancoDigital.exception.ResourceNotFoundException;
 import com.CDCBank.bancoDigital.models.Usuario;
+import com.CDCBank.bancoDigital.service.AgendamentoService;
+import com.CDCBank.bancoDigital.service.ExportacaoTransacoesService;
+import com.CDCBank.bancoDigital.service.FiltroHistorico;
+import com.CDCBank.bancoDigital.service.FormatoExportacao;
+import com.CDCBank.bancoDigital.service.ResumoMensalService;
+import com.CDCBank.bancoDigital.service.TransacaoAssincronaService;
 import com.CDCBank.bancoDigital.service.TransacaoService;
 import com.CDCBank.bancoDigital.service.UsuarioService;
 
@@ -21,12 +37,21 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/transacoes")
@@ -37,13 +62,34 @@ public class TransacaoController {
     
     private final TransacaoService transacaoService;
     private final UsuarioService usuarioService;
+    private final TransacaoAssincronaService transacaoAssincronaService;
+    private final AgendamentoService agendamentoService;
+    private final ExportacaoTransacoesService exportacaoTransacoesService;
+    private final ResumoMensalService resumoMensalService;
 
     @PostMapping("/realizar")
     @Operation(
         summary = "Realizar uma transação",
-        description = "Realiza uma transação bancária (transferência, depósito, saque, etc.) do usuário autenticado"
+        description = "Realiza uma transação bancária (transferência, depósito, saque, etc.) do usuário autenticado. " +
+            "Com async=true a transação é apenas validada e enfileirada, e o status deve ser consultado em /{id}/status"
     )
     @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "202",
+            description = "Transação aceita para processamento assíncrono (async=true)",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = StatusTransacaoDTO.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Fila de transações assíncronas cheia",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ErrorResponseDTO.class)
+            )
+        ),
         @ApiResponse(
             responseCode = "200",
             description = "Transação realizada com sucesso",
@@ -101,6 +147,23 @@ public class TransacaoController {
                 }
             )
         ),
+        @ApiResponse(
+            responseCode = "422",
+            description = "Idempotency-Key já usada com outro destinatário, valor ou descrição",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ErrorResponseDTO.class),
+                examples = @ExampleObject(
+                    name = "Chave reutilizada",
+                    value = """
+                    {
+                        "codigo": "CHAVE_IDEMPOTENCIA_REUTILIZADA",
+                        "mensagem": "Idempotency-Key 5f0c1a2e já foi usada com outro destinatário, valor ou descrição"
+                    }
+                    """
+                )
+            )
+        ),
         @ApiResponse(
             responseCode = "500",
             description = "Erro interno do servidor",
@@ -163,7 +226,20 @@ public class TransacaoController {
                 }
             )
         )
-        @Valid @RequestBody TransacaoRequestDTO request) {
+        @Valid @RequestBody TransacaoRequestDTO request,
+
+        @Parameter(
+            description = "Chave única enviada pelo cliente; repetições com a mesma chave devolvem a resposta original sem novo débito. " +
+                "O prefixo \"agendamento-\" é reservado",
+            example = "5f0c1a2e-7d3b-4c8e-9a61-2b7f3e8d9c10"
+        )
+        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+
+        @Parameter(
+            description = "Quando true, apenas valida e enfileira a transação, respondendo 202 com o protocolo",
+            example = "false"
+        )
+        @RequestParam(defaultValue = "false") boolean async) {
         try {
             // Obter ID do usuário autenticado
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -172,10 +248,27 @@ public class TransacaoController {
             // Aqui você precisaria de um método para buscar usuário por email
             // Por simplicidade, assumindo que você tem acesso ao ID do usuário logado
             Long idRemetente = obterIdUsuarioLogado(email);
+
+            if (idempotencyKey != null && idempotencyKey.startsWith(AgendamentoService.PREFIXO_CHAVE_IDEMPOTENCIA)) {
+                return ResponseEntity.badRequest()
+                    .body(new ErrorResponseDTO("CHAVE_IDEMPOTENCIA_RESERVADA", "Idempotency-Key não pode começar com \""
+                        + AgendamentoService.PREFIXO_CHAVE_IDEMPOTENCIA + "\", reservado às transferências agendadas"));
+            }
+
+            if (async) {
+                StatusTransacaoDTO aceita = transacaoAssincronaService.enfileirar(idRemetente, request, idempotencyKey);
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(aceita);
+            }
             
-            TransacaoResponseDTO response = transacaoService.realizarTransacao(idRemetente, request);
+            TransacaoResponseDTO response = transacaoService.realizarTransacao(idRemetente, request, idempotencyKey);
             return ResponseEntity.ok(response);
             
+        } catch (FilaCheiaException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new ErrorResponseDTO("FILA_CHEIA", e.getMessage()));
+        } catch (ChaveIdempotenciaReutilizadaException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(new ErrorResponseDTO("CHAVE_IDEMPOTENCIA_REUTILIZADA", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
                 .body(new ErrorResponseDTO("ERRO_TRANSACAO", e.getMessage()));
@@ -185,10 +278,82 @@ public class TransacaoController {
         }
     }
     
+    @PostMapping("/lote")
+    @Operation(
+        summary = "Realizar transações em lote",
+        description = "Realiza várias transações do usuário autenticado numa única operação (ex.: folha de pagamento). " +
+            "O total é validado contra o saldo uma única vez e cada item recebe seu próprio resultado."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Lote processado; verifique o resultado de cada item",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = LoteTransacaoResponseDTO.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Saldo insuficiente para o total do lote ou dados inválidos",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ErrorResponseDTO.class),
+                examples = @ExampleObject(
+                    name = "Saldo insuficiente",
+                    value = """
+                    {
+                        "codigo": "ERRO_TRANSACAO",
+                        "mensagem": "Saldo insuficiente do remetente para realizar o lote de transações"
+                    }
+                    """
+                )
+            )
+        )
+    })
+    public ResponseEntity<?> realizarLote(
+        @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "Lista de transações a serem realizadas",
+            required = true,
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = LoteTransacaoRequestDTO.class),
+                examples = @ExampleObject(
+                    name = "Folha de pagamento",
+                    value = """
+                    {
+                        "transacoes": [
+                            { "idDestinatario": 2, "valor": 1500.00, "descricao": "Salário" },
+                            { "idDestinatario": 3, "valor": 2300.00, "descricao": "Salário" }
+                        ]
+                    }
+                    """
+                )
+            )
+        )
+        @Valid @RequestBody LoteTransacaoRequestDTO request) {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            Long idRemetente = obterIdUsuarioLogado(auth.getName());
+
+            LoteTransacaoResponseDTO response = transacaoService.realizarLote(idRemetente, request.getTransacoes());
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                .body(new ErrorResponseDTO("ERRO_TRANSACAO", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ErrorResponseDTO("ERRO_INTERNO", "Erro interno do servidor"));
+        }
+    }
+
     @GetMapping("/historico")
     @Operation(
         summary = "Obter histórico de transações",
-        description = "Retorna o histórico paginado de transações do usuário autenticado"
+        description = "Retorna o histórico paginado de transações do usuário autenticado. " +
+            "Opcionalmente filtra por período (from/to), faixa de valor (valorMin/valorMax) e tipo (ENVIADA/RECEBIDA); " +
+            "com filtros, totalElements conta só as transações que passam neles"
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -293,14 +458,30 @@ public class TransacaoController {
                 description = "Quantidade de itens por página",
                 example = "10"
             )
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+
+            @Parameter(description = "Primeiro dia incluído (yyyy-MM-dd)", example = "2025-01-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+
+            @Parameter(description = "Último dia incluído (yyyy-MM-dd)", example = "2025-12-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+
+            @Parameter(description = "Valor mínimo (inclusive)", example = "50.00")
+            @RequestParam(required = false) BigDecimal valorMin,
+
+            @Parameter(description = "Valor máximo (inclusive)", example = "500.00")
+            @RequestParam(required = false) BigDecimal valorMax,
+
+            @Parameter(description = "ENVIADA ou RECEBIDA; omitir para as duas", example = "ENVIADA")
+            @RequestParam(required = false) String tipo) {
         try {
             // Obter ID do usuário autenticado
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
             String email = auth.getName();
             Long idUsuario = obterIdUsuarioLogado(email);
             
-            Page<HistoricoTransacaoDTO> historico = transacaoService.obterHistoricoTransacoes(idUsuario, page, size);
+            FiltroHistorico filtro = FiltroHistorico.de(from, to, valorMin, valorMax, tipo);
+            Page<HistoricoTransacaoDTO> historico = transacaoService.obterHistoricoTransacoes(idUsuario, page, size, filtro);
             return ResponseEntity.ok(historico);
             
         } catch (RuntimeException e) {
@@ -312,8 +493,490 @@ public class TransacaoController {
         }
     }
     
+    @GetMapping("/historico/cursor")
+    @Operation(
+        summary = "Obter histórico de transações por cursor",
+        description = "Retorna o histórico do usuário autenticado em páginas encadeadas por cursor, sem total de itens. " +
+            "Para a próxima página, envie o nextCursor recebido; ele é null na última página. " +
+            "O custo de cada página não depende de quantas já foram lidas. Aceita os mesmos filtros de /historico, " +
+            "que devem ser repetidos junto com o cursor"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Página do histórico obtida com sucesso",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = HistoricoCursorDTO.class),
+                examples = @ExampleObject(
+                    name = "Página com próxima",
+                    value = """
+                    {
+                        "content": [
+                            {
+                                "id": 42,
+                                "dataTransacao": "2025-08-09T14:30:00",
+                                "valor": 100.50,
+                                "descricao": "Pagamento de serviços",
+                                "tipoTransacao": "ENVIADA",
+                                "outroUsuario": { "id": 2, "nome": "Maria Santos", "email": "maria@email.com" }
+                            }
+                        ],
+                        "size": 1,
+                        "nextCursor": "MjAyNS0wOC0wOVQxNDozMHw0Mg"
+                    }
+                    """
+                )
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Cursor, tamanho de página ou filtro inválido",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ErrorResponseDTO.class)
+            )
+        )
+    })
+    public ResponseEntity<?> obterHistoricoPorCursor(
+            @Parameter(description = "nextCursor da página anterior; omitir para a primeira página")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Quantidade de itens por página (1 a 100)", example = "10")
+            @RequestParam(defaultValue = "10") int size,
+
+            @Parameter(description = "Primeiro dia incluído (yyyy-MM-dd)", example = "2025-01-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+
+            @Parameter(description = "Último dia incluído (yyyy-MM-dd)", example = "2025-12-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+
+            @Parameter(description = "Valor mínimo (inclusive)", example = "50.00")
+            @RequestParam(required = false) BigDecimal valorMin,
+
+            @Parameter(description = "Valor máximo (inclusive)", example = "500.00")
+            @RequestParam(required = false) BigDecimal valorMax,
+
+            @Parameter(description = "ENVIADA ou RECEBIDA; omitir para as duas", example = "ENVIADA")
+            @RequestParam(required = false) String tipo) {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            Long idUsuario = obterIdUsuarioLogado(auth.getName());
+
+            FiltroHistorico filtro = FiltroHistorico.de(from, to, valorMin, valorMax, tipo);
+            return ResponseEntity.ok(transacaoService.obterHistoricoPorCursor(idUsuario, cursor, size, filtro));
+
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                .body(new ErrorResponseDTO("ERRO_HISTORICO", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ErrorResponseDTO("ERRO_INTERNO", "Erro interno do servidor"));
+        }
+    }
+
+    @GetMapping("/busca")
+    @Operation(
+        summary = "Buscar transações pela descrição",
+        description = "Retorna as transações do usuário autenticado cuja descrição contém todos os termos de q, " +
+            "cada um como início de palavra (\"alu jan\" encontra \"Aluguel janeiro\"). Maiúsculas e acentos " +
+            "são ignorados. Os resultados vêm da mais recente para a mais antiga, em páginas encadeadas por cursor"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Página de resultados obtida com sucesso",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = HistoricoCursorDTO.class),
+                examples = @ExampleObject(
+                    name = "Resultados",
+                    value = """
+                    {
+                        "content": [
+                            {
+                                "id": 42,
+                                "dataTransacao": "2025-08-09T14:30:00",
+                                "valor": 1500.00,
+                                "descricao": "Aluguel janeiro",
+                                "tipoTransacao": "ENVIADA",
+                                "outroUsuario": { "id": 2, "nome": "Maria Santos", "email": "maria@email.com" }
+                            }
+                        ],
+                        "size": 1,
+                        "nextCursor": "NDI"
+                    }
+                    """
+                )
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Consulta sem termos válidos, cursor ou tamanho de página inválido",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ErrorResponseDTO.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Índice de busca em construção ou desabilitado",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ErrorResponseDTO.class)
+            )
+        )
+    })
+    public ResponseEntity<?> buscarTransacoes(
+            @Parameter(description = "Termos da busca; cada um precisa de ao menos 2 letras ou dígitos", example = "aluguel")
+            @RequestParam String q,
+
+            @Parameter(description = "nextCursor da página anterior; omitir para a primeira página")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Quantidade de itens por página (1 a 100)", example = "10")
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            Long idUsuario = obterIdUsuarioLogado(auth.getName());
+
+            return ResponseEntity.ok(transacaoService.buscarTransacoes(idUsuario, q, cursor, size));
+
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new ErrorResponseDTO("BUSCA_INDISPONIVEL", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                .body(new ErrorResponseDTO("ERRO_BUSCA", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/export")
+    @Operation(
+        summary = "Exportar histórico de transações",
+        description = "Baixa o histórico completo do usuário autenticado em CSV ou NDJSON (um objeto JSON por linha), " +
+            "em ordem cronológica. As linhas são enviadas à medida que são lidas do banco, então o download começa " +
+            "imediatamente mesmo para históricos grandes. from e to (inclusive) filtram pela data da transação"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Arquivo com as transações",
+            content = {
+                @Content(
+                    mediaType = "text/csv",
+                    examples = @ExampleObject(
+                        name = "CSV",
+                        value = """
+                        id,dataTransacao,tipoTransacao,valor,descricao,idOutroUsuario,nomeOutroUsuario,emailOutroUsuario
+                        42,2025-08-09T14:30:00,ENVIADA,100.50,Pagamento de serviços,2,Maria Santos,maria@email.com
+                        """
+                    )
+                ),
+                @Content(
+                    mediaType = "application/x-ndjson",
+                    examples = @ExampleObject(
+                        name = "NDJSON",
+                        value = """
+                        {"id":42,"dataTransacao":"2025-08-09T14:30:00","valor":100.50,"descricao":"Pagamento de serviços","tipoTransacao":"ENVIADA","outroUsuario":{"id":2,"nome":"Maria Santos","email":"maria@email.com"}}
+                        """
+                    )
+                )
+            }
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Formato ou período inválido",
+            content = @Content(mediaType = "application/json")
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Limite de exportações simultâneas atingido",
+            content = @Content(mediaType = "application/json")
+        )
+    })
+    public ResponseEntity<StreamingResponseBody> exportarTransacoes(
+            @Parameter(description = "Formato do arquivo: csv ou ndjson", example = "csv")
+            @RequestParam(defaultValue = "csv") String format,
+
+            @Parameter(description = "Primeiro dia incluído (yyyy-MM-dd)", example = "2025-01-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+
+            @Parameter(description = "Último dia incluído (yyyy-MM-dd)", example = "2025-12-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        // Erros antes do streaming (formato, período, limite) vão para o GlobalExceptionHandler
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        Long idUsuario = obterIdUsuarioLogado(auth.getName());
+        FormatoExportacao formato = FormatoExportacao.doParametro(format);
+
+        StreamingResponseBody corpo = exportacaoTransacoesService.exportar(idUsuario, formato, from, to);
+        return ResponseEntity.ok()
+            .contentType(formato.getTipoConteudo())
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("transacoes." + formato.getExtensao())
+                .build()
+                .toString())
+            .body(corpo);
+    }
+
+    @GetMapping("/resumo")
+    @Operation(
+        summary = "Obter resumo mensal",
+        description = "Retorna os totais enviados e recebidos, as quantidades e a maior transferência de cada lado " +
+            "no mês informado, para o usuário autenticado. Os totais são mantidos a cada transação, então a " +
+            "consulta não depende de quantas transações o mês tem. Sem ano e mês, usa o mês corrente"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Resumo obtido com sucesso",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ResumoMensalDTO.class),
+                examples = @ExampleObject(
+                    name = "Resumo do mês",
+                    value = """
+                    {
+                        "ano": 2025,
+                        "mes": 8,
+                        "totalEnviado": 1250.75,
+                        "quantidadeEnviadas": 12,
+                        "maiorEnviada": 500.00,
+                        "totalRecebido": 3100.00,
+                        "quantidadeRecebidas": 4,
+                        "maiorRecebida": 2500.00
+                    }
+                    """
+                )
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Ano ou mês inválido",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ErrorResponseDTO.class)
+            )
+        )
+    })
+    public ResponseEntity<?> obterResumoMensal(
+            @Parameter(description = "Ano; omitir para o ano corrente", example = "2025")
+            @RequestParam(required = false) Integer ano,
+
+            @Parameter(description = "Mês (1 a 12); omitir para o mês corrente", example = "8")
+            @RequestParam(required = false) Integer mes) {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            Long idUsuario = obterIdUsuarioLogado(auth.getName());
+
+            YearMonth atual = YearMonth.now();
+            return ResponseEntity.ok(resumoMensalService.consultar(idUsuario,
+                ano != null ? ano : atual.getYear(), mes != null ? mes : atual.getMonthValue()));
+
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                .body(new ErrorResponseDTO("ERRO_RESUMO", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}/status")
+    @Operation(
+        summary = "Consultar status de transação assíncrona",
+        description = "Retorna o status (PENDENTE, CONCLUIDA ou FALHOU) de uma transação enviada com async=true"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Status obtido com sucesso",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = StatusTransacaoDTO.class),
+                examples = @ExampleObject(
+                    name = "Transação concluída",
+                    value = """
+                    {
+                        "id": "0b6f7c1e-3f5a-4d2b-9c8e-1a2b3c4d5e6f",
+                        "status": "CONCLUIDA",
+                        "mensagem": "Transação realizada com sucesso",
+                        "recebidaEm": "2025-08-09T14:30:00",
+                        "concluidaEm": "2025-08-09T14:30:00.050",
+                        "transacao": {
+                            "id": 1,
+                            "dataTransacao": "2025-08-09T14:30:00.040",
+                            "valor": 100.50,
+                            "descricao": "Pagamento de serviços",
+                            "remetente": { "id": 1, "nome": "João Silva", "email": "joao@email.com" },
+                            "destinatario": { "id": 2, "nome": "Maria Santos", "email": "maria@email.com" }
+                        }
+                    }
+                    """
+                )
+            )
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Protocolo não encontrado para o usuário autenticado",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ErrorResponseDTO.class)
+            )
+        )
+    })
+    public ResponseEntity<?> consultarStatus(
+            @Parameter(description = "Protocolo devolvido no aceite da transação", required = true)
+            @PathVariable String id) {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            Long idUsuario = obterIdUsuarioLogado(auth.getName());
+
+            return ResponseEntity.ok(transacaoAssincronaService.consultarStatus(idUsuario, id));
+
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ErrorResponseDTO("TRANSACAO_NAO_ENCONTRADA", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                .body(new ErrorResponseDTO("ERRO_TRANSACAO", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/agendadas")
+    @Operation(
+        summary = "Agendar uma transação",
+        description = "Agenda uma transferência do usuário autenticado para uma data futura, única (UNICA) " +
+            "ou recorrente (SEMANAL, MENSAL). Cada execução gera uma transação comum"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "201",
+            description = "Transferência agendada com sucesso",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = TransacaoAgendadaResponseDTO.class),
+                examples = @ExampleObject(
+                    name = "Agendamento mensal",
+                    value = """
+                    {
+                        "id": 1,
+                        "idDestinatario": 2,
+                        "valor": 1500.00,
+                        "descricao": "Aluguel",
+                        "recorrencia": "MENSAL",
+                        "status": "ATIVA",
+                        "proximaExecucao": "2025-09-05T09:00:00",
+                        "execucoes": 0,
+                        "ultimaExecucao": null,
+                        "ultimoErro": null,
+                        "criadaEm": "2025-08-09T14:30:00"
+                    }
+                    """
+                )
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Erro na validação dos dados do agendamento",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ErrorResponseDTO.class)
+            )
+        )
+    })
+    public ResponseEntity<?> agendarTransacao(@Valid @RequestBody TransacaoAgendadaRequestDTO request) {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            Long idRemetente = obterIdUsuarioLogado(auth.getName());
+
+            TransacaoAgendadaResponseDTO response = agendamentoService.agendar(idRemetente, request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                .body(new ErrorResponseDTO("ERRO_AGENDAMENTO", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ErrorResponseDTO("ERRO_INTERNO", "Erro interno do servidor"));
+        }
+    }
+
+    @GetMapping("/agendadas")
+    @Operation(
+        summary = "Listar transações agendadas",
+        description = "Retorna os agendamentos do usuário autenticado, do mais recente para o mais antigo, " +
+            "com o status e o resultado da última execução"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Agendamentos obtidos com sucesso"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Erro na validação dos parâmetros",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ErrorResponseDTO.class)
+            )
+        )
+    })
+    public ResponseEntity<?> listarAgendadas(
+            @Parameter(description = "Número da página (inicia em 0)", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+
+            @Parameter(description = "Quantidade de itens por página", example = "10")
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            Long idUsuario = obterIdUsuarioLogado(auth.getName());
+
+            Page<TransacaoAgendadaResponseDTO> agendadas = agendamentoService.listar(idUsuario, page, size);
+            return ResponseEntity.ok(agendadas);
+
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                .body(new ErrorResponseDTO("ERRO_AGENDAMENTO", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/agendadas/{id}")
+    @Operation(
+        summary = "Cancelar transação agendada",
+        description = "Cancela um agendamento ativo do usuário autenticado; execuções já realizadas não são desfeitas"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Agendamento cancelado"),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Agendamento ativo não encontrado para o usuário autenticado",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ErrorResponseDTO.class)
+            )
+        )
+    })
+    public ResponseEntity<?> cancelarAgendada(
+            @Parameter(description = "ID do agendamento", required = true)
+            @PathVariable Long id) {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            Long idUsuario = obterIdUsuarioLogado(auth.getName());
+
+            agendamentoService.cancelar(idUsuario, id);
+            return ResponseEntity.noContent().build();
+
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ErrorResponseDTO("AGENDAMENTO_NAO_ENCONTRADO", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                .body(new ErrorResponseDTO("ERRO_AGENDAMENTO", e.getMessage()));
+        }
+    }
+
     // Método auxiliar - você deve implementar baseado no seu UsuarioService
     private Long obterIdUsuarioLogado(String email) {
+        // O SecurityFilter autentica com a própria entidade Usuario: evita buscar o usuário de novo
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof Usuario logado && logado.getEmail().equalsIgnoreCase(email)) {
+            return logado.getId();
+        }
         Usuario usuario = usuarioService.findByUsername(email);
         if (usuario == null) {
             throw new RuntimeException("Usuário não encontrado");
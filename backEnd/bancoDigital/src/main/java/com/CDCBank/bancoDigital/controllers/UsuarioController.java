@@ -4,7 +4,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -187,6 +190,33 @@ public class UsuarioController {
         }
     }
 
+    @Operation(summary = "Ativar saldo distribuído", 
+               description = "Distribui os créditos recebidos pelo usuário em várias faixas de saldo, " +
+                   "indicado para contas que recebem muitas transferências simultâneas")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Saldo distribuído ativado"),
+            @ApiResponse(responseCode = "403", description = "Só o dono da conta ou um administrador pode ativar"),
+            @ApiResponse(responseCode = "404", description = "Usuário não encontrado")
+    })
+    @PostMapping("/{id}/saldo-distribuido")
+    public ResponseEntity<Void> ativarSaldoDistribuido(
+            @Parameter(description = "ID do usuário", required = true, example = "1")
+            @PathVariable Long id) {
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean dono = auth.getPrincipal() instanceof Usuario logado && id.equals(logado.getId());
+        boolean administrador = auth.getAuthorities().stream()
+            .anyMatch(autoridade -> "ROLE_ADMIN".equals(autoridade.getAuthority()));
+        if (!dono && !administrador) {
+            log.warn("Usuário {} tentou ativar o saldo distribuído da conta {}", auth.getName(), id);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        usuarioService.ativarSaldoDistribuido(id);
+
+        return ResponseEntity.noContent().build();
+    }
+
      @Operation(summary = "Buscar usuário por ID", 
                description = "Retorna um usuário específico através do seu ID")
     @ApiResponses(value = {
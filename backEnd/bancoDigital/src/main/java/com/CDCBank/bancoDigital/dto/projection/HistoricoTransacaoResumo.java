@@ -0,0 +1,19 @@
+package com.CDCBank.bancoDigital.dto.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Linha do histórico já com o outro usuário e o tipo (ENVIADA/RECEBIDA) resolvidos
+ * na consulta, sem carregar as entidades Transacao e Usuario.
+ */
+public interface HistoricoTransacaoResumo {
+    Long getId();
+    LocalDateTime getDataTransacao();
+    BigDecimal getValor();
+    String getDescricao();
+    String getTipoTransacao();
+    Long getIdOutroUsuario();
+    String getNomeOutroUsuario();
+    String getEmailOutroUsuario();
+}
@@ -0,0 +1,13 @@
+package com.CDCBank.bancoDigital.dto.projection;
+
+/**
+ * Soma das faixas de resumo_mensal de um usuário num mês, em centavos.
+ */
+public interface ResumoMensalTotais {
+    long getEnviadoCentavos();
+    long getQuantidadeEnviadas();
+    long getMaiorEnvioCentavos();
+    long getRecebidoCentavos();
+    long getQuantidadeRecebidas();
+    long getMaiorRecebimentoCentavos();
+}
@@ -0,0 +1,11 @@
+package com.CDCBank.bancoDigital.dto.projection;
+
+/**
+ * Projeção com os dados do usuário exibidos nas respostas de transação,
+ * sem carregar a entidade completa.
+ */
+public interface UsuarioResumo {
+    Long getId();
+    String getNome();
+    String getEmail();
+}
@@ -0,0 +1,15 @@
+package com.CDCBank.bancoDigital.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class LoteTransacaoRequestDTO {
+
+    @NotEmpty(message = "O lote deve conter pelo menos uma transação")
+    @Size(max = 1000, message = "O lote deve ter no máximo 1000 transações")
+    private List<@Valid TransacaoRequestDTO> transacoes;
+}
@@ -1,5 +1,6 @@
 package com.CDCBank.bancoDigital.dto.request;
 
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -12,6 +13,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 
+import java.math.BigDecimal;
 import java.util.Date;
 
 @NoArgsConstructor
@@ -32,7 +34,8 @@ public class PatchUserDTO {
     private Date dataNascimento;
     
     @PositiveOrZero(message = "Renda mensal deve ser zero ou um valor positivo")
-    private Float rendaMensal; 
+    @Digits(integer = 15, fraction = 2, message = "Renda mensal deve ter no máximo 2 casas decimais")
+    private BigDecimal rendaMensal; 
     
    
     public boolean temCamposParaAtualizar() {
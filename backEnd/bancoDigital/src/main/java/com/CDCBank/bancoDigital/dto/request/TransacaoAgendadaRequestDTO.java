@@ -0,0 +1,29 @@
+package com.CDCBank.bancoDigital.dto.request;
+
+import com.CDCBank.bancoDigital.models.Recorrencia;
+import jakarta.validation.constraints.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class TransacaoAgendadaRequestDTO {
+
+    @NotNull(message = "ID do destinatário é obrigatório")
+    private Long idDestinatario;
+
+    @NotNull(message = "Valor é obrigatório")
+    @DecimalMin(value = "0.01", message = "Valor deve ser maior que zero")
+    @Digits(integer = 10, fraction = 2, message = "Valor deve ter no máximo 2 casas decimais")
+    private BigDecimal valor;
+
+    @Size(max = 500, message = "Descrição deve ter no máximo 500 caracteres")
+    private String descricao;
+
+    @NotNull(message = "Data de execução é obrigatória")
+    @Future(message = "Data de execução deve ser no futuro")
+    private LocalDateTime dataExecucao;
+
+    // UNICA quando não informada
+    private Recorrencia recorrencia;
+}
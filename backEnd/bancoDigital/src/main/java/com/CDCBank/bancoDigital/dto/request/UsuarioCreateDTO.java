@@ -1,5 +1,6 @@
 package com.CDCBank.bancoDigital.dto.request;
 
+import java.math.BigDecimal;
 import java.util.Date;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -7,6 +8,7 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
@@ -40,6 +42,7 @@ public class UsuarioCreateDTO {
     
     @NotNull(message = "Renda mensal é obrigatória")
     @Positive(message = "Renda mensal deve ser positiva")
+    @Digits(integer = 15, fraction = 2, message = "Renda mensal deve ter no máximo 2 casas decimais")
     @JsonProperty("rendaMensal")
-    private Float rendaMensal;
+    private BigDecimal rendaMensal;
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.CDCBank.bancoDigital.dto.response;
+import lombok.Data;
+import lombok.Builder;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class ArquivamentoDTO {
+    private String estado; // "OCIOSA", "EXECUTANDO", "CONCLUIDA" ou "FALHOU"
+    private LocalDateTime iniciadaEm;
+    private LocalDateTime concluidaEm;
+    private LocalDateTime corte; // transações com data anterior são movidas
+    private long pendentesNoInicio;
+    private long transacoesMovidas;
+    private long lotes;
+    private double percentual;
+    private double transacoesPorSegundo;
+    private long duracaoMs;
+    private String erro;
+}
@@ -0,0 +1,23 @@
+package com.CDCBank.bancoDigital.dto.response;
+import lombok.Data;
+import lombok.Builder;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+public class ConciliacaoSaldosDTO {
+    private String estado; // "OCIOSA", "EXECUTANDO", "CONCLUIDA" ou "FALHOU"
+    private LocalDateTime iniciadaEm;
+    private LocalDateTime concluidaEm;
+    private int faixasTotal;
+    private int faixasConcluidas;
+    private double percentual;
+    private long contasVerificadas;
+    private long transacoesLidas;
+    private double transacoesPorSegundo;
+    private long duracaoMs;
+    private long divergenciasEncontradas;
+    private List<DivergenciaConciliacaoDTO> divergencias; // Limitada a maximo-divergencias
+    private String erro;
+}
@@ -0,0 +1,12 @@
+package com.CDCBank.bancoDigital.dto.response;
+import lombok.Data;
+import lombok.Builder;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+public class DivergenciaConciliacaoDTO {
+    private Long idUsuario;
+    private BigDecimal saldoArmazenado; // Saldo principal mais as faixas de saldo distribuído
+    private BigDecimal saldoEsperado; // Saldo inicial + recebidas - enviadas
+}
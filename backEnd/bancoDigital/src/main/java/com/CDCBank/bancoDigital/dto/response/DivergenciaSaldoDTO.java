@@ -0,0 +1,12 @@
+package com.CDCBank.bancoDigital.dto.response;
+import lombok.Data;
+import lombok.Builder;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+public class DivergenciaSaldoDTO {
+    private Long idUsuario;
+    private BigDecimal saldoArmazenado;
+    private BigDecimal saldoLivroRazao;
+}
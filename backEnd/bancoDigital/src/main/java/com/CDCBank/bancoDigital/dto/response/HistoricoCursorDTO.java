@@ -0,0 +1,12 @@
+package com.CDCBank.bancoDigital.dto.response;
+import lombok.Data;
+import lombok.Builder;
+import java.util.List;
+
+@Data
+@Builder
+public class HistoricoCursorDTO {
+    private List<HistoricoTransacaoDTO> content;
+    private int size;
+    private String nextCursor; // null na última página
+}
@@ -0,0 +1,16 @@
+package com.CDCBank.bancoDigital.dto.response;
+import lombok.Data;
+import lombok.Builder;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class IndiceBuscaDTO {
+    private String estado; // "DESABILITADO", "CONSTRUINDO" ou "PRONTO"
+    private int usuarios;
+    private long termos;
+    private long postagens;
+    private long bytes;
+    private LocalDateTime reconstruidoEm;
+    private long duracaoReconstrucaoMs;
+}
@@ -0,0 +1,12 @@
+package com.CDCBank.bancoDigital.dto.response;
+import lombok.Data;
+import lombok.Builder;
+
+@Data
+@Builder
+public class ItemLoteResponseDTO {
+    private int indice; // Posição do item na lista enviada
+    private boolean sucesso;
+    private String mensagem;
+    private TransacaoResponseDTO transacao; // Preenchido apenas quando sucesso = true
+}
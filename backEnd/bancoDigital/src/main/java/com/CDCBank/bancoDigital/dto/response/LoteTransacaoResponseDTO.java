@@ -0,0 +1,14 @@
+package com.CDCBank.bancoDigital.dto.response;
+import lombok.Data;
+import lombok.Builder;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+public class LoteTransacaoResponseDTO {
+    private int totalProcessadas;
+    private int totalRejeitadas;
+    private BigDecimal valorTotal;
+    private List<ItemLoteResponseDTO> itens;
+}
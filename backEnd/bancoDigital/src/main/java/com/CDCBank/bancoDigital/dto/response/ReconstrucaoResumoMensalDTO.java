@@ -0,0 +1,20 @@
+package com.CDCBank.bancoDigital.dto.response;
+import lombok.Data;
+import lombok.Builder;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class ReconstrucaoResumoMensalDTO {
+    private String estado; // "OCIOSA", "EXECUTANDO", "CONCLUIDA" ou "FALHOU"
+    private LocalDateTime iniciadaEm;
+    private LocalDateTime concluidaEm;
+    private int faixasTotal;
+    private int faixasConcluidas;
+    private double percentual;
+    private long contasProcessadas;
+    private long transacoesLidas;
+    private double transacoesPorSegundo;
+    private long duracaoMs;
+    private String erro;
+}
@@ -0,0 +1,13 @@
+package com.CDCBank.bancoDigital.dto.response;
+import lombok.Data;
+import lombok.Builder;
+import java.util.List;
+
+@Data
+@Builder
+public class ReconstrucaoSaldosDTO {
+    private long contasVerificadas;
+    private int contasCorrigidas;
+    private long duracaoMs;
+    private List<DivergenciaSaldoDTO> divergencias;
+}
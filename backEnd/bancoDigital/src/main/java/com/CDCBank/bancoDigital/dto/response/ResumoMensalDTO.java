@@ -0,0 +1,17 @@
+package com.CDCBank.bancoDigital.dto.response;
+import lombok.Data;
+import lombok.Builder;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+public class ResumoMensalDTO {
+    private int ano;
+    private int mes;
+    private BigDecimal totalEnviado;
+    private long quantidadeEnviadas;
+    private BigDecimal maiorEnviada; // Maior transferência enviada no mês
+    private BigDecimal totalRecebido;
+    private long quantidadeRecebidas;
+    private BigDecimal maiorRecebida; // Maior transferência recebida no mês
+}
@@ -0,0 +1,19 @@
+package com.CDCBank.bancoDigital.dto.response;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusTransacaoDTO {
+    private String id; // Protocolo devolvido no aceite
+    private String status; // "PENDENTE", "CONCLUIDA" ou "FALHOU"
+    private String mensagem;
+    private LocalDateTime recebidaEm;
+    private LocalDateTime concluidaEm;
+    private TransacaoResponseDTO transacao; // Preenchido quando status = "CONCLUIDA"
+}
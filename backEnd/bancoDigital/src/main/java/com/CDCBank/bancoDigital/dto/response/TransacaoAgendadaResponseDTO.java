@@ -0,0 +1,27 @@
+package com.CDCBank.bancoDigital.dto.response;
+import com.CDCBank.bancoDigital.models.Recorrencia;
+import com.CDCBank.bancoDigital.models.StatusAgendamento;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransacaoAgendadaResponseDTO {
+    private Long id;
+    private Long idDestinatario;
+    private BigDecimal valor;
+    private String descricao;
+    private Recorrencia recorrencia;
+    private StatusAgendamento status;
+    private LocalDateTime proximaExecucao; // null quando não há mais execuções
+    private int execucoes;
+    private LocalDateTime ultimaExecucao;
+    private String ultimoErro; // Motivo da falha da última execução, se houve
+    private LocalDateTime criadaEm;
+}
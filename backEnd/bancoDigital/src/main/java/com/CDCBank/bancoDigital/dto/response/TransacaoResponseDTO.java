@@ -1,11 +1,15 @@
 package com.CDCBank.bancoDigital.dto.response;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Builder;
+import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 import java.math.BigDecimal;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class TransacaoResponseDTO {
     private Long id;
     private LocalDateTime dataTransacao;
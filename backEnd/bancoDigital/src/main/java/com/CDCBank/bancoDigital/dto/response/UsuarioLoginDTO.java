@@ -1,5 +1,6 @@
 package com.CDCBank.bancoDigital.dto.response;
 
+import java.math.BigDecimal;
 import java.util.Date;
 
 import lombok.Builder;
@@ -13,8 +14,8 @@ public class UsuarioLoginDTO {
    private Long id;
    private String nome;
    private String email;
-   private Float rendaMensal;
-   private Float saldo;
+   private BigDecimal rendaMensal;
+   private BigDecimal saldo;
    private Date dataNascimento;
    private String idFiscal;
 }
\ No newline at end of file
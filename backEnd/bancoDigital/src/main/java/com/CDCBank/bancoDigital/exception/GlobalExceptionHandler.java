@@ -41,6 +41,46 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
     }
 
+    /**
+     * Trata Idempotency-Key reenviada com outro pedido
+     */
+    @ExceptionHandler(ChaveIdempotenciaReutilizadaException.class)
+    public ResponseEntity<ErrorResponse> handleChaveIdempotenciaReutilizadaException(
+            ChaveIdempotenciaReutilizadaException ex, WebRequest request) {
+        
+        log.warn("Idempotency-Key reutilizada: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.UNPROCESSABLE_ENTITY.value())
+                .error("Entidade Não Processável")
+                .message(ex.getMessage())
+                .path(request.getDescription(false).replace("uri=", ""))
+                .build();
+
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(errorResponse);
+    }
+
+    /**
+     * Trata filas e limites de concorrência cheios
+     */
+    @ExceptionHandler(FilaCheiaException.class)
+    public ResponseEntity<ErrorResponse> handleFilaCheiaException(
+            FilaCheiaException ex, WebRequest request) {
+        
+        log.warn("Capacidade esgotada: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .error("Serviço Indisponível")
+                .message(ex.getMessage())
+                .path(request.getDescription(false).replace("uri=", ""))
+                .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+    }
+
     /**
      * Trata erros de validação (@Valid)
      */
@@ -0,0 +1,7 @@
+package com.CDCBank.bancoDigital.exception;
+
+public class LimiteDiarioExcedidoException extends RuntimeException {
+    public LimiteDiarioExcedidoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,91 @@
+package com.CDCBank.bancoDigital.infra;
+
+import java.util.function.LongSupplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Distribui ids de blocos reservados: só vai ao banco (via {@code reservarBloco}) quando
+ * o bloco atual acaba.
+ *
+ * A reserva usa uma conexão do pool além da conexão da transação de quem chama. Se ela
+ * acontecesse só com o bloco esgotado, com as outras threads paradas esperando o novo
+ * bloco (e segurando as suas conexões), um pool cheio travaria todas até o timeout de
+ * conexão. Por isso o próximo bloco é reservado com metade do atual ainda livre, fora do
+ * lock: as outras threads continuam recebendo ids, confirmam as suas transações e devolvem
+ * conexões ao pool enquanto a reserva espera por uma.
+ */
+@Slf4j
+public class AlocadorIdBloco {
+
+    private static final long SEM_BLOCO = -1;
+
+    private final int tamanhoBloco;
+    private long proximo;
+    private long limite;
+    // Início do bloco já reservado para quando o atual acabar
+    private long reservado = SEM_BLOCO;
+    private boolean reservando;
+
+    public AlocadorIdBloco(int tamanhoBloco) {
+        if (tamanhoBloco <= 0) {
+            throw new IllegalArgumentException("Tamanho de bloco inválido: " + tamanhoBloco);
+        }
+        this.tamanhoBloco = tamanhoBloco;
+    }
+
+    public int getTamanhoBloco() {
+        return tamanhoBloco;
+    }
+
+    /**
+     * @param reservarBloco reserva {@link #getTamanhoBloco()} ids e devolve o primeiro
+     */
+    public long proximo(LongSupplier reservarBloco) {
+        long id;
+        synchronized (this) {
+            while (proximo == limite) {
+                if (reservado != SEM_BLOCO) {
+                    proximo = reservado;
+                    limite = reservado + tamanhoBloco;
+                    reservado = SEM_BLOCO;
+                } else if (reservando) {
+                    aguardarReserva();
+                } else {
+                    // Nenhum bloco a caminho (primeiro uso ou a antecipação falhou)
+                    proximo = reservarBloco.getAsLong();
+                    limite = proximo + tamanhoBloco;
+                }
+            }
+            id = proximo++;
+            if (reservando || reservado != SEM_BLOCO || limite - proximo > tamanhoBloco / 2) {
+                return id;
+            }
+            reservando = true;
+        }
+
+        long bloco = SEM_BLOCO;
+        try {
+            bloco = reservarBloco.getAsLong();
+        } catch (RuntimeException e) {
+            // O id deste chamador já é válido; quem esgotar o bloco tenta reservar de novo
+            log.warn("Falha ao reservar o próximo bloco de ids antecipadamente: {}", e.getMessage());
+        } finally {
+            synchronized (this) {
+                reservado = bloco;
+                reservando = false;
+                notifyAll();
+            }
+        }
+        return id;
+    }
+
+    private void aguardarReserva() {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando a reserva de um bloco de ids", e);
+        }
+    }
+}
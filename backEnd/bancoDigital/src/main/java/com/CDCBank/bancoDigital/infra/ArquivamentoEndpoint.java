@@ -0,0 +1,34 @@
+package com.CDCBank.bancoDigital.infra;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import com.CDCBank.bancoDigital.dto.response.ArquivamentoDTO;
+import com.CDCBank.bancoDigital.service.ArquivamentoTransacoesService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Endpoint do actuator para o arquivamento das transações antigas em transacao_arquivo.
+ * POST inicia uma execução em segundo plano; GET mostra progresso e vazão. Não é exposto
+ * por padrão: incluir {@code arquivamento} em {@code management.endpoints.web.exposure.include}.
+ */
+@Component
+@Endpoint(id = "arquivamento")
+@RequiredArgsConstructor
+public class ArquivamentoEndpoint {
+
+    private final ArquivamentoTransacoesService arquivamentoTransacoesService;
+
+    @ReadOperation
+    public ArquivamentoDTO progresso() {
+        return arquivamentoTransacoesService.progresso();
+    }
+
+    @WriteOperation
+    public ArquivamentoDTO iniciar() {
+        return arquivamentoTransacoesService.iniciarArquivamento();
+    }
+}
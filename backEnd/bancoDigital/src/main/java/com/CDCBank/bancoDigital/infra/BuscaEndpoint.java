@@ -0,0 +1,35 @@
+package com.CDCBank.bancoDigital.infra;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import com.CDCBank.bancoDigital.dto.response.IndiceBuscaDTO;
+import com.CDCBank.bancoDigital.service.IndiceBuscaTransacoes;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Endpoint do actuator para o índice de busca das descrições de transação. GET mostra o
+ * estado e o tamanho do índice; POST reconstrói o índice a partir da tabela em segundo
+ * plano. Não é exposto por padrão: incluir {@code busca} em
+ * {@code management.endpoints.web.exposure.include}.
+ */
+@Component
+@Endpoint(id = "busca")
+@RequiredArgsConstructor
+public class BuscaEndpoint {
+
+    private final IndiceBuscaTransacoes indiceBuscaTransacoes;
+
+    @ReadOperation
+    public IndiceBuscaDTO estatisticas() {
+        return indiceBuscaTransacoes.estatisticas();
+    }
+
+    @WriteOperation
+    public IndiceBuscaDTO reconstruir() {
+        return indiceBuscaTransacoes.iniciarReconstrucao();
+    }
+}
@@ -0,0 +1,35 @@
+package com.CDCBank.bancoDigital.infra;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import com.CDCBank.bancoDigital.dto.response.ConciliacaoSaldosDTO;
+import com.CDCBank.bancoDigital.service.ConciliacaoSaldosService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Endpoint do actuator para a conciliação dos saldos com o histórico de transações.
+ * POST inicia uma execução em segundo plano; GET mostra progresso, vazão e divergências.
+ * Não é exposto por padrão: incluir {@code conciliacao} em
+ * {@code management.endpoints.web.exposure.include}.
+ */
+@Component
+@Endpoint(id = "conciliacao")
+@RequiredArgsConstructor
+public class ConciliacaoEndpoint {
+
+    private final ConciliacaoSaldosService conciliacaoSaldosService;
+
+    @ReadOperation
+    public ConciliacaoSaldosDTO progresso() {
+        return conciliacaoSaldosService.progresso();
+    }
+
+    @WriteOperation
+    public ConciliacaoSaldosDTO iniciar() {
+        return conciliacaoSaldosService.iniciarConciliacao();
+    }
+}
@@ -0,0 +1,30 @@
+package com.CDCBank.bancoDigital.infra;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.CDCBank.bancoDigital.service.RetentativaOtimista;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Endpoint do actuator com as contas que mais sofreram conflitos de versão, para
+ * escolher entre os modos de transação conforme a carga real.
+ */
+@Component
+@Endpoint(id = "contencao")
+@RequiredArgsConstructor
+public class ContencaoEndpoint {
+
+    private static final int LIMITE = 20;
+
+    private final RetentativaOtimista retentativaOtimista;
+
+    @ReadOperation
+    public Map<Long, Long> contasComMaisConflitos() {
+        return retentativaOtimista.contasComMaisConflitos(LIMITE);
+    }
+}
@@ -0,0 +1,8 @@
+package com.CDCBank.bancoDigital.infra;
+
+public enum EstrategiaId {
+    /** Blocos de ids reservados na tabela bloco_id (hi/lo); um round trip por bloco. */
+    BLOCO,
+    /** Ids ordenados por tempo gerados em memória a partir do relógio e do número do nó. */
+    SNOWFLAKE
+}
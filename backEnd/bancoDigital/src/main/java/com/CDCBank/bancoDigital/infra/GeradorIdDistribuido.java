@@ -0,0 +1,130 @@
+package com.CDCBank.bancoDigital.infra;
+
+import java.lang.reflect.Member;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.EnumSet;
+import java.util.Map;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.jdbc.AbstractReturningWork;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gerador de ids das entidades anotadas com {@link IdDistribuido}. A estratégia vem das
+ * propriedades do Hibernate (em application.properties, com o prefixo spring.jpa.properties):
+ * <ul>
+ *   <li>{@code bancodigital.id.estrategia}: BLOCO (padrão) ou SNOWFLAKE</li>
+ *   <li>{@code bancodigital.id.tamanho-bloco}: ids reservados por ida ao banco (padrão 1000)</li>
+ *   <li>{@code bancodigital.id.no}: número do nó para SNOWFLAKE, de 0 a 15 (padrão 0)</li>
+ * </ul>
+ * Os blocos começam sempre depois do maior id existente na tabela, então é seguro
+ * migrar de sequence ou trocar de SNOWFLAKE para BLOCO.
+ */
+@Slf4j
+public class GeradorIdDistribuido implements BeforeExecutionGenerator {
+
+    private static final int TENTATIVAS_RESERVA = 3;
+
+    private final String tabela;
+    private final EstrategiaId estrategia;
+    private final AlocadorIdBloco alocadorBloco;
+    private final AlocadorIdSnowflake alocadorSnowflake;
+
+    // O Hibernate procura exatamente esta assinatura (anotação, membro, CustomIdGeneratorCreationContext)
+    public GeradorIdDistribuido(IdDistribuido config, Member membro, CustomIdGeneratorCreationContext contexto) {
+        Map<String, Object> propriedades = contexto.getServiceRegistry()
+            .requireService(ConfigurationService.class)
+            .getSettings();
+
+        this.tabela = config.value();
+        this.estrategia = EstrategiaId.valueOf(
+            String.valueOf(propriedades.getOrDefault("bancodigital.id.estrategia", EstrategiaId.BLOCO)).trim());
+        this.alocadorBloco = estrategia == EstrategiaId.BLOCO
+            ? new AlocadorIdBloco(inteiro(propriedades, "bancodigital.id.tamanho-bloco", 1000))
+            : null;
+        this.alocadorSnowflake = estrategia == EstrategiaId.SNOWFLAKE
+            ? new AlocadorIdSnowflake(inteiro(propriedades, "bancodigital.id.no", 0))
+            : null;
+        log.info("Ids da tabela {} gerados com a estratégia {}", tabela, estrategia);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor sessao, Object entidade, Object valorAtual, EventType evento) {
+        return switch (estrategia) {
+            case SNOWFLAKE -> alocadorSnowflake.proximo();
+            case BLOCO -> alocadorBloco.proximo(() -> reservarBloco(sessao));
+        };
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+
+    /**
+     * Reserva um bloco numa transação separada (como o TableGenerator do Hibernate), para
+     * que o lock em bloco_id dure só a reserva e não a transação de negócio.
+     */
+    private long reservarBloco(SharedSessionContractImplementor sessao) {
+        return sessao.getTransactionCoordinator().createIsolationDelegate().delegateWork(
+            new AbstractReturningWork<Long>() {
+                @Override
+                public Long execute(Connection conexao) throws SQLException {
+                    for (int tentativa = 1; ; tentativa++) {
+                        try {
+                            return reservar(conexao);
+                        } catch (SQLIntegrityConstraintViolationException e) {
+                            // Outro nó criou a linha de bloco_id ao mesmo tempo; a próxima tentativa a atualiza
+                            if (tentativa == TENTATIVAS_RESERVA) {
+                                throw e;
+                            }
+                        }
+                    }
+                }
+            }, true);
+    }
+
+    private long reservar(Connection conexao) throws SQLException {
+        Long proximo = null;
+        try (PreparedStatement consulta = conexao.prepareStatement("SELECT proximo FROM bloco_id WHERE nome = ? FOR UPDATE")) {
+            consulta.setString(1, tabela);
+            try (ResultSet rs = consulta.executeQuery()) {
+                if (rs.next()) {
+                    proximo = rs.getLong(1);
+                }
+            }
+        }
+
+        long inicio;
+        try (PreparedStatement maximo = conexao.prepareStatement("SELECT COALESCE(MAX(id), 0) + 1 FROM " + tabela);
+                ResultSet rs = maximo.executeQuery()) {
+            rs.next();
+            inicio = proximo == null ? rs.getLong(1) : Math.max(proximo, rs.getLong(1));
+        }
+
+        String sql = proximo == null
+            ? "INSERT INTO bloco_id (proximo, nome) VALUES (?, ?)"
+            : "UPDATE bloco_id SET proximo = ? WHERE nome = ?";
+        try (PreparedStatement atualizacao = conexao.prepareStatement(sql)) {
+            atualizacao.setLong(1, inicio + alocadorBloco.getTamanhoBloco());
+            atualizacao.setString(2, tabela);
+            atualizacao.executeUpdate();
+        }
+        return inicio;
+    }
+
+    private static int inteiro(Map<String, Object> propriedades, String chave, int padrao) {
+        Object valor = propriedades.get(chave);
+        return valor == null ? padrao : Integer.parseInt(valor.toString().trim());
+    }
+}
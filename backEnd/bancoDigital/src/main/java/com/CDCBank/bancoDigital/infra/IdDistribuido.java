@@ -0,0 +1,20 @@
+package com.CDCBank.bancoDigital.infra;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Id gerado pelo {@link GeradorIdDistribuido}, sem round trip ao banco por insert.
+ * O valor é o nome da tabela da entidade, usado como chave em bloco_id.
+ */
+@IdGeneratorType(GeradorIdDistribuido.class)
+@Retention(RUNTIME)
+@Target(FIELD)
+public @interface IdDistribuido {
+    String value();
+}
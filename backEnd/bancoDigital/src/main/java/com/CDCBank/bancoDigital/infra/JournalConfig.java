@@ -0,0 +1,26 @@
+package com.CDCBank.bancoDigital.infra;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cria o journal de transações quando {@code transacao.journal.habilitado=true}.
+ */
+@Configuration
+public class JournalConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "transacao.journal.habilitado", havingValue = "true")
+    public JournalTransacoes journalTransacoes(
+            @Value("${transacao.journal.diretorio:./journal}") String diretorio,
+            @Value("${transacao.journal.registros-por-segmento:16384}") int registrosPorSegmento,
+            @Value("${transacao.journal.fsync:INTERVALO}") PoliticaFsync politica,
+            @Value("${transacao.journal.intervalo-fsync:10ms}") Duration intervaloFsync) {
+        return new JournalTransacoes(Path.of(diretorio), registrosPorSegmento, politica, intervaloFsync);
+    }
+}
@@ -0,0 +1,364 @@
+package com.CDCBank.bancoDigital.infra;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Journal local (write-ahead) das transações aceitas e ainda não confirmadas no banco.
+ *
+ * Registros de tamanho fixo são gravados em segmentos mapeados em memória; o status de
+ * cada registro (PENDENTE, APLICADO, DESCARTADO) é alterado no próprio lugar. Um segmento
+ * é apagado quando não está mais ativo e não tem registros pendentes. Na abertura, os
+ * segmentos existentes são lidos e os registros pendentes ficam disponíveis para replay;
+ * novas gravações sempre vão para um segmento novo.
+ *
+ * Layout do registro ({@value #TAMANHO_REGISTRO} bytes):
+ * <pre>
+ *  0 int   magic (gravado por último)
+ *  4 byte  status
+ *  8 long  protocolo (bits mais significativos)
+ * 16 long  protocolo (bits menos significativos)
+ * 24 long  id do remetente
+ * 32 long  id do destinatário
+ * 40 long  valor em centavos
+ * 48 long  recebido em (epoch ms)
+ * 56 short tamanho da descrição em bytes UTF-8 (-1 = nula)
+ * 60 int   CRC32C dos bytes 8..59 e da descrição
+ * 64       descrição
+ * </pre>
+ * O magic só é escrito depois do resto do registro, e o CRC descarta registros
+ * parcialmente persistidos após uma queda do sistema operacional.
+ */
+@Slf4j
+public class JournalTransacoes implements Closeable {
+
+    public static final int TAMANHO_REGISTRO = 2064;
+    public static final int TAMANHO_MAXIMO_DESCRICAO = TAMANHO_REGISTRO - 64;
+
+    private static final int MAGIC = 0x57414C31; // "WAL1"
+    private static final byte PENDENTE = 1;
+    private static final byte APLICADO = 2;
+    private static final byte DESCARTADO = 3;
+
+    private static final int OFFSET_STATUS = 4;
+    private static final int OFFSET_DADOS = 8;
+    private static final int OFFSET_TAMANHO_DESCRICAO = 56;
+    private static final int OFFSET_CRC = 60;
+    private static final int OFFSET_DESCRICAO = 64;
+
+    public record Registro(long posicao, UUID protocolo, long idRemetente, long idDestinatario,
+            long valorCentavos, long recebidoEm, String descricao) {}
+
+    private static final class Segmento {
+        final long numero;
+        final Path arquivo;
+        final FileChannel canal;
+        final MappedByteBuffer buffer;
+        final int capacidade;
+        final AtomicInteger pendentes = new AtomicInteger();
+        volatile boolean ativo;
+
+        Segmento(long numero, Path arquivo, FileChannel canal, MappedByteBuffer buffer, int capacidade) {
+            this.numero = numero;
+            this.arquivo = arquivo;
+            this.canal = canal;
+            this.buffer = buffer;
+            this.capacidade = capacidade;
+        }
+    }
+
+    private final Path diretorio;
+    private final int registrosPorSegmento;
+    private final PoliticaFsync politica;
+    private final Map<Long, Segmento> segmentos = new ConcurrentHashMap<>();
+    private final List<Registro> pendentesNaAbertura;
+    private final ScheduledExecutorService fsyncPeriodico;
+
+    // Trocado sob o monitor na rotação; volatile para a thread de fsync ver o segmento novo
+    private volatile Segmento ativo;
+    private int proximoSlot;
+
+    public JournalTransacoes(Path diretorio, int registrosPorSegmento, PoliticaFsync politica, Duration intervaloFsync) {
+        if (registrosPorSegmento <= 0 || (long) registrosPorSegmento * TAMANHO_REGISTRO > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Quantidade de registros por segmento inválida: " + registrosPorSegmento);
+        }
+        if (politica == PoliticaFsync.INTERVALO && intervaloFsync.toMillis() < 1) {
+            throw new IllegalArgumentException(
+                "transacao.journal.intervalo-fsync deve ser de pelo menos 1ms com fsync INTERVALO: " + intervaloFsync);
+        }
+        this.diretorio = diretorio;
+        this.registrosPorSegmento = registrosPorSegmento;
+        this.politica = politica;
+
+        try {
+            Files.createDirectories(diretorio);
+            List<Registro> pendentes = new ArrayList<>();
+            long ultimoNumero = 0;
+            for (Path arquivo : listarSegmentos()) {
+                Segmento segmento = mapear(arquivo);
+                ultimoNumero = segmento.numero;
+                ler(segmento, pendentes);
+                liberarSeConcluido(segmento);
+            }
+            pendentesNaAbertura = Collections.unmodifiableList(pendentes);
+            abrirSegmento(ultimoNumero + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao abrir o journal de transações em " + diretorio, e);
+        }
+
+        if (politica == PoliticaFsync.INTERVALO) {
+            fsyncPeriodico = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "journal-fsync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalo = intervaloFsync.toMillis();
+            fsyncPeriodico.scheduleWithFixedDelay(this::forcarAtivo, intervalo, intervalo, TimeUnit.MILLISECONDS);
+        } else {
+            fsyncPeriodico = null;
+        }
+    }
+
+    /**
+     * Registros pendentes encontrados na abertura, em ordem de gravação.
+     */
+    public List<Registro> pendentes() {
+        return pendentesNaAbertura;
+    }
+
+    /**
+     * Grava um registro pendente e devolve sua posição. Com {@link PoliticaFsync#SEMPRE}
+     * só retorna depois do registro estar no disco.
+     */
+    public long registrar(UUID protocolo, long idRemetente, long idDestinatario, long valorCentavos, String descricao) {
+        byte[] bytesDescricao = descricao == null ? null : descricao.getBytes(StandardCharsets.UTF_8);
+        if (bytesDescricao != null && bytesDescricao.length > TAMANHO_MAXIMO_DESCRICAO) {
+            throw new IllegalArgumentException("Descrição excede o tamanho do registro do journal");
+        }
+
+        ByteBuffer registro = ByteBuffer.allocate(TAMANHO_REGISTRO - OFFSET_DADOS);
+        registro.putLong(protocolo.getMostSignificantBits())
+            .putLong(protocolo.getLeastSignificantBits())
+            .putLong(idRemetente)
+            .putLong(idDestinatario)
+            .putLong(valorCentavos)
+            .putLong(System.currentTimeMillis())
+            .putShort((short) (bytesDescricao == null ? -1 : bytesDescricao.length))
+            .putShort((short) 0);
+        int crcOffset = registro.position();
+        registro.putInt(0);
+        if (bytesDescricao != null) {
+            registro.put(bytesDescricao);
+        }
+        int tamanho = registro.position();
+        registro.putInt(crcOffset, crc(registro.array(), 0, crcOffset, bytesDescricao));
+
+        synchronized (this) {
+            if (proximoSlot == ativo.capacidade) {
+                rotacionar();
+            }
+            Segmento segmento = ativo;
+            int slot = proximoSlot++;
+            int inicio = slot * TAMANHO_REGISTRO;
+
+            segmento.buffer.put(inicio + OFFSET_DADOS, registro.array(), 0, tamanho);
+            segmento.buffer.put(inicio + OFFSET_STATUS, PENDENTE);
+            segmento.buffer.putInt(inicio, MAGIC);
+            segmento.pendentes.incrementAndGet();
+
+            if (politica == PoliticaFsync.SEMPRE) {
+                segmento.buffer.force(inicio, TAMANHO_REGISTRO);
+            }
+            return posicao(segmento, slot);
+        }
+    }
+
+    public void marcarAplicado(long posicao) {
+        marcar(posicao, APLICADO);
+    }
+
+    public void marcarDescartado(long posicao) {
+        marcar(posicao, DESCARTADO);
+    }
+
+    private void marcar(long posicao, byte status) {
+        Segmento segmento = segmentos.get(posicao >>> 32);
+        if (segmento == null) {
+            return;
+        }
+        int inicio = (int) posicao * TAMANHO_REGISTRO;
+        synchronized (segmento) {
+            if (segmento.buffer.get(inicio + OFFSET_STATUS) != PENDENTE) {
+                return;
+            }
+            segmento.buffer.put(inicio + OFFSET_STATUS, status);
+        }
+        if (segmento.pendentes.decrementAndGet() == 0) {
+            liberarSeConcluido(segmento);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (fsyncPeriodico != null) {
+            fsyncPeriodico.shutdownNow();
+        }
+        for (Segmento segmento : segmentos.values()) {
+            if (politica != PoliticaFsync.NUNCA) {
+                segmento.buffer.force();
+            }
+            fechar(segmento);
+        }
+        segmentos.clear();
+    }
+
+    private void forcarAtivo() {
+        try {
+            Segmento segmento = ativo;
+            if (segmento != null) {
+                segmento.buffer.force();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Falha no fsync do journal de transações: {}", e.getMessage());
+        }
+    }
+
+    private void rotacionar() {
+        Segmento anterior = ativo;
+        if (politica != PoliticaFsync.NUNCA) {
+            anterior.buffer.force();
+        }
+        try {
+            abrirSegmento(anterior.numero + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao criar segmento do journal de transações", e);
+        }
+        anterior.ativo = false;
+        liberarSeConcluido(anterior);
+    }
+
+    private void abrirSegmento(long numero) throws IOException {
+        Segmento segmento = mapear(diretorio.resolve(String.format("journal-%010d.wal", numero)));
+        segmento.ativo = true;
+        ativo = segmento;
+        proximoSlot = 0;
+    }
+
+    private Segmento mapear(Path arquivo) throws IOException {
+        String nome = arquivo.getFileName().toString();
+        long numero = Long.parseLong(nome.substring("journal-".length(), nome.length() - ".wal".length()));
+        FileChannel canal = FileChannel.open(arquivo,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Segmentos já existentes mantêm a capacidade com que foram criados
+        int capacidade = canal.size() >= TAMANHO_REGISTRO
+            ? (int) (canal.size() / TAMANHO_REGISTRO)
+            : registrosPorSegmento;
+        MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacidade * TAMANHO_REGISTRO);
+        Segmento segmento = new Segmento(numero, arquivo, canal, buffer, capacidade);
+        segmentos.put(numero, segmento);
+        return segmento;
+    }
+
+    private void ler(Segmento segmento, List<Registro> pendentes) {
+        ByteBuffer buffer = segmento.buffer;
+        for (int slot = 0; slot < segmento.capacidade; slot++) {
+            int inicio = slot * TAMANHO_REGISTRO;
+            if (buffer.getInt(inicio) != MAGIC || buffer.get(inicio + OFFSET_STATUS) != PENDENTE) {
+                continue;
+            }
+
+            short tamanhoDescricao = buffer.getShort(inicio + OFFSET_TAMANHO_DESCRICAO);
+            if (tamanhoDescricao < -1 || tamanhoDescricao > TAMANHO_MAXIMO_DESCRICAO) {
+                log.warn("Registro corrompido no journal {} (slot {}), ignorado", segmento.arquivo, slot);
+                continue;
+            }
+            byte[] dados = new byte[OFFSET_CRC - OFFSET_DADOS];
+            buffer.get(inicio + OFFSET_DADOS, dados);
+            byte[] descricao = tamanhoDescricao < 0 ? null : new byte[tamanhoDescricao];
+            if (descricao != null) {
+                buffer.get(inicio + OFFSET_DESCRICAO, descricao);
+            }
+            if (crc(dados, 0, dados.length, descricao) != buffer.getInt(inicio + OFFSET_CRC)) {
+                log.warn("Registro incompleto no journal {} (slot {}), ignorado", segmento.arquivo, slot);
+                continue;
+            }
+
+            ByteBuffer campos = ByteBuffer.wrap(dados);
+            pendentes.add(new Registro(
+                posicao(segmento, slot),
+                new UUID(campos.getLong(), campos.getLong()),
+                campos.getLong(),
+                campos.getLong(),
+                campos.getLong(),
+                campos.getLong(),
+                descricao == null ? null : new String(descricao, StandardCharsets.UTF_8)));
+            segmento.pendentes.incrementAndGet();
+        }
+    }
+
+    private void liberarSeConcluido(Segmento segmento) {
+        if (segmento.ativo || segmento.pendentes.get() > 0 || segmentos.remove(segmento.numero) == null) {
+            return;
+        }
+        fechar(segmento);
+        try {
+            Files.deleteIfExists(segmento.arquivo);
+        } catch (IOException e) {
+            log.warn("Não foi possível apagar o segmento {} do journal: {}", segmento.arquivo, e.getMessage());
+        }
+    }
+
+    private void fechar(Segmento segmento) {
+        try {
+            segmento.canal.close();
+        } catch (IOException e) {
+            log.warn("Falha ao fechar o segmento {} do journal: {}", segmento.arquivo, e.getMessage());
+        }
+    }
+
+    private List<Path> listarSegmentos() throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos
+                .filter(p -> p.getFileName().toString().matches("journal-\\d{10}\\.wal"))
+                .sorted()
+                .toList();
+        }
+    }
+
+    // Número do segmento nos 32 bits altos, slot nos baixos
+    private static long posicao(Segmento segmento, int slot) {
+        return segmento.numero << 32 | slot;
+    }
+
+    private static int crc(byte[] dados, int inicio, int fim, byte[] descricao) {
+        CRC32C crc = new CRC32C();
+        crc.update(dados, inicio, fim - inicio);
+        if (descricao != null) {
+            crc.update(descricao);
+        }
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,76 @@
+package com.CDCBank.bancoDigital.infra;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.CDCBank.bancoDigital.util.BaldeTokens;
+
+/**
+ * Um token bucket por usuário para um endpoint. O mapa é limitado: baldes sem uso há
+ * mais de {@code ociosoMs} são removidos periodicamente e, se o mapa encher antes disso,
+ * na hora de criar um balde novo. Um usuário removido volta com o balde cheio.
+ */
+public class LimitadorTaxa {
+
+    private final String nome;
+    private final int capacidade;
+    private final int porSegundo;
+    private final long ociosoMs;
+    private final int maximoUsuarios;
+    private final long origemNanos = System.nanoTime();
+    private final Map<Long, BaldeTokens> baldes = new ConcurrentHashMap<>();
+
+    public LimitadorTaxa(String nome, int capacidade, int porSegundo, long ociosoMs, int maximoUsuarios) {
+        this.nome = nome;
+        this.capacidade = capacidade;
+        this.porSegundo = porSegundo;
+        this.ociosoMs = ociosoMs;
+        this.maximoUsuarios = maximoUsuarios;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    /**
+     * @return 0 se a requisição pode seguir, senão os milissegundos até a próxima permitida
+     */
+    public long tentarConsumir(Long idUsuario) {
+        long agora = agoraMs();
+        BaldeTokens balde = baldes.get(idUsuario);
+        if (balde == null) {
+            if (baldes.size() >= maximoUsuarios) {
+                liberarEspaco(agora);
+            }
+            balde = baldes.computeIfAbsent(idUsuario, id -> new BaldeTokens(capacidade, porSegundo, agora));
+        }
+        return balde.tentarConsumir(agora);
+    }
+
+    public void removerOciosos() {
+        long limite = agoraMs() - ociosoMs;
+        baldes.values().removeIf(balde -> balde.ultimaAtividadeMs() < limite);
+    }
+
+    public int quantidadeUsuarios() {
+        return baldes.size();
+    }
+
+    private synchronized void liberarEspaco(long agora) {
+        if (baldes.size() < maximoUsuarios) {
+            return;
+        }
+        removerOciosos();
+        // Ainda cheio: descarta os primeiros da iteração até abrir 10% de espaço
+        Iterator<BaldeTokens> iterador = baldes.values().iterator();
+        for (int excedente = baldes.size() - maximoUsuarios * 9 / 10; excedente > 0 && iterador.hasNext(); excedente--) {
+            iterador.next();
+            iterador.remove();
+        }
+    }
+
+    private long agoraMs() {
+        return (System.nanoTime() - origemNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,61 @@
+package com.CDCBank.bancoDigital.infra;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Limite de requisições por usuário nos endpoints de transação, configurável por
+ * endpoint em {@code transacao.limite.<endpoint>.capacidade} (rajada) e
+ * {@code transacao.limite.<endpoint>.por-segundo} (taxa sustentada).
+ */
+@Configuration
+@ConditionalOnProperty(name = "transacao.limite.habilitado", havingValue = "true", matchIfMissing = true)
+public class LimiteTaxaConfig implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+    private final LimitadorTaxa realizar;
+    private final LimitadorTaxa lote;
+    private final LimitadorTaxa historico;
+
+    public LimiteTaxaConfig(
+            ObjectMapper objectMapper,
+            @Value("${transacao.limite.ocioso:10m}") Duration ocioso,
+            @Value("${transacao.limite.maximo-usuarios:100000}") int maximoUsuarios,
+            @Value("${transacao.limite.realizar.capacidade:20}") int capacidadeRealizar,
+            @Value("${transacao.limite.realizar.por-segundo:10}") int porSegundoRealizar,
+            @Value("${transacao.limite.lote.capacidade:5}") int capacidadeLote,
+            @Value("${transacao.limite.lote.por-segundo:1}") int porSegundoLote,
+            @Value("${transacao.limite.historico.capacidade:30}") int capacidadeHistorico,
+            @Value("${transacao.limite.historico.por-segundo:15}") int porSegundoHistorico) {
+        this.objectMapper = objectMapper;
+        long ociosoMs = ocioso.toMillis();
+        this.realizar = new LimitadorTaxa("realizar", capacidadeRealizar, porSegundoRealizar, ociosoMs, maximoUsuarios);
+        this.lote = new LimitadorTaxa("lote", capacidadeLote, porSegundoLote, ociosoMs, maximoUsuarios);
+        this.historico = new LimitadorTaxa("historico", capacidadeHistorico, porSegundoHistorico, ociosoMs, maximoUsuarios);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new LimiteTaxaInterceptor(realizar, objectMapper))
+            .addPathPatterns("/api/transacoes/realizar");
+        registry.addInterceptor(new LimiteTaxaInterceptor(lote, objectMapper))
+            .addPathPatterns("/api/transacoes/lote");
+        registry.addInterceptor(new LimiteTaxaInterceptor(historico, objectMapper))
+            .addPathPatterns("/api/transacoes/historico", "/api/transacoes/historico/**", "/api/transacoes/export",
+                "/api/transacoes/resumo", "/api/transacoes/busca");
+    }
+
+    @Scheduled(fixedDelayString = "${transacao.limite.intervalo-limpeza:1m}")
+    public void removerOciosos() {
+        List.of(realizar, lote, historico).forEach(LimitadorTaxa::removerOciosos);
+    }
+}
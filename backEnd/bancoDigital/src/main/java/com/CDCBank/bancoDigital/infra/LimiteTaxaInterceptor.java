@@ -0,0 +1,48 @@
+package com.CDCBank.bancoDigital.infra;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.CDCBank.bancoDigital.dto.error.ErrorResponseDTO;
+import com.CDCBank.bancoDigital.models.Usuario;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Aplica o {@link LimitadorTaxa} ao usuário autenticado. Requisições acima do limite
+ * recebem 429 com Retry-After (em segundos) sem chegar ao controller nem ao banco.
+ */
+@RequiredArgsConstructor
+public class LimiteTaxaInterceptor implements HandlerInterceptor {
+
+    private final LimitadorTaxa limitador;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof Usuario usuario)) {
+            return true;
+        }
+
+        long esperaMs = limitador.tentarConsumir(usuario.getId());
+        if (esperaMs == 0) {
+            return true;
+        }
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, (esperaMs + 999) / 1000)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getWriter(), new ErrorResponseDTO("LIMITE_EXCEDIDO",
+            "Muitas requisições em " + limitador.getNome() + ", tente novamente em instantes"));
+        return false;
+    }
+}
@@ -0,0 +1,34 @@
+package com.CDCBank.bancoDigital.infra;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import com.CDCBank.bancoDigital.dto.response.ReconstrucaoSaldosDTO;
+import com.CDCBank.bancoDigital.service.ReconstrucaoSaldosService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Endpoint do actuator para a reconstrução de saldos a partir do livro razão.
+ * GET apenas verifica; POST corrige as contas divergentes. Não é exposto por padrão:
+ * incluir {@code livrorazao} em {@code management.endpoints.web.exposure.include}.
+ */
+@Component
+@Endpoint(id = "livrorazao")
+@RequiredArgsConstructor
+public class LivroRazaoEndpoint {
+
+    private final ReconstrucaoSaldosService reconstrucaoSaldosService;
+
+    @ReadOperation
+    public ReconstrucaoSaldosDTO verificar() {
+        return reconstrucaoSaldosService.reconstruir(false);
+    }
+
+    @WriteOperation
+    public ReconstrucaoSaldosDTO reconstruir() {
+        return reconstrucaoSaldosService.reconstruir(true);
+    }
+}
@@ -0,0 +1,52 @@
+package com.CDCBank.bancoDigital.infra;
+
+import java.util.List;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.CDCBank.bancoDigital.service.LivroRazaoService;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cria o snapshot de abertura do livro razão para contas que ainda não têm um,
+ * usando o saldo atual (principal mais faixas). Roda na inicialização, depois da
+ * migração para centavos; contas novas recebem o snapshot na criação.
+ */
+@Component
+@DependsOn("migracaoSaldoCentavos")
+@RequiredArgsConstructor
+@Slf4j
+public class MigracaoLivroRazao {
+
+    private static final int CONTAS_POR_TRANSACAO = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LivroRazaoService livroRazaoService;
+
+    @PostConstruct
+    void migrar() {
+        List<Long[]> contas = jdbcTemplate.query("""
+            SELECT u.id, u.saldo_centavos + COALESCE((SELECT SUM(s.saldo_centavos) FROM sub_saldo s WHERE s.id_usuario = u.id), 0)
+            FROM usuario u
+            WHERE NOT EXISTS (SELECT 1 FROM snapshot_saldo a WHERE a.id_usuario = u.id AND a.abertura = true)
+            """, (rs, i) -> new Long[] {rs.getLong(1), rs.getLong(2)});
+
+        if (contas.isEmpty()) {
+            return;
+        }
+
+        log.info("Criando snapshot de abertura do livro razão para {} contas", contas.size());
+        for (int i = 0; i < contas.size(); i += CONTAS_POR_TRANSACAO) {
+            List<Long[]> parte = contas.subList(i, Math.min(i + CONTAS_POR_TRANSACAO, contas.size()));
+            transactionTemplate.executeWithoutResult(status ->
+                parte.forEach(conta -> livroRazaoService.abrirConta(conta[0], conta[1])));
+        }
+    }
+}
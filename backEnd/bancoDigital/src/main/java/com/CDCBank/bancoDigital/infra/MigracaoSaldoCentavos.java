@@ -0,0 +1,45 @@
+package com.CDCBank.bancoDigital.infra;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Migra as colunas FLOAT {@code saldo} e {@code renda_mensal} da tabela usuario para
+ * {@code saldo_centavos} e {@code renda_mensal_centavos} (BIGINT).
+ *
+ * Depende do EntityManagerFactory para rodar depois do ddl-auto ter criado as novas
+ * colunas e antes do servidor web aceitar requisições. Não faz nada se as colunas
+ * antigas já tiverem sido removidas.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MigracaoSaldoCentavos {
+
+    private final JdbcTemplate jdbcTemplate;
+    @SuppressWarnings("unused")
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    void migrar() {
+        Integer colunasAntigas = jdbcTemplate.queryForObject("""
+            SELECT COUNT(*) FROM information_schema.columns
+            WHERE table_schema = DATABASE() AND table_name = 'usuario' AND column_name IN ('saldo', 'renda_mensal')
+            """, Integer.class);
+
+        if (colunasAntigas == null || colunasAntigas < 2) {
+            return;
+        }
+
+        log.info("Migrando saldos de FLOAT para centavos (BIGINT)");
+        int migrados = jdbcTemplate.update(
+            "UPDATE usuario SET saldo_centavos = ROUND(saldo * 100), renda_mensal_centavos = ROUND(renda_mensal * 100)");
+        jdbcTemplate.execute("ALTER TABLE usuario DROP COLUMN saldo, DROP COLUMN renda_mensal");
+        log.info("Migração de saldos concluída - {} usuários", migrados);
+    }
+}
@@ -0,0 +1,13 @@
+package com.CDCBank.bancoDigital.infra;
+
+/**
+ * Quando o journal força as páginas mapeadas para o disco.
+ */
+public enum PoliticaFsync {
+    /** A cada registro, antes de devolver o aceite. */
+    SEMPRE,
+    /** Periodicamente, em segundo plano; uma queda do SO pode perder o último intervalo. */
+    INTERVALO,
+    /** Nunca explicitamente; o SO decide. Sobrevive à queda do processo, não à do SO. */
+    NUNCA
+}
@@ -0,0 +1,34 @@
+package com.CDCBank.bancoDigital.infra;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import com.CDCBank.bancoDigital.dto.response.ReconstrucaoResumoMensalDTO;
+import com.CDCBank.bancoDigital.service.ReconstrucaoResumoMensalService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Endpoint do actuator para a reconstrução da tabela resumo_mensal a partir das transações.
+ * POST inicia uma execução em segundo plano; GET mostra progresso e vazão. Não é exposto
+ * por padrão: incluir {@code resumomensal} em {@code management.endpoints.web.exposure.include}.
+ */
+@Component
+@Endpoint(id = "resumomensal")
+@RequiredArgsConstructor
+public class ResumoMensalEndpoint {
+
+    private final ReconstrucaoResumoMensalService reconstrucaoResumoMensalService;
+
+    @ReadOperation
+    public ReconstrucaoResumoMensalDTO progresso() {
+        return reconstrucaoResumoMensalService.progresso();
+    }
+
+    @WriteOperation
+    public ReconstrucaoResumoMensalDTO iniciar() {
+        return reconstrucaoResumoMensalService.iniciarReconstrucao();
+    }
+}
@@ -70,7 +70,8 @@ public class SecurityConfig {
             "Content-Type", 
             "Accept",
             "X-Requested-With",
-            "Cache-Control"
+            "Cache-Control",
+            "Idempotency-Key"
         ));
         
         
@@ -79,7 +80,8 @@ public class SecurityConfig {
     
         configuration.setExposedHeaders(Arrays.asList(
             "Authorization",
-            "Set-Cookie"
+            "Set-Cookie",
+            "Retry-After"
         ));
         
         
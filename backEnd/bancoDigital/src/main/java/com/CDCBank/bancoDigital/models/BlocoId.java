@@ -0,0 +1,24 @@
+package com.CDCBank.bancoDigital.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Próximo id livre de cada tabela que usa a estratégia de blocos do
+ * {@link com.CDCBank.bancoDigital.infra.GeradorIdDistribuido}. Mapeada como entidade
+ * só para o ddl-auto criar a tabela; é lida e atualizada via JDBC pelo gerador.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "bloco_id")
+public class BlocoId {
+
+    @Id
+    @Column(length = 64)
+    private String nome;
+
+    @Column(nullable = false)
+    private long proximo;
+}
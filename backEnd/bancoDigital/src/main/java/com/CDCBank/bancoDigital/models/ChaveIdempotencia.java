@@ -0,0 +1,43 @@
+package com.CDCBank.bancoDigital.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "chave_idempotencia",
+    uniqueConstraints = @UniqueConstraint(name = "uk_chave_idempotencia_usuario", columnNames = {"id_usuario", "chave"}),
+    indexes = @Index(name = "idx_chave_idempotencia_criada_em", columnList = "criada_em"))
+public class ChaveIdempotencia {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "chave_idempotencia_seq")
+    @SequenceGenerator(name = "chave_idempotencia_seq", sequenceName = "chave_idempotencia_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "id_usuario", nullable = false)
+    private Long usuarioId;
+
+    @Column(nullable = false, length = 100)
+    private String chave;
+
+    // SHA-256 de destinatário, valor e descrição; nulo nas linhas anteriores ao hash
+    @Column(name = "hash_requisicao", length = 64)
+    private String hashRequisicao;
+
+    // TransacaoResponseDTO serializado em JSON
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String resposta;
+
+    @Column(name = "criada_em", nullable = false)
+    private LocalDateTime criadaEm;
+
+    @PrePersist
+    protected void onCreate() {
+        criadaEm = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,53 @@
+package com.CDCBank.bancoDigital.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Lançamento do livro razão (partidas dobradas). Cada transação gera um débito no
+ * remetente e um crédito no destinatário; a tabela só recebe inserts.
+ *
+ * O id é IDENTITY de propósito: é atribuído no INSERT, que sempre acontece depois do
+ * lock da conta (linha em usuario ou faixa de saldo), então para uma mesma conta os
+ * ids crescem na ordem de commit e os snapshots podem usar "id > último id".
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "lancamento",
+    indexes = {
+        @Index(name = "idx_lancamento_usuario_id", columnList = "id_usuario, id"),
+        @Index(name = "idx_lancamento_transacao", columnList = "id_transacao")
+    })
+public class Lancamento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Sem FK para transacao: o histórico de transações pode ser arquivado sem tocar no razão
+    @Column(name = "id_transacao", nullable = false)
+    private Long transacaoId;
+
+    @Column(name = "id_usuario", nullable = false)
+    private Long usuarioId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private TipoLancamento tipo;
+
+    // Negativo no débito, positivo no crédito
+    @Column(nullable = false)
+    private long valorCentavos;
+
+    @Column(nullable = false)
+    private LocalDateTime dataLancamento;
+
+    @PrePersist
+    protected void onCreate() {
+        dataLancamento = LocalDateTime.now();
+    }
+}
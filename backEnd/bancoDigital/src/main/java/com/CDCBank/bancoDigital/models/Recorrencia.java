@@ -0,0 +1,23 @@
+package com.CDCBank.bancoDigital.models;
+
+import java.time.LocalDateTime;
+
+public enum Recorrencia {
+    UNICA,
+    SEMANAL,
+    MENSAL;
+
+    /**
+     * Data da ocorrência de número {@code indice} (0 = primeira), sempre calculada a partir
+     * do início para que um dia 31 não vire dia 28 para sempre depois de fevereiro.
+     *
+     * @return a data, ou null se a recorrência não tem essa ocorrência
+     */
+    public LocalDateTime ocorrencia(LocalDateTime inicio, int indice) {
+        return switch (this) {
+            case UNICA -> indice == 0 ? inicio : null;
+            case SEMANAL -> inicio.plusWeeks(indice);
+            case MENSAL -> inicio.plusMonths(indice);
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package com.CDCBank.bancoDigital.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Totais de um usuário num mês ({@code anoMes} = ano * 100 + mês), atualizados na mesma
+ * transação de cada transferência. A faixa 0 recebe os envios e os recebimentos comuns;
+ * créditos para contas distribuídas vão para as faixas 1..N, como em {@link SubSaldo},
+ * para não serializar os recebimentos numa única linha. O resumo do mês é a soma das faixas.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "resumo_mensal",
+    uniqueConstraints = @UniqueConstraint(name = "uk_resumo_mensal_usuario_mes_faixa",
+        columnNames = {"id_usuario", "ano_mes", "faixa"}))
+public class ResumoMensal {
+
+    // Linhas inseridas por upsert nativo, como os lançamentos
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "id_usuario", nullable = false)
+    private Long usuarioId;
+
+    @Column(name = "ano_mes", nullable = false)
+    private int anoMes;
+
+    @Column(nullable = false)
+    private int faixa;
+
+    @Column(nullable = false)
+    private long enviadoCentavos;
+
+    @Column(nullable = false)
+    private long quantidadeEnviadas;
+
+    @Column(nullable = false)
+    private long maiorEnvioCentavos;
+
+    @Column(nullable = false)
+    private long recebidoCentavos;
+
+    @Column(nullable = false)
+    private long quantidadeRecebidas;
+
+    @Column(nullable = false)
+    private long maiorRecebimentoCentavos;
+}
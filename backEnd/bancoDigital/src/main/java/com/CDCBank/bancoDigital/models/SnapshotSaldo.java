@@ -0,0 +1,45 @@
+package com.CDCBank.bancoDigital.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Saldo de uma conta até o lançamento {@code ultimoLancamentoId}, inclusive. O saldo
+ * atual é o snapshot mais recente somado aos lançamentos posteriores. O snapshot de
+ * abertura guarda o saldo inicial da conta e é o ponto de partida da reconstrução.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "snapshot_saldo",
+    indexes = @Index(name = "idx_snapshot_saldo_usuario", columnList = "id_usuario, ultimo_lancamento_id"))
+public class SnapshotSaldo {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "snapshot_saldo_seq")
+    @SequenceGenerator(name = "snapshot_saldo_seq", sequenceName = "snapshot_saldo_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "id_usuario", nullable = false)
+    private Long usuarioId;
+
+    @Column(nullable = false)
+    private long saldoCentavos;
+
+    @Column(name = "ultimo_lancamento_id", nullable = false)
+    private long ultimoLancamentoId;
+
+    @Column(nullable = false)
+    private boolean abertura;
+
+    @Column(nullable = false)
+    private LocalDateTime criadoEm;
+
+    @PrePersist
+    protected void onCreate() {
+        criadoEm = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,8 @@
+package com.CDCBank.bancoDigital.models;
+
+public enum StatusAgendamento {
+    ATIVA,
+    CONCLUIDA,
+    CANCELADA,
+    FALHOU
+}
@@ -0,0 +1,33 @@
+package com.CDCBank.bancoDigital.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Faixa de saldo de uma conta distribuída. Créditos para contas com muito volume
+ * de recebimento são espalhados entre várias faixas para não serializar tudo numa
+ * única linha de usuario; o saldo real é o saldo principal mais a soma das faixas.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "sub_saldo",
+    uniqueConstraints = @UniqueConstraint(name = "uk_sub_saldo_usuario_faixa", columnNames = {"id_usuario", "faixa"}))
+public class SubSaldo {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sub_saldo_seq")
+    @SequenceGenerator(name = "sub_saldo_seq", sequenceName = "sub_saldo_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "id_usuario", nullable = false)
+    private Long usuarioId;
+
+    @Column(nullable = false)
+    private int faixa;
+
+    @Column(nullable = false)
+    private long saldoCentavos;
+}
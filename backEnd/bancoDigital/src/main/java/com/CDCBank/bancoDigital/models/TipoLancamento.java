@@ -0,0 +1,6 @@
+package com.CDCBank.bancoDigital.models;
+
+public enum TipoLancamento {
+    DEBITO,
+    CREDITO
+}
@@ -2,6 +2,7 @@ package com.CDCBank.bancoDigital.models;
 
 import jakarta.persistence.*;
 import lombok.*;
+import com.CDCBank.bancoDigital.infra.IdDistribuido;
 import java.time.LocalDateTime;
 import java.math.BigDecimal;
 
@@ -10,12 +11,19 @@ import java.math.BigDecimal;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "transacao")
+@Table(name = "transacao",
+    uniqueConstraints = @UniqueConstraint(name = "uk_transacao_protocolo", columnNames = "protocolo"),
+    // Um índice por lado da transação: o histórico busca cada lado já na ordem de exibição
+    indexes = {
+        @Index(name = "idx_transacao_remetente_data", columnList = "id_remetente, data_transacao, id"),
+        @Index(name = "idx_transacao_destinatario_data", columnList = "id_destinatario, data_transacao, id"),
+        // O arquivamento percorre as transações mais antigas nesta ordem
+        @Index(name = "idx_transacao_data", columnList = "data_transacao, id")
+    })
 public class Transacao {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transacao_seq")
-    @SequenceGenerator(name = "transacao_seq", sequenceName = "transacao_seq", allocationSize = 1)
+    @IdDistribuido("transacao")
     private Long id;
     
     @Column(nullable = false)
@@ -34,6 +42,10 @@ public class Transacao {
     
     @Column(length = 500)
     private String descricao;
+
+    // Protocolo das transações assíncronas; evita aplicar duas vezes no replay do journal
+    @Column(length = 36)
+    private String protocolo;
     
     @PrePersist
     protected void onCreate() {
@@ -0,0 +1,72 @@
+package com.CDCBank.bancoDigital.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Transferência agendada, única ou recorrente. Cada execução vira uma transação comum;
+ * aqui ficam só a próxima data e o resultado da última execução.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "transacao_agendada",
+    indexes = {
+        @Index(name = "idx_transacao_agendada_status", columnList = "status, proxima_execucao"),
+        @Index(name = "idx_transacao_agendada_remetente", columnList = "id_remetente, proxima_execucao")
+    })
+public class TransacaoAgendada {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transacao_agendada_seq")
+    @SequenceGenerator(name = "transacao_agendada_seq", sequenceName = "transacao_agendada_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "id_remetente", nullable = false)
+    private Long remetenteId;
+
+    @Column(name = "id_destinatario", nullable = false)
+    private Long destinatarioId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal valor;
+
+    @Column(length = 500)
+    private String descricao;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Recorrencia recorrencia;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private StatusAgendamento status;
+
+    // Primeira ocorrência; as seguintes são calculadas a partir dela
+    @Column(name = "data_inicio", nullable = false)
+    private LocalDateTime dataInicio;
+
+    @Column(name = "proxima_execucao")
+    private LocalDateTime proximaExecucao;
+
+    @Column(nullable = false)
+    private int execucoes;
+
+    @Column(name = "ultima_execucao")
+    private LocalDateTime ultimaExecucao;
+
+    @Column(name = "ultimo_erro", length = 500)
+    private String ultimoErro;
+
+    @Column(name = "criada_em", nullable = false)
+    private LocalDateTime criadaEm;
+
+    @PrePersist
+    protected void onCreate() {
+        criadaEm = LocalDateTime.now();
+    }
+}
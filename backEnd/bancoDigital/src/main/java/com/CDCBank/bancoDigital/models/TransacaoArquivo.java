@@ -0,0 +1,49 @@
+package com.CDCBank.bancoDigital.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+import java.math.BigDecimal;
+
+/**
+ * Transação antiga movida de transacao pelo
+ * {@link com.CDCBank.bancoDigital.service.ArquivamentoTransacoesService}: mesmas colunas e
+ * mesmo id, com os mesmos índices por lado do histórico. As linhas só são gravadas por
+ * INSERT ... SELECT nativo, então os usuários ficam como ids, sem associação.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "transacao_arquivo",
+    uniqueConstraints = @UniqueConstraint(name = "uk_transacao_arquivo_protocolo", columnNames = "protocolo"),
+    indexes = {
+        @Index(name = "idx_transacao_arquivo_remetente_data", columnList = "id_remetente, data_transacao, id"),
+        @Index(name = "idx_transacao_arquivo_destinatario_data", columnList = "id_destinatario, data_transacao, id"),
+        // Para achar o que foi arquivado depois de um instante (reconstrução do índice de busca)
+        @Index(name = "idx_transacao_arquivo_data", columnList = "data_transacao, id")
+    })
+public class TransacaoArquivo {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDateTime dataTransacao;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal valor;
+
+    @Column(name = "id_remetente", nullable = false)
+    private Long remetenteId;
+
+    @Column(name = "id_destinatario", nullable = false)
+    private Long destinatarioId;
+
+    @Column(length = 500)
+    private String descricao;
+
+    @Column(length = 36)
+    private String protocolo;
+}
@@ -3,9 +3,15 @@ package com.CDCBank.bancoDigital.models;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import com.CDCBank.bancoDigital.infra.IdDistribuido;
+import com.CDCBank.bancoDigital.util.Centavos;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.math.BigDecimal;
 import java.util.Date;
 import java.util.Objects;
 import java.util.Collection;
@@ -21,9 +27,14 @@ import java.util.List;
 public class Usuario implements UserDetails {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_generator")
+    @IdDistribuido("usuario")
     private Long id;
 
+    // Controle de concorrência otimista; UPDATEs em massa de saldo também a incrementam
+    @Version
+    @JsonIgnore
+    private long versao;
+
     @Column(nullable = false)
     private String nome;
 
@@ -39,11 +50,33 @@ public class Usuario implements UserDetails {
     @Column(nullable = false)
     private String senha;
 
+    // Valores monetários em centavos; a conversão para decimal acontece só na API
+    @JsonIgnore
     @Column(nullable = false)
-    private Float saldo;
+    private long saldoCentavos;
     
+    @JsonIgnore
     @Column(nullable = false)
-    private Float rendaMensal; 
+    private long rendaMensalCentavos;
+
+    // Créditos vão para as faixas em sub_saldo em vez desta linha (contas com muito recebimento)
+    @Column(nullable = false)
+    private boolean contaDistribuida;
+
+    // Soma das faixas de sub_saldo, preenchida pelo UsuarioService para contas distribuídas
+    @Transient
+    @JsonIgnore
+    private long saldoFaixasCentavos;
+
+    @JsonProperty("saldo")
+    public BigDecimal getSaldo() {
+        return Centavos.paraValor(saldoCentavos + saldoFaixasCentavos);
+    }
+
+    @JsonProperty("rendaMensal")
+    public BigDecimal getRendaMensal() {
+        return Centavos.paraValor(rendaMensalCentavos);
+    }
 
    
     @Override
@@ -0,0 +1,26 @@
+package com.CDCBank.bancoDigital.repository;
+
+import com.CDCBank.bancoDigital.models.ChaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface ChaveIdempotenciaRepository extends JpaRepository<ChaveIdempotencia, Long> {
+
+    Optional<ChaveIdempotencia> findByUsuarioIdAndChave(Long usuarioId, String chave);
+
+    @Modifying
+    @Query("DELETE FROM ChaveIdempotencia c WHERE c.criadaEm < :limite")
+    int deleteExpiradas(@Param("limite") LocalDateTime limite);
+
+    @Modifying
+    @Query("DELETE FROM ChaveIdempotencia c WHERE c.usuarioId = :usuarioId AND c.chave = :chave AND c.criadaEm < :limite")
+    int deleteExpirada(@Param("usuarioId") Long usuarioId, @Param("chave") String chave,
+                       @Param("limite") LocalDateTime limite);
+}
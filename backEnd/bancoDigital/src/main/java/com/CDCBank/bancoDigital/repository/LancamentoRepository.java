@@ -0,0 +1,41 @@
+package com.CDCBank.bancoDigital.repository;
+
+import com.CDCBank.bancoDigital.models.Lancamento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LancamentoRepository extends JpaRepository<Lancamento, Long> {
+
+    /**
+     * Soma dos lançamentos da conta com id no intervalo (de, ate].
+     */
+    @Query("SELECT COALESCE(SUM(l.valorCentavos), 0) FROM Lancamento l " +
+           "WHERE l.usuarioId = :usuarioId AND l.id > :de AND l.id <= :ate")
+    long somarEntre(@Param("usuarioId") Long usuarioId, @Param("de") long de, @Param("ate") long ate);
+
+    @Query("SELECT COALESCE(MAX(l.id), 0) FROM Lancamento l WHERE l.usuarioId = :usuarioId")
+    long findUltimoId(@Param("usuarioId") Long usuarioId);
+
+    /**
+     * Contas com pelo menos {@code minimo} lançamentos depois do último snapshot.
+     */
+    @Query(value = """
+        SELECT l.id_usuario FROM lancamento l
+        JOIN (SELECT id_usuario, MAX(ultimo_lancamento_id) AS ultimo FROM snapshot_saldo GROUP BY id_usuario) s
+          ON s.id_usuario = l.id_usuario
+        WHERE l.id > s.ultimo
+        GROUP BY l.id_usuario
+        HAVING COUNT(*) >= :minimo
+        """, nativeQuery = true)
+    List<Long> findUsuariosParaSnapshot(@Param("minimo") int minimo);
+
+    @Modifying
+    @Query("DELETE FROM Lancamento l WHERE l.usuarioId = :usuarioId")
+    void deleteByUsuarioId(@Param("usuarioId") Long usuarioId);
+}
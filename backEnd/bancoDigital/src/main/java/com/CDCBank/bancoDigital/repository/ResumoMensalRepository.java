@@ -0,0 +1,48 @@
+package com.CDCBank.bancoDigital.repository;
+
+import com.CDCBank.bancoDigital.dto.projection.ResumoMensalTotais;
+import com.CDCBank.bancoDigital.models.ResumoMensal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ResumoMensalRepository extends JpaRepository<ResumoMensal, Long> {
+
+    String COLUNAS = """
+        resumo_mensal (id_usuario, ano_mes, faixa, enviado_centavos, quantidade_enviadas, maior_envio_centavos,
+                       recebido_centavos, quantidade_recebidas, maior_recebimento_centavos)
+        """;
+
+    // Soma ao que já existe na linha (usuario, mês, faixa); o maior valor fica com o máximo dos dois
+    String ACUMULAR_EXISTENTE = """
+        ON DUPLICATE KEY UPDATE
+            enviado_centavos = enviado_centavos + VALUES(enviado_centavos),
+            quantidade_enviadas = quantidade_enviadas + VALUES(quantidade_enviadas),
+            maior_envio_centavos = GREATEST(maior_envio_centavos, VALUES(maior_envio_centavos)),
+            recebido_centavos = recebido_centavos + VALUES(recebido_centavos),
+            quantidade_recebidas = quantidade_recebidas + VALUES(quantidade_recebidas),
+            maior_recebimento_centavos = GREATEST(maior_recebimento_centavos, VALUES(maior_recebimento_centavos))
+        """;
+
+    /**
+     * Totais do mês: no máximo uma linha por faixa, lidas pelo índice único.
+     */
+    @Query("""
+        SELECT COALESCE(SUM(r.enviadoCentavos), 0) AS enviadoCentavos,
+               COALESCE(SUM(r.quantidadeEnviadas), 0) AS quantidadeEnviadas,
+               COALESCE(MAX(r.maiorEnvioCentavos), 0) AS maiorEnvioCentavos,
+               COALESCE(SUM(r.recebidoCentavos), 0) AS recebidoCentavos,
+               COALESCE(SUM(r.quantidadeRecebidas), 0) AS quantidadeRecebidas,
+               COALESCE(MAX(r.maiorRecebimentoCentavos), 0) AS maiorRecebimentoCentavos
+        FROM ResumoMensal r
+        WHERE r.usuarioId = :usuarioId AND r.anoMes = :anoMes
+        """)
+    ResumoMensalTotais somarMes(@Param("usuarioId") Long usuarioId, @Param("anoMes") int anoMes);
+
+    @Modifying
+    @Query("DELETE FROM ResumoMensal r WHERE r.usuarioId = :usuarioId")
+    void deleteByUsuarioId(@Param("usuarioId") Long usuarioId);
+}
@@ -0,0 +1,26 @@
+package com.CDCBank.bancoDigital.repository;
+
+import com.CDCBank.bancoDigital.models.SnapshotSaldo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface SnapshotSaldoRepository extends JpaRepository<SnapshotSaldo, Long> {
+
+    Optional<SnapshotSaldo> findFirstByUsuarioIdOrderByUltimoLancamentoIdDesc(Long usuarioId);
+
+    Optional<SnapshotSaldo> findByUsuarioIdAndAberturaTrue(Long usuarioId);
+
+    @Modifying
+    @Query("DELETE FROM SnapshotSaldo s WHERE s.usuarioId = :usuarioId AND s.abertura = false")
+    void deleteIntermediarios(@Param("usuarioId") Long usuarioId);
+
+    @Modifying
+    @Query("DELETE FROM SnapshotSaldo s WHERE s.usuarioId = :usuarioId")
+    void deleteByUsuarioId(@Param("usuarioId") Long usuarioId);
+}
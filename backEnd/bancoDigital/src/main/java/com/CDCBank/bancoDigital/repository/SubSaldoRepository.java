@@ -0,0 +1,40 @@
+package com.CDCBank.bancoDigital.repository;
+
+import com.CDCBank.bancoDigital.models.SubSaldo;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SubSaldoRepository extends JpaRepository<SubSaldo, Long> {
+
+    @Modifying
+    @Query("UPDATE SubSaldo s SET s.saldoCentavos = s.saldoCentavos + :valor WHERE s.usuarioId = :usuarioId AND s.faixa = :faixa")
+    int creditar(@Param("usuarioId") Long usuarioId, @Param("faixa") int faixa, @Param("valor") long valorCentavos);
+
+    @Query("SELECT COALESCE(SUM(s.saldoCentavos), 0) FROM SubSaldo s WHERE s.usuarioId = :usuarioId")
+    long somarSaldo(@Param("usuarioId") Long usuarioId);
+
+    /**
+     * Bloqueia as faixas do usuário em ordem de faixa. Deve ser chamado depois de
+     * bloquear a linha principal em usuario, mantendo uma ordem única de locks.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SubSaldo s WHERE s.usuarioId = :usuarioId ORDER BY s.faixa")
+    List<SubSaldo> findByUsuarioIdForUpdate(@Param("usuarioId") Long usuarioId);
+
+    @Query("SELECT DISTINCT s.usuarioId FROM SubSaldo s WHERE s.saldoCentavos <> 0")
+    List<Long> findUsuariosComSaldoPendente();
+
+    boolean existsByUsuarioId(Long usuarioId);
+
+    @Modifying
+    @Query("DELETE FROM SubSaldo s WHERE s.usuarioId = :usuarioId")
+    void deleteByUsuarioId(@Param("usuarioId") Long usuarioId);
+}
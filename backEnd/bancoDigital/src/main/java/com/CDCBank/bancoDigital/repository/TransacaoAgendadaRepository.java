@@ -0,0 +1,44 @@
+package com.CDCBank.bancoDigital.repository;
+
+import com.CDCBank.bancoDigital.models.StatusAgendamento;
+import com.CDCBank.bancoDigital.models.TransacaoAgendada;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface TransacaoAgendadaRepository extends JpaRepository<TransacaoAgendada, Long> {
+
+    Page<TransacaoAgendada> findByRemetenteIdOrderByIdDesc(Long remetenteId, Pageable pageable);
+
+    /**
+     * Registra a execução da ocorrência com data {@code esperada}. A condição na data faz
+     * com que só uma instância (ou um só disparo repetido) avance o agendamento.
+     *
+     * @return 1 se a execução foi registrada, 0 se o agendamento já avançou ou foi cancelado
+     */
+    @Modifying
+    @Query("UPDATE TransacaoAgendada a SET a.proximaExecucao = :proxima, a.status = :status, " +
+           "a.execucoes = a.execucoes + 1, a.ultimaExecucao = :agora, a.ultimoErro = :erro " +
+           "WHERE a.id = :id AND a.status = :ativa AND a.proximaExecucao = :esperada")
+    int registrarExecucao(@Param("id") Long id, @Param("esperada") LocalDateTime esperada,
+                          @Param("proxima") LocalDateTime proxima, @Param("status") StatusAgendamento status,
+                          @Param("agora") LocalDateTime agora, @Param("erro") String erro,
+                          @Param("ativa") StatusAgendamento ativa);
+
+    @Modifying
+    @Query("UPDATE TransacaoAgendada a SET a.status = :cancelada, a.proximaExecucao = null " +
+           "WHERE a.id = :id AND a.remetenteId = :remetenteId AND a.status = :ativa")
+    int cancelar(@Param("id") Long id, @Param("remetenteId") Long remetenteId,
+                 @Param("cancelada") StatusAgendamento cancelada, @Param("ativa") StatusAgendamento ativa);
+
+    @Modifying
+    @Query("DELETE FROM TransacaoAgendada a WHERE a.remetenteId = :usuarioId OR a.destinatarioId = :usuarioId")
+    void deleteByUsuarioId(@Param("usuarioId") Long usuarioId);
+}
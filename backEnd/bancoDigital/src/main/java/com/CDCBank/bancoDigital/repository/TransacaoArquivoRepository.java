@@ -0,0 +1,132 @@
+package com.CDCBank.bancoDigital.repository;
+
+import com.CDCBank.bancoDigital.dto.projection.HistoricoTransacaoResumo;
+import com.CDCBank.bancoDigital.models.TransacaoArquivo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TransacaoArquivoRepository extends JpaRepository<TransacaoArquivo, Long> {
+
+    /*
+     * As mesmas consultas do histórico filtrado de TransacaoRepository, em transacao_arquivo.
+     * O histórico sem filtro usa FiltroHistorico.NENHUM: o arquivo só é lido quando o
+     * usuário passa das transações de transacao, então não vale manter as duas versões.
+     */
+
+    /**
+     * Página por OFFSET dentro do arquivo; {@code porRamo = deslocamento + limite}.
+     */
+    @Query(value = """
+        SELECT h.id AS id, h.data_transacao AS dataTransacao, h.valor AS valor, h.descricao AS descricao,
+               h.tipo AS tipoTransacao, u.id AS idOutroUsuario, u.nome AS nomeOutroUsuario, u.email AS emailOutroUsuario
+        FROM (
+            SELECT p.* FROM (
+                SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, t.descricao, 'ENVIADA' AS tipo, t.id_destinatario AS id_outro
+                 FROM transacao_arquivo t WHERE :enviadas = 1 AND t.id_remetente = :usuarioId
+                   AND t.data_transacao >= :inicio AND t.data_transacao < :fim
+                   AND t.valor BETWEEN :valorMinimo AND :valorMaximo
+                 ORDER BY t.data_transacao DESC, t.id DESC LIMIT :porRamo) enviadas
+                UNION ALL
+                SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, t.descricao, 'RECEBIDA' AS tipo, t.id_remetente AS id_outro
+                 FROM transacao_arquivo t WHERE :recebidas = 1 AND t.id_destinatario = :usuarioId
+                   AND t.data_transacao >= :inicio AND t.data_transacao < :fim
+                   AND t.valor BETWEEN :valorMinimo AND :valorMaximo
+                 ORDER BY t.data_transacao DESC, t.id DESC LIMIT :porRamo) recebidas
+            ) p
+            ORDER BY p.data_transacao DESC, p.id DESC
+            LIMIT :limite OFFSET :deslocamento
+        ) h
+        JOIN usuario u ON u.id = h.id_outro
+        ORDER BY h.data_transacao DESC, h.id DESC
+        """, nativeQuery = true)
+    List<HistoricoTransacaoResumo> findHistoricoFiltradoPagina(@Param("usuarioId") Long usuarioId,
+            @Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim,
+            @Param("valorMinimo") BigDecimal valorMinimo, @Param("valorMaximo") BigDecimal valorMaximo,
+            @Param("enviadas") int enviadas, @Param("recebidas") int recebidas,
+            @Param("porRamo") long porRamo, @Param("limite") int limite, @Param("deslocamento") long deslocamento);
+
+    /**
+     * Total arquivado do usuário, contado só nos índices dos dois lados.
+     */
+    @Query(value = """
+        SELECT (SELECT COUNT(*) FROM transacao_arquivo WHERE id_remetente = :usuarioId)
+             + (SELECT COUNT(*) FROM transacao_arquivo WHERE id_destinatario = :usuarioId)
+        """, nativeQuery = true)
+    long countHistorico(@Param("usuarioId") Long usuarioId);
+
+    @Query(value = """
+        SELECT (SELECT COUNT(*) FROM transacao_arquivo
+                WHERE :enviadas = 1 AND id_remetente = :usuarioId AND data_transacao >= :inicio AND data_transacao < :fim
+                  AND valor BETWEEN :valorMinimo AND :valorMaximo)
+             + (SELECT COUNT(*) FROM transacao_arquivo
+                WHERE :recebidas = 1 AND id_destinatario = :usuarioId AND data_transacao >= :inicio AND data_transacao < :fim
+                  AND valor BETWEEN :valorMinimo AND :valorMaximo)
+        """, nativeQuery = true)
+    long countHistoricoFiltrado(@Param("usuarioId") Long usuarioId,
+            @Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim,
+            @Param("valorMinimo") BigDecimal valorMinimo, @Param("valorMaximo") BigDecimal valorMaximo,
+            @Param("enviadas") int enviadas, @Param("recebidas") int recebidas);
+
+    /**
+     * Linhas arquivadas estritamente depois de (data, id) na ordem decrescente, com data a
+     * partir de {@code inicio}.
+     */
+    @Query(value = """
+        SELECT h.id AS id, h.data_transacao AS dataTransacao, h.valor AS valor, h.descricao AS descricao,
+               h.tipo AS tipoTransacao, u.id AS idOutroUsuario, u.nome AS nomeOutroUsuario, u.email AS emailOutroUsuario
+        FROM (
+            SELECT p.* FROM (
+                SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, t.descricao, 'ENVIADA' AS tipo, t.id_destinatario AS id_outro
+                 FROM transacao_arquivo t WHERE :enviadas = 1 AND t.id_remetente = :usuarioId
+                   AND t.data_transacao >= :inicio AND t.data_transacao <= :data AND (t.data_transacao < :data OR t.id < :id)
+                   AND t.valor BETWEEN :valorMinimo AND :valorMaximo
+                 ORDER BY t.data_transacao DESC, t.id DESC LIMIT :limite) enviadas
+                UNION ALL
+                SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, t.descricao, 'RECEBIDA' AS tipo, t.id_remetente AS id_outro
+                 FROM transacao_arquivo t WHERE :recebidas = 1 AND t.id_destinatario = :usuarioId
+                   AND t.data_transacao >= :inicio AND t.data_transacao <= :data AND (t.data_transacao < :data OR t.id < :id)
+                   AND t.valor BETWEEN :valorMinimo AND :valorMaximo
+                 ORDER BY t.data_transacao DESC, t.id DESC LIMIT :limite) recebidas
+            ) p
+            ORDER BY p.data_transacao DESC, p.id DESC
+            LIMIT :limite
+        ) h
+        JOIN usuario u ON u.id = h.id_outro
+        ORDER BY h.data_transacao DESC, h.id DESC
+        """, nativeQuery = true)
+    List<HistoricoTransacaoResumo> findHistoricoFiltradoApos(@Param("usuarioId") Long usuarioId,
+            @Param("inicio") LocalDateTime inicio,
+            @Param("valorMinimo") BigDecimal valorMinimo, @Param("valorMaximo") BigDecimal valorMaximo,
+            @Param("enviadas") int enviadas, @Param("recebidas") int recebidas,
+            @Param("data") LocalDateTime data, @Param("id") Long id, @Param("limite") int limite);
+
+    /**
+     * Linhas arquivadas entre os ids encontrados pela busca, como em
+     * {@link TransacaoRepository#findHistoricoPorIds}.
+     */
+    @Query(value = """
+        SELECT t.id AS id, t.data_transacao AS dataTransacao, t.valor AS valor, t.descricao AS descricao,
+               CASE WHEN t.id_remetente = :usuarioId THEN 'ENVIADA' ELSE 'RECEBIDA' END AS tipoTransacao,
+               u.id AS idOutroUsuario, u.nome AS nomeOutroUsuario, u.email AS emailOutroUsuario
+        FROM transacao_arquivo t
+        JOIN usuario u ON u.id = CASE WHEN t.id_remetente = :usuarioId THEN t.id_destinatario ELSE t.id_remetente END
+        WHERE t.id IN (:ids) AND (t.id_remetente = :usuarioId OR t.id_destinatario = :usuarioId)
+        ORDER BY t.id DESC
+        """, nativeQuery = true)
+    List<HistoricoTransacaoResumo> findHistoricoPorIds(@Param("usuarioId") Long usuarioId, @Param("ids") Collection<Long> ids);
+
+    boolean existsByProtocolo(String protocolo);
+
+    @Modifying
+    @Query("DELETE FROM TransacaoArquivo t WHERE t.remetenteId = :usuarioId OR t.destinatarioId = :usuarioId")
+    void deleteByUsuarioId(@Param("usuarioId") Long usuarioId);
+}
@@ -1,19 +1,228 @@
 package com.CDCBank.bancoDigital.repository;
 
+import com.CDCBank.bancoDigital.dto.projection.HistoricoTransacaoResumo;
 import com.CDCBank.bancoDigital.models.Transacao;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface TransacaoRepository extends JpaRepository<Transacao, Long> {
     
-    @Query("SELECT t FROM Transacao t WHERE t.remetente.id = :usuarioId OR t.destinatario.id = :usuarioId ORDER BY t.dataTransacao DESC")
-    Page<Transacao> findTransacoesByUsuario(@Param("usuarioId") Long usuarioId, Pageable pageable);
+    /*
+     * O histórico é a união de dois intervalos de índice: (id_remetente, data_transacao, id)
+     * e (id_destinatario, data_transacao, id). Cada ramo lê só as primeiras linhas do seu
+     * intervalo, já ordenadas pelo índice, e a consulta externa intercala os dois resultados.
+     * Com "remetente = :u OR destinatario = :u" o MySQL costuma ler todas as transações do
+     * usuário (ou a tabela inteira) e ordenar com filesort. Um usuário nunca está nos dois
+     * lados da mesma transação, então UNION ALL não gera duplicatas.
+     *
+     * O tipo e o id do outro usuário saem de cada ramo, e usuario só é lido (pela PK) para
+     * as linhas da página: uma página é uma única consulta, sem carregar Transacao.
+     *
+     * Cada ramo é uma tabela derivada com o próprio LIMIT, e não "(SELECT ... LIMIT ?)"
+     * direto no UNION: nessa forma o H2 fixa o LIMIT do ramo na primeira execução do comando
+     * preparado e as páginas seguintes saem truncadas. No MySQL o plano é o mesmo, os dois
+     * ramos são materializados lendo só o início do seu intervalo de índice.
+     */
+
+    /**
+     * Página por OFFSET: cada ramo precisa trazer {@code porRamo = deslocamento + limite} linhas.
+     */
+    @Query(value = """
+        SELECT h.id AS id, h.data_transacao AS dataTransacao, h.valor AS valor, h.descricao AS descricao,
+               h.tipo AS tipoTransacao, u.id AS idOutroUsuario, u.nome AS nomeOutroUsuario, u.email AS emailOutroUsuario
+        FROM (
+            SELECT p.* FROM (
+                SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, t.descricao, 'ENVIADA' AS tipo, t.id_destinatario AS id_outro
+                 FROM transacao t WHERE t.id_remetente = :usuarioId
+                 ORDER BY t.data_transacao DESC, t.id DESC LIMIT :porRamo) enviadas
+                UNION ALL
+                SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, t.descricao, 'RECEBIDA' AS tipo, t.id_remetente AS id_outro
+                 FROM transacao t WHERE t.id_destinatario = :usuarioId
+                 ORDER BY t.data_transacao DESC, t.id DESC LIMIT :porRamo) recebidas
+            ) p
+            ORDER BY p.data_transacao DESC, p.id DESC
+            LIMIT :limite OFFSET :deslocamento
+        ) h
+        JOIN usuario u ON u.id = h.id_outro
+        ORDER BY h.data_transacao DESC, h.id DESC
+        """, nativeQuery = true)
+    List<HistoricoTransacaoResumo> findHistoricoPagina(@Param("usuarioId") Long usuarioId, @Param("porRamo") long porRamo,
+                                                       @Param("limite") int limite, @Param("deslocamento") long deslocamento);
+
+    /**
+     * Total do histórico, contado só nos índices dos dois lados.
+     */
+    @Query(value = """
+        SELECT (SELECT COUNT(*) FROM transacao WHERE id_remetente = :usuarioId)
+             + (SELECT COUNT(*) FROM transacao WHERE id_destinatario = :usuarioId)
+        """, nativeQuery = true)
+    long countHistorico(@Param("usuarioId") Long usuarioId);
+
+    boolean existsByProtocolo(String protocolo);
+
+    /**
+     * Primeira página do histórico por cursor, sem COUNT.
+     */
+    @Query(value = """
+        SELECT h.id AS id, h.data_transacao AS dataTransacao, h.valor AS valor, h.descricao AS descricao,
+               h.tipo AS tipoTransacao, u.id AS idOutroUsuario, u.nome AS nomeOutroUsuario, u.email AS emailOutroUsuario
+        FROM (
+            SELECT p.* FROM (
+                SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, t.descricao, 'ENVIADA' AS tipo, t.id_destinatario AS id_outro
+                 FROM transacao t WHERE t.id_remetente = :usuarioId
+                 ORDER BY t.data_transacao DESC, t.id DESC LIMIT :limite) enviadas
+                UNION ALL
+                SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, t.descricao, 'RECEBIDA' AS tipo, t.id_remetente AS id_outro
+                 FROM transacao t WHERE t.id_destinatario = :usuarioId
+                 ORDER BY t.data_transacao DESC, t.id DESC LIMIT :limite) recebidas
+            ) p
+            ORDER BY p.data_transacao DESC, p.id DESC
+            LIMIT :limite
+        ) h
+        JOIN usuario u ON u.id = h.id_outro
+        ORDER BY h.data_transacao DESC, h.id DESC
+        """, nativeQuery = true)
+    List<HistoricoTransacaoResumo> findHistorico(@Param("usuarioId") Long usuarioId, @Param("limite") int limite);
+
+    /**
+     * Página seguinte ao cursor (dataTransacao, id): só linhas estritamente depois dele na
+     * ordem decrescente, então o custo não depende de quantas páginas já foram lidas. O
+     * "data_transacao <= :data" isolado é o que vira intervalo no índice de cada ramo.
+     */
+    @Query(value = """
+        SELECT h.id AS id, h.data_transacao AS dataTransacao, h.valor AS valor, h.descricao AS descricao,
+               h.tipo AS tipoTransacao, u.id AS idOutroUsuario, u.nome AS nomeOutroUsuario, u.email AS emailOutroUsuario
+        FROM (
+            SELECT p.* FROM (
+                SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, t.descricao, 'ENVIADA' AS tipo, t.id_destinatario AS id_outro
+                 FROM transacao t WHERE t.id_remetente = :usuarioId
+                   AND t.data_transacao <= :data AND (t.data_transacao < :data OR t.id < :id)
+                 ORDER BY t.data_transacao DESC, t.id DESC LIMIT :limite) enviadas
+                UNION ALL
+                SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, t.descricao, 'RECEBIDA' AS tipo, t.id_remetente AS id_outro
+                 FROM transacao t WHERE t.id_destinatario = :usuarioId
+                   AND t.data_transacao <= :data AND (t.data_transacao < :data OR t.id < :id)
+                 ORDER BY t.data_transacao DESC, t.id DESC LIMIT :limite) recebidas
+            ) p
+            ORDER BY p.data_transacao DESC, p.id DESC
+            LIMIT :limite
+        ) h
+        JOIN usuario u ON u.id = h.id_outro
+        ORDER BY h.data_transacao DESC, h.id DESC
+        """, nativeQuery = true)
+    List<HistoricoTransacaoResumo> findHistoricoApos(@Param("usuarioId") Long usuarioId, @Param("data") LocalDateTime data,
+                                                     @Param("id") Long id, @Param("limite") int limite);
+
+    /*
+     * Histórico filtrado: as mesmas consultas por ramo, com o período como intervalo em
+     * data_transacao dentro do índice de cada lado e o valor conferido nas linhas que o
+     * intervalo alcança, na ordem do índice (o LIMIT de cada ramo para a leitura assim que
+     * a página enche). ":enviadas = 1" / ":recebidas = 1" chegam ao MySQL como constantes:
+     * o ramo do lado não pedido é descartado no plano. Ver FiltroHistorico.
+     */
+
+    /**
+     * Página filtrada por OFFSET; {@code porRamo = deslocamento + limite}.
+     */
+    @Query(value = """
+        SELECT h.id AS id, h.data_transacao AS dataTransacao, h.valor AS valor, h.descricao AS descricao,
+               h.tipo AS tipoTransacao, u.id AS idOutroUsuario, u.nome AS nomeOutroUsuario, u.email AS emailOutroUsuario
+        FROM (
+            SELECT p.* FROM (
+                SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, t.descricao, 'ENVIADA' AS tipo, t.id_destinatario AS id_outro
+                 FROM transacao t WHERE :enviadas = 1 AND t.id_remetente = :usuarioId
+                   AND t.data_transacao >= :inicio AND t.data_transacao < :fim
+                   AND t.valor BETWEEN :valorMinimo AND :valorMaximo
+                 ORDER BY t.data_transacao DESC, t.id DESC LIMIT :porRamo) enviadas
+                UNION ALL
+                SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, t.descricao, 'RECEBIDA' AS tipo, t.id_remetente AS id_outro
+                 FROM transacao t WHERE :recebidas = 1 AND t.id_destinatario = :usuarioId
+                   AND t.data_transacao >= :inicio AND t.data_transacao < :fim
+                   AND t.valor BETWEEN :valorMinimo AND :valorMaximo
+                 ORDER BY t.data_transacao DESC, t.id DESC LIMIT :porRamo) recebidas
+            ) p
+            ORDER BY p.data_transacao DESC, p.id DESC
+            LIMIT :limite OFFSET :deslocamento
+        ) h
+        JOIN usuario u ON u.id = h.id_outro
+        ORDER BY h.data_transacao DESC, h.id DESC
+        """, nativeQuery = true)
+    List<HistoricoTransacaoResumo> findHistoricoFiltradoPagina(@Param("usuarioId") Long usuarioId,
+            @Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim,
+            @Param("valorMinimo") BigDecimal valorMinimo, @Param("valorMaximo") BigDecimal valorMaximo,
+            @Param("enviadas") int enviadas, @Param("recebidas") int recebidas,
+            @Param("porRamo") long porRamo, @Param("limite") int limite, @Param("deslocamento") long deslocamento);
+
+    @Query(value = """
+        SELECT (SELECT COUNT(*) FROM transacao
+                WHERE :enviadas = 1 AND id_remetente = :usuarioId AND data_transacao >= :inicio AND data_transacao < :fim
+                  AND valor BETWEEN :valorMinimo AND :valorMaximo)
+             + (SELECT COUNT(*) FROM transacao
+                WHERE :recebidas = 1 AND id_destinatario = :usuarioId AND data_transacao >= :inicio AND data_transacao < :fim
+                  AND valor BETWEEN :valorMinimo AND :valorMaximo)
+        """, nativeQuery = true)
+    long countHistoricoFiltrado(@Param("usuarioId") Long usuarioId,
+            @Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim,
+            @Param("valorMinimo") BigDecimal valorMinimo, @Param("valorMaximo") BigDecimal valorMaximo,
+            @Param("enviadas") int enviadas, @Param("recebidas") int recebidas);
+
+    /**
+     * Página filtrada por cursor: linhas com data em [inicio, fim) estritamente depois de
+     * (data, id). A primeira página usa (fim, 0), então a mesma consulta serve para todas.
+     */
+    @Query(value = """
+        SELECT h.id AS id, h.data_transacao AS dataTransacao, h.valor AS valor, h.descricao AS descricao,
+               h.tipo AS tipoTransacao, u.id AS idOutroUsuario, u.nome AS nomeOutroUsuario, u.email AS emailOutroUsuario
+        FROM (
+            SELECT p.* FROM (
+                SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, t.descricao, 'ENVIADA' AS tipo, t.id_destinatario AS id_outro
+                 FROM transacao t WHERE :enviadas = 1 AND t.id_remetente = :usuarioId
+                   AND t.data_transacao >= :inicio AND t.data_transacao <= :data AND (t.data_transacao < :data OR t.id < :id)
+                   AND t.valor BETWEEN :valorMinimo AND :valorMaximo
+                 ORDER BY t.data_transacao DESC, t.id DESC LIMIT :limite) enviadas
+                UNION ALL
+                SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, t.descricao, 'RECEBIDA' AS tipo, t.id_remetente AS id_outro
+                 FROM transacao t WHERE :recebidas = 1 AND t.id_destinatario = :usuarioId
+                   AND t.data_transacao >= :inicio AND t.data_transacao <= :data AND (t.data_transacao < :data OR t.id < :id)
+                   AND t.valor BETWEEN :valorMinimo AND :valorMaximo
+                 ORDER BY t.data_transacao DESC, t.id DESC LIMIT :limite) recebidas
+            ) p
+            ORDER BY p.data_transacao DESC, p.id DESC
+            LIMIT :limite
+        ) h
+        JOIN usuario u ON u.id = h.id_outro
+        ORDER BY h.data_transacao DESC, h.id DESC
+        """, nativeQuery = true)
+    List<HistoricoTransacaoResumo> findHistoricoFiltradoApos(@Param("usuarioId") Long usuarioId,
+            @Param("inicio") LocalDateTime inicio,
+            @Param("valorMinimo") BigDecimal valorMinimo, @Param("valorMaximo") BigDecimal valorMaximo,
+            @Param("enviadas") int enviadas, @Param("recebidas") int recebidas,
+            @Param("data") LocalDateTime data, @Param("id") Long id, @Param("limite") int limite);
+
+    /**
+     * Linhas do histórico para os ids encontrados pela busca, lidas pela PK. Ids que não são
+     * mais do usuário (transações excluídas) simplesmente não voltam.
+     */
+    @Query(value = """
+        SELECT t.id AS id, t.data_transacao AS dataTransacao, t.valor AS valor, t.descricao AS descricao,
+               CASE WHEN t.id_remetente = :usuarioId THEN 'ENVIADA' ELSE 'RECEBIDA' END AS tipoTransacao,
+               u.id AS idOutroUsuario, u.nome AS nomeOutroUsuario, u.email AS emailOutroUsuario
+        FROM transacao t
+        JOIN usuario u ON u.id = CASE WHEN t.id_remetente = :usuarioId THEN t.id_destinatario ELSE t.id_remetente END
+        WHERE t.id IN (:ids) AND (t.id_remetente = :usuarioId OR t.id_destinatario = :usuarioId)
+        ORDER BY t.id DESC
+        """, nativeQuery = true)
+    List<HistoricoTransacaoResumo> findHistoricoPorIds(@Param("usuarioId") Long usuarioId, @Param("ids") Collection<Long> ids);
+
     @Modifying
 @Query("DELETE FROM Transacao t WHERE t.remetente.id = :usuarioId OR t.destinatario.id = :usuarioId")
 void deleteByRemetenteIdOrDestinatarioId(@Param("usuarioId") Long remetenteId, @Param("usuarioId") Long destinatarioId);
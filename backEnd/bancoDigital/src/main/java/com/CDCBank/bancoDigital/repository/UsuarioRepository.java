@@ -1,12 +1,23 @@
 package com.CDCBank.bancoDigital.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.boot.autoconfigure.security.SecurityProperties.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Repository;
 
+import com.CDCBank.bancoDigital.dto.projection.UsuarioResumo;
 import com.CDCBank.bancoDigital.models.Usuario;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     UserDetails findByEmail(String email);
@@ -14,4 +25,54 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     boolean existsByIdFiscal(String idFiscal);
     User findByIdFiscal(String idFiscal);
     User findByNome(String nome);
+
+    /**
+     * Carrega o usuário com lock pessimista de escrita (SELECT ... FOR UPDATE).
+     * Deve ser chamado dentro de uma transação.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM Usuario u WHERE u.id = :id")
+    Optional<Usuario> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Carrega vários usuários com lock pessimista, em ordem crescente de id,
+     * mantendo a mesma ordem de bloqueio das transações individuais.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM Usuario u WHERE u.id IN :ids ORDER BY u.id")
+    List<Usuario> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Debita o valor (em centavos) somente se houver saldo suficiente.
+     *
+     * @return 1 se o débito foi aplicado, 0 se o usuário não existe ou não tem saldo.
+     */
+    @Modifying
+    @Query("UPDATE VERSIONED Usuario u SET u.saldoCentavos = u.saldoCentavos - :valor WHERE u.id = :id AND u.saldoCentavos >= :valor")
+    int debitarSeSaldoSuficiente(@Param("id") Long id, @Param("valor") long valorCentavos);
+
+    /**
+     * Credita o valor (em centavos) no saldo do usuário, exceto em contas distribuídas,
+     * cujos créditos vão para as faixas de sub_saldo.
+     *
+     * @return 1 se o crédito foi aplicado, 0 se o usuário não existe ou tem saldo distribuído.
+     */
+    @Modifying
+    @Query("UPDATE VERSIONED Usuario u SET u.saldoCentavos = u.saldoCentavos + :valor WHERE u.id = :id AND u.contaDistribuida = false")
+    int creditar(@Param("id") Long id, @Param("valor") long valorCentavos);
+
+    /**
+     * Credita o valor (em centavos) diretamente no saldo principal, inclusive de contas distribuídas.
+     */
+    @Modifying
+    @Query("UPDATE VERSIONED Usuario u SET u.saldoCentavos = u.saldoCentavos + :valor WHERE u.id = :id")
+    int creditarSaldoPrincipal(@Param("id") Long id, @Param("valor") long valorCentavos);
+
+    List<UsuarioResumo> findResumoByIdIn(Collection<Long> ids);
+
+    @Query("SELECT u.id FROM Usuario u WHERE u.contaDistribuida = true")
+    List<Long> findIdsContasDistribuidas();
+
+    @Query("SELECT u.rendaMensalCentavos FROM Usuario u WHERE u.id = :id")
+    Optional<Long> findRendaMensalCentavosById(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,345 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.CDCBank.bancoDigital.dto.request.TransacaoAgendadaRequestDTO;
+import com.CDCBank.bancoDigital.dto.request.TransacaoRequestDTO;
+import com.CDCBank.bancoDigital.dto.response.TransacaoAgendadaResponseDTO;
+import com.CDCBank.bancoDigital.exception.ResourceNotFoundException;
+import com.CDCBank.bancoDigital.models.Recorrencia;
+import com.CDCBank.bancoDigital.models.StatusAgendamento;
+import com.CDCBank.bancoDigital.models.TransacaoAgendada;
+import com.CDCBank.bancoDigital.repository.TransacaoAgendadaRepository;
+import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+import com.CDCBank.bancoDigital.util.RodaTemporal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Transferências agendadas. Os agendamentos ativos são carregados uma vez do banco numa
+ * {@link RodaTemporal} em memória (só id e tick, ~17 bytes por agendamento), então
+ * milhões de agendamentos pendentes não exigem consultar a tabela a cada tick.
+ *
+ * Uma única thread avança a roda a cada {@code tick}; os vencidos são separados em lotes
+ * de {@code tamanho-lote}, cada lote é lido com uma consulta e executado por um pool de
+ * workers através do {@link TransacaoService}, com Idempotency-Key derivada do agendamento
+ * e do número da execução. Depois da transferência, a execução é registrada com um UPDATE
+ * condicionado à data esperada: com várias instâncias carregando os mesmos agendamentos,
+ * a transferência sai uma vez (pela chave) e o agendamento avança uma vez (pelo UPDATE).
+ *
+ * Disparos de agendamentos cancelados ou já executados são descartados ao ler o lote.
+ * Ocorrências perdidas durante uma parada são executadas na retomada.
+ *
+ * Métricas: {@code transacao.agendada.pendentes}, {@code transacao.agendada.execucoes},
+ * {@code transacao.agendada.falhas} e {@code transacao.agendada.atraso}.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class AgendamentoService {
+
+    /**
+     * Prefixo das Idempotency-Keys das execuções agendadas, reservado: chaves de clientes
+     * com ele são recusadas, para que não ocupem a chave de uma execução futura.
+     */
+    public static final String PREFIXO_CHAVE_IDEMPOTENCIA = "agendamento-";
+
+    private final TransacaoAgendadaRepository transacaoAgendadaRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final TransacaoService transacaoService;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${transacao.agendamento.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${transacao.agendamento.tick:1s}")
+    private Duration tick;
+
+    @Value("${transacao.agendamento.tamanho-lote:100}")
+    private int tamanhoLote;
+
+    @Value("${transacao.agendamento.workers:4}")
+    private int quantidadeWorkers;
+
+    // Novos agendamentos e próximas ocorrências; só a thread da roda consome
+    private final Queue<Disparo> entrada = new ConcurrentLinkedQueue<>();
+    private Thread threadRoda;
+    private ExecutorService workers;
+    private volatile boolean ativo = true;
+    private volatile long pendentes;
+    private long tickMs;
+
+    private Counter execucoes;
+    private Counter falhas;
+    private Timer atraso;
+
+    private record Disparo(long id, long tick) {}
+
+    @PostConstruct
+    void iniciar() {
+        tickMs = tick.toMillis();
+        if (!habilitado) {
+            return;
+        }
+
+        Gauge.builder("transacao.agendada.pendentes", this, s -> s.pendentes)
+            .description("Agendamentos carregados na roda aguardando execução")
+            .register(meterRegistry);
+        execucoes = Counter.builder("transacao.agendada.execucoes")
+            .description("Transferências agendadas executadas com sucesso")
+            .register(meterRegistry);
+        falhas = Counter.builder("transacao.agendada.falhas")
+            .description("Execuções de transferências agendadas que falharam")
+            .register(meterRegistry);
+        atraso = Timer.builder("transacao.agendada.atraso")
+            .description("Tempo entre a data agendada e o início da execução")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+
+        // Fila limitada com CallerRunsPolicy: se os workers não derem conta, a própria
+        // thread da roda executa o lote, atrasando os próximos ticks em vez de acumular memória
+        AtomicInteger contador = new AtomicInteger();
+        workers = new ThreadPoolExecutor(quantidadeWorkers, quantidadeWorkers, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(quantidadeWorkers * 4),
+            tarefa -> {
+                Thread worker = new Thread(tarefa, "agendamento-worker-" + contador.getAndIncrement());
+                worker.setDaemon(true);
+                return worker;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+        threadRoda = new Thread(this::executarRoda, "agendamento-roda");
+        threadRoda.setDaemon(true);
+        threadRoda.start();
+    }
+
+    @PreDestroy
+    void parar() throws InterruptedException {
+        if (!habilitado) {
+            return;
+        }
+        ativo = false;
+        threadRoda.interrupt();
+        threadRoda.join(TimeUnit.SECONDS.toMillis(10));
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    public TransacaoAgendadaResponseDTO agendar(Long idRemetente, TransacaoAgendadaRequestDTO request) {
+        if (idRemetente.equals(request.getIdDestinatario())) {
+            throw new RuntimeException("Não é possível agendar transação para si mesmo");
+        }
+        if (!usuarioRepository.existsById(request.getIdDestinatario())) {
+            throw new RuntimeException("Destinatário não encontrado");
+        }
+
+        Recorrencia recorrencia = request.getRecorrencia() == null ? Recorrencia.UNICA : request.getRecorrencia();
+        LocalDateTime dataExecucao = request.getDataExecucao().truncatedTo(ChronoUnit.SECONDS);
+        TransacaoAgendada agendamento = transacaoAgendadaRepository.save(TransacaoAgendada.builder()
+            .remetenteId(idRemetente)
+            .destinatarioId(request.getIdDestinatario())
+            .valor(request.getValor())
+            .descricao(request.getDescricao())
+            .recorrencia(recorrencia)
+            .status(StatusAgendamento.ATIVA)
+            .dataInicio(dataExecucao)
+            .proximaExecucao(dataExecucao)
+            .build());
+
+        if (habilitado) {
+            entrada.add(new Disparo(agendamento.getId(), tickDe(agendamento.getProximaExecucao())));
+        }
+        log.info("Transferência agendada - ID: {} | Remetente: {} | Primeira execução: {} | Recorrência: {}",
+            agendamento.getId(), idRemetente, agendamento.getProximaExecucao(), recorrencia);
+        return paraResposta(agendamento);
+    }
+
+    public Page<TransacaoAgendadaResponseDTO> listar(Long idRemetente, int page, int size) {
+        return transacaoAgendadaRepository.findByRemetenteIdOrderByIdDesc(idRemetente, PageRequest.of(page, size))
+            .map(this::paraResposta);
+    }
+
+    /**
+     * Cancela um agendamento ativo do usuário. A entrada que continua na roda é
+     * descartada quando disparar.
+     */
+    public void cancelar(Long idRemetente, Long id) {
+        Integer alterados = transactionTemplate.execute(status -> transacaoAgendadaRepository.cancelar(
+            id, idRemetente, StatusAgendamento.CANCELADA, StatusAgendamento.ATIVA));
+        if (alterados == null || alterados == 0) {
+            throw new ResourceNotFoundException("Agendamento ativo não encontrado: " + id);
+        }
+        log.info("Agendamento {} cancelado pelo usuário {}", id, idRemetente);
+    }
+
+    private void executarRoda() {
+        RodaTemporal roda = new RodaTemporal(tickAtual());
+        carregar(roda);
+
+        List<Disparo> vencidos = new ArrayList<>();
+        while (ativo) {
+            try {
+                Disparo novo;
+                while ((novo = entrada.poll()) != null) {
+                    roda.agendar(novo.id(), novo.tick());
+                }
+                roda.avancarAte(tickAtual(), (id, tickVencimento) -> vencidos.add(new Disparo(id, tickVencimento)));
+                pendentes = roda.tamanho();
+
+                for (int i = 0; i < vencidos.size(); i += tamanhoLote) {
+                    List<Disparo> lote = List.copyOf(vencidos.subList(i, Math.min(i + tamanhoLote, vencidos.size())));
+                    workers.execute(() -> executarLote(lote));
+                }
+                vencidos.clear();
+
+                Thread.sleep(tickMs - System.currentTimeMillis() % tickMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Erro inesperado na roda de agendamentos", e);
+                vencidos.clear();
+            }
+        }
+    }
+
+    private void carregar(RodaTemporal roda) {
+        long inicio = System.currentTimeMillis();
+        // fetchSize = Integer.MIN_VALUE faz o driver do MySQL entregar as linhas em streaming
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(Integer.MIN_VALUE);
+        streaming.query("SELECT id, proxima_execucao FROM transacao_agendada WHERE status = ?",
+            rs -> {
+                roda.agendar(rs.getLong(1), tickDe(rs.getTimestamp(2).getTime()));
+            },
+            StatusAgendamento.ATIVA.name());
+        pendentes = roda.tamanho();
+        log.info("Agendamentos carregados na roda - {} ativos, {} ms", roda.tamanho(), System.currentTimeMillis() - inicio);
+    }
+
+    private void executarLote(List<Disparo> lote) {
+        Map<Long, TransacaoAgendada> agendamentos;
+        try {
+            agendamentos = transacaoAgendadaRepository.findAllById(lote.stream().map(Disparo::id).toList()).stream()
+                .collect(Collectors.toMap(TransacaoAgendada::getId, Function.identity()));
+        } catch (RuntimeException e) {
+            // Os disparos voltam para a roda com o mesmo tick e são tentados de novo no próximo avanço
+            log.error("Erro ao carregar lote de {} agendamentos", lote.size(), e);
+            entrada.addAll(lote);
+            return;
+        }
+
+        for (Disparo disparo : lote) {
+            TransacaoAgendada agendamento = agendamentos.get(disparo.id());
+            // Cancelado, removido ou a entrada é de uma ocorrência que já foi executada
+            if (agendamento == null || agendamento.getStatus() != StatusAgendamento.ATIVA
+                    || tickDe(agendamento.getProximaExecucao()) != disparo.tick()) {
+                continue;
+            }
+            try {
+                executar(agendamento);
+            } catch (RuntimeException e) {
+                log.error("Erro ao registrar execução do agendamento {}", agendamento.getId(), e);
+            }
+        }
+    }
+
+    private void executar(TransacaoAgendada agendamento) {
+        LocalDateTime esperada = agendamento.getProximaExecucao();
+        atraso.record(Duration.between(esperada, LocalDateTime.now()));
+
+        TransacaoRequestDTO request = new TransacaoRequestDTO();
+        request.setIdDestinatario(agendamento.getDestinatarioId());
+        request.setValor(agendamento.getValor());
+        request.setDescricao(agendamento.getDescricao());
+        String chave = PREFIXO_CHAVE_IDEMPOTENCIA + agendamento.getId() + "-" + agendamento.getExecucoes();
+
+        String erro = null;
+        try {
+            transacaoService.realizarTransacao(agendamento.getRemetenteId(), request, chave);
+            execucoes.increment();
+        } catch (RuntimeException e) {
+            erro = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            if (erro.length() > 500) {
+                erro = erro.substring(0, 500);
+            }
+            falhas.increment();
+            log.warn("Execução do agendamento {} falhou: {}", agendamento.getId(), erro);
+        }
+
+        LocalDateTime proxima = agendamento.getRecorrencia()
+            .ocorrencia(agendamento.getDataInicio(), agendamento.getExecucoes() + 1);
+        StatusAgendamento novoStatus = proxima != null ? StatusAgendamento.ATIVA
+            : erro == null ? StatusAgendamento.CONCLUIDA : StatusAgendamento.FALHOU;
+        String erroRegistrado = erro;
+        Integer registrados = transactionTemplate.execute(status -> transacaoAgendadaRepository.registrarExecucao(
+            agendamento.getId(), esperada, proxima, novoStatus, LocalDateTime.now(), erroRegistrado,
+            StatusAgendamento.ATIVA));
+
+        if (registrados != null && registrados == 1 && proxima != null) {
+            entrada.add(new Disparo(agendamento.getId(), tickDe(proxima)));
+        }
+    }
+
+    private TransacaoAgendadaResponseDTO paraResposta(TransacaoAgendada agendamento) {
+        return TransacaoAgendadaResponseDTO.builder()
+            .id(agendamento.getId())
+            .idDestinatario(agendamento.getDestinatarioId())
+            .valor(agendamento.getValor())
+            .descricao(agendamento.getDescricao())
+            .recorrencia(agendamento.getRecorrencia())
+            .status(agendamento.getStatus())
+            .proximaExecucao(agendamento.getProximaExecucao())
+            .execucoes(agendamento.getExecucoes())
+            .ultimaExecucao(agendamento.getUltimaExecucao())
+            .ultimoErro(agendamento.getUltimoErro())
+            .criadaEm(agendamento.getCriadaEm())
+            .build();
+    }
+
+    private long tickAtual() {
+        return System.currentTimeMillis() / tickMs;
+    }
+
+    // Arredonda para cima: o disparo nunca acontece antes da data agendada
+    private long tickDe(long epochMs) {
+        return Math.floorDiv(epochMs + tickMs - 1, tickMs);
+    }
+
+    private long tickDe(LocalDateTime data) {
+        return tickDe(data.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+}
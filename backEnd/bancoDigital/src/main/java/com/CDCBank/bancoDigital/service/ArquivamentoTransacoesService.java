@@ -0,0 +1,248 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.CDCBank.bancoDigital.dto.response.ArquivamentoDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Move as transações mais antigas que {@code transacao.arquivamento.idade} de transacao
+ * para transacao_arquivo, para que transacao (e os seus índices) fique com o tamanho das
+ * transações recentes.
+ *
+ * Cada lote é uma transação: as {@code lote} transações mais antigas são bloqueadas em
+ * ordem de (data_transacao, id) pelo índice idx_transacao_data, copiadas com
+ * INSERT ... SELECT e excluídas de transacao. Como os lotes seguem sempre essa ordem, o
+ * arquivo tem exatamente as transações até um ponto da ordem do histórico e transacao tem
+ * as posteriores; é o que permite ao histórico continuar no arquivo quando acaba o que
+ * está em transacao (ver {@link TransacaoService}). Entre um lote e outro a execução
+ * espera {@code pausa}, o que limita a carga no banco e o tempo das transferências
+ * esperando os locks do lote.
+ *
+ * Roda em segundo plano pelo cron {@code transacao.arquivamento.cron} ou pelo endpoint
+ * {@code arquivamento} do actuator. Métricas: {@code transacao.arquivamento.movidas},
+ * {@code transacao.arquivamento.pendentes} e {@code transacao.arquivamento.lote}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ArquivamentoTransacoesService {
+
+    private static final int TENTATIVAS_POR_LOTE = 3;
+
+    private static final String SQL_CONTAR_PENDENTES = "SELECT COUNT(*) FROM transacao WHERE data_transacao < ?";
+    private static final String SQL_BLOQUEAR_LOTE =
+        "SELECT id FROM transacao WHERE data_transacao < ? ORDER BY data_transacao, id LIMIT ? FOR UPDATE";
+    private static final String SQL_COPIAR = """
+        INSERT INTO transacao_arquivo (id, data_transacao, valor, id_remetente, id_destinatario, descricao, protocolo)
+        SELECT id, data_transacao, valor, id_remetente, id_destinatario, descricao, protocolo
+        FROM transacao WHERE id IN (%s)
+        """;
+    private static final String SQL_EXCLUIR = "DELETE FROM transacao WHERE id IN (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // Bem acima da janela do limite diário, que lê as transações das últimas 24 horas em transacao
+    @Value("${transacao.arquivamento.idade:180d}")
+    private Duration idade;
+
+    @Value("${transacao.arquivamento.lote:1000}")
+    private int lote;
+
+    @Value("${transacao.arquivamento.pausa:100ms}")
+    private Duration pausa;
+
+    private Counter movidas;
+    private Timer duracaoLote;
+
+    // Estado da execução corrente (ou da última)
+    private final ExecucaoEmSegundoPlano execucao = new ExecucaoEmSegundoPlano();
+    private final AtomicLong transacoesMovidas = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+    private volatile long pendentesNoInicio;
+    private volatile LocalDateTime corte;
+
+    @PostConstruct
+    void iniciar() {
+        if (idade.compareTo(Duration.ofDays(1)) < 0) {
+            throw new IllegalStateException("transacao.arquivamento.idade deve ser de pelo menos 1 dia: " + idade);
+        }
+        movidas = Counter.builder("transacao.arquivamento.movidas")
+            .description("Transações movidas de transacao para transacao_arquivo")
+            .register(meterRegistry);
+        duracaoLote = Timer.builder("transacao.arquivamento.lote")
+            .description("Duração de cada lote do arquivamento (bloqueio, cópia e exclusão)")
+            .register(meterRegistry);
+        Gauge.builder("transacao.arquivamento.pendentes", this, ArquivamentoTransacoesService::pendentes)
+            .description("Transações anteriores ao corte ainda em transacao na execução corrente")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Inicia o arquivamento em segundo plano, se nenhum estiver em andamento.
+     *
+     * @return o progresso logo após o início (ou o da execução em andamento)
+     */
+    public synchronized ArquivamentoDTO iniciarArquivamento() {
+        if (!execucao.emAndamento()) {
+            preparar(LocalDateTime.now().minus(idade));
+
+            Thread thread = new Thread(this::executar, "arquivamento-transacoes");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return progresso();
+    }
+
+    @Scheduled(cron = "${transacao.arquivamento.cron:-}")
+    void arquivamentoAgendado() {
+        iniciarArquivamento();
+    }
+
+    public ArquivamentoDTO progresso() {
+        long total = pendentesNoInicio;
+        long movidasAteAgora = transacoesMovidas.get();
+        return ArquivamentoDTO.builder()
+            .estado(execucao.estado())
+            .iniciadaEm(execucao.iniciadaEm())
+            .concluidaEm(execucao.concluidaEm())
+            .corte(corte)
+            .pendentesNoInicio(total)
+            .transacoesMovidas(movidasAteAgora)
+            .lotes(lotes.get())
+            .percentual(ExecucaoEmSegundoPlano.percentual(movidasAteAgora, total))
+            .transacoesPorSegundo(execucao.porSegundo(movidasAteAgora))
+            .duracaoMs(execucao.duracaoMs())
+            .erro(execucao.erro())
+            .build();
+    }
+
+    /**
+     * Arquiva, na thread atual, as transações com data anterior ao corte.
+     *
+     * @return o progresso ao final
+     */
+    ArquivamentoDTO arquivar(LocalDateTime corte) {
+        synchronized (this) {
+            if (execucao.emAndamento()) {
+                throw new IllegalStateException("Arquivamento já em andamento");
+            }
+            preparar(corte);
+        }
+        executar();
+        return progresso();
+    }
+
+    private void preparar(LocalDateTime corte) {
+        transacoesMovidas.set(0);
+        lotes.set(0);
+        pendentesNoInicio = 0;
+        this.corte = corte;
+        execucao.iniciar();
+    }
+
+    private void executar() {
+        boolean concluida = false;
+        String erro = null;
+        try {
+            pendentesNoInicio = jdbcTemplate.queryForObject(SQL_CONTAR_PENDENTES, Long.class, corte);
+            log.info("Arquivamento iniciado - {} transações anteriores a {}, lotes de {}", pendentesNoInicio, corte, lote);
+            while (true) {
+                int movidasNoLote = moverLote();
+                if (movidasNoLote == 0) {
+                    break;
+                }
+                transacoesMovidas.addAndGet(movidasNoLote);
+                lotes.incrementAndGet();
+                movidas.increment(movidasNoLote);
+                if (movidasNoLote < lote) {
+                    break;
+                }
+                if (!pausar()) {
+                    break;
+                }
+            }
+            concluida = true;
+            log.info("Arquivamento concluído - {} transações em {} lotes, {} ms",
+                transacoesMovidas.get(), lotes.get(), execucao.duracaoMs());
+        } catch (RuntimeException e) {
+            erro = e.getMessage();
+            log.error("Falha no arquivamento de transações", e);
+        } finally {
+            execucao.terminar(concluida, erro);
+        }
+    }
+
+    private int moverLote() {
+        for (int tentativa = 1; ; tentativa++) {
+            long inicio = System.nanoTime();
+            try {
+                return transactionTemplate.execute(status -> {
+                    List<Long> ids = jdbcTemplate.queryForList(SQL_BLOQUEAR_LOTE, Long.class, corte, lote);
+                    if (ids.isEmpty()) {
+                        return 0;
+                    }
+                    String marcadores = String.join(", ", Collections.nCopies(ids.size(), "?"));
+                    Object[] argumentos = ids.toArray();
+                    int copiadas = jdbcTemplate.update(SQL_COPIAR.formatted(marcadores), argumentos);
+                    int excluidas = jdbcTemplate.update(SQL_EXCLUIR.formatted(marcadores), argumentos);
+                    if (copiadas != ids.size() || excluidas != ids.size()) {
+                        // Desfaz o lote: nenhuma transação pode ficar nas duas tabelas ou em nenhuma
+                        throw new IllegalStateException("Lote do arquivamento inconsistente: " + ids.size()
+                            + " bloqueadas, " + copiadas + " copiadas, " + excluidas + " excluídas");
+                    }
+                    return ids.size();
+                });
+            } catch (PessimisticLockingFailureException e) {
+                // Deadlock ou timeout com transferências das mesmas contas: o lote foi desfeito, refaz
+                if (tentativa == TENTATIVAS_POR_LOTE) {
+                    throw e;
+                }
+                log.warn("Lote do arquivamento em conflito, tentativa {} - {}", tentativa, e.getMessage());
+            } finally {
+                duracaoLote.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private boolean pausar() {
+        if (pausa.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pausa.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Arquivamento interrompido após {} transações", transacoesMovidas.get());
+            return false;
+        }
+    }
+
+    private double pendentes() {
+        return execucao.emAndamento()
+            ? Math.max(0, pendentesNoInicio - transacoesMovidas.get())
+            : 0;
+    }
+}
@@ -0,0 +1,221 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.CDCBank.bancoDigital.dto.response.ConciliacaoSaldosDTO;
+import com.CDCBank.bancoDigital.dto.response.DivergenciaConciliacaoDTO;
+import com.CDCBank.bancoDigital.util.Centavos;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Conciliação dos saldos com o histórico de transações: para cada conta, o saldo
+ * armazenado (usuario mais faixas de sub_saldo) deve ser o saldo inicial mais as
+ * transações recebidas menos as enviadas.
+ *
+ * O espaço de ids de usuario é dividido em faixas com {@code contas-por-faixa} contas
+ * ({@link FaixasDeContas}) e as faixas são processadas num {@link ForkJoinPool}. Cada faixa lê os saldos e
+ * percorre em streaming as transações enviadas e recebidas pelas suas contas, numa única
+ * transação REPEATABLE READ, de modo que saldos e transações vêm do mesmo instante.
+ * A memória usada é proporcional ao tamanho da faixa, não ao da tabela transacao.
+ *
+ * A execução é em segundo plano; progresso e vazão ficam disponíveis no endpoint
+ * {@code conciliacao} do actuator.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ConciliacaoSaldosService {
+
+    private static final String SQL_SALDOS = """
+        SELECT u.id,
+               u.saldo_centavos + COALESCE((SELECT SUM(s.saldo_centavos) FROM sub_saldo s WHERE s.id_usuario = u.id), 0)
+        FROM usuario u
+        WHERE u.id BETWEEN ? AND ?
+        ORDER BY u.id
+        """;
+    private static final String SQL_ENVIADAS = "SELECT id_remetente, valor FROM transacao WHERE id_remetente BETWEEN ? AND ?";
+    private static final String SQL_RECEBIDAS = "SELECT id_destinatario, valor FROM transacao WHERE id_destinatario BETWEEN ? AND ?";
+    // As transações antigas ficam em transacao_arquivo (ArquivamentoTransacoesService)
+    private static final String SQL_ENVIADAS_ARQUIVO =
+        "SELECT id_remetente, valor FROM transacao_arquivo WHERE id_remetente BETWEEN ? AND ?";
+    private static final String SQL_RECEBIDAS_ARQUIVO =
+        "SELECT id_destinatario, valor FROM transacao_arquivo WHERE id_destinatario BETWEEN ? AND ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${transacao.conciliacao.paralelismo:4}")
+    private int paralelismo;
+
+    @Value("${transacao.conciliacao.contas-por-faixa:1000}")
+    private int contasPorFaixa;
+
+    @Value("${transacao.conciliacao.maximo-divergencias:1000}")
+    private int maximoDivergencias;
+
+    // Integer.MIN_VALUE faz o driver do MySQL entregar as linhas uma a uma
+    @Value("${transacao.conciliacao.fetch-size:-2147483648}")
+    private int fetchSize;
+
+    private JdbcTemplate streaming;
+    private TransactionTemplate leituraConsistente;
+
+    // Estado da execução corrente (ou da última)
+    private final ExecucaoEmSegundoPlano execucao = new ExecucaoEmSegundoPlano();
+    private final AtomicLong contasVerificadas = new AtomicLong();
+    private final AtomicLong transacoesLidas = new AtomicLong();
+    private final AtomicLong divergenciasEncontradas = new AtomicLong();
+    private final Queue<DivergenciaConciliacaoDTO> divergencias = new ConcurrentLinkedQueue<>();
+
+    @PostConstruct
+    void iniciar() {
+        streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(fetchSize);
+
+        leituraConsistente = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        leituraConsistente.setReadOnly(true);
+        leituraConsistente.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * Inicia a conciliação em segundo plano, se nenhuma estiver em andamento.
+     *
+     * @return o progresso logo após o início (ou o da execução em andamento)
+     */
+    public synchronized ConciliacaoSaldosDTO iniciarConciliacao() {
+        if (!execucao.emAndamento()) {
+            contasVerificadas.set(0);
+            transacoesLidas.set(0);
+            divergenciasEncontradas.set(0);
+            divergencias.clear();
+            execucao.iniciar();
+
+            Thread thread = new Thread(this::executar, "conciliacao-saldos");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return progresso();
+    }
+
+    @Scheduled(cron = "${transacao.conciliacao.cron:-}")
+    void conciliacaoAgendada() {
+        iniciarConciliacao();
+    }
+
+    public ConciliacaoSaldosDTO progresso() {
+        int total = execucao.faixasTotal();
+        int concluidas = execucao.faixasConcluidas();
+        return ConciliacaoSaldosDTO.builder()
+            .estado(execucao.estado())
+            .iniciadaEm(execucao.iniciadaEm())
+            .concluidaEm(execucao.concluidaEm())
+            .faixasTotal(total)
+            .faixasConcluidas(concluidas)
+            .percentual(ExecucaoEmSegundoPlano.percentual(concluidas, total))
+            .contasVerificadas(contasVerificadas.get())
+            .transacoesLidas(transacoesLidas.get())
+            .transacoesPorSegundo(execucao.porSegundo(transacoesLidas.get()))
+            .duracaoMs(execucao.duracaoMs())
+            .divergenciasEncontradas(divergenciasEncontradas.get())
+            .divergencias(List.copyOf(divergencias))
+            .erro(execucao.erro())
+            .build();
+    }
+
+    private void executar() {
+        ForkJoinPool pool = new ForkJoinPool(paralelismo);
+        boolean concluida = false;
+        String erro = null;
+        try {
+            List<long[]> faixas = FaixasDeContas.dividir(jdbcTemplate, contasPorFaixa);
+            execucao.definirFaixasTotal(faixas.size());
+            log.info("Conciliação de saldos iniciada - {} faixas de até {} contas", faixas.size(), contasPorFaixa);
+            FaixasDeContas.processar(pool, faixas, (de, ate) -> {
+                conciliarFaixa(de, ate);
+                execucao.faixaConcluida();
+            });
+            concluida = true;
+            log.info("Conciliação de saldos concluída - {} contas, {} transações, {} divergentes, {} ms",
+                contasVerificadas.get(), transacoesLidas.get(), divergenciasEncontradas.get(), execucao.duracaoMs());
+        } catch (RuntimeException e) {
+            erro = e.getMessage();
+            log.error("Falha na conciliação de saldos", e);
+        } finally {
+            execucao.terminar(concluida, erro);
+            pool.shutdownNow();
+        }
+    }
+
+    private void conciliarFaixa(long de, long ate) {
+        leituraConsistente.executeWithoutResult(status -> {
+            // Contas criadas na faixa depois da divisão (ids de blocos de outras instâncias) podem
+            // passar de contasPorFaixa: os vetores crescem se for preciso
+            long[][] ids = {new long[contasPorFaixa]};
+            long[][] armazenado = {new long[contasPorFaixa]};
+            int[] quantidade = {0};
+            streaming.query(SQL_SALDOS, rs -> {
+                if (quantidade[0] == ids[0].length) {
+                    ids[0] = Arrays.copyOf(ids[0], ids[0].length * 2);
+                    armazenado[0] = Arrays.copyOf(armazenado[0], armazenado[0].length * 2);
+                }
+                ids[0][quantidade[0]] = rs.getLong(1);
+                armazenado[0][quantidade[0]] = rs.getLong(2);
+                quantidade[0]++;
+            }, de, ate);
+            int contas = quantidade[0];
+            if (contas == 0) {
+                return;
+            }
+
+            long[] esperado = new long[contas];
+            Arrays.fill(esperado, UsuarioService.SALDO_INICIAL_CENTAVOS);
+            acumular(SQL_ENVIADAS, de, ate, ids[0], contas, esperado, -1);
+            acumular(SQL_RECEBIDAS, de, ate, ids[0], contas, esperado, 1);
+            acumular(SQL_ENVIADAS_ARQUIVO, de, ate, ids[0], contas, esperado, -1);
+            acumular(SQL_RECEBIDAS_ARQUIVO, de, ate, ids[0], contas, esperado, 1);
+
+            for (int i = 0; i < contas; i++) {
+                if (armazenado[0][i] != esperado[i]) {
+                    divergenciasEncontradas.incrementAndGet();
+                    if (divergencias.size() < maximoDivergencias) {
+                        divergencias.add(DivergenciaConciliacaoDTO.builder()
+                            .idUsuario(ids[0][i])
+                            .saldoArmazenado(Centavos.paraValor(armazenado[0][i]))
+                            .saldoEsperado(Centavos.paraValor(esperado[i]))
+                            .build());
+                    }
+                }
+            }
+            contasVerificadas.addAndGet(contas);
+        });
+    }
+
+    private void acumular(String sql, long de, long ate, long[] ids, int contas, long[] esperado, int sinal) {
+        long[] linhas = {0};
+        streaming.query(sql, rs -> {
+            int indice = Arrays.binarySearch(ids, 0, contas, rs.getLong(1));
+            if (indice >= 0) {
+                esperado[indice] += sinal * Centavos.de(rs.getBigDecimal(2));
+            }
+            if (++linhas[0] % 10_000 == 0) {
+                transacoesLidas.addAndGet(10_000);
+            }
+        }, de, ate);
+        transacoesLidas.addAndGet(linhas[0] % 10_000);
+    }
+}
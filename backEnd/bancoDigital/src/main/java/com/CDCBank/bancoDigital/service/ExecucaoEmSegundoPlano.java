@@ -0,0 +1,112 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Estado e progresso de uma tarefa longa em segundo plano (conciliação, reconstrução do
+ * resumo mensal, arquivamento): a execução corrente ou, entre execuções, a última.
+ *
+ * Quem inicia sincroniza {@link #emAndamento()} com {@link #iniciar()}; os endpoints do
+ * actuator leem sem lock. {@link #terminar} grava o estado por último, então quem o lê
+ * como final já enxerga o horário de conclusão e o erro.
+ */
+final class ExecucaoEmSegundoPlano {
+
+    static final String OCIOSA = "OCIOSA";
+    static final String EXECUTANDO = "EXECUTANDO";
+    static final String CONCLUIDA = "CONCLUIDA";
+    static final String FALHOU = "FALHOU";
+
+    private final AtomicInteger faixasConcluidas = new AtomicInteger();
+    private volatile String estado = OCIOSA;
+    private volatile int faixasTotal;
+    private volatile long inicioMs;
+    private volatile long fimMs;
+    private volatile LocalDateTime iniciadaEm;
+    private volatile LocalDateTime concluidaEm;
+    private volatile String erro;
+
+    boolean emAndamento() {
+        return EXECUTANDO.equals(estado);
+    }
+
+    void iniciar() {
+        faixasConcluidas.set(0);
+        faixasTotal = 0;
+        erro = null;
+        inicioMs = System.currentTimeMillis();
+        fimMs = 0;
+        iniciadaEm = LocalDateTime.now();
+        concluidaEm = null;
+        estado = EXECUTANDO;
+    }
+
+    /**
+     * @param concluida false se a execução parou por uma falha
+     * @param erro mensagem da falha, ou null
+     */
+    void terminar(boolean concluida, String erro) {
+        this.erro = erro;
+        concluidaEm = LocalDateTime.now();
+        fimMs = System.currentTimeMillis();
+        estado = concluida ? CONCLUIDA : FALHOU;
+    }
+
+    void definirFaixasTotal(int faixasTotal) {
+        this.faixasTotal = faixasTotal;
+    }
+
+    void faixaConcluida() {
+        faixasConcluidas.incrementAndGet();
+    }
+
+    String estado() {
+        return estado;
+    }
+
+    LocalDateTime iniciadaEm() {
+        return iniciadaEm;
+    }
+
+    LocalDateTime concluidaEm() {
+        return concluidaEm;
+    }
+
+    String erro() {
+        return erro;
+    }
+
+    int faixasTotal() {
+        return faixasTotal;
+    }
+
+    int faixasConcluidas() {
+        return faixasConcluidas.get();
+    }
+
+    /**
+     * Duração até agora, ou até o fim da última execução; 0 se nenhuma foi iniciada.
+     */
+    long duracaoMs() {
+        if (inicioMs == 0) {
+            return 0;
+        }
+        return (fimMs > 0 ? fimMs : System.currentTimeMillis()) - inicioMs;
+    }
+
+    /**
+     * Vazão de {@code quantidade} itens na duração da execução.
+     */
+    long porSegundo(long quantidade) {
+        long duracao = duracaoMs();
+        return duracao <= 0 ? 0 : Math.round(quantidade * 1000.0 / duracao);
+    }
+
+    /**
+     * Percentual com uma casa decimal, limitado a 100.
+     */
+    static double percentual(long feito, long total) {
+        return total == 0 ? 0 : Math.min(100, Math.round(feito * 1000.0 / total) / 10.0);
+    }
+}
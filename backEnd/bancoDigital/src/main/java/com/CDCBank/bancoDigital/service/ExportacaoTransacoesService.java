@@ -0,0 +1,288 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.CDCBank.bancoDigital.exception.FilaCheiaException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exportação do histórico completo de um usuário em CSV ou NDJSON.
+ *
+ * As linhas são lidas em streaming (como na {@link ConciliacaoSaldosService}) e cada uma é
+ * escrita na resposta assim que chega do banco, sem montar listas nem entidades: a memória
+ * usada é a do buffer de saída, qualquer que seja o tamanho do histórico. Como cada
+ * exportação prende uma conexão enquanto o cliente baixa, o número de exportações
+ * simultâneas é limitado por {@code transacao.exportacao.maximo-simultaneas}.
+ *
+ * Métricas: {@code transacao.exportacao.ativas} e {@code transacao.exportacao.linhas}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportacaoTransacoesService {
+
+    // Cada ramo usa o índice (id_remetente|id_destinatario, data_transacao, id) da sua tabela; uma única
+    // consulta vê transacao e transacao_arquivo no mesmo instante, sem repetir linhas em arquivamento
+    private static final String SQL_EXPORTACAO = """
+        SELECT h.id, h.data_transacao, h.tipo, h.valor, h.descricao, u.id, u.nome, u.email
+        FROM (
+            SELECT t.id, t.data_transacao, t.valor, t.descricao, 'ENVIADA' AS tipo, t.id_destinatario AS id_outro
+            FROM transacao t WHERE t.id_remetente = ? AND t.data_transacao >= ? AND t.data_transacao < ?
+            UNION ALL
+            SELECT t.id, t.data_transacao, t.valor, t.descricao, 'RECEBIDA' AS tipo, t.id_remetente AS id_outro
+            FROM transacao t WHERE t.id_destinatario = ? AND t.data_transacao >= ? AND t.data_transacao < ?
+            UNION ALL
+            SELECT t.id, t.data_transacao, t.valor, t.descricao, 'ENVIADA' AS tipo, t.id_destinatario AS id_outro
+            FROM transacao_arquivo t WHERE t.id_remetente = ? AND t.data_transacao >= ? AND t.data_transacao < ?
+            UNION ALL
+            SELECT t.id, t.data_transacao, t.valor, t.descricao, 'RECEBIDA' AS tipo, t.id_remetente AS id_outro
+            FROM transacao_arquivo t WHERE t.id_destinatario = ? AND t.data_transacao >= ? AND t.data_transacao < ?
+        ) h
+        JOIN usuario u ON u.id = h.id_outro
+        ORDER BY h.data_transacao, h.id
+        """;
+
+    private static final String CABECALHO_CSV =
+        "id,dataTransacao,tipoTransacao,valor,descricao,idOutroUsuario,nomeOutroUsuario,emailOutroUsuario\n";
+    private static final LocalDateTime INICIO_SEM_FILTRO = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime FIM_SEM_FILTRO = LocalDateTime.of(9999, 1, 1, 0, 0);
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    // Integer.MIN_VALUE faz o driver do MySQL entregar as linhas uma a uma
+    @Value("${transacao.exportacao.fetch-size:-2147483648}")
+    private int fetchSize;
+
+    @Value("${transacao.exportacao.maximo-simultaneas:4}")
+    private int maximoSimultaneas;
+
+    private JdbcTemplate streaming;
+    private Semaphore vagas;
+    private Counter linhasExportadas;
+
+    @PostConstruct
+    void iniciar() {
+        streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(fetchSize);
+        vagas = new Semaphore(maximoSimultaneas);
+
+        Gauge.builder("transacao.exportacao.ativas", vagas, v -> maximoSimultaneas - v.availablePermits())
+            .description("Exportações de histórico em andamento")
+            .register(meterRegistry);
+        linhasExportadas = Counter.builder("transacao.exportacao.linhas")
+            .description("Transações escritas em exportações de histórico")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Reserva uma vaga de exportação e devolve o corpo da resposta, que executa a consulta
+     * quando o Spring MVC começa a escrever.
+     *
+     * O corpo roda depois, numa thread do executor assíncrono, e pode nunca rodar: o executor
+     * recusa a tarefa, o cliente desiste ou o request expira antes. Por isso a vaga também é
+     * devolvida quando o processamento assíncrono do request termina, o que ocorrer primeiro.
+     *
+     * @param de primeiro dia incluído (opcional)
+     * @param ate último dia incluído (opcional)
+     * @throws FilaCheiaException se já houver {@code maximo-simultaneas} exportações em andamento
+     */
+    public StreamingResponseBody exportar(Long usuarioId, FormatoExportacao formato, LocalDate de, LocalDate ate) {
+        if (de != null && ate != null && de.isAfter(ate)) {
+            throw new IllegalArgumentException("A data inicial deve ser anterior ou igual à data final");
+        }
+        LocalDateTime inicio = de != null ? de.atStartOfDay() : INICIO_SEM_FILTRO;
+        LocalDateTime fim = ate != null ? ate.plusDays(1).atStartOfDay() : FIM_SEM_FILTRO;
+
+        if (!vagas.tryAcquire()) {
+            throw new FilaCheiaException("Muitas exportações em andamento, tente novamente em instantes");
+        }
+        AtomicBoolean emUso = new AtomicBoolean(true);
+        Runnable liberar = () -> {
+            if (emUso.compareAndSet(true, false)) {
+                vagas.release();
+            }
+        };
+        liberarAoConcluirRequest(liberar);
+        return saida -> {
+            if (!emUso.get()) {
+                // O request já terminou sem que o corpo rodasse
+                return;
+            }
+            try {
+                escrever(usuarioId, formato, inicio, fim, saida);
+            } finally {
+                liberar.run();
+            }
+        };
+    }
+
+    /**
+     * Registra {@code liberar} para o fim do processamento assíncrono do request corrente,
+     * chamado pelo Spring MVC em conclusão, timeout ou erro. Fora de um request (testes,
+     * chamadas internas) a vaga fica só com o corpo.
+     */
+    private static void liberarAoConcluirRequest(Runnable liberar) {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (!(atributos instanceof ServletRequestAttributes servlet)) {
+            return;
+        }
+        WebAsyncUtils.getAsyncManager(servlet.getRequest()).registerCallableInterceptor(
+            ExportacaoTransacoesService.class.getName(), new CallableProcessingInterceptor() {
+                @Override
+                public <T> void afterCompletion(NativeWebRequest request, Callable<T> tarefa) {
+                    liberar.run();
+                }
+            });
+    }
+
+    /**
+     * Escreve as transações do usuário com data em [inicio, fim), em ordem cronológica.
+     *
+     * @return quantidade de transações escritas
+     */
+    long escrever(Long usuarioId, FormatoExportacao formato, LocalDateTime inicio, LocalDateTime fim,
+                  OutputStream saida) throws IOException {
+        long inicioMs = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), TAMANHO_BUFFER);
+        JsonGenerator json = null;
+        if (formato == FormatoExportacao.CSV) {
+            writer.write(CABECALHO_CSV);
+        } else {
+            json = objectMapper.getFactory().createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(new SerializedString("\n"));
+        }
+
+        JsonGenerator gerador = json;
+        long[] linhas = {0};
+        try {
+            streaming.query(SQL_EXPORTACAO, rs -> {
+                try {
+                    if (gerador == null) {
+                        escreverCsv(rs, writer);
+                    } else {
+                        escreverJson(rs, gerador);
+                    }
+                } catch (IOException e) {
+                    // Normalmente o cliente fechou a conexão; interrompe a leitura
+                    throw new UncheckedIOException(e);
+                }
+                linhas[0]++;
+            }, usuarioId, inicio, fim, usuarioId, inicio, fim, usuarioId, inicio, fim, usuarioId, inicio, fim);
+        } catch (UncheckedIOException e) {
+            log.info("Exportação do usuário {} interrompida após {} linhas: {}", usuarioId, linhas[0], e.getMessage());
+            throw e.getCause();
+        } finally {
+            linhasExportadas.increment(linhas[0]);
+        }
+
+        if (gerador != null) {
+            if (linhas[0] > 0) {
+                gerador.writeRaw('\n');
+            }
+            gerador.flush();
+        }
+        writer.flush();
+        log.info("Exportação {} do usuário {} concluída - {} linhas, {} ms",
+            formato, usuarioId, linhas[0], System.currentTimeMillis() - inicioMs);
+        return linhas[0];
+    }
+
+    private static void escreverCsv(ResultSet rs, Writer writer) throws IOException, SQLException {
+        writer.write(Long.toString(rs.getLong(1)));
+        writer.write(',');
+        writer.write(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(rs.getObject(2, LocalDateTime.class)));
+        writer.write(',');
+        writer.write(rs.getString(3));
+        writer.write(',');
+        writer.write(rs.getBigDecimal(4).toPlainString());
+        writer.write(',');
+        escreverCampoCsv(rs.getString(5), writer);
+        writer.write(',');
+        writer.write(Long.toString(rs.getLong(6)));
+        writer.write(',');
+        escreverCampoCsv(rs.getString(7), writer);
+        writer.write(',');
+        escreverCampoCsv(rs.getString(8), writer);
+        writer.write('\n');
+    }
+
+    /**
+     * Texto livre entre aspas quando necessário. Valores que uma planilha interpretaria como
+     * fórmula (=, +, -, @) ganham um apóstrofo na frente.
+     */
+    private static void escreverCampoCsv(String valor, Writer writer) throws IOException {
+        if (valor == null || valor.isEmpty()) {
+            return;
+        }
+        char primeiro = valor.charAt(0);
+        if (primeiro == '=' || primeiro == '+' || primeiro == '-' || primeiro == '@') {
+            valor = "'" + valor;
+        }
+        boolean aspas = false;
+        for (int i = 0; i < valor.length() && !aspas; i++) {
+            char c = valor.charAt(i);
+            aspas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!aspas) {
+            writer.write(valor);
+            return;
+        }
+        writer.write('"');
+        writer.write(valor.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static void escreverJson(ResultSet rs, JsonGenerator json) throws IOException, SQLException {
+        json.writeStartObject();
+        json.writeNumberField("id", rs.getLong(1));
+        json.writeStringField("dataTransacao",
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(rs.getObject(2, LocalDateTime.class)));
+        json.writeNumberField("valor", rs.getBigDecimal(4));
+        json.writeStringField("descricao", rs.getString(5));
+        json.writeStringField("tipoTransacao", rs.getString(3));
+        json.writeObjectFieldStart("outroUsuario");
+        json.writeNumberField("id", rs.getLong(6));
+        json.writeStringField("nome", rs.getString(7));
+        json.writeStringField("email", rs.getString(8));
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+}
@@ -0,0 +1,86 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Divisão das contas em faixas de ids para as tarefas que percorrem todas elas
+ * (conciliação, reconstrução do resumo mensal e dos saldos pelo livro razão).
+ *
+ * Os limites saem por keyset, saltando {@code contasPorFaixa} ids pelo índice primário de
+ * usuario, então ids esparsos (Snowflake, blocos de outras instâncias) não geram faixas
+ * vazias. A última faixa termina no maior id lido no início da divisão: contas criadas
+ * depois ficam para a próxima execução, em vez de inflar a última faixa.
+ */
+final class FaixasDeContas {
+
+    @FunctionalInterface
+    interface Tarefa {
+        void processar(long de, long ate);
+    }
+
+    private FaixasDeContas() {
+    }
+
+    /**
+     * @return limites [de, ate] de faixas com {@code contasPorFaixa} contas cada, em ordem
+     */
+    static List<long[]> dividir(JdbcTemplate jdbcTemplate, int contasPorFaixa) {
+        List<long[]> faixas = new ArrayList<>();
+        Long maximo = jdbcTemplate.queryForObject("SELECT MAX(id) FROM usuario", Long.class);
+        Long de = jdbcTemplate.queryForObject("SELECT MIN(id) FROM usuario", Long.class);
+        while (de != null && maximo != null && de <= maximo) {
+            List<Long> proximo = jdbcTemplate.queryForList(
+                "SELECT id FROM usuario WHERE id >= ? ORDER BY id LIMIT 1 OFFSET ?", Long.class, de, contasPorFaixa);
+            if (proximo.isEmpty() || proximo.get(0) > maximo) {
+                faixas.add(new long[] {de, maximo});
+                break;
+            }
+            faixas.add(new long[] {de, proximo.get(0) - 1});
+            de = proximo.get(0);
+        }
+        return faixas;
+    }
+
+    /**
+     * Processa as faixas no pool e retorna quando todas terminarem; a primeira exceção de
+     * uma faixa é relançada aqui.
+     */
+    static void processar(ForkJoinPool pool, List<long[]> faixas, Tarefa tarefa) {
+        if (!faixas.isEmpty()) {
+            pool.invoke(new Divisao(faixas, 0, faixas.size(), tarefa));
+        }
+    }
+
+    /**
+     * Divide a lista de faixas ao meio até restar uma, que é processada na própria thread.
+     */
+    private static final class Divisao extends RecursiveAction {
+        private final List<long[]> faixas;
+        private final int inicio;
+        private final int fim;
+        private final Tarefa tarefa;
+
+        Divisao(List<long[]> faixas, int inicio, int fim, Tarefa tarefa) {
+            this.faixas = faixas;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.tarefa = tarefa;
+        }
+
+        @Override
+        protected void compute() {
+            if (fim - inicio == 1) {
+                long[] faixa = faixas.get(inicio);
+                tarefa.processar(faixa[0], faixa[1]);
+                return;
+            }
+            int meio = (inicio + fim) >>> 1;
+            invokeAll(new Divisao(faixas, inicio, meio, tarefa), new Divisao(faixas, meio, fim, tarefa));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Filtros opcionais do histórico: período [inicio, fim), faixa de valor (inclusive) e lado
+ * da transação. Filtros ausentes viram limites que não excluem nada, em vez de condições
+ * "IS NULL OR", para que cada ramo da consulta seja sempre um intervalo no índice
+ * (id_remetente|id_destinatario, data_transacao, id). O lado desligado vira uma condição
+ * constante falsa, que o MySQL descarta sem ler o índice.
+ */
+public record FiltroHistorico(LocalDateTime inicio, LocalDateTime fim, BigDecimal valorMinimo, BigDecimal valorMaximo,
+                              boolean enviadas, boolean recebidas) {
+
+    // Mesmos limites "sem filtro" da exportação; o valor máximo cabe em DECIMAL(19,2)
+    private static final LocalDateTime INICIO_SEM_FILTRO = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime FIM_SEM_FILTRO = LocalDateTime.of(9999, 1, 1, 0, 0);
+    private static final BigDecimal VALOR_MINIMO_SEM_FILTRO = BigDecimal.ZERO;
+    private static final BigDecimal VALOR_MAXIMO_SEM_FILTRO = new BigDecimal("99999999999999999.99");
+
+    public static final FiltroHistorico NENHUM = new FiltroHistorico(INICIO_SEM_FILTRO, FIM_SEM_FILTRO,
+        VALOR_MINIMO_SEM_FILTRO, VALOR_MAXIMO_SEM_FILTRO, true, true);
+
+    /**
+     * Filtro a partir dos parâmetros da requisição, todos opcionais.
+     *
+     * @param de primeiro dia incluído
+     * @param ate último dia incluído
+     * @param tipo ENVIADA ou RECEBIDA; sem ele, os dois lados
+     * @throws IllegalArgumentException se o período, a faixa de valor ou o tipo forem inválidos
+     */
+    public static FiltroHistorico de(LocalDate de, LocalDate ate, BigDecimal valorMinimo, BigDecimal valorMaximo,
+                                     String tipo) {
+        if (de != null && ate != null && de.isAfter(ate)) {
+            throw new IllegalArgumentException("A data inicial deve ser anterior ou igual à data final");
+        }
+        if ((valorMinimo != null && valorMinimo.signum() < 0) || (valorMaximo != null && valorMaximo.signum() < 0)) {
+            throw new IllegalArgumentException("Os valores mínimo e máximo não podem ser negativos");
+        }
+        if (valorMinimo != null && valorMaximo != null && valorMinimo.compareTo(valorMaximo) > 0) {
+            throw new IllegalArgumentException("O valor mínimo deve ser menor ou igual ao valor máximo");
+        }
+        boolean enviadas = true;
+        boolean recebidas = true;
+        if (tipo != null && !tipo.isBlank()) {
+            switch (tipo.trim().toUpperCase(Locale.ROOT)) {
+                case "ENVIADA" -> recebidas = false;
+                case "RECEBIDA" -> enviadas = false;
+                default -> throw new IllegalArgumentException("Tipo inválido: use ENVIADA ou RECEBIDA");
+            }
+        }
+        return new FiltroHistorico(
+            de != null ? de.atStartOfDay() : INICIO_SEM_FILTRO,
+            ate != null ? ate.plusDays(1).atStartOfDay() : FIM_SEM_FILTRO,
+            valorMinimo != null ? valorMinimo : VALOR_MINIMO_SEM_FILTRO,
+            valorMaximo != null ? valorMaximo : VALOR_MAXIMO_SEM_FILTRO,
+            enviadas, recebidas);
+    }
+
+    /**
+     * Sem nenhum filtro: o histórico pode vir do cache e das consultas sem filtro.
+     */
+    public boolean vazio() {
+        return equals(NENHUM);
+    }
+}
@@ -0,0 +1,42 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Formatos de {@code GET /api/transacoes/export}, escolhidos pelo parâmetro {@code format}.
+ */
+public enum FormatoExportacao {
+
+    /** Uma linha de cabeçalho e uma linha por transação, separadas por vírgula (RFC 4180). */
+    CSV("csv", new MediaType("text", "csv", StandardCharsets.UTF_8)),
+
+    /** Um objeto JSON por linha, com os mesmos campos do histórico. */
+    NDJSON("ndjson", MediaType.parseMediaType("application/x-ndjson"));
+
+    private final String extensao;
+    private final MediaType tipoConteudo;
+
+    FormatoExportacao(String extensao, MediaType tipoConteudo) {
+        this.extensao = extensao;
+        this.tipoConteudo = tipoConteudo;
+    }
+
+    public String getExtensao() {
+        return extensao;
+    }
+
+    public MediaType getTipoConteudo() {
+        return tipoConteudo;
+    }
+
+    public static FormatoExportacao doParametro(String valor) {
+        for (FormatoExportacao formato : values()) {
+            if (formato.extensao.equalsIgnoreCase(valor)) {
+                return formato;
+            }
+        }
+        throw new IllegalArgumentException("Formato de exportação inválido: use csv ou ndjson");
+    }
+}
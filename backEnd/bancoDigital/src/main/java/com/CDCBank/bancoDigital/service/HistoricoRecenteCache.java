@@ -0,0 +1,362 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.CDCBank.bancoDigital.dto.response.HistoricoTransacaoDTO;
+import com.CDCBank.bancoDigital.dto.response.TransacaoResponseDTO;
+import com.CDCBank.bancoDigital.dto.response.UsuarioResponseDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Últimas {@code tamanho} transações de cada usuário ativo, num buffer circular por usuário,
+ * para servir a primeira página do histórico (dashboard) sem ir ao banco.
+ *
+ * Um usuário entra no cache na primeira leitura (uma consulta ao banco) e, a partir daí, as
+ * transações novas são inseridas depois do commit, para remetente e destinatário. O total do
+ * histórico também é mantido, então a página vem com totalElements sem COUNT. Quando o mapa
+ * chega a {@code maximo-usuarios}, o usuário usado há mais tempo sai (LRU).
+ *
+ * Uma carga só é instalada se nenhuma transação do usuário foi confirmada entre o início da
+ * leitura e a instalação; senão, a próxima leitura tenta de novo. Alterações que mudam
+ * dados já copiados para as entradas (nome de usuário, exclusão) limpam o cache inteiro.
+ *
+ * Métricas: {@code historico.recente.consultas} (tag resultado), {@code historico.recente.taxa-acerto},
+ * {@code historico.recente.usuarios} e {@code historico.recente.bytes-por-usuario}.
+ */
+@Service
+@RequiredArgsConstructor
+public class HistoricoRecenteCache {
+
+    private static final String ENVIADA = "ENVIADA";
+    private static final String RECEBIDA = "RECEBIDA";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${transacao.historico-recente.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${transacao.historico-recente.tamanho:20}")
+    private int tamanho;
+
+    @Value("${transacao.historico-recente.maximo-usuarios:10000}")
+    private int maximoUsuarios;
+
+    // Ordem de acesso: o primeiro da iteração é o usado há mais tempo
+    private final LinkedHashMap<Long, Anel> aneis = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong bytesTotal = new AtomicLong();
+    private Counter acertos;
+    private Counter faltas;
+
+    /** Primeira página servida do cache. */
+    public record Pagina(List<HistoricoTransacaoDTO> itens, long total) {}
+
+    /** Carga em andamento, obtida antes da leitura no banco. */
+    public record Carga(Anel anel, long alteracoes) {}
+
+    @PostConstruct
+    void iniciar() {
+        acertos = Counter.builder("historico.recente.consultas").tag("resultado", "acerto")
+            .description("Primeiras páginas do histórico servidas pelo cache")
+            .register(meterRegistry);
+        faltas = Counter.builder("historico.recente.consultas").tag("resultado", "falta")
+            .description("Primeiras páginas do histórico lidas do banco")
+            .register(meterRegistry);
+        Gauge.builder("historico.recente.taxa-acerto", this, c -> {
+                double total = c.acertos.count() + c.faltas.count();
+                return total == 0 ? 0 : c.acertos.count() / total;
+            })
+            .description("Fração das primeiras páginas servidas pelo cache")
+            .register(meterRegistry);
+        Gauge.builder("historico.recente.usuarios", this, HistoricoRecenteCache::quantidadeUsuarios)
+            .description("Usuários com histórico recente em cache")
+            .register(meterRegistry);
+        Gauge.builder("historico.recente.bytes-por-usuario", this, c -> {
+                int usuarios = c.quantidadeUsuarios();
+                return usuarios == 0 ? 0 : (double) c.bytesTotal.get() / usuarios;
+            })
+            .description("Memória estimada do histórico recente por usuário em cache")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Os {@code size} itens mais recentes do usuário, ou null se ele não está no cache ou o
+     * cache não tem itens suficientes para a página.
+     */
+    public Pagina primeiraPagina(Long usuarioId, int size) {
+        if (!habilitado || size > tamanho) {
+            return null;
+        }
+        Anel anel;
+        synchronized (aneis) {
+            anel = aneis.get(usuarioId);
+        }
+        Pagina pagina = anel == null ? null : anel.pagina(size);
+        (pagina == null ? faltas : acertos).increment();
+        return pagina;
+    }
+
+    /**
+     * Reserva o lugar do usuário antes de ler as últimas {@link #getTamanho()} transações no banco.
+     *
+     * @return null se o cache está desabilitado
+     */
+    public Carga iniciarCarga(Long usuarioId) {
+        if (!habilitado) {
+            return null;
+        }
+        synchronized (aneis) {
+            Anel anel = aneis.get(usuarioId);
+            if (anel == null) {
+                anel = new Anel(tamanho);
+                aneis.put(usuarioId, anel);
+                removerExcedentes();
+            }
+            return new Carga(anel, anel.alteracoesAtuais());
+        }
+    }
+
+    /**
+     * Instala as transações lidas no banco (mais recente primeiro), se nada mudou desde
+     * {@link #iniciarCarga(Long)}.
+     */
+    public void concluirCarga(Carga carga, List<HistoricoTransacaoDTO> recentes, long total) {
+        if (carga != null) {
+            carga.anel().preencher(recentes, total, carga.alteracoes());
+        }
+    }
+
+    /**
+     * Agenda a inclusão da transação no histórico recente de remetente e destinatário para
+     * depois do commit da transação de banco corrente; num rollback, nada muda.
+     */
+    public void registrar(TransacaoResponseDTO transacao) {
+        if (!habilitado) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            incluir(transacao);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                incluir(transacao);
+            }
+        });
+    }
+
+    /**
+     * Descarta todos os usuários, para alterações que afetam entradas já copiadas. Dentro de
+     * uma transação, só depois do commit: antes dele, uma leitura recarregaria os dados antigos.
+     */
+    public void limpar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    descartarTodos();
+                }
+            });
+            return;
+        }
+        descartarTodos();
+    }
+
+    private void descartarTodos() {
+        synchronized (aneis) {
+            aneis.values().forEach(Anel::descartar);
+            aneis.clear();
+        }
+    }
+
+    public int quantidadeUsuarios() {
+        synchronized (aneis) {
+            return aneis.size();
+        }
+    }
+
+    private void incluir(TransacaoResponseDTO transacao) {
+        UsuarioResponseDTO remetente = transacao.getRemetente();
+        UsuarioResponseDTO destinatario = transacao.getDestinatario();
+        Anel anelRemetente;
+        Anel anelDestinatario;
+        synchronized (aneis) {
+            anelRemetente = aneis.get(remetente.getId());
+            anelDestinatario = aneis.get(destinatario.getId());
+        }
+        if (anelRemetente != null) {
+            anelRemetente.incluir(paraHistorico(transacao, ENVIADA, destinatario));
+        }
+        if (anelDestinatario != null) {
+            anelDestinatario.incluir(paraHistorico(transacao, RECEBIDA, remetente));
+        }
+    }
+
+    private static HistoricoTransacaoDTO paraHistorico(TransacaoResponseDTO transacao, String tipo,
+            UsuarioResponseDTO outro) {
+        return HistoricoTransacaoDTO.builder()
+            .id(transacao.getId())
+            .dataTransacao(transacao.getDataTransacao())
+            .valor(transacao.getValor())
+            .descricao(transacao.getDescricao())
+            .tipoTransacao(tipo)
+            .outroUsuario(UsuarioResponseDTO.builder()
+                .id(outro.getId())
+                .nome(outro.getNome())
+                .email(outro.getEmail())
+                .build())
+            .build();
+    }
+
+    private void removerExcedentes() {
+        Iterator<Anel> iterador = aneis.values().iterator();
+        for (int excedente = aneis.size() - maximoUsuarios; excedente > 0 && iterador.hasNext(); excedente--) {
+            iterador.next().descartar();
+            iterador.remove();
+        }
+    }
+
+    /**
+     * Tamanho aproximado de uma entrada: objetos fixos (DTOs, Long, LocalDateTime, BigDecimal)
+     * mais as strings, com um byte por caractere (compact strings).
+     */
+    static long estimarBytes(HistoricoTransacaoDTO item) {
+        UsuarioResponseDTO outro = item.getOutroUsuario();
+        return 280 + bytes(item.getDescricao()) + bytes(outro.getNome()) + bytes(outro.getEmail());
+    }
+
+    private static long bytes(String texto) {
+        return texto == null ? 0 : 40 + texto.length();
+    }
+
+    /**
+     * Buffer circular com as transações de um usuário, da mais recente (posição 0) para a
+     * mais antiga. Quando cheio, incluir uma transação nova sobrescreve a mais antiga.
+     */
+    final class Anel {
+        private final HistoricoTransacaoDTO[] itens;
+        private int inicio;
+        private int quantidade;
+        private long total;
+        private long alteracoes;
+        private long bytes;
+        private boolean carregado;
+        private boolean descartado;
+
+        Anel(int capacidade) {
+            this.itens = new HistoricoTransacaoDTO[capacidade];
+        }
+
+        synchronized long alteracoesAtuais() {
+            return alteracoes;
+        }
+
+        synchronized Pagina pagina(int size) {
+            // Com menos itens que a página, só serve se eles forem o histórico inteiro
+            if (!carregado || (quantidade < size && quantidade < total)) {
+                return null;
+            }
+            int itensPagina = Math.min(size, quantidade);
+            List<HistoricoTransacaoDTO> pagina = new ArrayList<>(itensPagina);
+            for (int i = 0; i < itensPagina; i++) {
+                pagina.add(item(i));
+            }
+            return new Pagina(pagina, total);
+        }
+
+        synchronized void preencher(List<HistoricoTransacaoDTO> recentes, long totalHistorico, long alteracoesNaLeitura) {
+            if (descartado || carregado || alteracoes != alteracoesNaLeitura) {
+                return;
+            }
+            int quantos = Math.min(recentes.size(), itens.length);
+            for (int i = 0; i < quantos; i++) {
+                itens[i] = recentes.get(i);
+                ajustarBytes(estimarBytes(itens[i]));
+            }
+            inicio = 0;
+            quantidade = quantos;
+            total = totalHistorico;
+            carregado = true;
+        }
+
+        synchronized void incluir(HistoricoTransacaoDTO novo) {
+            alteracoes++;
+            if (!carregado || descartado) {
+                return;
+            }
+            total++;
+
+            // Commits podem chegar fora da ordem de dataTransacao: procura a posição a partir da mais recente
+            int posicao = 0;
+            while (posicao < quantidade && !maisRecente(novo, item(posicao))) {
+                if (item(posicao).getId().equals(novo.getId())) {
+                    total--;
+                    return;
+                }
+                posicao++;
+            }
+            if (posicao == itens.length) {
+                // Mais antiga que todas as do buffer cheio: fica só no banco
+                return;
+            }
+
+            if (quantidade == itens.length) {
+                ajustarBytes(-estimarBytes(item(quantidade - 1)));
+            } else {
+                quantidade++;
+            }
+            if (posicao == 0) {
+                inicio = (inicio - 1 + itens.length) % itens.length;
+            } else {
+                for (int i = quantidade - 1; i > posicao; i--) {
+                    itens[indice(i)] = item(i - 1);
+                }
+            }
+            itens[indice(posicao)] = novo;
+            ajustarBytes(estimarBytes(novo));
+        }
+
+        synchronized void descartar() {
+            descartado = true;
+            carregado = false;
+            ajustarBytes(-bytes);
+        }
+
+        private HistoricoTransacaoDTO item(int posicao) {
+            return itens[indice(posicao)];
+        }
+
+        private int indice(int posicao) {
+            return (inicio + posicao) % itens.length;
+        }
+
+        private void ajustarBytes(long delta) {
+            bytes += delta;
+            bytesTotal.addAndGet(delta);
+        }
+
+        private static boolean maisRecente(HistoricoTransacaoDTO a, HistoricoTransacaoDTO b) {
+            int comparacao = a.getDataTransacao().compareTo(b.getDataTransacao());
+            return comparacao > 0 || (comparacao == 0 && a.getId() > b.getId());
+        }
+    }
+}
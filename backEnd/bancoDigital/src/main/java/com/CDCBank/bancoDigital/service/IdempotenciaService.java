@@ -0,0 +1,231 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.CDCBank.bancoDigital.dto.request.TransacaoRequestDTO;
+import com.CDCBank.bancoDigital.dto.response.TransacaoResponseDTO;
+import com.CDCBank.bancoDigital.exception.ChaveIdempotenciaReutilizadaException;
+import com.CDCBank.bancoDigital.models.ChaveIdempotencia;
+import com.CDCBank.bancoDigital.repository.ChaveIdempotenciaRepository;
+import com.CDCBank.bancoDigital.util.Centavos;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Garante que uma transação enviada com o mesmo {@code Idempotency-Key} seja
+ * executada uma única vez por usuário.
+ *
+ * As respostas ficam num cache LRU limitado com expiração e também na tabela
+ * {@code chave_idempotencia}, gravada na mesma transação da transferência.
+ * Requisições duplicadas que chegam enquanto a primeira ainda está em execução
+ * aguardam o resultado dela em vez de executar de novo.
+ *
+ * Junto com a chave fica um hash do pedido (destinatário, valor e descrição): a mesma
+ * chave com outro pedido é recusada em vez de devolver a resposta de uma transferência
+ * diferente. Uma chave expirada é tratada como nova e a linha antiga é substituída.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotenciaService {
+
+    public static final int TAMANHO_MAXIMO_CHAVE = 100;
+
+    private final ChaveIdempotenciaRepository chaveIdempotenciaRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${transacao.idempotencia.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${transacao.idempotencia.capacidade:10000}")
+    private int capacidade;
+
+    @Value("${transacao.idempotencia.espera-maxima:30s}")
+    private Duration esperaMaxima;
+
+    private Map<String, Registro> cache;
+    private final Map<String, Execucao> emAndamento = new ConcurrentHashMap<>();
+
+    private record Registro(TransacaoResponseDTO resposta, String hashRequisicao, long expiraEm) {}
+
+    private record Execucao(CompletableFuture<TransacaoResponseDTO> resultado, String hashRequisicao) {}
+
+    @PostConstruct
+    void iniciar() {
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Registro> maisAntigo) {
+                return size() > capacidade;
+            }
+        });
+    }
+
+    /**
+     * Executa a operação apenas se a chave ainda não foi usada pelo usuário;
+     * caso contrário devolve a resposta armazenada.
+     *
+     * @throws ChaveIdempotenciaReutilizadaException se a chave já foi usada com outro pedido
+     */
+    public TransacaoResponseDTO executar(Long usuarioId, String chave, TransacaoRequestDTO request,
+                                         Supplier<TransacaoResponseDTO> operacao) {
+        if (chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new IllegalArgumentException("Idempotency-Key deve ter no máximo " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+        }
+        String chaveCache = usuarioId + ":" + chave;
+        String hashRequisicao = hashRequisicao(request);
+
+        Registro armazenado = buscarNoCache(chaveCache);
+        if (armazenado != null) {
+            verificarMesmoPedido(chave, armazenado.hashRequisicao(), hashRequisicao);
+            log.info("Repetindo resposta armazenada para Idempotency-Key {} do usuário {}", chave, usuarioId);
+            return armazenado.resposta();
+        }
+
+        Execucao execucao = new Execucao(new CompletableFuture<>(), hashRequisicao);
+        Execucao existente = emAndamento.putIfAbsent(chaveCache, execucao);
+        if (existente != null) {
+            verificarMesmoPedido(chave, existente.hashRequisicao(), hashRequisicao);
+            log.info("Aguardando execução em andamento para Idempotency-Key {} do usuário {}", chave, usuarioId);
+            return aguardar(existente.resultado());
+        }
+
+        try {
+            TransacaoResponseDTO resposta = buscarNoBanco(usuarioId, chave, hashRequisicao)
+                .orElseGet(() -> executarOuRecuperar(usuarioId, chave, hashRequisicao, operacao));
+            cache.put(chaveCache, new Registro(resposta, hashRequisicao, System.currentTimeMillis() + ttl.toMillis()));
+            execucao.resultado().complete(resposta);
+            return resposta;
+        } catch (RuntimeException e) {
+            execucao.resultado().completeExceptionally(e);
+            throw e;
+        } finally {
+            emAndamento.remove(chaveCache, execucao);
+        }
+    }
+
+    /**
+     * Grava a resposta da chave. Deve ser chamado dentro da transação da transferência,
+     * para que a chave só exista se a transferência for confirmada. Uma linha expirada
+     * da mesma chave, ainda não removida pela limpeza, é substituída.
+     */
+    public void registrar(Long usuarioId, String chave, TransacaoRequestDTO request, TransacaoResponseDTO resposta) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(resposta);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Erro ao serializar resposta da transação", e);
+        }
+        chaveIdempotenciaRepository.deleteExpirada(usuarioId, chave, LocalDateTime.now().minus(ttl));
+        chaveIdempotenciaRepository.save(ChaveIdempotencia.builder()
+            .usuarioId(usuarioId)
+            .chave(chave)
+            .hashRequisicao(hashRequisicao(request))
+            .resposta(json)
+            .build());
+    }
+
+    @Scheduled(fixedDelayString = "${transacao.idempotencia.intervalo-limpeza:1h}")
+    @Transactional
+    public void limparExpiradas() {
+        int removidas = chaveIdempotenciaRepository.deleteExpiradas(LocalDateTime.now().minus(ttl));
+        if (removidas > 0) {
+            log.info("{} chaves de idempotência expiradas removidas", removidas);
+        }
+    }
+
+    private TransacaoResponseDTO executarOuRecuperar(Long usuarioId, String chave, String hashRequisicao,
+                                                     Supplier<TransacaoResponseDTO> operacao) {
+        try {
+            return operacao.get();
+        } catch (DataIntegrityViolationException e) {
+            // Outra instância gravou a mesma chave primeiro; esta transação foi desfeita
+            return buscarNoBanco(usuarioId, chave, hashRequisicao).orElseThrow(() -> e);
+        }
+    }
+
+    private Registro buscarNoCache(String chaveCache) {
+        Registro registro = cache.get(chaveCache);
+        if (registro == null) {
+            return null;
+        }
+        if (registro.expiraEm() < System.currentTimeMillis()) {
+            cache.remove(chaveCache);
+            return null;
+        }
+        return registro;
+    }
+
+    private Optional<TransacaoResponseDTO> buscarNoBanco(Long usuarioId, String chave, String hashRequisicao) {
+        return chaveIdempotenciaRepository.findByUsuarioIdAndChave(usuarioId, chave)
+            .filter(registro -> registro.getCriadaEm().isAfter(LocalDateTime.now().minus(ttl)))
+            .map(registro -> {
+                verificarMesmoPedido(chave, registro.getHashRequisicao(), hashRequisicao);
+                try {
+                    return objectMapper.readValue(registro.getResposta(), TransacaoResponseDTO.class);
+                } catch (JsonProcessingException e) {
+                    throw new IllegalStateException("Erro ao ler resposta armazenada da transação", e);
+                }
+            });
+    }
+
+    // Linhas gravadas antes do hash existir não têm com o que comparar
+    private void verificarMesmoPedido(String chave, String armazenado, String recebido) {
+        if (armazenado != null && !armazenado.equals(recebido)) {
+            throw new ChaveIdempotenciaReutilizadaException(
+                "Idempotency-Key " + chave + " já foi usada com outro destinatário, valor ou descrição");
+        }
+    }
+
+    private static String hashRequisicao(TransacaoRequestDTO request) {
+        // Valor em centavos: 10.0 e 10.00 são o mesmo pedido
+        String conteudo = request.getIdDestinatario() + "|" + Centavos.de(request.getValor()) + "|"
+            + (request.getDescricao() == null ? "" : request.getDescricao());
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(conteudo.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private TransacaoResponseDTO aguardar(CompletableFuture<TransacaoResponseDTO> execucao) {
+        try {
+            return execucao.get(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Transação com a mesma Idempotency-Key ainda em processamento");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Transação interrompida", e);
+        }
+    }
+}
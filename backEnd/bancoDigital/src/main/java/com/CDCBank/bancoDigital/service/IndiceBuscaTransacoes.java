@@ -0,0 +1,408 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.CDCBank.bancoDigital.dto.response.IndiceBuscaDTO;
+import com.CDCBank.bancoDigital.dto.response.TransacaoResponseDTO;
+import com.CDCBank.bancoDigital.util.ListaPostagens;
+import com.CDCBank.bancoDigital.util.Tokenizador;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Índice invertido em memória das descrições de transação, por usuário: cada termo
+ * ({@link Tokenizador}) aponta para a {@link ListaPostagens} com os ids das transações
+ * enviadas ou recebidas pelo usuário que contêm o termo. Os termos de um usuário ficam num
+ * array ordenado, então os termos com um prefixo são um intervalo contíguo (busca binária).
+ *
+ * Transações novas entram depois do commit, para remetente e destinatário, como no
+ * {@link HistoricoRecenteCache}. Na inicialização (e pelo endpoint {@code busca} do
+ * actuator) o índice é reconstruído a partir de transacao e transacao_arquivo, lidas em
+ * streaming, num índice novo que recebe também as transações confirmadas durante a
+ * leitura; a troca é atômica e acrescentar um id que já está na lista não tem efeito. Até
+ * a primeira reconstrução terminar, as buscas falham com {@link IllegalStateException}.
+ *
+ * Métricas: {@code busca.indice.usuarios}, {@code busca.indice.termos},
+ * {@code busca.indice.postagens} e {@code busca.indice.bytes}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IndiceBuscaTransacoes {
+
+    public static final String DESABILITADO = "DESABILITADO";
+    public static final String CONSTRUINDO = "CONSTRUINDO";
+    public static final String PRONTO = "PRONTO";
+
+    // Em ordem de id: no InnoDB é a ordem da PK, e as listas só recebem acréscimos no fim
+    private static final String SQL_TRANSACOES = """
+        SELECT id, id_remetente, id_destinatario, descricao
+        FROM transacao
+        WHERE descricao IS NOT NULL AND descricao <> ''
+        ORDER BY id
+        """;
+    private static final String SQL_ARQUIVADAS = """
+        SELECT id, id_remetente, id_destinatario, descricao, data_transacao
+        FROM transacao_arquivo
+        WHERE descricao IS NOT NULL AND descricao <> ''
+        ORDER BY id
+        """;
+    // Arquivadas enquanto transacao era lida: a partir da data mais recente da primeira leitura do arquivo
+    private static final String SQL_ARQUIVADAS_DESDE = """
+        SELECT id, id_remetente, id_destinatario, descricao
+        FROM transacao_arquivo
+        WHERE data_transacao >= ? AND descricao IS NOT NULL AND descricao <> ''
+        """;
+    private static final LocalDateTime ARQUIVO_VAZIO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${transacao.busca.habilitado:true}")
+    private boolean habilitado;
+
+    // Integer.MIN_VALUE faz o driver do MySQL entregar as linhas uma a uma
+    @Value("${transacao.busca.fetch-size:-2147483648}")
+    private int fetchSize;
+
+    private JdbcTemplate streaming;
+    // Termos iguais de usuários diferentes compartilham a mesma String
+    private final Map<String, String> vocabulario = new ConcurrentHashMap<>();
+    private final AtomicBoolean construindo = new AtomicBoolean();
+    private volatile Indice ativo = new Indice();
+    private volatile Indice emConstrucao;
+    private volatile boolean pronto;
+    private volatile LocalDateTime reconstruidoEm;
+    private volatile long duracaoReconstrucaoMs;
+
+    /**
+     * Índices de todos os usuários, com contadores mantidos a cada inclusão.
+     */
+    private static final class Indice {
+        final ConcurrentHashMap<Long, IndiceUsuario> usuarios = new ConcurrentHashMap<>();
+        final AtomicLong termos = new AtomicLong();
+        final AtomicLong postagens = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        long transacoes;
+    }
+
+    @PostConstruct
+    void iniciar() {
+        streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(fetchSize);
+
+        Gauge.builder("busca.indice.usuarios", this, i -> i.ativo.usuarios.size())
+            .description("Usuários no índice de busca de transações")
+            .register(meterRegistry);
+        Gauge.builder("busca.indice.termos", this, i -> i.ativo.termos.get())
+            .description("Termos distintos somados entre os usuários do índice de busca")
+            .register(meterRegistry);
+        Gauge.builder("busca.indice.postagens", this, i -> i.ativo.postagens.get())
+            .description("Pares (termo, transação) no índice de busca")
+            .register(meterRegistry);
+        Gauge.builder("busca.indice.bytes", this, i -> i.ativo.bytes.get())
+            .description("Bytes das listas de postagens compactadas do índice de busca")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void construirNaInicializacao() {
+        iniciarReconstrucao();
+    }
+
+    /**
+     * Reconstrói o índice em segundo plano, se habilitado e se nenhuma reconstrução estiver
+     * em andamento.
+     */
+    public IndiceBuscaDTO iniciarReconstrucao() {
+        if (habilitado && construindo.compareAndSet(false, true)) {
+            Thread execucao = new Thread(() -> {
+                try {
+                    reconstruir();
+                } catch (RuntimeException e) {
+                    log.error("Falha na reconstrução do índice de busca", e);
+                } finally {
+                    construindo.set(false);
+                }
+            }, "indice-busca");
+            execucao.setDaemon(true);
+            execucao.start();
+        }
+        return estatisticas();
+    }
+
+    /**
+     * Lê todas as transações com descrição, arquivadas ou não, e troca o índice ativo pelo novo.
+     */
+    void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        Indice novo = new Indice();
+        emConstrucao = novo;
+        try {
+            // Arquivo antes de transacao (os ids antigos chegam primeiro às listas); o que for
+            // arquivado durante a leitura de transacao é lido no fim, e ids repetidos não contam
+            LocalDateTime[] arquivadasAte = {ARQUIVO_VAZIO};
+            streaming.query(SQL_ARQUIVADAS, rs -> {
+                indexar(novo, rs.getLong(1), rs.getLong(2), rs.getLong(3), Tokenizador.termos(rs.getString(4)));
+                novo.transacoes++;
+                LocalDateTime data = rs.getObject(5, LocalDateTime.class);
+                if (data.isAfter(arquivadasAte[0])) {
+                    arquivadasAte[0] = data;
+                }
+            });
+            streaming.query(SQL_TRANSACOES, rs -> {
+                indexar(novo, rs.getLong(1), rs.getLong(2), rs.getLong(3), Tokenizador.termos(rs.getString(4)));
+                novo.transacoes++;
+            });
+            streaming.query(SQL_ARQUIVADAS_DESDE, rs -> {
+                indexar(novo, rs.getLong(1), rs.getLong(2), rs.getLong(3), Tokenizador.termos(rs.getString(4)));
+            }, arquivadasAte[0]);
+            // Nesta ordem: quem leu emConstrucao == null depois daqui já enxerga o novo ativo
+            ativo = novo;
+            pronto = true;
+        } finally {
+            emConstrucao = null;
+        }
+        reconstruidoEm = LocalDateTime.now();
+        duracaoReconstrucaoMs = System.currentTimeMillis() - inicio;
+        log.info("Índice de busca reconstruído - {} transações, {} usuários, {} termos, {} postagens, {} bytes, {} ms",
+            novo.transacoes, novo.usuarios.size(), novo.termos.get(), novo.postagens.get(), novo.bytes.get(),
+            duracaoReconstrucaoMs);
+    }
+
+    /**
+     * Inclui a transação no índice do remetente e do destinatário. Dentro de uma transação,
+     * só depois do commit.
+     */
+    public void registrar(TransacaoResponseDTO transacao) {
+        if (!habilitado) {
+            return;
+        }
+        Set<String> termos = Tokenizador.termos(transacao.getDescricao());
+        if (termos.isEmpty()) {
+            return;
+        }
+        Runnable incluir = () -> {
+            Indice construcao = emConstrucao;
+            Indice atual = ativo;
+            indexar(atual, transacao.getId(), transacao.getRemetente().getId(), transacao.getDestinatario().getId(), termos);
+            if (construcao != null && construcao != atual) {
+                indexar(construcao, transacao.getId(), transacao.getRemetente().getId(),
+                    transacao.getDestinatario().getId(), termos);
+            }
+        };
+        aposCommit(incluir);
+    }
+
+    /**
+     * Ids das transações do usuário cuja descrição tem, para cada termo da consulta, algum
+     * termo começando por ele; em ordem decrescente de id, só os menores que {@code antesDe}.
+     *
+     * @throws IllegalArgumentException se a consulta não tiver nenhum termo válido
+     * @throws IllegalStateException se a busca estiver desabilitada ou o índice ainda não foi construído
+     */
+    public long[] buscar(Long usuarioId, String consulta, long antesDe, int limite) {
+        if (!habilitado) {
+            throw new IllegalStateException("Busca de transações desabilitada");
+        }
+        if (!pronto) {
+            throw new IllegalStateException("Índice de busca em construção, tente novamente em instantes");
+        }
+        Set<String> prefixos = Tokenizador.termos(consulta);
+        if (prefixos.isEmpty()) {
+            throw new IllegalArgumentException(
+                "Informe ao menos um termo com " + Tokenizador.TAMANHO_MINIMO + " ou mais letras ou dígitos");
+        }
+        IndiceUsuario indice = ativo.usuarios.get(usuarioId);
+        if (indice == null) {
+            return new long[0];
+        }
+        return indice.buscar(prefixos.toArray(String[]::new), antesDe, limite);
+    }
+
+    /**
+     * Descarta o índice do usuário excluído, depois do commit. Os ids das transações
+     * excluídas que ficam nas listas das contrapartes somem na leitura das linhas.
+     */
+    public void removerUsuario(Long usuarioId) {
+        aposCommit(() -> {
+            for (Indice indice : new Indice[] {emConstrucao, ativo}) {
+                IndiceUsuario removido = indice == null ? null : indice.usuarios.remove(usuarioId);
+                if (removido != null) {
+                    removido.descontar(indice);
+                }
+            }
+        });
+    }
+
+    public IndiceBuscaDTO estatisticas() {
+        Indice indice = ativo;
+        String estado = !habilitado ? DESABILITADO : (construindo.get() || !pronto ? CONSTRUINDO : PRONTO);
+        return IndiceBuscaDTO.builder()
+            .estado(estado)
+            .usuarios(indice.usuarios.size())
+            .termos(indice.termos.get())
+            .postagens(indice.postagens.get())
+            .bytes(indice.bytes.get())
+            .reconstruidoEm(reconstruidoEm)
+            .duracaoReconstrucaoMs(duracaoReconstrucaoMs)
+            .build();
+    }
+
+    private static void aposCommit(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+
+    private void indexar(Indice indice, long id, long idRemetente, long idDestinatario, Set<String> termos) {
+        if (termos.isEmpty()) {
+            return;
+        }
+        indice.usuarios.computeIfAbsent(idRemetente, u -> new IndiceUsuario()).adicionar(id, termos, indice, vocabulario);
+        indice.usuarios.computeIfAbsent(idDestinatario, u -> new IndiceUsuario()).adicionar(id, termos, indice, vocabulario);
+    }
+
+    /**
+     * Termos de um usuário em ordem, cada um com a sua lista de postagens.
+     */
+    private static final class IndiceUsuario {
+        private String[] termos = new String[8];
+        private ListaPostagens[] listas = new ListaPostagens[8];
+        private int quantidade;
+
+        synchronized void adicionar(long id, Set<String> novos, Indice indice, Map<String, String> vocabulario) {
+            for (String termo : novos) {
+                int posicao = Arrays.binarySearch(termos, 0, quantidade, termo);
+                if (posicao < 0) {
+                    posicao = -posicao - 1;
+                    inserirTermo(posicao, vocabulario.computeIfAbsent(termo, t -> t));
+                    indice.termos.incrementAndGet();
+                }
+                ListaPostagens lista = listas[posicao];
+                int bytesAntes = lista.bytes();
+                if (lista.adicionar(id)) {
+                    indice.postagens.incrementAndGet();
+                    indice.bytes.addAndGet(lista.bytes() - bytesAntes);
+                }
+            }
+        }
+
+        synchronized long[] buscar(String[] prefixos, long antesDe, int limite) {
+            long[] resultado = null;
+            for (String prefixo : prefixos) {
+                long[] ids = comPrefixo(prefixo);
+                resultado = resultado == null ? ids : intersecao(resultado, ids);
+                if (resultado.length == 0) {
+                    return resultado;
+                }
+            }
+            // Do maior para o menor id, a partir do primeiro antes do cursor
+            int fim = Arrays.binarySearch(resultado, antesDe);
+            fim = fim >= 0 ? fim : -fim - 1;
+            int quantidadePagina = Math.min(limite, fim);
+            long[] pagina = new long[quantidadePagina];
+            for (int i = 0; i < quantidadePagina; i++) {
+                pagina[i] = resultado[fim - 1 - i];
+            }
+            return pagina;
+        }
+
+        synchronized void descontar(Indice indice) {
+            indice.termos.addAndGet(-quantidade);
+            for (int i = 0; i < quantidade; i++) {
+                indice.postagens.addAndGet(-listas[i].quantidade());
+                indice.bytes.addAndGet(-listas[i].bytes());
+            }
+        }
+
+        /**
+         * União, em ordem crescente e sem repetição, das listas dos termos com o prefixo.
+         */
+        private long[] comPrefixo(String prefixo) {
+            int inicio = Arrays.binarySearch(termos, 0, quantidade, prefixo);
+            inicio = inicio >= 0 ? inicio : -inicio - 1;
+            int fim = inicio;
+            int total = 0;
+            while (fim < quantidade && termos[fim].startsWith(prefixo)) {
+                total += listas[fim].quantidade();
+                fim++;
+            }
+            if (fim - inicio == 1) {
+                return listas[inicio].decodificar();
+            }
+            long[] ids = new long[total];
+            int posicao = 0;
+            for (int i = inicio; i < fim; i++) {
+                long[] lista = listas[i].decodificar();
+                System.arraycopy(lista, 0, ids, posicao, lista.length);
+                posicao += lista.length;
+            }
+            Arrays.sort(ids);
+            int distintos = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (i == 0 || ids[i] != ids[i - 1]) {
+                    ids[distintos++] = ids[i];
+                }
+            }
+            return distintos == ids.length ? ids : Arrays.copyOf(ids, distintos);
+        }
+
+        private void inserirTermo(int posicao, String termo) {
+            if (quantidade == termos.length) {
+                termos = Arrays.copyOf(termos, quantidade * 2);
+                listas = Arrays.copyOf(listas, quantidade * 2);
+            }
+            System.arraycopy(termos, posicao, termos, posicao + 1, quantidade - posicao);
+            System.arraycopy(listas, posicao, listas, posicao + 1, quantidade - posicao);
+            termos[posicao] = termo;
+            listas[posicao] = new ListaPostagens();
+            quantidade++;
+        }
+
+        private static long[] intersecao(long[] a, long[] b) {
+            long[] comuns = new long[Math.min(a.length, b.length)];
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    comuns[k++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(comuns, k);
+        }
+    }
+}
@@ -0,0 +1,571 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Motor opcional de transações particionado por conta.
+ *
+ * As contas são distribuídas em N shards pelo hash do id. Cada shard tem uma única
+ * thread escritora que consome uma fila circular limitada e guarda em memória o saldo
+ * das contas que são dela, lido do banco no primeiro uso e mantido em um LRU de até
+ * {@code contas-por-shard} contas.
+ *
+ * Uma {@link Transferencia} passa por duas etapas:
+ * <ul>
+ *   <li>Reserva: na thread do shard do remetente, sem ir ao banco, o débito é confrontado
+ *       com o saldo em memória menos o que as transferências anteriores do mesmo lote já
+ *       reservaram. Sem saldo, a transferência é recusada ali mesmo.</li>
+ *   <li>Aplicação: depois do commit, o shard aplica as variações nas suas contas e manda
+ *       os créditos das contas de outros shards para a caixa de créditos do dono, que os
+ *       soma antes do próximo lote. Nenhum shard escreve na memória de outro.</li>
+ * </ul>
+ *
+ * Group commit: a thread do shard tira da fila até {@code tamanho-lote} operações e as
+ * persiste numa única transação de banco, com um commit (e um fsync) por lote. As
+ * reservas do lote viram um único UPDATE por conta, com a variação somada, em ordem
+ * crescente de id para que lotes de shards diferentes não entrem em deadlock; depois
+ * cada operação grava o seu registro (transação, livro razão, resumo mensal).
+ *
+ * O banco continua sendo a fonte da verdade, e outros escritores (processamento
+ * assíncrono, correções) alteram usuario sem passar pelo shard. Por isso o saldo em
+ * memória nunca autoriza um débito sozinho: o UPDATE do débito só afeta a linha se o
+ * saldo gravado cobrir a variação. Se não cobrir, a memória estava acima do banco; a
+ * conta é relida e o lote reservado de novo. Memória abaixo do banco também é relida,
+ * uma vez, antes de recusar por saldo.
+ *
+ * {@link #executar} continua disponível para operações que mexem no saldo por conta
+ * própria (remetentes com saldo distribuído): elas entram no lote depois de bloqueadas,
+ * em ordem de id, as linhas de todas as contas envolvidas.
+ *
+ * O resultado equivale a executar as operações uma a uma na ordem da fila: se uma
+ * falha, o lote é desfeito, só ela recebe a exceção e o restante é reservado e gravado
+ * de novo sem ela. Conflitos de lock (deadlock com o lote de outro shard, versão, saldo
+ * alterado fora do shard) repetem o lote; se persistirem, cada operação restante roda
+ * no seu próprio lote. Quem chamou recebe o resultado depois do commit.
+ *
+ * Métricas por shard: {@code ledger.fila.profundidade}, {@code ledger.latencia},
+ * {@code ledger.lote.tamanho}, {@code ledger.lote.repeticoes}, {@code ledger.contas.memoria}
+ * e {@code ledger.saldo.leituras}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerEngine {
+
+    private static final int REPETICOES_POR_CONFLITO = 3;
+
+    private static final String SQL_BLOQUEAR_CONTAS = "SELECT id FROM usuario WHERE id IN (%s) ORDER BY id FOR UPDATE";
+    private static final String SQL_SALDO = "SELECT saldo_centavos FROM usuario WHERE id = ?";
+    private static final String SQL_ALTERAR_SALDO =
+        "UPDATE usuario SET saldo_centavos = saldo_centavos + ?, versao = versao + 1 WHERE id = ? AND saldo_centavos + ? >= 0";
+
+    /**
+     * Débito de um remetente e os créditos que ele gera, em centavos.
+     *
+     * @param creditosCentavos créditos nas linhas de usuario, por conta; créditos nas faixas
+     *        de contas distribuídas ficam com o registro da transferência
+     * @param saldoInsuficiente mensagem da recusa por falta de saldo
+     */
+    public record Transferencia(Long idRemetente, long debitoCentavos, Map<Long, Long> creditosCentavos,
+            String saldoInsuficiente) {}
+
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${transacao.ledger.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${transacao.ledger.shards:8}")
+    private int quantidadeShards;
+
+    @Value("${transacao.ledger.capacidade-fila:1024}")
+    private int capacidadeFila;
+
+    @Value("${transacao.ledger.tamanho-lote:64}")
+    private int tamanhoLote;
+
+    @Value("${transacao.ledger.timeout-enfileiramento-ms:500}")
+    private long timeoutEnfileiramentoMs;
+
+    @Value("${transacao.ledger.contas-por-shard:100000}")
+    private int contasPorShard;
+
+    private final List<Shard> shards = new ArrayList<>();
+
+    @PostConstruct
+    void iniciar() {
+        if (!habilitado) {
+            return;
+        }
+        if (quantidadeShards < 1 || capacidadeFila < 1 || tamanhoLote < 1 || contasPorShard < 1) {
+            throw new IllegalStateException(
+                "transacao.ledger.shards, capacidade-fila, tamanho-lote e contas-por-shard devem ser positivos: "
+                + quantidadeShards + ", " + capacidadeFila + ", " + tamanhoLote + ", " + contasPorShard);
+        }
+        for (int i = 0; i < quantidadeShards; i++) {
+            shards.add(new Shard(i));
+        }
+        shards.forEach(shard -> shard.thread.start());
+        log.info("Ledger engine iniciado com {} shards (fila de {} posições, lotes de até {}, {} contas em memória)",
+            quantidadeShards, capacidadeFila, tamanhoLote, contasPorShard);
+    }
+
+    @PreDestroy
+    void parar() {
+        shards.forEach(Shard::parar);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * @return true se a thread atual é a thread escritora de algum shard
+     */
+    public boolean isThreadDeShard() {
+        Thread atual = Thread.currentThread();
+        for (Shard shard : shards) {
+            if (shard.thread == atual) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reserva o débito no shard do remetente e, se houver saldo, grava os saldos e executa
+     * {@code registro} na transação do lote; aguarda o commit. O registro grava o que a
+     * transferência deixa além dos saldos e participa da transação corrente (propagação
+     * REQUIRED); exceções lançadas por ele desfazem só esta transferência e são repassadas
+     * ao chamador, assim como a recusa por saldo.
+     */
+    public <T> T transferir(Transferencia transferencia, Supplier<T> registro) {
+        Shard shard = shards.get(indiceShard(transferencia.idRemetente()));
+        if (Thread.currentThread() == shard.thread) {
+            throw new IllegalStateException("Transferência enfileirada pela própria thread do shard");
+        }
+        return aguardar(shard, new Tarefa<>(transferencia, List.of(), registro));
+    }
+
+    /**
+     * Executa a operação na thread do shard dono da conta, dentro da transação do lote,
+     * e aguarda o commit. A operação altera os saldos por conta própria e deve participar
+     * da transação corrente (propagação REQUIRED) em vez de abrir outra; exceções lançadas
+     * por ela são repassadas ao chamador.
+     *
+     * @param contas todas as contas cujas linhas em usuario a operação altera
+     */
+    public <T> T executar(Long idConta, Collection<Long> contas, Supplier<T> operacao) {
+        Shard shard = shards.get(indiceShard(idConta));
+
+        // Chamada feita pela própria thread do shard: executa direto para não travar a fila
+        if (Thread.currentThread() == shard.thread) {
+            return operacao.get();
+        }
+        return aguardar(shard, new Tarefa<>(null, contas, operacao));
+    }
+
+    private <T> T aguardar(Shard shard, Tarefa<T> tarefa) {
+        try {
+            if (!shard.fila.offer(tarefa, timeoutEnfileiramentoMs, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Sistema sobrecarregado, tente novamente em instantes");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Transação interrompida", e);
+        }
+
+        try {
+            return tarefa.resultado.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private int indiceShard(Long idConta) {
+        // Espalha ids sequenciais antes de reduzir ao número de shards
+        long h = idConta * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(h ^ (h >>> 32), (long) quantidadeShards);
+    }
+
+    private static boolean conflito(RuntimeException e) {
+        return e instanceof ConcurrencyFailureException || e instanceof TransientDataAccessException;
+    }
+
+    /**
+     * O débito de uma conta não coube no saldo gravado: a memória estava acima do banco.
+     */
+    private static final class SaldoDivergente extends OptimisticLockingFailureException {
+        private final Long idConta;
+
+        private SaldoDivergente(Long idConta) {
+            super("Saldo da conta " + idConta + " alterado fora do ledger engine");
+            this.idConta = idConta;
+        }
+    }
+
+    /**
+     * O crédito não encontrou a linha da conta.
+     */
+    private static final class ContaInexistente extends RuntimeException {
+        private final Long idConta;
+
+        private ContaInexistente(Long idConta) {
+            super("Usuário destinatário não encontrado");
+            this.idConta = idConta;
+        }
+    }
+
+    private static final class Tarefa<T> {
+        private final Transferencia transferencia;
+        private final Collection<Long> contas;
+        private final Supplier<T> operacao;
+        private final CompletableFuture<T> resultado = new CompletableFuture<>();
+        private final long enfileiradaEm = System.nanoTime();
+        private T valor;
+
+        private Tarefa(Transferencia transferencia, Collection<Long> contas, Supplier<T> operacao) {
+            this.transferencia = transferencia;
+            this.contas = contas;
+            this.operacao = operacao;
+        }
+
+        private void executar() {
+            valor = operacao.get();
+        }
+
+        private void concluir() {
+            resultado.complete(valor);
+        }
+
+        private void falhar(Throwable t) {
+            resultado.completeExceptionally(t);
+        }
+    }
+
+    private final class Shard {
+        private final int indice;
+        private final BlockingQueue<Tarefa<?>> fila = new ArrayBlockingQueue<>(capacidadeFila);
+        // Saldos das contas do shard; só a thread do shard lê e escreve
+        private final Map<Long, Long> saldos = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> maisAntiga) {
+                return size() > contasPorShard;
+            }
+        };
+        // Créditos confirmados por outros shards nas contas deste, ainda não somados aos saldos
+        private final Map<Long, Long> creditosRecebidos = new ConcurrentHashMap<>();
+        private final Thread thread;
+        private final Timer latencia;
+        private final DistributionSummary tamanhos;
+        private final Counter repeticoes;
+        private final Counter leituras;
+        private volatile int contasEmMemoria;
+        private volatile boolean ativo = true;
+
+        private Shard(int indice) {
+            this.indice = indice;
+            String tag = String.valueOf(indice);
+            Gauge.builder("ledger.fila.profundidade", fila, BlockingQueue::size)
+                .description("Transações aguardando na fila do shard")
+                .tag("shard", tag)
+                .register(meterRegistry);
+            Gauge.builder("ledger.contas.memoria", this, shard -> shard.contasEmMemoria)
+                .description("Contas com saldo em memória no shard")
+                .tag("shard", tag)
+                .register(meterRegistry);
+            this.latencia = Timer.builder("ledger.latencia")
+                .description("Tempo entre o enfileiramento e o commit da transação")
+                .tag("shard", tag)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+            this.tamanhos = DistributionSummary.builder("ledger.lote.tamanho")
+                .description("Transações confirmadas por commit do shard")
+                .tag("shard", tag)
+                .register(meterRegistry);
+            this.repeticoes = Counter.builder("ledger.lote.repeticoes")
+                .description("Lotes desfeitos e executados de novo (falha de uma transação ou conflito)")
+                .tag("shard", tag)
+                .register(meterRegistry);
+            this.leituras = Counter.builder("ledger.saldo.leituras")
+                .description("Saldos lidos do banco: primeiro uso da conta ou memória divergente")
+                .tag("shard", tag)
+                .register(meterRegistry);
+            this.thread = new Thread(this::processar, "ledger-shard-" + indice);
+            this.thread.setDaemon(true);
+        }
+
+        private void processar() {
+            List<Tarefa<?>> lote = new ArrayList<>(tamanhoLote);
+            while (ativo) {
+                try {
+                    lote.add(fila.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                fila.drainTo(lote, tamanhoLote - 1);
+                somarCreditosRecebidos();
+                executarLote(lote, true);
+                contasEmMemoria = saldos.size();
+                lote.clear();
+            }
+            Tarefa<?> pendente;
+            while ((pendente = fila.poll()) != null) {
+                pendente.falhar(new RuntimeException("Ledger engine encerrado"));
+            }
+        }
+
+        /**
+         * Reserva e grava as tarefas numa transação. Uma tarefa que falha sai do lote com a
+         * sua exceção e as demais são reservadas e gravadas de novo, então k falhas custam
+         * k + 1 transações.
+         *
+         * @param separarEmConflito se um conflito persistente passa cada tarefa para um lote
+         *        próprio, em vez de falhar as tarefas
+         */
+        private void executarLote(List<Tarefa<?>> lote, boolean separarEmConflito) {
+            List<Tarefa<?>> pendentes = new ArrayList<>(lote);
+            int conflitos = 0;
+            while (true) {
+                Map<Long, Long> variacoes = reservar(pendentes);
+                if (pendentes.isEmpty()) {
+                    return;
+                }
+
+                RuntimeException[] falha = new RuntimeException[1];
+                int indiceFalha;
+                try {
+                    indiceFalha = transactionTemplate.execute(status -> {
+                        bloquearContas(pendentes, variacoes.keySet());
+                        gravarSaldos(variacoes);
+                        for (int i = 0; i < pendentes.size(); i++) {
+                            try {
+                                pendentes.get(i).executar();
+                                // O flush por tarefa atribui à tarefa certa os erros que só aparecem no UPDATE/INSERT
+                                status.flush();
+                            } catch (RuntimeException e) {
+                                falha[0] = e;
+                                status.setRollbackOnly();
+                                return i;
+                            }
+                        }
+                        return -1;
+                    });
+                } catch (ContaInexistente e) {
+                    repeticoes.increment();
+                    recusarCreditosPara(pendentes, e);
+                    continue;
+                } catch (RuntimeException e) {
+                    // Saldo divergente ou falha no próprio commit: não dá para saber de qual tarefa
+                    falha[0] = e;
+                    indiceFalha = -2;
+                }
+
+                if (indiceFalha == -1) {
+                    aplicar(variacoes);
+                    long agora = System.nanoTime();
+                    for (Tarefa<?> tarefa : pendentes) {
+                        tarefa.concluir();
+                        latencia.record(agora - tarefa.enfileiradaEm, TimeUnit.NANOSECONDS);
+                    }
+                    tamanhos.record(pendentes.size());
+                    return;
+                }
+
+                repeticoes.increment();
+                if (conflito(falha[0]) || indiceFalha == -2) {
+                    if (falha[0] instanceof SaldoDivergente divergente) {
+                        // A próxima reserva relê a conta
+                        saldos.remove(divergente.idConta);
+                    }
+                    if (++conflitos > REPETICOES_POR_CONFLITO) {
+                        if (separarEmConflito && pendentes.size() > 1) {
+                            log.warn("Lote do {} em conflito {} vezes, executando as {} transações separadamente - {}",
+                                thread.getName(), conflitos - 1, pendentes.size(), falha[0].getMessage());
+                            pendentes.forEach(tarefa -> executarLote(List.of(tarefa), false));
+                        } else {
+                            pendentes.forEach(tarefa -> falhar(tarefa, falha[0]));
+                        }
+                        return;
+                    }
+                    continue;
+                }
+                falhar(pendentes.remove(indiceFalha), falha[0]);
+            }
+        }
+
+        /**
+         * Reserva em memória, na ordem da fila, o débito de cada transferência contra o saldo
+         * do remetente somado às variações que as anteriores do lote já reservaram. As recusadas
+         * saem de {@code pendentes} com a sua exceção.
+         *
+         * @return variação de saldo de cada conta no lote, em ordem crescente de id
+         */
+        private Map<Long, Long> reservar(List<Tarefa<?>> pendentes) {
+            Map<Long, Long> variacoes = new TreeMap<>();
+            Set<Long> relidas = new HashSet<>();
+            for (Iterator<Tarefa<?>> it = pendentes.iterator(); it.hasNext();) {
+                Tarefa<?> tarefa = it.next();
+                Transferencia transferencia = tarefa.transferencia;
+                if (transferencia == null) {
+                    continue;
+                }
+                Long idRemetente = transferencia.idRemetente();
+                long reservado = variacoes.getOrDefault(idRemetente, 0L);
+                Long saldo = saldo(idRemetente, false);
+                // Antes de recusar, relê uma vez: um crédito feito fora do shard não está na memória
+                if (saldo != null && saldo + reservado < transferencia.debitoCentavos() && relidas.add(idRemetente)) {
+                    saldo = saldo(idRemetente, true);
+                }
+                if (saldo == null || saldo + reservado < transferencia.debitoCentavos()) {
+                    it.remove();
+                    falhar(tarefa, new RuntimeException(
+                        saldo == null ? "Usuário remetente não encontrado" : transferencia.saldoInsuficiente()));
+                    continue;
+                }
+                variacoes.merge(idRemetente, -transferencia.debitoCentavos(), Long::sum);
+                transferencia.creditosCentavos().forEach((conta, valor) -> variacoes.merge(conta, valor, Long::sum));
+            }
+            return variacoes;
+        }
+
+        /**
+         * @param reler ignora o saldo em memória
+         * @return o saldo da conta do shard, ou null se ela não existe
+         */
+        private Long saldo(Long idConta, boolean reler) {
+            Long saldo = reler ? null : saldos.get(idConta);
+            if (saldo == null) {
+                // Créditos avisados antes da leitura já estão no que vai ser lido
+                creditosRecebidos.remove(idConta);
+                List<Long> lido = jdbcTemplate.queryForList(SQL_SALDO, Long.class, idConta);
+                leituras.increment();
+                if (lido.isEmpty()) {
+                    saldos.remove(idConta);
+                    return null;
+                }
+                saldo = lido.get(0);
+                saldos.put(idConta, saldo);
+            }
+            return saldo;
+        }
+
+        /**
+         * Um UPDATE por conta com a variação do lote. O débito só passa se o saldo gravado
+         * cobrir a variação, então uma memória acima do banco nunca deixa o saldo negativo.
+         */
+        private void gravarSaldos(Map<Long, Long> variacoes) {
+            for (Map.Entry<Long, Long> variacao : variacoes.entrySet()) {
+                long valor = variacao.getValue();
+                if (valor != 0 && jdbcTemplate.update(SQL_ALTERAR_SALDO, valor, variacao.getKey(), valor) == 0) {
+                    if (valor < 0) {
+                        throw new SaldoDivergente(variacao.getKey());
+                    }
+                    throw new ContaInexistente(variacao.getKey());
+                }
+            }
+        }
+
+        /**
+         * Depois do commit: soma as variações nas contas do shard que estão em memória e avisa
+         * o dono das demais.
+         */
+        private void aplicar(Map<Long, Long> variacoes) {
+            variacoes.forEach((conta, valor) -> {
+                int dono = indiceShard(conta);
+                if (dono == indice) {
+                    saldos.computeIfPresent(conta, (id, saldo) -> saldo + valor);
+                } else if (valor != 0) {
+                    shards.get(dono).creditosRecebidos.merge(conta, valor, Long::sum);
+                }
+            });
+        }
+
+        private void somarCreditosRecebidos() {
+            for (Long conta : creditosRecebidos.keySet()) {
+                Long valor = creditosRecebidos.remove(conta);
+                if (valor != null) {
+                    // Conta fora da memória: o crédito já vai estar no saldo quando ela for lida
+                    saldos.computeIfPresent(conta, (id, saldo) -> saldo + valor);
+                }
+            }
+        }
+
+        private void recusarCreditosPara(List<Tarefa<?>> pendentes, ContaInexistente e) {
+            for (Iterator<Tarefa<?>> it = pendentes.iterator(); it.hasNext();) {
+                Tarefa<?> tarefa = it.next();
+                if (tarefa.transferencia != null && tarefa.transferencia.creditosCentavos().containsKey(e.idConta)) {
+                    it.remove();
+                    falhar(tarefa, new RuntimeException(e.getMessage()));
+                }
+            }
+        }
+
+        /**
+         * Bloqueia em ordem crescente de id as contas das operações que alteram saldos por
+         * conta própria, junto com as das transferências do lote. Só transferências dispensam
+         * o bloqueio: os UPDATEs de {@link #gravarSaldos} já saem nessa ordem.
+         */
+        private void bloquearContas(List<Tarefa<?>> pendentes, Set<Long> contasTransferidas) {
+            TreeSet<Long> contas = new TreeSet<>();
+            pendentes.forEach(tarefa -> contas.addAll(tarefa.contas));
+            if (contas.isEmpty()) {
+                return;
+            }
+            contas.addAll(contasTransferidas);
+            if (contas.size() > 1) {
+                String marcadores = String.join(", ", Collections.nCopies(contas.size(), "?"));
+                jdbcTemplate.queryForList(SQL_BLOQUEAR_CONTAS.formatted(marcadores), Long.class, contas.toArray());
+            }
+        }
+
+        private void falhar(Tarefa<?> tarefa, RuntimeException e) {
+            tarefa.falhar(e);
+            latencia.record(System.nanoTime() - tarefa.enfileiradaEm, TimeUnit.NANOSECONDS);
+        }
+
+        private void parar() {
+            ativo = false;
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.CDCBank.bancoDigital.exception.LimiteDiarioExcedidoException;
+import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+import com.CDCBank.bancoDigital.util.Centavos;
+import com.CDCBank.bancoDigital.util.JanelaDeslizante;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Limite diário de envio derivado da renda mensal: {@code percentual-renda}% da renda,
+ * com piso em {@code minimo}. Os totais enviados ficam em memória numa janela deslizante
+ * de 24h com baldes de {@code granularidade} (1 minuto por padrão), então a verificação
+ * não consulta a tabela transacao.
+ *
+ * O valor é reservado antes da transação e liberado se ela falhar, de modo que envios
+ * concorrentes do mesmo usuário não ultrapassam o limite juntos. Na inicialização, as
+ * janelas são reconstruídas com uma leitura em streaming das transações das últimas 24h.
+ * Os totais são por instância da aplicação.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class LimiteDiarioService {
+
+    public static final long SEM_RESERVA = Long.MIN_VALUE;
+
+    private final UsuarioRepository usuarioRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${transacao.limite-diario.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${transacao.limite-diario.percentual-renda:100}")
+    private long percentualRenda;
+
+    @Value("${transacao.limite-diario.minimo:1000.00}")
+    private BigDecimal minimo;
+
+    @Value("${transacao.limite-diario.janela:24h}")
+    private Duration janela;
+
+    @Value("${transacao.limite-diario.granularidade:1m}")
+    private Duration granularidade;
+
+    private final Map<Long, Conta> contas = new ConcurrentHashMap<>();
+    private long minimoCentavos;
+    private int quantidadeBaldes;
+    private long granularidadeMs;
+
+    private static final class Conta {
+        final JanelaDeslizante enviado;
+        // -1 enquanto a renda não foi carregada
+        long limiteCentavos = -1;
+        boolean removida;
+
+        Conta(JanelaDeslizante enviado) {
+            this.enviado = enviado;
+        }
+    }
+
+    @PostConstruct
+    void reconstruir() {
+        minimoCentavos = Centavos.de(minimo);
+        granularidadeMs = granularidade.toMillis();
+        quantidadeBaldes = (int) (janela.toMillis() / granularidadeMs);
+        if (!habilitado) {
+            return;
+        }
+
+        long inicio = System.currentTimeMillis();
+        // fetchSize = Integer.MIN_VALUE faz o driver do MySQL entregar as linhas em streaming
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(Integer.MIN_VALUE);
+        long[] linhas = {0};
+        streaming.query("SELECT id_remetente, valor, data_transacao FROM transacao WHERE data_transacao >= ?",
+            rs -> {
+                linhas[0]++;
+                long periodo = rs.getTimestamp(3).getTime() / granularidadeMs;
+                Conta conta = contas.computeIfAbsent(rs.getLong(1), id -> novaConta(periodo));
+                conta.enviado.somar(periodo, Centavos.de(rs.getBigDecimal(2)));
+            },
+            new Timestamp(inicio - janela.toMillis()));
+        log.info("Limites diários reconstruídos - {} transações, {} contas, {} ms",
+            linhas[0], contas.size(), System.currentTimeMillis() - inicio);
+    }
+
+    /**
+     * Reserva o valor no limite diário do usuário.
+     *
+     * @return o período da reserva, a ser passado para {@link #liberar} se a transação falhar
+     * @throws LimiteDiarioExcedidoException se o valor ultrapassar o limite
+     */
+    public long reservar(Long idUsuario, long valorCentavos) {
+        if (!habilitado) {
+            return SEM_RESERVA;
+        }
+        long periodo = periodoAtual();
+        while (true) {
+            Conta conta = conta(idUsuario, periodo);
+            if (conta.limiteCentavos < 0) {
+                carregarLimite(idUsuario, conta);
+            }
+            synchronized (conta) {
+                if (conta.removida) {
+                    continue;
+                }
+                if (!conta.enviado.somarSeCouber(periodo, valorCentavos, conta.limiteCentavos)) {
+                    throw new LimiteDiarioExcedidoException("Limite diário de transferências excedido. Disponível: "
+                        + Centavos.paraValor(Math.max(0, conta.limiteCentavos - conta.enviado.total(periodo))));
+                }
+                return periodo;
+            }
+        }
+    }
+
+    /**
+     * Soma o valor sem verificar o limite, para transações já aceitas (replay do journal).
+     */
+    public long registrar(Long idUsuario, long valorCentavos) {
+        if (!habilitado) {
+            return SEM_RESERVA;
+        }
+        long periodo = periodoAtual();
+        while (true) {
+            Conta conta = conta(idUsuario, periodo);
+            synchronized (conta) {
+                if (!conta.removida) {
+                    conta.enviado.somar(periodo, valorCentavos);
+                    return periodo;
+                }
+            }
+        }
+    }
+
+    public void liberar(Long idUsuario, long valorCentavos, long periodo) {
+        if (periodo == SEM_RESERVA || valorCentavos == 0) {
+            return;
+        }
+        Conta conta = contas.get(idUsuario);
+        if (conta != null) {
+            synchronized (conta) {
+                conta.enviado.somar(periodo, -valorCentavos);
+            }
+        }
+    }
+
+    public void atualizarRenda(Long idUsuario, long rendaMensalCentavos) {
+        Conta conta = contas.get(idUsuario);
+        if (conta != null) {
+            synchronized (conta) {
+                conta.limiteCentavos = calcularLimite(rendaMensalCentavos);
+            }
+        }
+    }
+
+    public void remover(Long idUsuario) {
+        Conta conta = contas.remove(idUsuario);
+        if (conta != null) {
+            synchronized (conta) {
+                conta.removida = true;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${transacao.limite-diario.intervalo-limpeza:10m}")
+    public void removerInativas() {
+        long periodo = periodoAtual();
+        contas.values().removeIf(conta -> {
+            synchronized (conta) {
+                conta.removida = conta.enviado.total(periodo) == 0;
+                return conta.removida;
+            }
+        });
+    }
+
+    private void carregarLimite(Long idUsuario, Conta conta) {
+        long renda = usuarioRepository.findRendaMensalCentavosById(idUsuario).orElse(0L);
+        synchronized (conta) {
+            if (conta.limiteCentavos < 0) {
+                conta.limiteCentavos = calcularLimite(renda);
+            }
+        }
+    }
+
+    private long calcularLimite(long rendaMensalCentavos) {
+        return Math.max(minimoCentavos, rendaMensalCentavos * percentualRenda / 100);
+    }
+
+    // get antes do computeIfAbsent: no caminho comum não aloca a lambda
+    private Conta conta(Long idUsuario, long periodo) {
+        Conta conta = contas.get(idUsuario);
+        return conta != null ? conta : contas.computeIfAbsent(idUsuario, id -> novaConta(periodo));
+    }
+
+    private Conta novaConta(long periodo) {
+        return new Conta(new JanelaDeslizante(quantidadeBaldes, periodo));
+    }
+
+    private long periodoAtual() {
+        return System.currentTimeMillis() / granularidadeMs;
+    }
+}
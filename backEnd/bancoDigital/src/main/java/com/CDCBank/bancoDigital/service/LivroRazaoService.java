@@ -0,0 +1,148 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.CDCBank.bancoDigital.models.Lancamento;
+import com.CDCBank.bancoDigital.models.SnapshotSaldo;
+import com.CDCBank.bancoDigital.models.TipoLancamento;
+import com.CDCBank.bancoDigital.models.Transacao;
+import com.CDCBank.bancoDigital.repository.LancamentoRepository;
+import com.CDCBank.bancoDigital.repository.SnapshotSaldoRepository;
+import com.CDCBank.bancoDigital.repository.SubSaldoRepository;
+import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+import com.CDCBank.bancoDigital.util.Centavos;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Livro razão em partidas dobradas: cada transação vira um lançamento de débito e um
+ * de crédito, e o saldo de uma conta é o último snapshot mais os lançamentos seguintes.
+ *
+ * Snapshots são gerados periodicamente para contas com pelo menos
+ * {@code transacao.livro-razao.lancamentos-por-snapshot} lançamentos desde o anterior.
+ * A geração bloqueia a conta (linha em usuario e faixas), então nenhum lançamento da
+ * conta pode ser confirmado com id menor que o registrado no snapshot.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LivroRazaoService {
+
+    private final LancamentoRepository lancamentoRepository;
+    private final SnapshotSaldoRepository snapshotSaldoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final SubSaldoRepository subSaldoRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${transacao.livro-razao.lancamentos-por-snapshot:1000}")
+    private int lancamentosPorSnapshot;
+
+    /**
+     * Registra débito e crédito da transação. Deve ser chamado na mesma transação que
+     * alterou os saldos.
+     */
+    public void lancar(Transacao transacao) {
+        lancamentoRepository.saveAll(lancamentos(transacao));
+    }
+
+    public void lancar(List<Transacao> transacoes) {
+        List<Lancamento> lancamentos = new ArrayList<>(transacoes.size() * 2);
+        for (Transacao transacao : transacoes) {
+            lancamentos.addAll(lancamentos(transacao));
+        }
+        lancamentoRepository.saveAll(lancamentos);
+    }
+
+    private List<Lancamento> lancamentos(Transacao transacao) {
+        long valor = Centavos.de(transacao.getValor());
+        return List.of(
+            Lancamento.builder()
+                .transacaoId(transacao.getId())
+                .usuarioId(transacao.getRemetente().getId())
+                .tipo(TipoLancamento.DEBITO)
+                .valorCentavos(-valor)
+                .build(),
+            Lancamento.builder()
+                .transacaoId(transacao.getId())
+                .usuarioId(transacao.getDestinatario().getId())
+                .tipo(TipoLancamento.CREDITO)
+                .valorCentavos(valor)
+                .build());
+    }
+
+    /**
+     * Cria o snapshot de abertura da conta com o saldo atual, cobrindo os lançamentos
+     * que já existirem para ela.
+     */
+    public void abrirConta(Long usuarioId, long saldoCentavos) {
+        snapshotSaldoRepository.save(SnapshotSaldo.builder()
+            .usuarioId(usuarioId)
+            .saldoCentavos(saldoCentavos)
+            .ultimoLancamentoId(lancamentoRepository.findUltimoId(usuarioId))
+            .abertura(true)
+            .build());
+    }
+
+    /**
+     * Saldo da conta segundo o livro razão: último snapshot mais os lançamentos seguintes.
+     */
+    public long saldoCentavos(Long usuarioId) {
+        return snapshotSaldoRepository.findFirstByUsuarioIdOrderByUltimoLancamentoIdDesc(usuarioId)
+            .map(s -> s.getSaldoCentavos()
+                + lancamentoRepository.somarEntre(usuarioId, s.getUltimoLancamentoId(), Long.MAX_VALUE))
+            .orElseThrow(() -> new IllegalStateException("Conta sem snapshot de abertura: " + usuarioId));
+    }
+
+    @Scheduled(fixedDelayString = "${transacao.livro-razao.intervalo-snapshot:60s}")
+    public void gerarSnapshots() {
+        for (Long usuarioId : lancamentoRepository.findUsuariosParaSnapshot(lancamentosPorSnapshot)) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (usuarioRepository.findByIdForUpdate(usuarioId).isPresent()) {
+                        gerarSnapshotBloqueado(usuarioId);
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.warn("Falha ao gerar snapshot de saldo do usuário ID: {} - {}", usuarioId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Gera um snapshot com os lançamentos confirmados até agora. A linha do usuário já
+     * deve estar bloqueada na transação corrente; as faixas são bloqueadas aqui.
+     */
+    void gerarSnapshotBloqueado(Long usuarioId) {
+        subSaldoRepository.findByUsuarioIdForUpdate(usuarioId);
+
+        SnapshotSaldo anterior = snapshotSaldoRepository.findFirstByUsuarioIdOrderByUltimoLancamentoIdDesc(usuarioId)
+            .orElseThrow(() -> new IllegalStateException("Conta sem snapshot de abertura: " + usuarioId));
+        long ultimo = lancamentoRepository.findUltimoId(usuarioId);
+        if (ultimo <= anterior.getUltimoLancamentoId()) {
+            return;
+        }
+
+        long soma = lancamentoRepository.somarEntre(usuarioId, anterior.getUltimoLancamentoId(), ultimo);
+        snapshotSaldoRepository.save(SnapshotSaldo.builder()
+            .usuarioId(usuarioId)
+            .saldoCentavos(anterior.getSaldoCentavos() + soma)
+            .ultimoLancamentoId(ultimo)
+            .abertura(false)
+            .build());
+    }
+
+    /**
+     * Remove lançamentos e snapshots da conta. Usado na exclusão do usuário.
+     */
+    public void excluirConta(Long usuarioId) {
+        lancamentoRepository.deleteByUsuarioId(usuarioId);
+        snapshotSaldoRepository.deleteByUsuarioId(usuarioId);
+    }
+}
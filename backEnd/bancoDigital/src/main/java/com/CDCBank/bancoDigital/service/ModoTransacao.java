@@ -0,0 +1,17 @@
+package com.CDCBank.bancoDigital.service;
+
+/**
+ * Estratégia usada por {@link TransacaoService} para alterar os saldos.
+ * Configurada pela propriedade {@code transacao.modo}.
+ */
+public enum ModoTransacao {
+
+    /** Carrega os dois usuários com SELECT ... FOR UPDATE (menor id primeiro) e altera as entidades. */
+    BLOQUEIO,
+
+    /** Débito e crédito como UPDATEs condicionais; o número de linhas afetadas decide o saldo insuficiente. */
+    CONDICIONAL,
+
+    /** Carrega os dois usuários sem lock; o @Version detecta escrita concorrente e a transação é repetida. */
+    OTIMISTA
+}
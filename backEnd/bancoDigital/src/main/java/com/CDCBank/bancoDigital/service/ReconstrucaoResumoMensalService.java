@@ -0,0 +1,159 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.CDCBank.bancoDigital.dto.response.ReconstrucaoResumoMensalDTO;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Constrói a tabela resumo_mensal a partir das transações existentes, com as transferências
+ * rodando normalmente.
+ *
+ * Como na {@link ConciliacaoSaldosService}, as contas são divididas em faixas de
+ * {@code contas-por-faixa} ids ({@link FaixasDeContas}) processadas num {@link ForkJoinPool};
+ * cada faixa é uma transação que chama {@link ResumoMensalService#recalcularContas}. As
+ * transferências das contas da faixa esperam só enquanto ela é recalculada, e as que
+ * passaram antes ou depois já fazem o próprio upsert, então o resultado é exato.
+ *
+ * Roda sozinha na inicialização quando resumo_mensal está vazia e já existem transações;
+ * também pode ser disparada pelo endpoint {@code resumomensal} do actuator.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReconstrucaoResumoMensalService {
+
+    private static final int TENTATIVAS_POR_FAIXA = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ResumoMensalService resumoMensalService;
+
+    @Value("${transacao.resumo-mensal.reconstrucao.paralelismo:4}")
+    private int paralelismo;
+
+    @Value("${transacao.resumo-mensal.reconstrucao.contas-por-faixa:1000}")
+    private int contasPorFaixa;
+
+    @Value("${transacao.resumo-mensal.reconstrucao.na-inicializacao:true}")
+    private boolean naInicializacao;
+
+    private TransactionTemplate recalculo;
+
+    // Estado da execução corrente (ou da última)
+    private final ExecucaoEmSegundoPlano execucao = new ExecucaoEmSegundoPlano();
+    private final AtomicLong contasProcessadas = new AtomicLong();
+    private final AtomicLong transacoesLidas = new AtomicLong();
+
+    @PostConstruct
+    void iniciar() {
+        recalculo = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        recalculo.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void reconstruirSeVazia() {
+        if (!naInicializacao) {
+            return;
+        }
+        boolean vazia = jdbcTemplate.queryForList("SELECT id FROM resumo_mensal LIMIT 1", Long.class).isEmpty();
+        boolean comTransacoes = !jdbcTemplate.queryForList("SELECT id FROM transacao LIMIT 1", Long.class).isEmpty()
+            || !jdbcTemplate.queryForList("SELECT id FROM transacao_arquivo LIMIT 1", Long.class).isEmpty();
+        if (vazia && comTransacoes) {
+            log.info("Tabela resumo_mensal vazia - iniciando a reconstrução a partir das transações");
+            iniciarReconstrucao();
+        }
+    }
+
+    /**
+     * Inicia a reconstrução em segundo plano, se nenhuma estiver em andamento.
+     *
+     * @return o progresso logo após o início (ou o da execução em andamento)
+     */
+    public synchronized ReconstrucaoResumoMensalDTO iniciarReconstrucao() {
+        if (!execucao.emAndamento()) {
+            contasProcessadas.set(0);
+            transacoesLidas.set(0);
+            execucao.iniciar();
+
+            Thread thread = new Thread(this::executar, "reconstrucao-resumo-mensal");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return progresso();
+    }
+
+    public ReconstrucaoResumoMensalDTO progresso() {
+        int total = execucao.faixasTotal();
+        int concluidas = execucao.faixasConcluidas();
+        return ReconstrucaoResumoMensalDTO.builder()
+            .estado(execucao.estado())
+            .iniciadaEm(execucao.iniciadaEm())
+            .concluidaEm(execucao.concluidaEm())
+            .faixasTotal(total)
+            .faixasConcluidas(concluidas)
+            .percentual(ExecucaoEmSegundoPlano.percentual(concluidas, total))
+            .contasProcessadas(contasProcessadas.get())
+            .transacoesLidas(transacoesLidas.get())
+            .transacoesPorSegundo(execucao.porSegundo(transacoesLidas.get()))
+            .duracaoMs(execucao.duracaoMs())
+            .erro(execucao.erro())
+            .build();
+    }
+
+    private void executar() {
+        ForkJoinPool pool = new ForkJoinPool(paralelismo);
+        boolean concluida = false;
+        String erro = null;
+        try {
+            List<long[]> faixas = FaixasDeContas.dividir(jdbcTemplate, contasPorFaixa);
+            execucao.definirFaixasTotal(faixas.size());
+            log.info("Reconstrução do resumo mensal iniciada - {} faixas de até {} contas", faixas.size(), contasPorFaixa);
+            FaixasDeContas.processar(pool, faixas, (de, ate) -> {
+                recalcularFaixa(de, ate);
+                execucao.faixaConcluida();
+            });
+            concluida = true;
+            log.info("Reconstrução do resumo mensal concluída - {} contas, {} transações, {} ms",
+                contasProcessadas.get(), transacoesLidas.get(), execucao.duracaoMs());
+        } catch (RuntimeException e) {
+            erro = e.getMessage();
+            log.error("Falha na reconstrução do resumo mensal", e);
+        } finally {
+            execucao.terminar(concluida, erro);
+            pool.shutdownNow();
+        }
+    }
+
+    private void recalcularFaixa(long de, long ate) {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                ResumoMensalService.Recalculo resultado =
+                    recalculo.execute(status -> resumoMensalService.recalcularContas(de, ate));
+                contasProcessadas.addAndGet(resultado.contas());
+                transacoesLidas.addAndGet(resultado.transacoes());
+                return;
+            } catch (PessimisticLockingFailureException e) {
+                // Timeout de lock numa faixa muito movimentada: a transação foi desfeita, refaz a faixa
+                if (tentativa == TENTATIVAS_POR_FAIXA) {
+                    throw e;
+                }
+                log.warn("Faixa [{}, {}] do resumo mensal em conflito, tentativa {} - {}", de, ate, tentativa, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.CDCBank.bancoDigital.dto.response.DivergenciaSaldoDTO;
+import com.CDCBank.bancoDigital.dto.response.ReconstrucaoSaldosDTO;
+import com.CDCBank.bancoDigital.models.SnapshotSaldo;
+import com.CDCBank.bancoDigital.models.Usuario;
+import com.CDCBank.bancoDigital.repository.LancamentoRepository;
+import com.CDCBank.bancoDigital.repository.SnapshotSaldoRepository;
+import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+import com.CDCBank.bancoDigital.util.Centavos;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Recalcula o saldo de todas as contas a partir do livro razão (snapshot de abertura
+ * mais todos os lançamentos) e compara com o saldo armazenado em usuario e faixas.
+ *
+ * As contas são divididas em faixas de {@code contas-por-faixa} contas ({@link FaixasDeContas})
+ * processadas em paralelo; cada faixa é um único SELECT, que no InnoDB enxerga um estado confirmado consistente. Com correção,
+ * cada conta divergente é bloqueada, recalculada de novo e recebe o saldo do razão.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReconstrucaoSaldosService {
+
+    private static final String SQL_FAIXA = """
+        SELECT u.id,
+               u.saldo_centavos + COALESCE((SELECT SUM(s.saldo_centavos) FROM sub_saldo s WHERE s.id_usuario = u.id), 0),
+               a.saldo_centavos + COALESCE((SELECT SUM(l.valor_centavos) FROM lancamento l
+                                            WHERE l.id_usuario = u.id AND l.id > a.ultimo_lancamento_id), 0)
+        FROM usuario u
+        JOIN snapshot_saldo a ON a.id_usuario = u.id AND a.abertura = true
+        WHERE u.id BETWEEN ? AND ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UsuarioRepository usuarioRepository;
+    private final LancamentoRepository lancamentoRepository;
+    private final SnapshotSaldoRepository snapshotSaldoRepository;
+    private final SaldoDistribuidoService saldoDistribuidoService;
+    private final LivroRazaoService livroRazaoService;
+
+    @Value("${transacao.livro-razao.reconstrucao.paralelismo:4}")
+    private int paralelismo;
+
+    @Value("${transacao.livro-razao.reconstrucao.contas-por-faixa:1000}")
+    private int contasPorFaixa;
+
+    private record Resultado(long verificadas, List<DivergenciaSaldoDTO> divergencias) {}
+
+    public ReconstrucaoSaldosDTO reconstruir(boolean corrigir) {
+        long inicio = System.currentTimeMillis();
+        long verificadas = 0;
+        List<DivergenciaSaldoDTO> divergencias = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(paralelismo);
+        try {
+            List<Future<Resultado>> faixas = new ArrayList<>();
+            for (long[] faixa : FaixasDeContas.dividir(jdbcTemplate, contasPorFaixa)) {
+                faixas.add(executor.submit(() -> verificarFaixa(faixa[0], faixa[1])));
+            }
+            for (Future<Resultado> faixa : faixas) {
+                Resultado resultado = faixa.get();
+                verificadas += resultado.verificadas();
+                divergencias.addAll(resultado.divergencias());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reconstrução de saldos interrompida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha na reconstrução de saldos", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int corrigidas = 0;
+        if (corrigir) {
+            for (DivergenciaSaldoDTO divergencia : divergencias) {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(s -> corrigirConta(divergencia.getIdUsuario())))) {
+                    corrigidas++;
+                }
+            }
+        }
+
+        log.info("Reconstrução de saldos concluída - {} contas verificadas, {} divergentes, {} corrigidas",
+            verificadas, divergencias.size(), corrigidas);
+        return ReconstrucaoSaldosDTO.builder()
+            .contasVerificadas(verificadas)
+            .contasCorrigidas(corrigidas)
+            .duracaoMs(System.currentTimeMillis() - inicio)
+            .divergencias(divergencias)
+            .build();
+    }
+
+    private Resultado verificarFaixa(long de, long ate) {
+        List<DivergenciaSaldoDTO> divergencias = new ArrayList<>();
+        long[] verificadas = {0};
+        jdbcTemplate.query(SQL_FAIXA, rs -> {
+            verificadas[0]++;
+            long armazenado = rs.getLong(2);
+            long livro = rs.getLong(3);
+            if (armazenado != livro) {
+                divergencias.add(DivergenciaSaldoDTO.builder()
+                    .idUsuario(rs.getLong(1))
+                    .saldoArmazenado(Centavos.paraValor(armazenado))
+                    .saldoLivroRazao(Centavos.paraValor(livro))
+                    .build());
+            }
+        }, de, ate);
+        return new Resultado(verificadas[0], divergencias);
+    }
+
+    private boolean corrigirConta(Long usuarioId) {
+        Usuario usuario = usuarioRepository.findByIdForUpdate(usuarioId).orElse(null);
+        SnapshotSaldo abertura = snapshotSaldoRepository.findByUsuarioIdAndAberturaTrue(usuarioId).orElse(null);
+        if (usuario == null || abertura == null) {
+            return false;
+        }
+
+        // Traz as faixas para o saldo principal; com a conta bloqueada o total é estável
+        long armazenado = usuario.getSaldoCentavos() + saldoDistribuidoService.esvaziarFaixas(usuarioId);
+        long livro = abertura.getSaldoCentavos()
+            + lancamentoRepository.somarEntre(usuarioId, abertura.getUltimoLancamentoId(), Long.MAX_VALUE);
+        usuario.setSaldoCentavos(livro);
+        if (armazenado == livro) {
+            return false;
+        }
+
+        log.warn("Saldo do usuário ID: {} corrigido pelo livro razão: {} -> {}",
+            usuarioId, Centavos.paraValor(armazenado), Centavos.paraValor(livro));
+        snapshotSaldoRepository.deleteIntermediarios(usuarioId);
+        livroRazaoService.gerarSnapshotBloqueado(usuarioId);
+        return true;
+    }
+}
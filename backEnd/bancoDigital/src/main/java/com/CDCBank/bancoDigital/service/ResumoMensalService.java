@@ -0,0 +1,252 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.CDCBank.bancoDigital.dto.projection.ResumoMensalTotais;
+import com.CDCBank.bancoDigital.dto.response.ResumoMensalDTO;
+import com.CDCBank.bancoDigital.models.Transacao;
+import com.CDCBank.bancoDigital.repository.ResumoMensalRepository;
+import com.CDCBank.bancoDigital.util.Centavos;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resumo mensal por usuário (totais enviados e recebidos, quantidades e maior transferência),
+ * mantido incrementalmente: cada transferência faz o upsert das linhas do remetente e do
+ * destinatário na mesma transação em que altera os saldos, e a consulta de um mês lê no
+ * máximo uma linha por faixa, qualquer que seja o número de transações.
+ *
+ * Os upserts de uma transação saem em ordem de (usuario, mês, faixa), a mesma ordem de
+ * locks usada em toda parte. {@link #recalcularContas} refaz o resumo de uma faixa de
+ * contas a partir de transacao; é usado pela {@link ReconstrucaoResumoMensalService} e na
+ * exclusão de usuários.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResumoMensalService {
+
+    private static final String SQL_BLOQUEAR_CONTAS = "SELECT id FROM usuario WHERE id BETWEEN ? AND ? ORDER BY id FOR UPDATE";
+    // Leituras com lock: esperam transferências em andamento das contas e bloqueiam novas até o commit
+    private static final String SQL_ENVIADAS =
+        "SELECT id_remetente, data_transacao, valor FROM transacao WHERE id_remetente BETWEEN ? AND ? FOR UPDATE";
+    private static final String SQL_RECEBIDAS =
+        "SELECT id_destinatario, data_transacao, valor FROM transacao WHERE id_destinatario BETWEEN ? AND ? FOR UPDATE";
+    // Depois de transacao: uma transação arquivada durante a primeira leitura aparece só na segunda
+    private static final String SQL_ENVIADAS_ARQUIVO =
+        "SELECT id_remetente, data_transacao, valor FROM transacao_arquivo WHERE id_remetente BETWEEN ? AND ? FOR UPDATE";
+    private static final String SQL_RECEBIDAS_ARQUIVO =
+        "SELECT id_destinatario, data_transacao, valor FROM transacao_arquivo WHERE id_destinatario BETWEEN ? AND ? FOR UPDATE";
+    private static final String SQL_ZERAR = """
+        UPDATE resumo_mensal
+        SET enviado_centavos = 0, quantidade_enviadas = 0, maior_envio_centavos = 0,
+            recebido_centavos = 0, quantidade_recebidas = 0, maior_recebimento_centavos = 0
+        WHERE id_usuario BETWEEN ? AND ?
+        """;
+    private static final String SQL_ACUMULAR = "INSERT INTO " + ResumoMensalRepository.COLUNAS
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)\n" + ResumoMensalRepository.ACUMULAR_EXISTENTE;
+    private static final String SQL_CONTRAPARTES = """
+        SELECT id_destinatario FROM transacao WHERE id_remetente = ?
+        UNION
+        SELECT id_remetente FROM transacao WHERE id_destinatario = ?
+        UNION
+        SELECT id_destinatario FROM transacao_arquivo WHERE id_remetente = ?
+        UNION
+        SELECT id_remetente FROM transacao_arquivo WHERE id_destinatario = ?
+        """;
+
+    private final ResumoMensalRepository resumoMensalRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Mesma quantidade de faixas do saldo distribuído
+    @Value("${transacao.saldo-distribuido.faixas:16}")
+    private int quantidadeFaixas;
+
+    // Integer.MIN_VALUE faz o driver do MySQL entregar as linhas uma a uma
+    @Value("${transacao.resumo-mensal.fetch-size:-2147483648}")
+    private int fetchSize;
+
+    private JdbcTemplate streaming;
+
+    /**
+     * Resultado de {@link #recalcularContas}: contas encontradas na faixa e transações lidas.
+     */
+    public record Recalculo(int contas, long transacoes) {}
+
+    private record Chave(Long usuarioId, int anoMes, int faixa) implements Comparable<Chave> {
+        @Override
+        public int compareTo(Chave outra) {
+            int comparacao = usuarioId.compareTo(outra.usuarioId);
+            if (comparacao == 0) {
+                comparacao = Integer.compare(anoMes, outra.anoMes);
+            }
+            return comparacao != 0 ? comparacao : Integer.compare(faixa, outra.faixa);
+        }
+    }
+
+    private static final class Acumulado {
+        long enviado;
+        long quantidadeEnviadas;
+        long maiorEnvio;
+        long recebido;
+        long quantidadeRecebidas;
+        long maiorRecebimento;
+
+        void enviar(long valor) {
+            enviado += valor;
+            quantidadeEnviadas++;
+            maiorEnvio = Math.max(maiorEnvio, valor);
+        }
+
+        void receber(long valor) {
+            recebido += valor;
+            quantidadeRecebidas++;
+            maiorRecebimento = Math.max(maiorRecebimento, valor);
+        }
+    }
+
+    @PostConstruct
+    void iniciar() {
+        streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Soma a transação ao resumo do remetente e do destinatário. Deve ser chamado dentro da
+     * transação da transferência, depois de salvar a transação.
+     *
+     * @param destinoDistribuido se o crédito foi para as faixas de uma conta distribuída
+     */
+    public void registrar(Transacao transacao, boolean destinoDistribuido) {
+        registrar(List.of(transacao), destinoDistribuido ? Set.of(transacao.getDestinatario().getId()) : Set.of());
+    }
+
+    /**
+     * Versão em lote: as transações são agregadas por (usuario, mês, faixa) antes do upsert,
+     * então um lote de um remetente atualiza a linha dele uma única vez. Os upserts saem num
+     * batch JDBC, sem o flush da sessão que o Hibernate faria antes de cada query nativa.
+     *
+     * @param destinosDistribuidos contas distribuídas entre os destinatários
+     */
+    public void registrar(List<Transacao> transacoes, Set<Long> destinosDistribuidos) {
+        Map<Chave, Acumulado> resumos = new TreeMap<>();
+        for (Transacao transacao : transacoes) {
+            long valor = Centavos.de(transacao.getValor());
+            int anoMes = anoMes(transacao.getDataTransacao());
+            Long idDestinatario = transacao.getDestinatario().getId();
+            int faixa = destinosDistribuidos.contains(idDestinatario)
+                ? 1 + ThreadLocalRandom.current().nextInt(quantidadeFaixas)
+                : 0;
+
+            resumos.computeIfAbsent(new Chave(transacao.getRemetente().getId(), anoMes, 0), c -> new Acumulado())
+                .enviar(valor);
+            resumos.computeIfAbsent(new Chave(idDestinatario, anoMes, faixa), c -> new Acumulado())
+                .receber(valor);
+        }
+        acumular(resumos);
+    }
+
+    public ResumoMensalDTO consultar(Long usuarioId, int ano, int mes) {
+        if (mes < 1 || mes > 12) {
+            throw new IllegalArgumentException("Mês inválido: use um valor de 1 a 12");
+        }
+        if (ano < 1 || ano > 9999) {
+            throw new IllegalArgumentException("Ano inválido");
+        }
+        ResumoMensalTotais totais = resumoMensalRepository.somarMes(usuarioId, ano * 100 + mes);
+        return ResumoMensalDTO.builder()
+            .ano(ano)
+            .mes(mes)
+            .totalEnviado(Centavos.paraValor(totais.getEnviadoCentavos()))
+            .quantidadeEnviadas(totais.getQuantidadeEnviadas())
+            .maiorEnviada(Centavos.paraValor(totais.getMaiorEnvioCentavos()))
+            .totalRecebido(Centavos.paraValor(totais.getRecebidoCentavos()))
+            .quantidadeRecebidas(totais.getQuantidadeRecebidas())
+            .maiorRecebida(Centavos.paraValor(totais.getMaiorRecebimentoCentavos()))
+            .build();
+    }
+
+    /**
+     * Refaz o resumo das contas com id em [de, ate] a partir de transacao e transacao_arquivo.
+     * Deve ser chamado dentro de uma transação REPEATABLE READ.
+     *
+     * As contas são bloqueadas primeiro, como nas transferências; as transações das contas
+     * são lidas com lock (o que espera as transferências em andamento e segura as novas até o
+     * commit, inclusive créditos em contas distribuídas, que não bloqueiam usuario) e só
+     * então as linhas do resumo são zeradas e regravadas na faixa 0. Nenhuma transferência
+     * fica segurando uma linha do resumo enquanto espera por este método, então não há ciclo.
+     *
+     */
+    public Recalculo recalcularContas(long de, long ate) {
+        int contas = jdbcTemplate.queryForList(SQL_BLOQUEAR_CONTAS, Long.class, de, ate).size();
+
+        Map<Chave, Acumulado> resumos = new TreeMap<>();
+        long[] linhas = {0};
+        for (String sql : new String[] {SQL_ENVIADAS, SQL_ENVIADAS_ARQUIVO}) {
+            streaming.query(sql, rs -> {
+                resumos.computeIfAbsent(chave(rs.getLong(1), rs.getObject(2, LocalDateTime.class)), c -> new Acumulado())
+                    .enviar(Centavos.de(rs.getBigDecimal(3)));
+                linhas[0]++;
+            }, de, ate);
+        }
+        for (String sql : new String[] {SQL_RECEBIDAS, SQL_RECEBIDAS_ARQUIVO}) {
+            streaming.query(sql, rs -> {
+                resumos.computeIfAbsent(chave(rs.getLong(1), rs.getObject(2, LocalDateTime.class)), c -> new Acumulado())
+                    .receber(Centavos.de(rs.getBigDecimal(3)));
+                linhas[0]++;
+            }, de, ate);
+        }
+
+        jdbcTemplate.update(SQL_ZERAR, de, ate);
+        acumular(resumos);
+        return new Recalculo(contas, linhas[0]);
+    }
+
+    // Em ordem de chave: o TreeMap mantém a ordem de locks (usuario, mês, faixa)
+    private void acumular(Map<Chave, Acumulado> resumos) {
+        List<Object[]> argumentos = new ArrayList<>(resumos.size());
+        resumos.forEach((chave, total) -> argumentos.add(new Object[] {chave.usuarioId(), chave.anoMes(), chave.faixa(),
+            total.enviado, total.quantidadeEnviadas, total.maiorEnvio, total.recebido, total.quantidadeRecebidas,
+            total.maiorRecebimento}));
+        if (!argumentos.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_ACUMULAR, argumentos);
+        }
+    }
+
+    /**
+     * Usuários que têm transações com a conta; o resumo deles muda quando ela é excluída.
+     */
+    public List<Long> contrapartes(Long usuarioId) {
+        return jdbcTemplate.queryForList(SQL_CONTRAPARTES, Long.class, usuarioId, usuarioId, usuarioId, usuarioId);
+    }
+
+    /**
+     * Remove o resumo da conta e refaz o das contrapartes, depois que as transações da conta
+     * foram excluídas. Deve ser chamado na transação da exclusão.
+     */
+    public void excluirConta(Long usuarioId, List<Long> contrapartes) {
+        resumoMensalRepository.deleteByUsuarioId(usuarioId);
+        contrapartes.stream().sorted().forEach(id -> recalcularContas(id, id));
+        log.info("Resumo mensal da conta ID: {} removido; {} contrapartes recalculadas", usuarioId, contrapartes.size());
+    }
+
+    private static Chave chave(long usuarioId, LocalDateTime data) {
+        return new Chave(usuarioId, anoMes(data), 0);
+    }
+
+    static int anoMes(LocalDateTime data) {
+        return data.getYear() * 100 + data.getMonthValue();
+    }
+}
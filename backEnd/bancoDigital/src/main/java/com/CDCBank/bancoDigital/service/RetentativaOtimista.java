@@ -0,0 +1,135 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reexecuta uma operação que falhou por conflito de versão (@Version em Usuario), com
+ * backoff exponencial e jitter completo, até {@code transacao.otimista.tentativas} vezes.
+ * A operação precisa abrir a própria transação, para que cada tentativa releia os dados.
+ * Na thread de um shard do {@link LedgerEngine} a operação roda na transação do lote e
+ * uma espera pararia o shard inteiro: o conflito é contado e repassado, e quem repete é
+ * o engine.
+ *
+ * Métricas por operação: {@code usuario.otimista.conflitos}, {@code usuario.otimista.retentativas}
+ * e {@code usuario.otimista.desistencias}. Os conflitos por conta ficam num mapa limitado,
+ * exposto pelo endpoint {@code contencao} do actuator, para não criar uma tag por conta.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RetentativaOtimista {
+
+    private final MeterRegistry meterRegistry;
+    private final LedgerEngine ledgerEngine;
+
+    @Value("${transacao.otimista.tentativas:5}")
+    private int tentativas;
+
+    @Value("${transacao.otimista.backoff-inicial:5ms}")
+    private Duration backoffInicial;
+
+    @Value("${transacao.otimista.backoff-maximo:200ms}")
+    private Duration backoffMaximo;
+
+    @Value("${transacao.otimista.contas-monitoradas:10000}")
+    private int contasMonitoradas;
+
+    private final Map<Long, LongAdder> conflitosPorConta = new ConcurrentHashMap<>();
+    // Registradas uma vez por operação; o conjunto de operações é fixo no código
+    private final Map<String, Metricas> metricasPorOperacao = new ConcurrentHashMap<>();
+
+    private record Metricas(Counter conflitos, Counter retentativas, Counter desistencias) {}
+
+    /**
+     * @param operacao nome usado na tag das métricas
+     * @param idConta conta atribuída ao conflito quando a exceção não informa a entidade
+     */
+    public <T> T executar(String operacao, Long idConta, Supplier<T> acao) {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                return acao.get();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                Metricas metricas = metricas(operacao);
+                registrarConflito(metricas, contaEmConflito(e, idConta));
+                if (ledgerEngine.isThreadDeShard()) {
+                    throw e;
+                }
+                if (tentativa >= tentativas) {
+                    metricas.desistencias().increment();
+                    log.warn("Desistindo de {} após {} conflitos de versão na conta {}", operacao, tentativa, idConta);
+                    throw e;
+                }
+                metricas.retentativas().increment();
+                aguardar(tentativa);
+            }
+        }
+    }
+
+    /**
+     * Contas com mais conflitos de versão desde a inicialização, em ordem decrescente.
+     */
+    public Map<Long, Long> contasComMaisConflitos(int limite) {
+        Map<Long, Long> resultado = new LinkedHashMap<>();
+        conflitosPorConta.entrySet().stream()
+            .sorted(Comparator.comparingLong((Map.Entry<Long, LongAdder> e) -> e.getValue().sum()).reversed())
+            .limit(limite)
+            .forEach(e -> resultado.put(e.getKey(), e.getValue().sum()));
+        return resultado;
+    }
+
+    private Metricas metricas(String operacao) {
+        return metricasPorOperacao.computeIfAbsent(operacao, o -> new Metricas(
+            Counter.builder("usuario.otimista.conflitos").tag("operacao", o).register(meterRegistry),
+            Counter.builder("usuario.otimista.retentativas").tag("operacao", o).register(meterRegistry),
+            Counter.builder("usuario.otimista.desistencias").tag("operacao", o).register(meterRegistry)));
+    }
+
+    private void registrarConflito(Metricas metricas, Long idConta) {
+        metricas.conflitos().increment();
+        if (idConta == null) {
+            return;
+        }
+        LongAdder contador = conflitosPorConta.get(idConta);
+        if (contador == null && conflitosPorConta.size() < contasMonitoradas) {
+            contador = conflitosPorConta.computeIfAbsent(idConta, id -> new LongAdder());
+        }
+        if (contador != null) {
+            contador.increment();
+        }
+    }
+
+    private Long contaEmConflito(RuntimeException e, Long idConta) {
+        if (e instanceof ObjectOptimisticLockingFailureException objeto && objeto.getIdentifier() instanceof Long id) {
+            return id;
+        }
+        return idConta;
+    }
+
+    private void aguardar(int tentativa) {
+        long teto = Math.min(backoffMaximo.toNanos(), backoffInicial.toNanos() << Math.min(tentativa - 1, 20));
+        try {
+            Thread.sleep(Duration.ofNanos(ThreadLocalRandom.current().nextLong(teto + 1)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando nova tentativa", e);
+        }
+    }
+}
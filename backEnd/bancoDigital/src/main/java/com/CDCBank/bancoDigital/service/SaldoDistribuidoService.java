@@ -0,0 +1,156 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.CDCBank.bancoDigital.exception.UserNotFoundException;
+import com.CDCBank.bancoDigital.models.SubSaldo;
+import com.CDCBank.bancoDigital.models.Usuario;
+import com.CDCBank.bancoDigital.repository.SubSaldoRepository;
+import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Saldo distribuído para contas que recebem muitas transferências (ex.: lojistas).
+ *
+ * Créditos para uma conta distribuída vão para uma de K faixas em {@code sub_saldo},
+ * escolhida aleatoriamente, em vez da linha da conta em {@code usuario}. Débitos e
+ * leituras consideram o saldo principal mais a soma das faixas, e um job periódico
+ * consolida as faixas no saldo principal.
+ *
+ * Ordem de locks: sempre a linha em usuario antes das faixas da mesma conta.
+ *
+ * Créditos não tocam a linha em usuario de uma conta distribuída: o sinalizador fica em
+ * memória ({@link #isDistribuida}), carregado na partida e atualizado nas ativações e a
+ * cada crédito que cai numa faixa. A ativação não tem volta, então o conjunto só cresce;
+ * uma conta ativada por outra instância entra nele no primeiro crédito que a encontrar.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SaldoDistribuidoService {
+
+    private final SubSaldoRepository subSaldoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${transacao.saldo-distribuido.faixas:16}")
+    private int quantidadeFaixas;
+
+    private final Set<Long> contasDistribuidas = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void carregarContasDistribuidas() {
+        contasDistribuidas.addAll(usuarioRepository.findIdsContasDistribuidas());
+        log.info("{} contas com saldo distribuído", contasDistribuidas.size());
+    }
+
+    /**
+     * Se a conta é distribuída, sem ler nem bloquear a linha em usuario. Um falso negativo
+     * (ativação em outra instância ainda não vista) só faz o crédito passar pela linha.
+     */
+    public boolean isDistribuida(Long usuarioId) {
+        return contasDistribuidas.contains(usuarioId);
+    }
+
+    /**
+     * Ativa o saldo distribuído para o usuário, criando as faixas zeradas.
+     */
+    @Transactional
+    public void ativar(Long usuarioId) {
+        Usuario usuario = usuarioRepository.findByIdForUpdate(usuarioId)
+            .orElseThrow(() -> new UserNotFoundException("Usuário não encontrado com ID: " + usuarioId));
+
+        if (usuario.isContaDistribuida()) {
+            return;
+        }
+
+        List<SubSaldo> faixas = new ArrayList<>(quantidadeFaixas);
+        for (int i = 0; i < quantidadeFaixas; i++) {
+            faixas.add(SubSaldo.builder().usuarioId(usuarioId).faixa(i).saldoCentavos(0L).build());
+        }
+        subSaldoRepository.saveAll(faixas);
+        usuario.setContaDistribuida(true);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                contasDistribuidas.add(usuarioId);
+            }
+        });
+        log.info("Saldo distribuído ativado para o usuário ID: {} com {} faixas", usuarioId, quantidadeFaixas);
+    }
+
+    /**
+     * Credita o valor numa faixa da conta; se a faixa não existir, credita no saldo principal.
+     * Deve ser chamado dentro de uma transação.
+     *
+     * @return false se o usuário não existe.
+     */
+    public boolean creditar(Long usuarioId, long valorCentavos) {
+        int faixa = ThreadLocalRandom.current().nextInt(quantidadeFaixas);
+        if (subSaldoRepository.creditar(usuarioId, faixa, valorCentavos) == 1) {
+            // As faixas só existem depois da ativação confirmada
+            contasDistribuidas.add(usuarioId);
+            return true;
+        }
+        return usuarioRepository.creditarSaldoPrincipal(usuarioId, valorCentavos) == 1;
+    }
+
+    /**
+     * Zera as faixas da conta e devolve o total que estava nelas, para o chamador somar
+     * ao saldo principal na mesma transação. A linha em usuario já deve estar bloqueada.
+     */
+    public long esvaziarFaixas(Long usuarioId) {
+        long total = 0;
+        for (SubSaldo faixa : subSaldoRepository.findByUsuarioIdForUpdate(usuarioId)) {
+            total += faixa.getSaldoCentavos();
+            faixa.setSaldoCentavos(0L);
+        }
+        return total;
+    }
+
+    /**
+     * Saldo real da conta: principal mais faixas.
+     */
+    public long saldoTotalCentavos(Usuario usuario) {
+        if (!usuario.isContaDistribuida()) {
+            return usuario.getSaldoCentavos();
+        }
+        return usuario.getSaldoCentavos() + subSaldoRepository.somarSaldo(usuario.getId());
+    }
+
+    @Scheduled(fixedDelayString = "${transacao.saldo-distribuido.intervalo-consolidacao:30s}")
+    public void consolidarPendentes() {
+        for (Long usuarioId : subSaldoRepository.findUsuariosComSaldoPendente()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> consolidar(usuarioId));
+            } catch (RuntimeException e) {
+                log.warn("Falha ao consolidar saldo distribuído do usuário ID: {} - {}", usuarioId, e.getMessage());
+            }
+        }
+    }
+
+    private void consolidar(Long usuarioId) {
+        if (usuarioRepository.findByIdForUpdate(usuarioId).isEmpty()) {
+            return;
+        }
+        long total = esvaziarFaixas(usuarioId);
+        if (total != 0) {
+            usuarioRepository.creditarSaldoPrincipal(usuarioId, total);
+        }
+    }
+}
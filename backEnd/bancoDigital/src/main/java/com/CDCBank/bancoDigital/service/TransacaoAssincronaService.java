@@ -0,0 +1,401 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.CDCBank.bancoDigital.dto.request.TransacaoRequestDTO;
+import com.CDCBank.bancoDigital.dto.response.StatusTransacaoDTO;
+import com.CDCBank.bancoDigital.dto.response.TransacaoResponseDTO;
+import com.CDCBank.bancoDigital.exception.FilaCheiaException;
+import com.CDCBank.bancoDigital.exception.ResourceNotFoundException;
+import com.CDCBank.bancoDigital.infra.JournalTransacoes;
+import com.CDCBank.bancoDigital.repository.TransacaoArquivoRepository;
+import com.CDCBank.bancoDigital.repository.TransacaoRepository;
+import com.CDCBank.bancoDigital.util.Centavos;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Transações assíncronas: a requisição só valida e enfileira, devolvendo um protocolo
+ * (HTTP 202). Um pool de workers consome a fila em pequenos lotes e confirma cada lote
+ * numa única transação de banco (group commit). Antes de aplicar o lote, todas as contas
+ * envolvidas são bloqueadas em ordem crescente de id e os itens são validados em ordem
+ * sobre os saldos lidos: os recusados (saldo insuficiente, destinatário inexistente) falham
+ * sozinhos e os demais são confirmados no mesmo commit. Se o lote ainda assim for desfeito,
+ * ele é dividido ao meio e cada metade reprocessada.
+ *
+ * Com o journal habilitado ({@code transacao.journal.habilitado}), cada transação aceita
+ * é gravada nele antes do 202 e marcada como aplicada depois do commit. Na inicialização
+ * os registros pendentes voltam para a fila; o protocolo gravado em transacao impede que
+ * uma transação confirmada pouco antes de uma queda seja aplicada de novo.
+ *
+ * Métricas: {@code transacao.assincrona.fila.profundidade},
+ * {@code transacao.assincrona.lote.tamanho} e {@code transacao.assincrona.latencia}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TransacaoAssincronaService {
+
+    public static final String PENDENTE = "PENDENTE";
+    public static final String CONCLUIDA = "CONCLUIDA";
+    public static final String FALHOU = "FALHOU";
+
+    private final TransacaoService transacaoService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final TransacaoRepository transacaoRepository;
+    private final TransacaoArquivoRepository transacaoArquivoRepository;
+    private final Optional<JournalTransacoes> journal;
+    private final RetentativaOtimista retentativaOtimista;
+    private final LimiteDiarioService limiteDiarioService;
+
+    @Value("${transacao.assincrona.capacidade-fila:10000}")
+    private int capacidadeFila;
+
+    @Value("${transacao.assincrona.workers:4}")
+    private int quantidadeWorkers;
+
+    @Value("${transacao.assincrona.tamanho-lote:50}")
+    private int tamanhoLote;
+
+    @Value("${transacao.assincrona.capacidade-status:100000}")
+    private int capacidadeStatus;
+
+    private BlockingQueue<Pedido> fila;
+    private final Map<String, Registro> status = new ConcurrentHashMap<>();
+    // Protocolos em estado final, do mais antigo ao mais recente: só eles saem de status
+    // quando passam de capacidade-status, para que um PENDENTE continue consultável
+    private final Queue<String> finalizados = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger quantidadeFinalizados = new AtomicInteger();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean ativo = true;
+
+    private DistributionSummary tamanhoLoteMetrica;
+    private Timer latencia;
+
+    private record Pedido(String protocolo, Long idRemetente, TransacaoRequestDTO request, long recebidoEm,
+            long posicaoJournal, boolean verificarDuplicidade, long reservaLimite) {}
+
+    private record Registro(Long idRemetente, StatusTransacaoDTO status) {}
+
+    // resposta nula sem erro: o protocolo já havia sido aplicado
+    private record Resultado(TransacaoResponseDTO resposta, String erro) {}
+
+    @PostConstruct
+    void iniciar() {
+        fila = new ArrayBlockingQueue<>(capacidadeFila);
+
+        Gauge.builder("transacao.assincrona.fila.profundidade", fila, BlockingQueue::size)
+            .description("Transações aceitas aguardando processamento")
+            .register(meterRegistry);
+        tamanhoLoteMetrica = DistributionSummary.builder("transacao.assincrona.lote.tamanho")
+            .description("Transações confirmadas por commit")
+            .register(meterRegistry);
+        latencia = Timer.builder("transacao.assincrona.latencia")
+            .description("Tempo entre o aceite e a confirmação da transação")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+
+        for (int i = 0; i < quantidadeWorkers; i++) {
+            Thread worker = new Thread(this::consumir, "transacao-assincrona-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+
+        journal.ifPresent(this::recuperar);
+    }
+
+    private void recuperar(JournalTransacoes journal) {
+        List<JournalTransacoes.Registro> pendentes = journal.pendentes();
+        if (pendentes.isEmpty()) {
+            return;
+        }
+        log.info("Reprocessando {} transações pendentes do journal", pendentes.size());
+        for (JournalTransacoes.Registro registro : pendentes) {
+            TransacaoRequestDTO request = new TransacaoRequestDTO();
+            request.setIdDestinatario(registro.idDestinatario());
+            request.setValor(Centavos.paraValor(registro.valorCentavos()));
+            request.setDescricao(registro.descricao());
+
+            String protocolo = registro.protocolo().toString();
+            status.put(protocolo, new Registro(registro.idRemetente(), StatusTransacaoDTO.builder()
+                .id(protocolo)
+                .status(PENDENTE)
+                .mensagem("Transação aceita e aguardando processamento")
+                .recebidaEm(LocalDateTime.ofInstant(Instant.ofEpochMilli(registro.recebidoEm()), ZoneId.systemDefault()))
+                .build()));
+            try {
+                long reserva = limiteDiarioService.registrar(registro.idRemetente(), registro.valorCentavos());
+                fila.put(new Pedido(protocolo, registro.idRemetente(), request, System.nanoTime(),
+                    registro.posicao(), true, reserva));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    void parar() throws InterruptedException {
+        ativo = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        if (!fila.isEmpty()) {
+            log.warn("{} transações assíncronas não processadas no encerramento", fila.size());
+        }
+    }
+
+    /**
+     * Valida e enfileira a transação. Com Idempotency-Key, repetições devolvem o
+     * mesmo protocolo sem enfileirar de novo.
+     */
+    public StatusTransacaoDTO enfileirar(Long idRemetente, TransacaoRequestDTO request, String chaveIdempotencia) {
+        if (idRemetente.equals(request.getIdDestinatario())) {
+            throw new RuntimeException("Não é possível fazer transação para si mesmo");
+        }
+
+        String protocolo = chaveIdempotencia == null || chaveIdempotencia.isBlank()
+            ? UUID.randomUUID().toString()
+            : UUID.nameUUIDFromBytes((idRemetente + ":" + chaveIdempotencia).getBytes(StandardCharsets.UTF_8)).toString();
+
+        StatusTransacaoDTO pendente = StatusTransacaoDTO.builder()
+            .id(protocolo)
+            .status(PENDENTE)
+            .mensagem("Transação aceita e aguardando processamento")
+            .recebidaEm(LocalDateTime.now())
+            .build();
+
+        Registro existente = status.putIfAbsent(protocolo, new Registro(idRemetente, pendente));
+        if (existente != null) {
+            return existente.status();
+        }
+
+        long valorCentavos = Centavos.de(request.getValor());
+        long reserva;
+        try {
+            reserva = limiteDiarioService.reservar(idRemetente, valorCentavos);
+        } catch (RuntimeException e) {
+            status.remove(protocolo);
+            throw e;
+        }
+
+        long posicaoJournal;
+        try {
+            posicaoJournal = journal
+                .map(j -> j.registrar(UUID.fromString(protocolo), idRemetente, request.getIdDestinatario(),
+                    valorCentavos, request.getDescricao()))
+                .orElse(-1L);
+        } catch (RuntimeException e) {
+            status.remove(protocolo);
+            limiteDiarioService.liberar(idRemetente, valorCentavos, reserva);
+            throw e;
+        }
+
+        // Com chave de idempotência o protocolo pode já ter sido aplicado antes de um restart
+        boolean verificarDuplicidade = chaveIdempotencia != null && !chaveIdempotencia.isBlank();
+        if (!fila.offer(new Pedido(protocolo, idRemetente, request, System.nanoTime(), posicaoJournal,
+                verificarDuplicidade, reserva))) {
+            status.remove(protocolo);
+            descartarNoJournal(posicaoJournal);
+            limiteDiarioService.liberar(idRemetente, valorCentavos, reserva);
+            throw new FilaCheiaException("Fila de transações cheia, tente novamente em instantes");
+        }
+        return pendente;
+    }
+
+    public StatusTransacaoDTO consultarStatus(Long idUsuario, String protocolo) {
+        Registro registro = status.get(protocolo);
+        if (registro == null || !registro.idRemetente().equals(idUsuario)) {
+            throw new ResourceNotFoundException("Transação não encontrada: " + protocolo);
+        }
+        return registro.status();
+    }
+
+    private void consumir() {
+        List<Pedido> lote = new ArrayList<>(tamanhoLote);
+        while (ativo || !fila.isEmpty()) {
+            try {
+                Pedido primeiro = fila.poll(500, TimeUnit.MILLISECONDS);
+                if (primeiro == null) {
+                    continue;
+                }
+                lote.add(primeiro);
+                fila.drainTo(lote, tamanhoLote - 1);
+                processarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Erro inesperado no processamento assíncrono de transações", e);
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    // Um pedido do journal parado por mais que a idade do arquivamento pode já estar em transacao_arquivo
+    private boolean jaAplicado(String protocolo) {
+        return transacaoRepository.existsByProtocolo(protocolo) || transacaoArquivoRepository.existsByProtocolo(protocolo);
+    }
+
+    private void processarLote(List<Pedido> lote) {
+        List<Resultado> resultados;
+        try {
+            resultados = retentativaOtimista.executar("transacaoAssincrona", remetenteUnico(lote),
+                () -> transactionTemplate.execute(s -> aplicar(lote)));
+        } catch (RuntimeException e) {
+            if (lote.size() == 1) {
+                falhar(lote.get(0), e.getMessage());
+                return;
+            }
+            // Falha que a validação não previu: metade por vez, para isolar o item em O(log n) commits
+            log.debug("Lote de {} transações desfeito ({}), dividindo ao meio", lote.size(), e.getMessage());
+            int meio = lote.size() / 2;
+            processarLote(lote.subList(0, meio));
+            processarLote(lote.subList(meio, lote.size()));
+            return;
+        }
+
+        int aplicadas = 0;
+        for (int i = 0; i < lote.size(); i++) {
+            Resultado resultado = resultados.get(i);
+            if (resultado.erro() != null) {
+                falhar(lote.get(i), resultado.erro());
+            } else {
+                concluir(lote.get(i), resultado.resposta());
+                aplicadas++;
+            }
+        }
+        if (aplicadas > 0) {
+            tamanhoLoteMetrica.record(aplicadas);
+        }
+    }
+
+    /**
+     * Bloqueia todas as contas do lote de uma vez (menor id primeiro, como as transações
+     * individuais) e aplica os itens válidos; os recusados na validação não entram no
+     * commit, então não derrubam os demais.
+     */
+    private List<Resultado> aplicar(List<Pedido> lote) {
+        Resultado[] resultados = new Resultado[lote.size()];
+        List<Integer> indices = new ArrayList<>(lote.size());
+        List<TransacaoService.ItemTransferencia> itens = new ArrayList<>(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            Pedido pedido = lote.get(i);
+            if (pedido.verificarDuplicidade() && jaAplicado(pedido.protocolo())) {
+                resultados[i] = new Resultado(null, null);
+                continue;
+            }
+            indices.add(i);
+            itens.add(new TransacaoService.ItemTransferencia(pedido.idRemetente(), pedido.request()));
+        }
+
+        List<String> erros = itens.isEmpty() ? List.of() : transacaoService.bloquearEValidar(itens);
+        for (int j = 0; j < indices.size(); j++) {
+            Pedido pedido = lote.get(indices.get(j));
+            resultados[indices.get(j)] = erros.get(j) != null
+                ? new Resultado(null, erros.get(j))
+                : new Resultado(transacaoService.realizarNaTransacaoCorrente(
+                    pedido.idRemetente(), pedido.request(), pedido.protocolo()), null);
+        }
+        return List.of(resultados);
+    }
+
+    // Conflitos sem a entidade na exceção só são atribuídos a uma conta quando o lote é de um remetente
+    private Long remetenteUnico(List<Pedido> lote) {
+        Long idRemetente = lote.get(0).idRemetente();
+        for (Pedido pedido : lote) {
+            if (!pedido.idRemetente().equals(idRemetente)) {
+                return null;
+            }
+        }
+        return idRemetente;
+    }
+
+    private void concluir(Pedido pedido, TransacaoResponseDTO resposta) {
+        latencia.record(System.nanoTime() - pedido.recebidoEm(), TimeUnit.NANOSECONDS);
+        if (pedido.posicaoJournal() >= 0) {
+            journal.ifPresent(j -> j.marcarAplicado(pedido.posicaoJournal()));
+        }
+        if (resposta == null) {
+            // Já aplicada antes (e contada na reconstrução dos limites): desfaz a reserva
+            limiteDiarioService.liberar(pedido.idRemetente(), Centavos.de(pedido.request().getValor()),
+                pedido.reservaLimite());
+        }
+        atualizar(pedido, atual -> atual.toBuilder()
+            .status(CONCLUIDA)
+            .mensagem(resposta == null ? "Transação já havia sido realizada" : "Transação realizada com sucesso")
+            .concluidaEm(LocalDateTime.now())
+            .transacao(resposta)
+            .build());
+        finalizar(pedido.protocolo());
+    }
+
+    private void falhar(Pedido pedido, String motivo) {
+        log.warn("Transação assíncrona {} falhou: {}", pedido.protocolo(), motivo);
+        descartarNoJournal(pedido.posicaoJournal());
+        limiteDiarioService.liberar(pedido.idRemetente(), Centavos.de(pedido.request().getValor()), pedido.reservaLimite());
+        atualizar(pedido, atual -> atual.toBuilder()
+            .status(FALHOU)
+            .mensagem(motivo)
+            .concluidaEm(LocalDateTime.now())
+            .build());
+        finalizar(pedido.protocolo());
+    }
+
+    /**
+     * Acima de {@code capacidade-status} finalizados, remove o mais antigo. Um protocolo
+     * reenviado depois de finalizado pode estar PENDENTE de novo, e então fica.
+     */
+    private void finalizar(String protocolo) {
+        finalizados.add(protocolo);
+        if (quantidadeFinalizados.incrementAndGet() <= capacidadeStatus) {
+            return;
+        }
+        String maisAntigo = finalizados.poll();
+        if (maisAntigo != null) {
+            quantidadeFinalizados.decrementAndGet();
+            status.computeIfPresent(maisAntigo, (p, registro) -> PENDENTE.equals(registro.status().getStatus()) ? registro : null);
+        }
+    }
+
+    private void descartarNoJournal(long posicao) {
+        if (posicao >= 0) {
+            journal.ifPresent(j -> j.marcarDescartado(posicao));
+        }
+    }
+
+    private void atualizar(Pedido pedido, UnaryOperator<StatusTransacaoDTO> alteracao) {
+        status.computeIfPresent(pedido.protocolo(),
+            (protocolo, registro) -> new Registro(registro.idRemetente(), alteracao.apply(registro.status())));
+    }
+}
@@ -1,118 +1,929 @@
 package com.CDCBank.bancoDigital.service;
 
 
+import com.CDCBank.bancoDigital.dto.projection.HistoricoTransacaoResumo;
+import com.CDCBank.bancoDigital.dto.projection.UsuarioResumo;
 import com.CDCBank.bancoDigital.dto.request.TransacaoRequestDTO;
+import com.CDCBank.bancoDigital.dto.response.HistoricoCursorDTO;
 import com.CDCBank.bancoDigital.dto.response.HistoricoTransacaoDTO;
+import com.CDCBank.bancoDigital.dto.response.ItemLoteResponseDTO;
+import com.CDCBank.bancoDigital.dto.response.LoteTransacaoResponseDTO;
 import com.CDCBank.bancoDigital.dto.response.TransacaoResponseDTO;
 import com.CDCBank.bancoDigital.dto.response.UsuarioResponseDTO;
 import com.CDCBank.bancoDigital.models.Transacao;
 import com.CDCBank.bancoDigital.models.Usuario;
+import com.CDCBank.bancoDigital.repository.TransacaoArquivoRepository;
 import com.CDCBank.bancoDigital.repository.TransacaoRepository;
 import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+import com.CDCBank.bancoDigital.util.Centavos;
+import com.CDCBank.bancoDigital.util.CursorBusca;
+import com.CDCBank.bancoDigital.util.CursorHistorico;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class TransacaoService {
+
+    public static final int TAMANHO_MAXIMO_PAGINA = 100;
+
+    private static final String SALDO_INSUFICIENTE = "Saldo insuficiente do remetente para realizar a transação";
+    private static final String SALDO_INSUFICIENTE_LOTE = "Saldo insuficiente do remetente para realizar o lote de transações";
+
+    /**
+     * Item de um lote em que cada transação pode ter outro remetente.
+     */
+    public record ItemTransferencia(Long idRemetente, TransacaoRequestDTO request) {}
     
     private final TransacaoRepository transacaoRepository;
     private final UsuarioRepository usuarioRepository;
-    
-    @Transactional
+    private final LedgerEngine ledgerEngine;
+    private final TransactionTemplate transactionTemplate;
+    private final IdempotenciaService idempotenciaService;
+    private final SaldoDistribuidoService saldoDistribuidoService;
+    private final LivroRazaoService livroRazaoService;
+    private final RetentativaOtimista retentativaOtimista;
+    private final LimiteDiarioService limiteDiarioService;
+    private final HistoricoRecenteCache historicoRecenteCache;
+    private final ResumoMensalService resumoMensalService;
+    private final IndiceBuscaTransacoes indiceBuscaTransacoes;
+    private final TransacaoArquivoRepository transacaoArquivoRepository;
+
+    @Value("${transacao.modo:CONDICIONAL}")
+    private ModoTransacao modo;
+
+    // Páginas e totais que somam transacao e transacao_arquivo leem as duas no mesmo instante
+    private TransactionTemplate leituraConsistente;
+
+    @PostConstruct
+    void iniciar() {
+        leituraConsistente = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        leituraConsistente.setReadOnly(true);
+        leituraConsistente.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
     public TransacaoResponseDTO realizarTransacao(Long idRemetente, TransacaoRequestDTO request) {
-        // Buscar usuários
-        Usuario remetente = usuarioRepository.findById(idRemetente)
-            .orElseThrow(() -> new RuntimeException("Usuário remetente não encontrado"));
-        
-        Usuario destinatario = usuarioRepository.findById(request.getIdDestinatario())
-            .orElseThrow(() -> new RuntimeException("Usuário destinatário não encontrado"));
-        
+        return realizarTransacao(idRemetente, request, null);
+    }
+
+    /**
+     * Realiza a transação de forma idempotente: com a mesma chave, uma nova chamada
+     * devolve a resposta da primeira execução sem alterar os saldos novamente.
+     */
+    public TransacaoResponseDTO realizarTransacao(Long idRemetente, TransacaoRequestDTO request, String chaveIdempotencia) {
         // Validações
-        if (remetente.getId().equals(destinatario.getId())) {
+        if (idRemetente.equals(request.getIdDestinatario())) {
             throw new RuntimeException("Não é possível fazer transação para si mesmo");
         }
-        
-        BigDecimal saldoRemetente = BigDecimal.valueOf(remetente.getSaldo());
-        if (saldoRemetente.compareTo(request.getValor()) < 0) {
-            throw new RuntimeException("Saldo insuficiente do remetente para realizar a transação");
+
+        if (chaveIdempotencia == null || chaveIdempotencia.isBlank()) {
+            return executarTransacao(idRemetente, request, resposta -> { });
+        }
+        return idempotenciaService.executar(idRemetente, chaveIdempotencia, request, () -> executarTransacao(idRemetente,
+            request, resposta -> idempotenciaService.registrar(idRemetente, chaveIdempotencia, request, resposta)));
+    }
+
+    /**
+     * Executa a transação participando da transação de banco corrente, sem passar pelo
+     * ledger engine. Usado pelo processamento assíncrono, que confirma vários itens num
+     * único commit; uma falha marca a transação corrente para rollback.
+     */
+    public TransacaoResponseDTO realizarNaTransacaoCorrente(Long idRemetente, TransacaoRequestDTO request, String protocolo) {
+        if (idRemetente.equals(request.getIdDestinatario())) {
+            throw new RuntimeException("Não é possível fazer transação para si mesmo");
+        }
+        return executarEmTransacao(idRemetente, request, protocolo, resposta -> { });
+    }
+
+    /**
+     * Prepara um lote de transações de vários remetentes para {@link #realizarNaTransacaoCorrente}:
+     * bloqueia de uma vez, do menor id para o maior, as linhas de todos os remetentes e
+     * destinatárias não distribuídas, e simula os itens em ordem sobre os saldos lidos.
+     * Deve rodar na transação que vai aplicá-los.
+     *
+     * @return para cada item, o motivo da recusa, ou null se ele pode ser aplicado
+     */
+    public List<String> bloquearEValidar(List<ItemTransferencia> itens) {
+        Set<Long> contas = new HashSet<>();
+        for (ItemTransferencia item : itens) {
+            contas.addAll(contasBloqueadas(item.idRemetente(), List.of(item.request())));
+        }
+        Map<Long, Usuario> usuarios = usuarioRepository.findAllByIdForUpdate(contas).stream()
+            .collect(Collectors.toMap(Usuario::getId, Function.identity()));
+
+        // Saldo total de cada remetente já considerando os itens anteriores do lote
+        Map<Long, Long> saldos = new HashMap<>();
+        Map<Long, Long> creditosAnteriores = new HashMap<>();
+        List<String> erros = new ArrayList<>(itens.size());
+        for (ItemTransferencia item : itens) {
+            Long idRemetente = item.idRemetente();
+            Long idDestinatario = item.request().getIdDestinatario();
+            long valor = Centavos.de(item.request().getValor());
+            String erro = null;
+            if (idRemetente.equals(idDestinatario)) {
+                erro = "Não é possível fazer transação para si mesmo";
+            } else if (!usuarios.containsKey(idRemetente)) {
+                erro = "Usuário remetente não encontrado";
+            } else if (!usuarios.containsKey(idDestinatario) && !saldoDistribuidoService.isDistribuida(idDestinatario)) {
+                erro = "Usuário destinatário não encontrado";
+            } else {
+                long saldo = saldos.computeIfAbsent(idRemetente, id -> saldoDistribuidoService
+                    .saldoTotalCentavos(usuarios.get(id)) + creditosAnteriores.getOrDefault(id, 0L));
+                if (saldo < valor) {
+                    erro = SALDO_INSUFICIENTE;
+                } else {
+                    saldos.put(idRemetente, saldo - valor);
+                    if (saldos.containsKey(idDestinatario)) {
+                        saldos.merge(idDestinatario, valor, Long::sum);
+                    } else {
+                        creditosAnteriores.merge(idDestinatario, valor, Long::sum);
+                    }
+                }
+            }
+            erros.add(erro);
+        }
+        return erros;
+    }
+
+    private TransacaoResponseDTO executarTransacao(Long idRemetente, TransacaoRequestDTO request,
+            Consumer<TransacaoResponseDTO> aoConcluir) {
+        long valor = Centavos.de(request.getValor());
+        long reserva = limiteDiarioService.reservar(idRemetente, valor);
+        try {
+            if (ledgerEngine.isHabilitado() && saldoDistribuidoService.isDistribuida(idRemetente)) {
+                // O débito pode precisar das faixas: o shard só ordena e repete em conflito, e a
+                // RetentativaOtimista esperaria dentro dele
+                return ledgerEngine.executar(idRemetente, contasBloqueadas(idRemetente, List.of(request)),
+                    () -> executarEmTransacao(idRemetente, request, null, aoConcluir));
+            }
+            if (ledgerEngine.isHabilitado()) {
+                return transferirNoLedger(idRemetente, request, aoConcluir);
+            }
+            return executarComRetentativa(idRemetente, request, aoConcluir);
+        } catch (RuntimeException e) {
+            limiteDiarioService.liberar(idRemetente, valor, reserva);
+            throw e;
+        }
+    }
+
+    private TransacaoResponseDTO executarComRetentativa(Long idRemetente, TransacaoRequestDTO request,
+            Consumer<TransacaoResponseDTO> aoConcluir) {
+        return retentativaOtimista.executar("realizarTransacao", idRemetente,
+            () -> executarEmTransacao(idRemetente, request, null, aoConcluir));
+    }
+
+    private TransacaoResponseDTO executarEmTransacao(Long idRemetente, TransacaoRequestDTO request, String protocolo,
+            Consumer<TransacaoResponseDTO> aoConcluir) {
+        return transactionTemplate.execute(status -> {
+            TransacaoResponseDTO resposta = switch (modo) {
+                case BLOQUEIO -> realizarComBloqueio(idRemetente, request, protocolo);
+                case CONDICIONAL -> realizarCondicional(idRemetente, request, protocolo);
+                case OTIMISTA -> realizarOtimista(idRemetente, request, protocolo);
+            };
+            concluir(resposta, aoConcluir);
+            return resposta;
+        });
+    }
+
+    /**
+     * O shard do remetente reserva o débito contra o saldo em memória e grava os saldos no
+     * lote dele; aqui fica só o registro, que roda na transação do lote.
+     */
+    private TransacaoResponseDTO transferirNoLedger(Long idRemetente, TransacaoRequestDTO request,
+            Consumer<TransacaoResponseDTO> aoConcluir) {
+        Long idDestinatario = request.getIdDestinatario();
+        long valor = Centavos.de(request.getValor());
+        boolean destinoDistribuido = saldoDistribuidoService.isDistribuida(idDestinatario);
+        LedgerEngine.Transferencia transferencia = new LedgerEngine.Transferencia(idRemetente, valor,
+            destinoDistribuido ? Map.of() : Map.of(idDestinatario, valor), SALDO_INSUFICIENTE);
+
+        return ledgerEngine.transferir(transferencia, () -> {
+            if (destinoDistribuido && !saldoDistribuidoService.creditar(idDestinatario, valor)) {
+                throw new RuntimeException("Usuário destinatário não encontrado");
+            }
+            Transacao transacao = registrarTransacao(
+                usuarioRepository.getReferenceById(idRemetente),
+                usuarioRepository.getReferenceById(idDestinatario),
+                request,
+                null,
+                destinoDistribuido);
+            TransacaoResponseDTO resposta = toResponseDTO(transacao, idRemetente, idDestinatario);
+            concluir(resposta, aoConcluir);
+            return resposta;
+        });
+    }
+
+    private void concluir(TransacaoResponseDTO resposta, Consumer<TransacaoResponseDTO> aoConcluir) {
+        historicoRecenteCache.registrar(resposta);
+        indiceBuscaTransacoes.registrar(resposta);
+        aoConcluir.accept(resposta);
+    }
+
+    /**
+     * Realiza várias transações de um mesmo remetente numa única transação de banco.
+     * Todos os usuários envolvidos são bloqueados de uma vez (menor id primeiro), o total
+     * é validado contra o saldo uma única vez e os INSERTs/UPDATEs saem em lote via JDBC.
+     * Itens inválidos (destinatário inexistente ou o próprio remetente) são rejeitados
+     * individualmente; saldo insuficiente para o total rejeita o lote inteiro.
+     */
+    public LoteTransacaoResponseDTO realizarLote(Long idRemetente, List<TransacaoRequestDTO> requests) {
+        // Reserva o total pedido; o que for rejeitado item a item é devolvido ao final
+        long solicitado = 0;
+        for (TransacaoRequestDTO request : requests) {
+            solicitado += Centavos.de(request.getValor());
+        }
+        long reserva = limiteDiarioService.reservar(idRemetente, solicitado);
+
+        LoteTransacaoResponseDTO resposta;
+        try {
+            if (ledgerEngine.isHabilitado() && saldoDistribuidoService.isDistribuida(idRemetente)) {
+                resposta = ledgerEngine.executar(idRemetente, contasBloqueadas(idRemetente, requests),
+                    () -> transactionTemplate.execute(status -> processarLote(idRemetente, requests)));
+            } else if (ledgerEngine.isHabilitado()) {
+                resposta = transferirLoteNoLedger(idRemetente, requests);
+            } else {
+                resposta = transactionTemplate.execute(status -> processarLote(idRemetente, requests));
+            }
+        } catch (RuntimeException e) {
+            limiteDiarioService.liberar(idRemetente, solicitado, reserva);
+            throw e;
+        }
+        limiteDiarioService.liberar(idRemetente, solicitado - Centavos.de(resposta.getValorTotal()), reserva);
+        return resposta;
+    }
+
+    private LoteTransacaoResponseDTO processarLote(Long idRemetente, List<TransacaoRequestDTO> requests) {
+        Set<Long> bloqueadas = contasBloqueadas(idRemetente, requests);
+        Set<Long> distribuidas = new HashSet<>();
+        requests.forEach(request -> {
+            if (!bloqueadas.contains(request.getIdDestinatario())) {
+                distribuidas.add(request.getIdDestinatario());
+            }
+        });
+
+        Map<Long, Usuario> usuarios = usuarioRepository.findAllByIdForUpdate(bloqueadas).stream()
+            .collect(Collectors.toMap(Usuario::getId, Function.identity()));
+        // Destinatárias distribuídas só recebem nas faixas: leitura sem lock da linha em usuario
+        usuarioRepository.findAllById(distribuidas).forEach(usuario -> usuarios.put(usuario.getId(), usuario));
+
+        Usuario remetente = usuarios.get(idRemetente);
+        if (remetente == null) {
+            throw new RuntimeException("Usuário remetente não encontrado");
+        }
+
+        ItemLoteResponseDTO[] itens = new ItemLoteResponseDTO[requests.size()];
+        List<Integer> indicesValidos = new ArrayList<>();
+        Map<Long, BigDecimal> creditos = new HashMap<>();
+        BigDecimal total = validarItens(idRemetente, requests, usuarios::containsKey, itens, indicesValidos, creditos);
+
+        long totalCentavos = Centavos.de(total);
+        if (remetente.getSaldoCentavos() < totalCentavos && remetente.isContaDistribuida()) {
+            remetente.setSaldoCentavos(remetente.getSaldoCentavos()
+                + saldoDistribuidoService.esvaziarFaixas(idRemetente));
+        }
+        if (remetente.getSaldoCentavos() < totalCentavos) {
+            throw new RuntimeException(SALDO_INSUFICIENTE_LOTE);
+        }
+
+        // Alterações nas entidades gerenciadas; o flush agrupa os UPDATEs
+        remetente.setSaldoCentavos(remetente.getSaldoCentavos() - totalCentavos);
+        creditos.forEach((idDestinatario, valor) -> {
+            Usuario destinatario = usuarios.get(idDestinatario);
+            if (destinatario.isContaDistribuida()) {
+                saldoDistribuidoService.creditar(idDestinatario, Centavos.de(valor));
+            } else {
+                destinatario.setSaldoCentavos(Math.addExact(destinatario.getSaldoCentavos(), Centavos.de(valor)));
+            }
+        });
+
+        List<Transacao> transacoes = new ArrayList<>(indicesValidos.size());
+        for (Integer indice : indicesValidos) {
+            TransacaoRequestDTO request = requests.get(indice);
+            transacoes.add(Transacao.builder()
+                .valor(request.getValor())
+                .remetente(remetente)
+                .destinatario(usuarios.get(request.getIdDestinatario()))
+                .descricao(request.getDescricao())
+                .build());
+        }
+        transacoes = transacaoRepository.saveAll(transacoes);
+        livroRazaoService.lancar(transacoes);
+        resumoMensalService.registrar(transacoes, creditos.keySet().stream()
+            .filter(id -> usuarios.get(id).isContaDistribuida())
+            .collect(Collectors.toSet()));
+
+        return concluirLote(transacoes, indicesValidos, itens, total, transacao -> {
+            Usuario destinatario = transacao.getDestinatario();
+            return toResponseDTO(transacao, remetente.getId(), remetente.getNome(), remetente.getEmail(),
+                destinatario.getId(), destinatario.getNome(), destinatario.getEmail());
+        });
+    }
+
+    /**
+     * Lote pelo ledger engine: os destinatários são validados antes, fora do shard, e o total
+     * é reservado de uma vez contra o saldo em memória do remetente. Uma conta removida entre
+     * a validação e o lote recusa o lote inteiro.
+     */
+    private LoteTransacaoResponseDTO transferirLoteNoLedger(Long idRemetente, List<TransacaoRequestDTO> requests) {
+        Set<Long> ids = new HashSet<>();
+        ids.add(idRemetente);
+        requests.forEach(request -> ids.add(request.getIdDestinatario()));
+        Map<Long, UsuarioResumo> resumos = usuarioRepository.findResumoByIdIn(ids).stream()
+            .collect(Collectors.toMap(UsuarioResumo::getId, Function.identity()));
+        UsuarioResumo remetente = resumos.get(idRemetente);
+        if (remetente == null) {
+            throw new RuntimeException("Usuário remetente não encontrado");
+        }
+
+        ItemLoteResponseDTO[] itens = new ItemLoteResponseDTO[requests.size()];
+        List<Integer> indicesValidos = new ArrayList<>();
+        Map<Long, BigDecimal> creditos = new HashMap<>();
+        BigDecimal total = validarItens(idRemetente, requests, resumos::containsKey, itens, indicesValidos, creditos);
+
+        // Destinatárias distribuídas recebem nas faixas, no registro; as demais, no UPDATE do shard
+        Set<Long> distribuidas = new HashSet<>();
+        Map<Long, Long> creditosCentavos = new HashMap<>();
+        creditos.forEach((idDestinatario, valor) -> {
+            if (saldoDistribuidoService.isDistribuida(idDestinatario)) {
+                distribuidas.add(idDestinatario);
+            } else {
+                creditosCentavos.put(idDestinatario, Centavos.de(valor));
+            }
+        });
+        LedgerEngine.Transferencia transferencia = new LedgerEngine.Transferencia(idRemetente, Centavos.de(total),
+            creditosCentavos, SALDO_INSUFICIENTE_LOTE);
+
+        return ledgerEngine.transferir(transferencia, () -> {
+            for (Long idDestinatario : distribuidas) {
+                if (!saldoDistribuidoService.creditar(idDestinatario, Centavos.de(creditos.get(idDestinatario)))) {
+                    throw new RuntimeException("Usuário destinatário não encontrado");
+                }
+            }
+            List<Transacao> transacoes = new ArrayList<>(indicesValidos.size());
+            for (Integer indice : indicesValidos) {
+                TransacaoRequestDTO request = requests.get(indice);
+                transacoes.add(Transacao.builder()
+                    .valor(request.getValor())
+                    .remetente(usuarioRepository.getReferenceById(idRemetente))
+                    .destinatario(usuarioRepository.getReferenceById(request.getIdDestinatario()))
+                    .descricao(request.getDescricao())
+                    .build());
+            }
+            transacoes = transacaoRepository.saveAll(transacoes);
+            livroRazaoService.lancar(transacoes);
+            resumoMensalService.registrar(transacoes, distribuidas);
+
+            return concluirLote(transacoes, indicesValidos, itens, total, transacao -> {
+                UsuarioResumo destinatario = resumos.get(transacao.getDestinatario().getId());
+                return toResponseDTO(transacao, remetente.getId(), remetente.getNome(), remetente.getEmail(),
+                    destinatario.getId(), destinatario.getNome(), destinatario.getEmail());
+            });
+        });
+    }
+
+    /**
+     * Rejeita em {@code itens} os pedidos para o próprio remetente ou para contas inexistentes
+     * e soma os válidos por destinatário em {@code creditos}.
+     *
+     * @param indicesValidos recebe os índices dos pedidos válidos
+     * @return o valor total dos pedidos válidos
+     */
+    private BigDecimal validarItens(Long idRemetente, List<TransacaoRequestDTO> requests, Predicate<Long> existe,
+            ItemLoteResponseDTO[] itens, List<Integer> indicesValidos, Map<Long, BigDecimal> creditos) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < requests.size(); i++) {
+            TransacaoRequestDTO request = requests.get(i);
+            String erro = null;
+            if (idRemetente.equals(request.getIdDestinatario())) {
+                erro = "Não é possível fazer transação para si mesmo";
+            } else if (!existe.test(request.getIdDestinatario())) {
+                erro = "Usuário destinatário não encontrado";
+            }
+
+            if (erro != null) {
+                itens[i] = ItemLoteResponseDTO.builder().indice(i).sucesso(false).mensagem(erro).build();
+                continue;
+            }
+
+            indicesValidos.add(i);
+            total = total.add(request.getValor());
+            creditos.merge(request.getIdDestinatario(), request.getValor(), BigDecimal::add);
+        }
+        return total;
+    }
+
+    /**
+     * Registra as transações gravadas nos caches e monta a resposta do lote; {@code transacoes}
+     * segue a ordem de {@code indicesValidos}.
+     */
+    private LoteTransacaoResponseDTO concluirLote(List<Transacao> transacoes, List<Integer> indicesValidos,
+            ItemLoteResponseDTO[] itens, BigDecimal total, Function<Transacao, TransacaoResponseDTO> paraResposta) {
+        for (int i = 0; i < indicesValidos.size(); i++) {
+            TransacaoResponseDTO resposta = paraResposta.apply(transacoes.get(i));
+            historicoRecenteCache.registrar(resposta);
+            indiceBuscaTransacoes.registrar(resposta);
+            itens[indicesValidos.get(i)] = ItemLoteResponseDTO.builder()
+                .indice(indicesValidos.get(i))
+                .sucesso(true)
+                .mensagem("Transação realizada com sucesso")
+                .transacao(resposta)
+                .build();
+        }
+
+        return LoteTransacaoResponseDTO.builder()
+            .totalProcessadas(indicesValidos.size())
+            .totalRejeitadas(itens.length - indicesValidos.size())
+            .valorTotal(total)
+            .itens(List.of(itens))
+            .build();
+    }
+
+    private TransacaoResponseDTO realizarComBloqueio(Long idRemetente, TransacaoRequestDTO request, String protocolo) {
+        // Buscar usuários com lock pessimista, sempre do menor id para o maior,
+        // para que A->B e B->A concorrentes não entrem em deadlock
+        Usuario remetente;
+        Usuario destinatario;
+        if (saldoDistribuidoService.isDistribuida(request.getIdDestinatario())) {
+            // O crédito vai para uma faixa: a linha da destinatária não é bloqueada
+            remetente = bloquearRemetente(idRemetente);
+            destinatario = usuarioRepository.findById(request.getIdDestinatario())
+                .orElseThrow(() -> new RuntimeException("Usuário destinatário não encontrado"));
+        } else if (idRemetente < request.getIdDestinatario()) {
+            remetente = bloquearRemetente(idRemetente);
+            destinatario = bloquearDestinatario(request.getIdDestinatario());
+        } else {
+            destinatario = bloquearDestinatario(request.getIdDestinatario());
+            remetente = bloquearRemetente(idRemetente);
+        }
+
+        long valor = Centavos.de(request.getValor());
+        if (remetente.getSaldoCentavos() < valor && remetente.isContaDistribuida()) {
+            remetente.setSaldoCentavos(remetente.getSaldoCentavos()
+                + saldoDistribuidoService.esvaziarFaixas(remetente.getId()));
+        }
+        if (remetente.getSaldoCentavos() < valor) {
+            throw new RuntimeException(SALDO_INSUFICIENTE);
         }
         
-      
-        
-      
-        BigDecimal novoSaldoRemetente = saldoRemetente.subtract(request.getValor());
-        BigDecimal saldoDestinatario = BigDecimal.valueOf(destinatario.getSaldo());
-        BigDecimal novoSaldoDestinatario = saldoDestinatario.add(request.getValor());
-        
-        remetente.setSaldo(novoSaldoRemetente.floatValue());
-        destinatario.setSaldo(novoSaldoDestinatario.floatValue());
-        
+        remetente.setSaldoCentavos(remetente.getSaldoCentavos() - valor);
+        if (destinatario.isContaDistribuida()) {
+            saldoDistribuidoService.creditar(destinatario.getId(), valor);
+        } else {
+            destinatario.setSaldoCentavos(Math.addExact(destinatario.getSaldoCentavos(), valor));
+        }
         
         usuarioRepository.save(remetente);
         usuarioRepository.save(destinatario);
         
-       
+        Transacao transacao = registrarTransacao(remetente, destinatario, request, protocolo,
+            destinatario.isContaDistribuida());
+        
+        return toResponseDTO(transacao, remetente.getId(), remetente.getNome(), remetente.getEmail(),
+            destinatario.getId(), destinatario.getNome(), destinatario.getEmail());
+    }
+
+    /**
+     * Débito e crédito sem hidratar as entidades: cada um é um único UPDATE e
+     * o número de linhas afetadas indica saldo insuficiente ou usuário inexistente.
+     * Os UPDATEs seguem a mesma ordem de ids do modo com bloqueio, evitando deadlock.
+     * Qualquer falha lança exceção e a transação desfaz o que já foi aplicado.
+     */
+    private TransacaoResponseDTO realizarCondicional(Long idRemetente, TransacaoRequestDTO request, String protocolo) {
+        Long idDestinatario = request.getIdDestinatario();
+        long valor = Centavos.de(request.getValor());
+
+        boolean destinoDistribuido;
+        if (idRemetente < idDestinatario) {
+            debitar(idRemetente, valor);
+            destinoDistribuido = creditar(idDestinatario, valor);
+        } else {
+            destinoDistribuido = creditar(idDestinatario, valor);
+            debitar(idRemetente, valor);
+        }
+
+        Transacao transacao = registrarTransacao(
+            usuarioRepository.getReferenceById(idRemetente),
+            usuarioRepository.getReferenceById(idDestinatario),
+            request,
+            protocolo,
+            destinoDistribuido);
+
+        return toResponseDTO(transacao, idRemetente, idDestinatario);
+    }
+
+    /**
+     * Lê os dois usuários sem lock e altera as entidades; no flush, o UPDATE com
+     * {@code versao} falha se outra transação alterou algum dos dois nesse meio tempo,
+     * e a {@link RetentativaOtimista} repete a transação inteira.
+     */
+    private TransacaoResponseDTO realizarOtimista(Long idRemetente, TransacaoRequestDTO request, String protocolo) {
+        Usuario remetente = usuarioRepository.findById(idRemetente)
+            .orElseThrow(() -> new RuntimeException("Usuário remetente não encontrado"));
+        Usuario destinatario = usuarioRepository.findById(request.getIdDestinatario())
+            .orElseThrow(() -> new RuntimeException("Usuário destinatário não encontrado"));
+
+        long valor = Centavos.de(request.getValor());
+        if (remetente.getSaldoCentavos() < valor && remetente.isContaDistribuida()) {
+            remetente.setSaldoCentavos(remetente.getSaldoCentavos()
+                + saldoDistribuidoService.esvaziarFaixas(remetente.getId()));
+        }
+        if (remetente.getSaldoCentavos() < valor) {
+            throw new RuntimeException(SALDO_INSUFICIENTE);
+        }
+
+        remetente.setSaldoCentavos(remetente.getSaldoCentavos() - valor);
+        if (destinatario.isContaDistribuida()) {
+            saldoDistribuidoService.creditar(destinatario.getId(), valor);
+        } else {
+            destinatario.setSaldoCentavos(Math.addExact(destinatario.getSaldoCentavos(), valor));
+        }
+
+        Transacao transacao = registrarTransacao(remetente, destinatario, request, protocolo,
+            destinatario.isContaDistribuida());
+
+        return toResponseDTO(transacao, remetente.getId(), remetente.getNome(), remetente.getEmail(),
+            destinatario.getId(), destinatario.getNome(), destinatario.getEmail());
+    }
+
+    private void debitar(Long idRemetente, long valor) {
+        if (usuarioRepository.debitarSeSaldoSuficiente(idRemetente, valor) == 0) {
+            // Conta distribuída: traz as faixas para o saldo principal e tenta de novo
+            long consolidado = saldoDistribuidoService.esvaziarFaixas(idRemetente);
+            if (consolidado != 0) {
+                usuarioRepository.creditarSaldoPrincipal(idRemetente, consolidado);
+                if (usuarioRepository.debitarSeSaldoSuficiente(idRemetente, valor) == 1) {
+                    return;
+                }
+            }
+            if (!usuarioRepository.existsById(idRemetente)) {
+                throw new RuntimeException("Usuário remetente não encontrado");
+            }
+            throw new RuntimeException(SALDO_INSUFICIENTE);
+        }
+    }
+
+    /**
+     * @return true se o crédito foi para uma conta distribuída
+     */
+    private boolean creditar(Long idDestinatario, long valor) {
+        // Conta distribuída conhecida vai direto para as faixas: o UPDATE em usuario bloquearia
+        // a linha mesmo sem alterá-la
+        if (!saldoDistribuidoService.isDistribuida(idDestinatario)
+                && usuarioRepository.creditar(idDestinatario, valor) == 1) {
+            return false;
+        }
+        if (!saldoDistribuidoService.creditar(idDestinatario, valor)) {
+            throw new RuntimeException("Usuário destinatário não encontrado");
+        }
+        return true;
+    }
+
+    /**
+     * Contas cujas linhas em usuario a transferência bloqueia: o remetente e as destinatárias
+     * que não são distribuídas.
+     */
+    private Set<Long> contasBloqueadas(Long idRemetente, List<TransacaoRequestDTO> requests) {
+        Set<Long> contas = new HashSet<>();
+        contas.add(idRemetente);
+        for (TransacaoRequestDTO request : requests) {
+            if (!saldoDistribuidoService.isDistribuida(request.getIdDestinatario())) {
+                contas.add(request.getIdDestinatario());
+            }
+        }
+        return contas;
+    }
+
+    private Transacao registrarTransacao(Usuario remetente, Usuario destinatario, TransacaoRequestDTO request,
+            String protocolo, boolean destinoDistribuido) {
         Transacao transacao = Transacao.builder()
             .valor(request.getValor())
             .remetente(remetente)
             .destinatario(destinatario)
             .descricao(request.getDescricao())
+            .protocolo(protocolo)
             .build();
         
         transacao = transacaoRepository.save(transacao);
-        
-        // Retornar DTO
+        livroRazaoService.lancar(transacao);
+        resumoMensalService.registrar(transacao, destinoDistribuido);
+        return transacao;
+    }
+
+    /**
+     * Resposta com nome e e-mail das duas contas lidos por projeção, sem hidratar as entidades.
+     */
+    private TransacaoResponseDTO toResponseDTO(Transacao transacao, Long idRemetente, Long idDestinatario) {
+        Map<Long, UsuarioResumo> resumos = usuarioRepository.findResumoByIdIn(List.of(idRemetente, idDestinatario))
+            .stream()
+            .collect(Collectors.toMap(UsuarioResumo::getId, Function.identity()));
+        UsuarioResumo remetente = resumos.get(idRemetente);
+        UsuarioResumo destinatario = resumos.get(idDestinatario);
+
+        return toResponseDTO(transacao, remetente.getId(), remetente.getNome(), remetente.getEmail(),
+            destinatario.getId(), destinatario.getNome(), destinatario.getEmail());
+    }
+
+    private TransacaoResponseDTO toResponseDTO(Transacao transacao,
+            Long idRemetente, String nomeRemetente, String emailRemetente,
+            Long idDestinatario, String nomeDestinatario, String emailDestinatario) {
         return TransacaoResponseDTO.builder()
             .id(transacao.getId())
             .dataTransacao(transacao.getDataTransacao())
             .valor(transacao.getValor())
             .descricao(transacao.getDescricao())
             .remetente(UsuarioResponseDTO.builder()
-                .id(remetente.getId())
-                .nome(remetente.getNome())
-                .email(remetente.getEmail())
+                .id(idRemetente)
+                .nome(nomeRemetente)
+                .email(emailRemetente)
                 .build())
             .destinatario(UsuarioResponseDTO.builder()
-                .id(destinatario.getId())
-                .nome(destinatario.getNome())
-                .email(destinatario.getEmail())
+                .id(idDestinatario)
+                .nome(nomeDestinatario)
+                .email(emailDestinatario)
                 .build())
             .build();
     }
-    
+
+    private Usuario bloquearRemetente(Long idRemetente) {
+        return usuarioRepository.findByIdForUpdate(idRemetente)
+            .orElseThrow(() -> new RuntimeException("Usuário remetente não encontrado"));
+    }
+
+    private Usuario bloquearDestinatario(Long idDestinatario) {
+        return usuarioRepository.findByIdForUpdate(idDestinatario)
+            .orElseThrow(() -> new RuntimeException("Usuário destinatário não encontrado"));
+    }
+
+    /**
+     * Histórico paginado por OFFSET. A primeira página vem do {@link HistoricoRecenteCache}
+     * quando possível; as demais, de uma única consulta de projeção, e o total só é contado
+     * quando não dá para deduzi-lo do tamanho da página.
+     */
     public Page<HistoricoTransacaoDTO> obterHistoricoTransacoes(Long usuarioId, int page, int size) {
-        // Verificar se usuário existe
-        if (!usuarioRepository.existsById(usuarioId)) {
-            throw new RuntimeException("Usuário não encontrado");
-        }
-        
+        return obterHistoricoTransacoes(usuarioId, page, size, FiltroHistorico.NENHUM);
+    }
+
+    /**
+     * Histórico paginado por OFFSET com filtros. Com algum filtro, a página e o total vêm de
+     * consultas que aplicam os filtros nos intervalos dos índices de cada lado, sem cache.
+     *
+     * Quando a página passa do fim de transacao, o restante vem de transacao_arquivo, que só
+     * tem transações mais antigas que as de transacao; o total é a soma das duas tabelas.
+     */
+    public Page<HistoricoTransacaoDTO> obterHistoricoTransacoes(Long usuarioId, int page, int size,
+            FiltroHistorico filtro) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Transacao> transacoes = transacaoRepository.findTransacoesByUsuario(usuarioId, pageable);
-        
-        return transacoes.map(transacao -> {
-            boolean isRemetente = transacao.getRemetente().getId().equals(usuarioId);
-            Usuario outroUsuario = isRemetente ? transacao.getDestinatario() : transacao.getRemetente();
-            
-            return HistoricoTransacaoDTO.builder()
-                .id(transacao.getId())
-                .dataTransacao(transacao.getDataTransacao())
-                .valor(transacao.getValor())
-                .descricao(transacao.getDescricao())
-                .tipoTransacao(isRemetente ? "ENVIADA" : "RECEBIDA")
-                .outroUsuario(UsuarioResponseDTO.builder()
-                    .id(outroUsuario.getId())
-                    .nome(outroUsuario.getNome())
-                    .email(outroUsuario.getEmail())
-                    .build())
-                .build();
+        if (filtro.vazio() && page == 0) {
+            HistoricoRecenteCache.Pagina recente = primeiraPagina(usuarioId, size);
+            if (recente != null) {
+                return new PageImpl<>(recente.itens(), pageable, recente.total());
+            }
+        }
+        return leituraConsistente.execute(status -> paginaPorDeslocamento(usuarioId, pageable, filtro));
+    }
+
+    private Page<HistoricoTransacaoDTO> paginaPorDeslocamento(Long usuarioId, Pageable pageable, FiltroHistorico filtro) {
+        long deslocamento = pageable.getOffset();
+        int size = pageable.getPageSize();
+        int enviadas = filtro.enviadas() ? 1 : 0;
+        int recebidas = filtro.recebidas() ? 1 : 0;
+        List<HistoricoTransacaoResumo> linhas = new ArrayList<>(filtro.vazio()
+            ? transacaoRepository.findHistoricoPagina(usuarioId, deslocamento + size, size, deslocamento)
+            : transacaoRepository.findHistoricoFiltradoPagina(usuarioId, filtro.inicio(), filtro.fim(),
+                filtro.valorMinimo(), filtro.valorMaximo(), enviadas, recebidas, deslocamento + size, size, deslocamento));
+        LongSupplier contarRecentes = () -> filtro.vazio()
+            ? transacaoRepository.countHistorico(usuarioId)
+            : transacaoRepository.countHistoricoFiltrado(usuarioId, filtro.inicio(), filtro.fim(),
+                filtro.valorMinimo(), filtro.valorMaximo(), enviadas, recebidas);
+        LongSupplier contarArquivadas = () -> filtro.vazio()
+            ? transacaoArquivoRepository.countHistorico(usuarioId)
+            : transacaoArquivoRepository.countHistoricoFiltrado(usuarioId, filtro.inicio(), filtro.fim(),
+                filtro.valorMinimo(), filtro.valorMaximo(), enviadas, recebidas);
+
+        long[] recentes = {-1};
+        if (linhas.size() < size) {
+            // Uma página incompleta chegou ao fim de transacao; sem nenhuma linha, é preciso contar quantas há lá
+            recentes[0] = linhas.isEmpty() ? contarRecentes.getAsLong() : deslocamento + linhas.size();
+            long deslocamentoArquivo = Math.max(0, deslocamento + linhas.size() - recentes[0]);
+            int restante = size - linhas.size();
+            linhas.addAll(transacaoArquivoRepository.findHistoricoFiltradoPagina(usuarioId, filtro.inicio(), filtro.fim(),
+                filtro.valorMinimo(), filtro.valorMaximo(), enviadas, recebidas,
+                deslocamentoArquivo + restante, restante, deslocamentoArquivo));
+        }
+
+        List<HistoricoTransacaoDTO> conteudo = linhas.stream().map(this::paraHistorico).toList();
+        return PageableExecutionUtils.getPage(conteudo, pageable,
+            () -> (recentes[0] >= 0 ? recentes[0] : contarRecentes.getAsLong()) + contarArquivadas.getAsLong());
+    }
+
+    /**
+     * Histórico paginado por cursor (keyset): cada página é buscada a partir do
+     * (dataTransacao, id) da última linha da anterior, sem OFFSET e sem COUNT, numa
+     * única consulta.
+     *
+     * @param cursor o {@code nextCursor} da página anterior, ou null para a primeira
+     * @throws IllegalArgumentException se o cursor for inválido
+     */
+    public HistoricoCursorDTO obterHistoricoPorCursor(Long usuarioId, String cursor, int size) {
+        return obterHistoricoPorCursor(usuarioId, cursor, size, FiltroHistorico.NENHUM);
+    }
+
+    /**
+     * Histórico por cursor com filtros; o cursor só vale com os mesmos filtros da página
+     * anterior. Com algum filtro, toda página é uma única consulta filtrada, sem cache.
+     * Páginas que passam do fim de transacao continuam em transacao_arquivo.
+     */
+    public HistoricoCursorDTO obterHistoricoPorCursor(Long usuarioId, String cursor, int size, FiltroHistorico filtro) {
+        if (size < 1 || size > TAMANHO_MAXIMO_PAGINA) {
+            throw new IllegalArgumentException("O tamanho da página deve estar entre 1 e " + TAMANHO_MAXIMO_PAGINA);
+        }
+
+        CursorHistorico posicao = cursor == null || cursor.isBlank() ? null : CursorHistorico.decodificar(cursor);
+        if (posicao == null && filtro.vazio()) {
+            HistoricoRecenteCache.Pagina recente = primeiraPagina(usuarioId, size);
+            if (recente != null) {
+                List<HistoricoTransacaoDTO> itens = recente.itens();
+                HistoricoTransacaoDTO ultima = itens.isEmpty() ? null : itens.get(itens.size() - 1);
+                return HistoricoCursorDTO.builder()
+                    .content(itens)
+                    .size(size)
+                    .nextCursor(recente.total() > size
+                        ? new CursorHistorico(ultima.getDataTransacao(), ultima.getId()).codificar()
+                        : null)
+                    .build();
+            }
+        }
+
+        // Uma linha a mais indica se existe próxima página
+        List<HistoricoTransacaoResumo> linhas = historicoApos(usuarioId, filtro, posicao, size + 1);
+        boolean haMais = linhas.size() > size;
+        List<HistoricoTransacaoResumo> pagina = haMais ? linhas.subList(0, size) : linhas;
+        String proximo = null;
+        if (haMais) {
+            HistoricoTransacaoResumo ultima = pagina.get(pagina.size() - 1);
+            proximo = new CursorHistorico(ultima.getDataTransacao(), ultima.getId()).codificar();
+        }
+
+        return HistoricoCursorDTO.builder()
+            .content(pagina.stream().map(this::paraHistorico).toList())
+            .size(size)
+            .nextCursor(proximo)
+            .build();
+    }
+
+    /**
+     * Até {@code limite} linhas depois da posição (null = do início), primeiro de transacao e,
+     * se faltarem, de transacao_arquivo a partir da última linha lida. Como o arquivamento move
+     * as transações em ordem de (dataTransacao, id), tudo que está no arquivo vem depois do que
+     * ficou em transacao, e uma linha movida entre as duas consultas já veio na primeira.
+     */
+    private List<HistoricoTransacaoResumo> historicoApos(Long usuarioId, FiltroHistorico filtro,
+            CursorHistorico posicao, int limite) {
+        int enviadas = filtro.enviadas() ? 1 : 0;
+        int recebidas = filtro.recebidas() ? 1 : 0;
+        // Com filtro, a primeira página parte de (fim, 0): tudo antes do fim do período
+        if (posicao != null && !posicao.dataTransacao().isBefore(filtro.fim())) {
+            posicao = null;
+        }
+        List<HistoricoTransacaoResumo> linhas;
+        if (!filtro.vazio()) {
+            CursorHistorico inicio = posicao != null ? posicao : new CursorHistorico(filtro.fim(), 0);
+            linhas = transacaoRepository.findHistoricoFiltradoApos(usuarioId, filtro.inicio(), filtro.valorMinimo(),
+                filtro.valorMaximo(), enviadas, recebidas, inicio.dataTransacao(), inicio.id(), limite);
+        } else if (posicao == null) {
+            linhas = transacaoRepository.findHistorico(usuarioId, limite);
+        } else {
+            linhas = transacaoRepository.findHistoricoApos(usuarioId, posicao.dataTransacao(), posicao.id(), limite);
+        }
+        if (linhas.size() == limite) {
+            return linhas;
+        }
+
+        CursorHistorico continuacao = posicao != null ? posicao : new CursorHistorico(filtro.fim(), 0);
+        if (!linhas.isEmpty()) {
+            HistoricoTransacaoResumo ultima = linhas.get(linhas.size() - 1);
+            continuacao = new CursorHistorico(ultima.getDataTransacao(), ultima.getId());
+        }
+        List<HistoricoTransacaoResumo> arquivadas = transacaoArquivoRepository.findHistoricoFiltradoApos(usuarioId,
+            filtro.inicio(), filtro.valorMinimo(), filtro.valorMaximo(), enviadas, recebidas,
+            continuacao.dataTransacao(), continuacao.id(), limite - linhas.size());
+        if (arquivadas.isEmpty()) {
+            return linhas;
+        }
+        List<HistoricoTransacaoResumo> todas = new ArrayList<>(linhas);
+        todas.addAll(arquivadas);
+        return todas;
+    }
+
+    /**
+     * Busca nas descrições das transações do usuário: cada termo da consulta casa com os
+     * termos que começam por ele, e a transação precisa casar com todos. Os ids vêm do
+     * {@link IndiceBuscaTransacoes}, em ordem decrescente de id, e as linhas de uma única
+     * consulta pela PK (mais uma no arquivo, para os ids que não estão em transacao).
+     *
+     * @param cursor o {@code nextCursor} da página anterior, ou null para a primeira
+     * @throws IllegalArgumentException se a consulta, o cursor ou o tamanho forem inválidos
+     * @throws IllegalStateException se o índice ainda não estiver disponível
+     */
+    public HistoricoCursorDTO buscarTransacoes(Long usuarioId, String consulta, String cursor, int size) {
+        if (size < 1 || size > TAMANHO_MAXIMO_PAGINA) {
+            throw new IllegalArgumentException("O tamanho da página deve estar entre 1 e " + TAMANHO_MAXIMO_PAGINA);
+        }
+        long antesDe = cursor == null || cursor.isBlank() ? Long.MAX_VALUE : CursorBusca.decodificar(cursor).id();
+
+        // Um id a mais indica se existe próxima página
+        long[] ids = indiceBuscaTransacoes.buscar(usuarioId, consulta == null ? "" : consulta, antesDe, size + 1);
+        boolean haMais = ids.length > size;
+        long[] pagina = haMais ? Arrays.copyOf(ids, size) : ids;
+
+        List<HistoricoTransacaoResumo> linhas = pagina.length == 0
+            ? List.of()
+            : transacaoRepository.findHistoricoPorIds(usuarioId, Arrays.stream(pagina).boxed().toList());
+        if (linhas.size() < pagina.length) {
+            // Uma transação movida entre as duas consultas pode vir das duas; fica a primeira
+            Set<Long> encontrados = linhas.stream().map(HistoricoTransacaoResumo::getId).collect(Collectors.toSet());
+            List<Long> restantes = Arrays.stream(pagina).filter(id -> !encontrados.contains(id)).boxed().toList();
+            List<HistoricoTransacaoResumo> todas = new ArrayList<>(linhas);
+            transacaoArquivoRepository.findHistoricoPorIds(usuarioId, restantes).stream()
+                .filter(linha -> encontrados.add(linha.getId()))
+                .forEach(todas::add);
+            todas.sort(Comparator.comparing(HistoricoTransacaoResumo::getId).reversed());
+            linhas = todas;
+        }
+
+        return HistoricoCursorDTO.builder()
+            .content(linhas.stream().map(this::paraHistorico).toList())
+            .size(size)
+            .nextCursor(haMais ? new CursorBusca(pagina[size - 1]).codificar() : null)
+            .build();
+    }
+
+    /**
+     * Primeira página pelo cache; se o usuário não está nele, carrega as últimas transações
+     * (e o total) do banco para as próximas leituras.
+     *
+     * @return null se a página não cabe no cache ou o cache está desabilitado
+     */
+    private HistoricoRecenteCache.Pagina primeiraPagina(Long usuarioId, int size) {
+        HistoricoRecenteCache.Pagina pagina = historicoRecenteCache.primeiraPagina(usuarioId, size);
+        if (pagina != null || size > historicoRecenteCache.getTamanho()) {
+            return pagina;
+        }
+        HistoricoRecenteCache.Carga carga = historicoRecenteCache.iniciarCarga(usuarioId);
+        if (carga == null) {
+            return null;
+        }
+        int tamanho = historicoRecenteCache.getTamanho();
+        HistoricoRecenteCache.Pagina carregada = leituraConsistente.execute(status -> {
+            List<HistoricoTransacaoDTO> recentes = historicoApos(usuarioId, FiltroHistorico.NENHUM, null, tamanho).stream()
+                .map(this::paraHistorico)
+                .toList();
+            long total = recentes.size() < tamanho
+                ? recentes.size()
+                : transacaoRepository.countHistorico(usuarioId) + transacaoArquivoRepository.countHistorico(usuarioId);
+            return new HistoricoRecenteCache.Pagina(recentes, total);
         });
+        historicoRecenteCache.concluirCarga(carga, carregada.itens(), carregada.total());
+        return new HistoricoRecenteCache.Pagina(
+            carregada.itens().subList(0, Math.min(size, carregada.itens().size())), carregada.total());
+    }
+
+    private HistoricoTransacaoDTO paraHistorico(HistoricoTransacaoResumo linha) {
+        return HistoricoTransacaoDTO.builder()
+            .id(linha.getId())
+            .dataTransacao(linha.getDataTransacao())
+            .valor(linha.getValor())
+            .descricao(linha.getDescricao())
+            .tipoTransacao(linha.getTipoTransacao())
+            .outroUsuario(UsuarioResponseDTO.builder()
+                .id(linha.getIdOutroUsuario())
+                .nome(linha.getNomeOutroUsuario())
+                .email(linha.getEmailOutroUsuario())
+                .build())
+            .build();
     }
 }
@@ -6,8 +6,12 @@ import com.CDCBank.bancoDigital.exception.DuplicateResourceException;
 
 import com.CDCBank.bancoDigital.exception.UserNotFoundException;
 import com.CDCBank.bancoDigital.models.Usuario;
+import com.CDCBank.bancoDigital.repository.SubSaldoRepository;
+import com.CDCBank.bancoDigital.repository.TransacaoAgendadaRepository;
+import com.CDCBank.bancoDigital.repository.TransacaoArquivoRepository;
 import com.CDCBank.bancoDigital.repository.TransacaoRepository;
 import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+import com.CDCBank.bancoDigital.util.Centavos;
 
 import java.util.Date;
 
@@ -18,6 +22,9 @@ import java.util.Optional;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
@@ -29,9 +36,22 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class UsuarioService {
 
+    public static final long SALDO_INICIAL_CENTAVOS = 10_000L;
+
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
     private final TransacaoRepository transacaoRepository;
+    private final SubSaldoRepository subSaldoRepository;
+    private final SaldoDistribuidoService saldoDistribuidoService;
+    private final LivroRazaoService livroRazaoService;
+    private final RetentativaOtimista retentativaOtimista;
+    private final TransactionTemplate transactionTemplate;
+    private final LimiteDiarioService limiteDiarioService;
+    private final TransacaoAgendadaRepository transacaoAgendadaRepository;
+    private final HistoricoRecenteCache historicoRecenteCache;
+    private final ResumoMensalService resumoMensalService;
+    private final IndiceBuscaTransacoes indiceBuscaTransacoes;
+    private final TransacaoArquivoRepository transacaoArquivoRepository;
     /**
      * Método para salvar um usuário no repositório.
      * 
@@ -50,6 +70,7 @@ public class UsuarioService {
         return usuarioRepository.findAll().stream()
                 .filter(usuario -> usuario.getEmail().equalsIgnoreCase(email))
                 .findFirst()
+                .map(this::carregarSaldoDistribuido)
                 .orElseThrow(() -> new UserNotFoundException("User not found with email: " + email)); }
 
     
@@ -57,9 +78,35 @@ public class UsuarioService {
     public Usuario findById(Long id) {
         log.info("Buscando usuário com id: {}", id);
         return usuarioRepository.findById(id)
+                .map(this::carregarSaldoDistribuido)
                 .orElseThrow(() -> new UserNotFoundException("User not found with id: " + id)); 
             }
 
+    /**
+     * Preenche a soma das faixas de saldo de contas distribuídas, para que o saldo
+     * exibido considere os créditos ainda não consolidados.
+     *
+     * @param usuario O usuário carregado.
+     * @return O mesmo usuário.
+     */
+    public Usuario carregarSaldoDistribuido(Usuario usuario) {
+        if (usuario.isContaDistribuida()) {
+            usuario.setSaldoFaixasCentavos(
+                saldoDistribuidoService.saldoTotalCentavos(usuario) - usuario.getSaldoCentavos());
+        }
+        return usuario;
+    }
+
+    /**
+     * Ativa o saldo distribuído (créditos espalhados em faixas) para o usuário.
+     *
+     * @param id O ID do usuário.
+     */
+    public void ativarSaldoDistribuido(Long id) {
+        log.info("Ativando saldo distribuído para o usuário ID: {}", id);
+        saldoDistribuidoService.ativar(id);
+    }
+
     /**
     
     
@@ -90,10 +137,11 @@ public class UsuarioService {
         usuario.setSenha(passwordEncoder.encode(usuarioCreateDTO.getSenha()));
         usuario.setIdFiscal(usuarioCreateDTO.getIdFiscal());
         usuario.setDataNascimento(usuarioCreateDTO.getDataNascimento());
-        usuario.setRendaMensal(usuarioCreateDTO.getRendaMensal());
-        usuario.setSaldo(100.0f); // Inicializa o saldo como 100.0
+        usuario.setRendaMensalCentavos(Centavos.de(usuarioCreateDTO.getRendaMensal()));
+        usuario.setSaldoCentavos(SALDO_INICIAL_CENTAVOS); // Inicializa o saldo como 100.0
 
         Usuario usuarioSalvo = saveUsuario(usuario);
+        livroRazaoService.abrirConta(usuarioSalvo.getId(), SALDO_INICIAL_CENTAVOS);
         log.info("Usuário criado com sucesso - ID: {} | Email: {}",
                 usuarioSalvo.getId(), usuarioSalvo.getEmail());
 
@@ -112,9 +160,22 @@ public void deleteById(Long id) {
     }
     log.info("Deletando usuário com ID: {}", id);
     
+    // O resumo mensal das contrapartes é refeito depois que as transações forem excluídas
+    List<Long> contrapartes = resumoMensalService.contrapartes(id);
+
     // Deletar todas as transações relacionadas ao usuário primeiro
     transacaoRepository.deleteByRemetenteIdOrDestinatarioId(id, id);
+    transacaoArquivoRepository.deleteByUsuarioId(id);
     log.info("Transações relacionadas ao usuário ID: {} deletadas", id);
+
+    subSaldoRepository.deleteByUsuarioId(id);
+    transacaoAgendadaRepository.deleteByUsuarioId(id);
+    livroRazaoService.excluirConta(id);
+    limiteDiarioService.remover(id);
+    resumoMensalService.excluirConta(id, contrapartes);
+    // As transações excluídas podem estar no histórico recente dos outros usuários
+    historicoRecenteCache.limpar();
+    indiceBuscaTransacoes.removerUsuario(id);
     
     usuarioRepository.deleteById(id);
     log.info("Usuário com ID: {} deletado com sucesso", id);
@@ -132,7 +193,10 @@ public void deleteById(Long id) {
         return usuarioRepository.findAll();
     }
 
-@Transactional
+/**
+ * Atualiza os campos informados. Cada tentativa roda numa transação própria e é
+ * repetida se uma transferência concorrente alterar a versão do usuário antes do commit.
+ */
 @CacheEvict(value = "informacoes", allEntries = true)
 public Usuario atualizarCampos(PatchUserDTO informacoes) {
     if (informacoes == null) {
@@ -150,6 +214,16 @@ public Usuario atualizarCampos(PatchUserDTO informacoes) {
         throw new IllegalArgumentException("Pelo menos um campo deve ser fornecido para atualização");
     }
 
+    Usuario atualizado = retentativaOtimista.executar("atualizarCampos", informacoes.getId(),
+        () -> transactionTemplate.execute(status -> aplicarCampos(informacoes)));
+    if (informacoes.getNome() != null) {
+        // O nome aparece nas entradas do histórico recente de quem transacionou com o usuário
+        historicoRecenteCache.limpar();
+    }
+    return atualizado;
+}
+
+private Usuario aplicarCampos(PatchUserDTO informacoes) {
     log.info("Atualizando configurações específicas: {}", informacoes.toString());
 
     Optional<Usuario> usuarioOptional = usuarioRepository.findById(informacoes.getId());
@@ -183,8 +257,17 @@ public Usuario atualizarCampos(PatchUserDTO informacoes) {
     }
 
     if (informacoes.getRendaMensal() != null) {
-        if (Float.compare(informacoes.getRendaMensal(), usuarioExistente.getRendaMensal()) != 0) {
-            usuarioExistente.setRendaMensal(informacoes.getRendaMensal());
+        long rendaMensalCentavos = Centavos.de(informacoes.getRendaMensal());
+        if (rendaMensalCentavos != usuarioExistente.getRendaMensalCentavos()) {
+            usuarioExistente.setRendaMensalCentavos(rendaMensalCentavos);
+            // O limite em memória só muda com a renda gravada: uma tentativa desfeita por conflito não conta
+            Long idUsuario = usuarioExistente.getId();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    limiteDiarioService.atualizarRenda(idUsuario, rendaMensalCentavos);
+                }
+            });
             houveMudanca = true;
             log.debug("Renda mensal atualizada para: {}", informacoes.getRendaMensal());
         }
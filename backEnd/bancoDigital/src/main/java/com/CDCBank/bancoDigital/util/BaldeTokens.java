@@ -0,0 +1,69 @@
+package com.CDCBank.bancoDigital.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sem lock: todo o estado cabe num {@code long} atualizado por CAS.
+ * <pre>
+ * | 40 bits: instante da última recarga (ms) | 24 bits: tokens em milésimos |
+ * </pre>
+ * Com milésimos de token, a capacidade máxima é {@value #CAPACIDADE_MAXIMA} tokens.
+ * Os instantes são relativos a uma origem escolhida pelo chamador (cerca de 34 anos).
+ */
+public final class BaldeTokens {
+
+    public static final int CAPACIDADE_MAXIMA = ((1 << 24) - 1) / 1000;
+
+    private static final int BITS_TOKENS = 24;
+    private static final long MASCARA_TOKENS = (1L << BITS_TOKENS) - 1;
+    private static final long MILESIMOS = 1000;
+
+    private final long capacidade;
+    private final long recargaPorMs;
+    private final AtomicLong estado;
+
+    /**
+     * @param capacidade rajada máxima, em tokens
+     * @param porSegundo tokens recarregados por segundo (milésimos de token por ms)
+     * @param agoraMs instante de criação; o balde começa cheio
+     */
+    public BaldeTokens(int capacidade, int porSegundo, long agoraMs) {
+        if (capacidade <= 0 || capacidade > CAPACIDADE_MAXIMA || porSegundo <= 0) {
+            throw new IllegalArgumentException("Capacidade deve estar entre 1 e " + CAPACIDADE_MAXIMA
+                + " e a recarga ser positiva");
+        }
+        this.capacidade = capacidade * MILESIMOS;
+        this.recargaPorMs = porSegundo;
+        this.estado = new AtomicLong(agoraMs << BITS_TOKENS | this.capacidade);
+    }
+
+    /**
+     * Tenta consumir um token.
+     *
+     * @return 0 se consumiu, senão os milissegundos até haver um token disponível
+     */
+    public long tentarConsumir(long agoraMs) {
+        while (true) {
+            long atual = estado.get();
+            long instante = atual >>> BITS_TOKENS;
+            long tokens = atual & MASCARA_TOKENS;
+            if (agoraMs > instante) {
+                tokens = Math.min(capacidade, tokens + (agoraMs - instante) * recargaPorMs);
+                instante = agoraMs;
+            }
+            if (tokens < MILESIMOS) {
+                return (MILESIMOS - tokens + recargaPorMs - 1) / recargaPorMs;
+            }
+            if (estado.compareAndSet(atual, instante << BITS_TOKENS | (tokens - MILESIMOS))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Instante da última recarga, usado para descartar baldes ociosos.
+     */
+    public long ultimaAtividadeMs() {
+        return estado.get() >>> BITS_TOKENS;
+    }
+}
@@ -0,0 +1,27 @@
+package com.CDCBank.bancoDigital.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Conversão entre valores monetários decimais (API) e centavos em {@code long}
+ * (armazenamento e aritmética de saldo). As conversões acontecem apenas nas bordas;
+ * internamente os saldos são somados e subtraídos como {@code long}, sem alocação.
+ */
+public final class Centavos {
+
+    private Centavos() {
+    }
+
+    /**
+     * Converte um valor com no máximo duas casas decimais para centavos.
+     *
+     * @throws ArithmeticException se o valor tiver mais de duas casas decimais ou não couber em {@code long}
+     */
+    public static long de(BigDecimal valor) {
+        return valor.movePointRight(2).longValueExact();
+    }
+
+    public static BigDecimal paraValor(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+}
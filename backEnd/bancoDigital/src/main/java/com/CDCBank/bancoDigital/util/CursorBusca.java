@@ -0,0 +1,28 @@
+package com.CDCBank.bancoDigital.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Id da última transação devolvida numa página da busca, ordenada por id decrescente. A
+ * próxima página começa no primeiro id menor. Para o cliente é uma string opaca (Base64 URL).
+ */
+public record CursorBusca(long id) {
+
+    public String codificar() {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(Long.toString(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException se o cursor não foi gerado por {@link #codificar()}
+     */
+    public static CursorBusca decodificar(String cursor) {
+        try {
+            return new CursorBusca(Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException e erros de Base64 também são IllegalArgumentException
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.CDCBank.bancoDigital.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posição da última linha devolvida numa página do histórico, ordenado por
+ * (dataTransacao, id) decrescentes. A próxima página começa logo depois dela com um
+ * predicado de busca (seek), sem OFFSET. Para o cliente é uma string opaca (Base64 URL).
+ */
+public record CursorHistorico(LocalDateTime dataTransacao, long id) {
+
+    private static final char SEPARADOR = '|';
+
+    public String codificar() {
+        String texto = dataTransacao.toString() + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException se o cursor não foi gerado por {@link #codificar()}
+     */
+    public static CursorHistorico decodificar(String cursor) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = texto.lastIndexOf(SEPARADOR);
+            if (separador < 0) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return new CursorHistorico(LocalDateTime.parse(texto.substring(0, separador)),
+                Long.parseLong(texto.substring(separador + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // NumberFormatException e erros de Base64 também são IllegalArgumentException
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.CDCBank.bancoDigital.util;
+
+import java.util.Arrays;
+
+/**
+ * Soma deslizante dos últimos {@code quantidadeBaldes} períodos (por exemplo, 1440
+ * minutos = 24h), num anel de baldes com o total mantido à parte. Avançar no tempo
+ * subtrai só os baldes que saíram da janela, então consultar e somar custam O(1)
+ * amortizado e não alocam memória. Não é thread-safe: o chamador sincroniza.
+ */
+public final class JanelaDeslizante {
+
+    private final long[] baldes;
+    private long total;
+    // Período (absoluto) do balde mais recente
+    private long periodoAtual;
+
+    public JanelaDeslizante(int quantidadeBaldes, long periodoInicial) {
+        this.baldes = new long[quantidadeBaldes];
+        this.periodoAtual = periodoInicial;
+    }
+
+    /**
+     * Total da janela que termina em {@code periodo}.
+     */
+    public long total(long periodo) {
+        avancar(periodo);
+        return total;
+    }
+
+    /**
+     * Soma o valor no balde do período, se ele ainda estiver na janela. Valores negativos
+     * desfazem uma soma anterior.
+     */
+    public void somar(long periodo, long valor) {
+        avancar(periodo);
+        if (periodo <= periodoAtual - baldes.length) {
+            return;
+        }
+        baldes[indice(periodo)] += valor;
+        total += valor;
+    }
+
+    /**
+     * Soma o valor no período atual somente se o total não passar do limite.
+     *
+     * @return true se o valor foi somado
+     */
+    public boolean somarSeCouber(long periodo, long valor, long limite) {
+        avancar(periodo);
+        if (total + valor > limite) {
+            return false;
+        }
+        baldes[indice(periodo)] += valor;
+        total += valor;
+        return true;
+    }
+
+    public long periodoAtual() {
+        return periodoAtual;
+    }
+
+    private void avancar(long periodo) {
+        if (periodo <= periodoAtual) {
+            return;
+        }
+        if (periodo - periodoAtual >= baldes.length) {
+            Arrays.fill(baldes, 0L);
+            total = 0;
+        } else {
+            for (long p = periodoAtual + 1; p <= periodo; p++) {
+                int i = indice(p);
+                total -= baldes[i];
+                baldes[i] = 0;
+            }
+        }
+        periodoAtual = periodo;
+    }
+
+    private int indice(long periodo) {
+        return (int) Math.floorMod(periodo, (long) baldes.length);
+    }
+}
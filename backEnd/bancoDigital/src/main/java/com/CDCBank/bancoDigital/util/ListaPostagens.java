@@ -0,0 +1,230 @@
+package com.CDCBank.bancoDigital.util;
+
+import java.util.Arrays;
+
+/**
+ * Lista de ids distintos em ordem crescente, compactada: cada id é gravado como a diferença
+ * para o anterior em varint (7 bits por byte), então ids próximos ocupam 1 ou 2 bytes em vez
+ * de 8. Acrescentar um id maior que o último é O(1) amortizado. Ids fora de ordem (ids de
+ * blocos de outra instância, transações arquivadas lidas depois na reconstrução do índice)
+ * esperam num buffer e entram na lista codificada de uma vez, numa única reescrita a cada
+ * {@value #MAXIMO_PENDENTES}. Não é thread-safe: o chamador sincroniza.
+ */
+public final class ListaPostagens {
+
+    private static final byte[] VAZIA = new byte[0];
+    private static final long[] SEM_IDS = new long[0];
+    private static final int[] SEM_POSICOES = new int[0];
+    private static final int INTERVALO_SALTO = 64;
+    private static final int MAXIMO_PENDENTES = 1024;
+
+    private byte[] dados = VAZIA;
+    private int tamanho;
+    private int quantidade;
+    private long ultimo;
+
+    // A cada INTERVALO_SALTO ids, o id e a posição do delta seguinte: saber se um id fora de
+    // ordem já está na lista decodifica no máximo um intervalo, não a lista toda. Montados no
+    // primeiro id fora de ordem, para que listas só de acréscimos não paguem por eles
+    private boolean comSaltos;
+    private long[] saltoIds = SEM_IDS;
+    private int[] saltoPosicoes = SEM_POSICOES;
+    private int quantidadeSaltos;
+
+    // Ids fora de ordem ainda não codificados, sem ordem e todos menores que ultimo
+    private long[] pendentes = SEM_IDS;
+    private int quantidadePendentes;
+
+    /**
+     * @return false se o id já estava na lista
+     * @throws IllegalArgumentException se o id for negativo
+     */
+    public boolean adicionar(long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Id negativo: " + id);
+        }
+        if (quantidade > 0 && id <= ultimo) {
+            return id != ultimo && adiarForaDeOrdem(id);
+        }
+        acrescentar(id);
+        return true;
+    }
+
+    /**
+     * Os ids em ordem crescente, incluindo os que ainda esperam no buffer.
+     */
+    public long[] decodificar() {
+        long[] codificados = decodificarCodificados();
+        if (quantidadePendentes == 0) {
+            return codificados;
+        }
+        long[] ordenados = Arrays.copyOf(pendentes, quantidadePendentes);
+        Arrays.sort(ordenados);
+        return intercalar(codificados, ordenados);
+    }
+
+    public int quantidade() {
+        return quantidade + quantidadePendentes;
+    }
+
+    /**
+     * Bytes reservados para a lista codificada, os saltos e o buffer de ids fora de ordem.
+     */
+    public int bytes() {
+        return dados.length + saltoIds.length * Long.BYTES + saltoPosicoes.length * Integer.BYTES
+            + pendentes.length * Long.BYTES;
+    }
+
+    private boolean adiarForaDeOrdem(long id) {
+        if (!comSaltos) {
+            montarSaltos();
+        }
+        if (contemCodificado(id)) {
+            return false;
+        }
+        for (int i = 0; i < quantidadePendentes; i++) {
+            if (pendentes[i] == id) {
+                return false;
+            }
+        }
+        if (quantidadePendentes == pendentes.length) {
+            pendentes = Arrays.copyOf(pendentes, Math.max(8, Math.min(MAXIMO_PENDENTES, pendentes.length * 2)));
+        }
+        pendentes[quantidadePendentes++] = id;
+        if (quantidadePendentes == MAXIMO_PENDENTES) {
+            consolidar();
+        }
+        return true;
+    }
+
+    /**
+     * Reescreve a lista com os pendentes intercalados: O(n) para até {@value #MAXIMO_PENDENTES}
+     * ids, em vez de uma reescrita por id.
+     */
+    private void consolidar() {
+        long[] ordenados = Arrays.copyOf(pendentes, quantidadePendentes);
+        Arrays.sort(ordenados);
+        long[] ids = intercalar(decodificarCodificados(), ordenados);
+        tamanho = 0;
+        quantidade = 0;
+        quantidadeSaltos = 0;
+        pendentes = SEM_IDS;
+        quantidadePendentes = 0;
+        for (long id : ids) {
+            acrescentar(id);
+        }
+    }
+
+    private boolean contemCodificado(long id) {
+        int salto = Arrays.binarySearch(saltoIds, 0, quantidadeSaltos, id);
+        if (salto >= 0) {
+            return true;
+        }
+        salto = -salto - 2;
+        long anterior = salto < 0 ? 0 : saltoIds[salto];
+        int posicao = salto < 0 ? 0 : saltoPosicoes[salto];
+        int fim = Math.min(quantidade, salto < 0 ? INTERVALO_SALTO : (salto + 2) * INTERVALO_SALTO);
+        for (int i = salto < 0 ? 0 : (salto + 1) * INTERVALO_SALTO + 1; i < fim; i++) {
+            long delta = 0;
+            int deslocamento = 0;
+            byte b;
+            do {
+                b = dados[posicao++];
+                delta |= (long) (b & 0x7F) << deslocamento;
+                deslocamento += 7;
+            } while (b < 0);
+            anterior += delta;
+            if (anterior >= id) {
+                return anterior == id;
+            }
+        }
+        return false;
+    }
+
+    private void montarSaltos() {
+        comSaltos = true;
+        long anterior = 0;
+        int posicao = 0;
+        for (int i = 0; i < quantidade; i++) {
+            long delta = 0;
+            int deslocamento = 0;
+            byte b;
+            do {
+                b = dados[posicao++];
+                delta |= (long) (b & 0x7F) << deslocamento;
+                deslocamento += 7;
+            } while (b < 0);
+            anterior += delta;
+            if (i > 0 && i % INTERVALO_SALTO == 0) {
+                registrarSalto(anterior, posicao);
+            }
+        }
+    }
+
+    private void registrarSalto(long id, int posicao) {
+        if (quantidadeSaltos == saltoIds.length) {
+            int capacidade = Math.max(4, saltoIds.length + (saltoIds.length >> 1));
+            saltoIds = Arrays.copyOf(saltoIds, capacidade);
+            saltoPosicoes = Arrays.copyOf(saltoPosicoes, capacidade);
+        }
+        saltoIds[quantidadeSaltos] = id;
+        saltoPosicoes[quantidadeSaltos++] = posicao;
+    }
+
+    private long[] decodificarCodificados() {
+        long[] ids = new long[quantidade];
+        long anterior = 0;
+        int posicao = 0;
+        for (int i = 0; i < quantidade; i++) {
+            long delta = 0;
+            int deslocamento = 0;
+            byte b;
+            do {
+                b = dados[posicao++];
+                delta |= (long) (b & 0x7F) << deslocamento;
+                deslocamento += 7;
+            } while (b < 0);
+            anterior += delta;
+            ids[i] = anterior;
+        }
+        return ids;
+    }
+
+    private static long[] intercalar(long[] a, long[] b) {
+        long[] ids = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < a.length && j < b.length) {
+            ids[k++] = a[i] < b[j] ? a[i++] : b[j++];
+        }
+        while (i < a.length) {
+            ids[k++] = a[i++];
+        }
+        while (j < b.length) {
+            ids[k++] = b[j++];
+        }
+        return ids;
+    }
+
+    private void acrescentar(long id) {
+        escrever(quantidade == 0 ? id : id - ultimo);
+        ultimo = id;
+        if (comSaltos && quantidade > 0 && quantidade % INTERVALO_SALTO == 0) {
+            registrarSalto(id, tamanho);
+        }
+        quantidade++;
+    }
+
+    private void escrever(long valor) {
+        int necessario = tamanho + (64 - Long.numberOfLeadingZeros(valor | 1) + 6) / 7;
+        if (necessario > dados.length) {
+            dados = Arrays.copyOf(dados, Math.max(necessario, dados.length + (dados.length >> 1)));
+        }
+        while ((valor & ~0x7FL) != 0) {
+            dados[tamanho++] = (byte) ((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        dados[tamanho++] = (byte) valor;
+    }
+}
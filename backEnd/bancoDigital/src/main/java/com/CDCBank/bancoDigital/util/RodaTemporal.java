@@ -0,0 +1,179 @@
+package com.CDCBank.bancoDigital.util;
+
+import java.util.Arrays;
+
+/**
+ * Roda temporal hierárquica (timing wheel) para milhões de disparos futuros. São
+ * {@value #NIVEIS} níveis de {@value #POSICOES} posições: o nível 0 tem uma posição por
+ * tick, e cada posição do nível n cobre 64^n ticks. Uma entrada fica no nível mais baixo
+ * que alcança o seu tick; quando o tempo entra no intervalo de uma posição de nível
+ * superior, as entradas dela descem (cascata) para os níveis de baixo.
+ *
+ * Agendar custa O(1) e cada entrada é movida no máximo {@value #NIVEIS} vezes até
+ * disparar, então o custo por tick é proporcional ao que vence nele, não ao total
+ * agendado. As entradas são só pares (id, tick) em arrays primitivos por posição, sem
+ * objeto por entrada. Não é thread-safe: o chamador usa uma única thread.
+ */
+public final class RodaTemporal {
+
+    @FunctionalInterface
+    public interface Disparo {
+        void disparar(long id, long tick);
+    }
+
+    static final int BITS = 6;
+    static final int POSICOES = 1 << BITS;
+    static final int NIVEIS = 6;
+    private static final int MASCARA = POSICOES - 1;
+    private static final int CAPACIDADE_INICIAL = 4;
+    // Posições que já cresceram além disso voltam ao tamanho inicial depois de esvaziadas
+    private static final int CAPACIDADE_RETIDA = 1024;
+
+    private final Posicao[][] niveis = new Posicao[NIVEIS][POSICOES];
+    // Entradas com tick já passado no momento do agendamento; disparam no próximo avanço
+    private final Posicao atrasadas = new Posicao();
+    private final Posicao cascata = new Posicao();
+    private long tickAtual;
+    private long tamanho;
+
+    private static final class Posicao {
+        long[] ids = new long[CAPACIDADE_INICIAL];
+        long[] ticks = new long[CAPACIDADE_INICIAL];
+        int tamanho;
+
+        void adicionar(long id, long tick) {
+            if (tamanho == ids.length) {
+                ids = Arrays.copyOf(ids, tamanho * 2);
+                ticks = Arrays.copyOf(ticks, tamanho * 2);
+            }
+            ids[tamanho] = id;
+            ticks[tamanho] = tick;
+            tamanho++;
+        }
+
+        void limpar() {
+            tamanho = 0;
+            if (ids.length > CAPACIDADE_RETIDA) {
+                ids = new long[CAPACIDADE_INICIAL];
+                ticks = new long[CAPACIDADE_INICIAL];
+            }
+        }
+    }
+
+    /**
+     * @param tickInicial tick corrente; entradas com tick menor ou igual disparam no próximo avanço
+     */
+    public RodaTemporal(long tickInicial) {
+        this.tickAtual = tickInicial;
+    }
+
+    public long tickAtual() {
+        return tickAtual;
+    }
+
+    /**
+     * Quantidade de entradas ainda não disparadas.
+     */
+    public long tamanho() {
+        return tamanho;
+    }
+
+    public void agendar(long id, long tick) {
+        inserir(id, tick, tickAtual);
+        tamanho++;
+    }
+
+    /**
+     * Avança até {@code tick} (inclusive), disparando em ordem de tick todas as entradas
+     * vencidas. Entradas agendadas por {@code disparo} para ticks já alcançados disparam
+     * no avanço seguinte.
+     *
+     * @return a quantidade de entradas disparadas
+     */
+    public int avancarAte(long tick, Disparo disparo) {
+        int disparadas = 0;
+        if (atrasadas.tamanho > 0) {
+            disparadas += disparar(atrasadas, disparo);
+        }
+        while (tickAtual < tick) {
+            tickAtual++;
+            cascatear(tickAtual);
+            Posicao posicao = niveis[0][(int) (tickAtual & MASCARA)];
+            if (posicao != null && posicao.tamanho > 0) {
+                disparadas += disparar(posicao, disparo);
+            }
+        }
+        return disparadas;
+    }
+
+    /**
+     * @param ultimoProcessado último tick cuja posição do nível 0 já foi disparada; na
+     *        cascata é o tick anterior, porque a posição do tick corrente ainda vai disparar
+     */
+    private void inserir(long id, long tick, long ultimoProcessado) {
+        if (tick <= ultimoProcessado) {
+            atrasadas.adicionar(id, tick);
+            return;
+        }
+        long delta = tick - tickAtual;
+        int nivel = 0;
+        while (nivel < NIVEIS - 1 && delta >= 1L << (BITS * (nivel + 1))) {
+            nivel++;
+        }
+        int indice = (int) ((tick >>> (BITS * nivel)) & MASCARA);
+        Posicao posicao = niveis[nivel][indice];
+        if (posicao == null) {
+            posicao = new Posicao();
+            niveis[nivel][indice] = posicao;
+        }
+        posicao.adicionar(id, tick);
+    }
+
+    /**
+     * Ao entrar no intervalo de uma posição de nível n (bits abaixo de 6n zerados), as
+     * entradas dela são redistribuídas. Começa pelo nível mais alto para que o que desce
+     * de lá ainda seja redistribuído pelos níveis de baixo no mesmo tick.
+     */
+    private void cascatear(long tick) {
+        int nivelMaximo = 0;
+        while (nivelMaximo < NIVEIS - 1 && (tick & ((1L << (BITS * (nivelMaximo + 1))) - 1)) == 0) {
+            nivelMaximo++;
+        }
+        for (int nivel = nivelMaximo; nivel >= 1; nivel--) {
+            Posicao posicao = niveis[nivel][(int) ((tick >>> (BITS * nivel)) & MASCARA)];
+            if (posicao == null || posicao.tamanho == 0) {
+                continue;
+            }
+            // Troca os arrays para reinserir sem alocar: a posição pode receber entradas de volta
+            // (o último nível recebe tudo que ainda está além do seu alcance)
+            long[] ids = posicao.ids;
+            long[] ticks = posicao.ticks;
+            int quantidade = posicao.tamanho;
+            posicao.ids = cascata.ids;
+            posicao.ticks = cascata.ticks;
+            posicao.tamanho = 0;
+            cascata.ids = ids;
+            cascata.ticks = ticks;
+            cascata.tamanho = quantidade;
+            for (int i = 0; i < quantidade; i++) {
+                inserir(ids[i], ticks[i], tick - 1);
+            }
+            cascata.limpar();
+        }
+    }
+
+    private int disparar(Posicao posicao, Disparo disparo) {
+        // Desvincula os arrays antes de disparar: o callback pode agendar de novo na mesma posição
+        int quantidade = posicao.tamanho;
+        long[] ids = posicao.ids;
+        long[] ticks = posicao.ticks;
+        posicao.ids = new long[CAPACIDADE_INICIAL];
+        posicao.ticks = new long[CAPACIDADE_INICIAL];
+        posicao.tamanho = 0;
+        tamanho -= quantidade;
+        for (int i = 0; i < quantidade; i++) {
+            disparo.disparar(ids[i], ticks[i]);
+        }
+        return quantidade;
+    }
+}
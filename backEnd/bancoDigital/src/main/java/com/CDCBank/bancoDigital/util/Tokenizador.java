@@ -0,0 +1,67 @@
+package com.CDCBank.bancoDigital.util;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Termos de busca de um texto livre: sem acentos (NFD sem as marcas combinantes), em
+ * minúsculas e separados por qualquer caractere que não seja letra ou dígito. Termos com
+ * menos de {@link #TAMANHO_MINIMO} caracteres são ignorados e os longos são cortados em
+ * {@link #TAMANHO_MAXIMO}, o que limita a memória do índice sem mudar o resultado de uma
+ * busca por prefixo (o termo da consulta é cortado do mesmo jeito).
+ *
+ * Uma passada só pelos caracteres; o {@link Normalizer} só roda em textos com algum
+ * caractere fora do ASCII, porque a reconstrução do índice tokeniza a tabela inteira.
+ */
+public final class Tokenizador {
+
+    public static final int TAMANHO_MINIMO = 2;
+    public static final int TAMANHO_MAXIMO = 20;
+
+    private Tokenizador() {
+    }
+
+    /**
+     * Termos distintos do texto, na ordem em que aparecem; vazio para texto nulo.
+     */
+    public static Set<String> termos(String texto) {
+        Set<String> termos = new LinkedHashSet<>();
+        if (texto == null) {
+            return termos;
+        }
+        String decomposto = ascii(texto) ? texto : Normalizer.normalize(texto, Normalizer.Form.NFD);
+        StringBuilder termo = new StringBuilder(TAMANHO_MAXIMO);
+        int tamanho = decomposto.length();
+        for (int i = 0; i <= tamanho; i++) {
+            char c = i < tamanho ? decomposto.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (termo.length() < TAMANHO_MAXIMO) {
+                    termo.append(Character.toLowerCase(c));
+                }
+            } else if (!marca(c)) {
+                if (termo.length() >= TAMANHO_MINIMO) {
+                    termos.add(termo.toString());
+                }
+                termo.setLength(0);
+            }
+        }
+        return termos;
+    }
+
+    private static boolean ascii(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Acentos decompostos pelo NFD: são descartados sem separar o termo
+    private static boolean marca(char c) {
+        int tipo = Character.getType(c);
+        return tipo == Character.NON_SPACING_MARK || tipo == Character.ENCLOSING_MARK
+            || tipo == Character.COMBINING_SPACING_MARK;
+    }
+}
@@ -0,0 +1,98 @@
+package com.CDCBank.bancoDigital.infra;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.junit.jupiter.api.Test;
+
+class AlocadorIdBlocoTest {
+
+	private static final int TAMANHO_BLOCO = 100;
+
+	@Test
+	void reservaNaoEsperaPorConexoesPresasNoAlocador() throws InterruptedException {
+		// Um "pool" de 4 conexões disputado por 8 threads: cada id sai dentro de uma transação com conexão própria
+		Semaphore pool = new Semaphore(4, true);
+		AtomicLong sequencia = new AtomicLong();
+		LongSupplier reservarBloco = () -> {
+			try {
+				if (!pool.tryAcquire(2, TimeUnit.SECONDS)) {
+					throw new IllegalStateException("Connection is not available");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+			try {
+				return sequencia.getAndAdd(TAMANHO_BLOCO);
+			} finally {
+				pool.release();
+			}
+		};
+		AlocadorIdBloco alocador = new AlocadorIdBloco(TAMANHO_BLOCO);
+
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+		AtomicInteger falhas = new AtomicInteger();
+		CountDownLatch largada = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			threads.add(Thread.ofPlatform().start(() -> {
+				try {
+					largada.await();
+					for (int i = 0; i < 2_000; i++) {
+						pool.acquire();
+						try {
+							ids.add(alocador.proximo(reservarBloco));
+						} finally {
+							pool.release();
+						}
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (RuntimeException e) {
+					falhas.incrementAndGet();
+				}
+			}));
+		}
+		largada.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(0, falhas.get());
+		assertEquals(16_000, ids.size());
+	}
+
+	@Test
+	void reservaAntecipadaQueFalhaEhRefeitaAoEsgotarOBloco() {
+		AtomicLong sequencia = new AtomicLong();
+		AtomicInteger chamadas = new AtomicInteger();
+		LongSupplier reservarBloco = () -> {
+			// A segunda chamada é a primeira antecipação
+			if (chamadas.incrementAndGet() == 2) {
+				throw new IllegalStateException("falha simulada");
+			}
+			return sequencia.getAndAdd(TAMANHO_BLOCO);
+		};
+		AlocadorIdBloco alocador = new AlocadorIdBloco(TAMANHO_BLOCO);
+
+		long anterior = -1;
+		for (int i = 0; i < 3 * TAMANHO_BLOCO; i++) {
+			long id = alocador.proximo(reservarBloco);
+			assertTrue(id > anterior, "id repetido ou fora de ordem: " + id + " <= " + anterior);
+			anterior = id;
+		}
+		assertEquals(3 * TAMANHO_BLOCO - 1, anterior);
+	}
+}
@@ -0,0 +1,48 @@
+package com.CDCBank.bancoDigital.infra;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class AlocadorIdSnowflakeTest {
+
+	private static final long MAIOR_INTEIRO_SEGURO_JS = (1L << 53) - 1;
+
+	@Test
+	void idsCrescemMesmoComRelogioVoltandoESequenciaEsgotada() {
+		AtomicLong relogio = new AtomicLong(AlocadorIdSnowflake.EPOCA + 1_000);
+		AlocadorIdSnowflake alocador = new AlocadorIdSnowflake(5, relogio::get);
+
+		long anterior = alocador.proximo();
+		for (int i = 0; i < 10_000; i++) {
+			if (i == 5_000) {
+				relogio.addAndGet(-500);
+			}
+			long id = alocador.proximo();
+			assertTrue(id > anterior, "id fora de ordem: " + id + " <= " + anterior);
+			assertEquals(5, (id >>> AlocadorIdSnowflake.BITS_SEQUENCIA) & AlocadorIdSnowflake.MAXIMO_NO);
+			anterior = id;
+		}
+	}
+
+	@Test
+	void idsCabemNumNumberDoJavaScriptAteOFimDaEpoca() {
+		long ultimoMilissegundo = AlocadorIdSnowflake.EPOCA + (1L << 41) - 1;
+		AlocadorIdSnowflake alocador = new AlocadorIdSnowflake(AlocadorIdSnowflake.MAXIMO_NO, () -> ultimoMilissegundo);
+
+		assertTrue(alocador.proximo() <= MAIOR_INTEIRO_SEGURO_JS);
+	}
+
+	@Test
+	void nosDiferentesNaoColidemNoMesmoMilissegundo() {
+		long agora = AlocadorIdSnowflake.EPOCA + 42;
+		long a = new AlocadorIdSnowflake(1, () -> agora).proximo();
+		long b = new AlocadorIdSnowflake(2, () -> agora).proximo();
+
+		assertTrue(a != b);
+		assertEquals(a >>> 12, b >>> 12);
+	}
+}
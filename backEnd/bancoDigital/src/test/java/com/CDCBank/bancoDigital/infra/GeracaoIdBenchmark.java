@@ -0,0 +1,98 @@
+package com.CDCBank.bancoDigital.infra;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Inserts por segundo em MySQL com cada forma de gerar ids: sequence emulada em tabela
+ * com allocationSize = 1 (como era transacao), blocos hi/lo e Snowflake. Os inserts saem
+ * em lotes JDBC de 50, como no restante da aplicação. Não roda com os testes:
+ *
+ * <pre>
+ * java ... GeracaoIdBenchmark "jdbc:mysql://localhost:3306/BancoDigital?rewriteBatchedStatements=true" root root 50000
+ * </pre>
+ */
+public class GeracaoIdBenchmark {
+
+	private static final int LOTE_JDBC = 50;
+	private static final int TAMANHO_BLOCO = 1000;
+
+	public static void main(String[] args) throws SQLException {
+		String url = args[0];
+		int registros = args.length > 3 ? Integer.parseInt(args[3]) : 50_000;
+
+		try (Connection conexao = DriverManager.getConnection(url, args[1], args[2])) {
+			try (Statement ddl = conexao.createStatement()) {
+				ddl.execute("CREATE TABLE IF NOT EXISTS benchmark_id (id BIGINT PRIMARY KEY, valor BIGINT NOT NULL)");
+				ddl.execute("CREATE TABLE IF NOT EXISTS benchmark_id_seq (next_val BIGINT NOT NULL)");
+				ddl.execute("DELETE FROM benchmark_id_seq");
+			}
+
+			AlocadorIdSnowflake snowflake = new AlocadorIdSnowflake(0);
+			AlocadorIdBloco bloco = new AlocadorIdBloco(TAMANHO_BLOCO);
+
+			try (Connection sequence = DriverManager.getConnection(url, args[1], args[2])) {
+				sequence.setAutoCommit(false);
+				medir(conexao, "SEQUENCE (1)", registros, () -> reservar(sequence, 1));
+				medir(conexao, "BLOCO (" + TAMANHO_BLOCO + ")", registros, () -> bloco.proximo(() -> {
+					try {
+						return reservar(sequence, TAMANHO_BLOCO);
+					} catch (SQLException e) {
+						throw new IllegalStateException(e);
+					}
+				}));
+			}
+			medir(conexao, "SNOWFLAKE", registros, snowflake::proximo);
+		}
+	}
+
+	private interface FonteId {
+		long proximo() throws SQLException;
+	}
+
+	// Reserva na tabela de sequence numa transação própria, como o Hibernate faz no MySQL
+	private static long reservar(Connection sequence, int quantidade) throws SQLException {
+		try (Statement seq = sequence.createStatement()) {
+			long valor;
+			try (ResultSet rs = seq.executeQuery("SELECT next_val FROM benchmark_id_seq FOR UPDATE")) {
+				if (!rs.next()) {
+					seq.execute("INSERT INTO benchmark_id_seq VALUES (1)");
+					sequence.commit();
+					return reservar(sequence, quantidade);
+				}
+				valor = rs.getLong(1);
+			}
+			seq.executeUpdate("UPDATE benchmark_id_seq SET next_val = next_val + " + quantidade);
+			sequence.commit();
+			return valor;
+		}
+	}
+
+	private static void medir(Connection conexao, String nome, int registros, FonteId fonte) throws SQLException {
+		try (Statement limpeza = conexao.createStatement()) {
+			limpeza.execute("TRUNCATE TABLE benchmark_id");
+		}
+		conexao.setAutoCommit(false);
+		long inicio = System.nanoTime();
+		try (PreparedStatement insert = conexao.prepareStatement("INSERT INTO benchmark_id (id, valor) VALUES (?, ?)")) {
+			for (int i = 0; i < registros; i++) {
+				insert.setLong(1, fonte.proximo());
+				insert.setLong(2, i);
+				insert.addBatch();
+				if ((i + 1) % LOTE_JDBC == 0) {
+					insert.executeBatch();
+					conexao.commit();
+				}
+			}
+			insert.executeBatch();
+			conexao.commit();
+		}
+		conexao.setAutoCommit(true);
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+		System.out.printf("%-14s %,10.0f inserts/s (%,d em %.2fs)%n", nome, registros / segundos, registros, segundos);
+	}
+}
@@ -0,0 +1,68 @@
+package com.CDCBank.bancoDigital.infra;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.CDCBank.bancoDigital.models.Transacao;
+import com.CDCBank.bancoDigital.models.Usuario;
+import com.CDCBank.bancoDigital.service.DadosTeste;
+
+// Blocos de 3 ids: poucas inserções já passam por várias reservas em bloco_id
+@DataJpaTest(properties = {
+	"teste.banco=gerador-id",
+	"spring.jpa.properties.bancodigital.id.estrategia=BLOCO",
+	"spring.jpa.properties.bancodigital.id.tamanho-bloco=3"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class GeradorIdDistribuidoTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void entidadesRecebemIdsCrescentesDosBlocosReservados() {
+		Usuario anterior = entityManager.persistAndFlush(DadosTeste.novoUsuario("usuario0", 0));
+		assertNotNull(anterior.getId());
+		for (int i = 1; i < 10; i++) {
+			Usuario usuario = entityManager.persistAndFlush(DadosTeste.novoUsuario("usuario" + i, 0));
+			assertTrue(usuario.getId() > anterior.getId(),
+				"id fora de ordem: " + usuario.getId() + " <= " + anterior.getId());
+			anterior = usuario;
+		}
+
+		// Dez ids em blocos de 3: quatro reservas, e a próxima começa depois do último bloco
+		long proximo = jdbcTemplate.queryForObject("SELECT proximo FROM bloco_id WHERE nome = 'usuario'", Long.class);
+		assertTrue(proximo > anterior.getId());
+		assertEquals(0, (proximo - 1) % 3);
+	}
+
+	@Test
+	void cadaTabelaTemOSeuProprioBloco() {
+		Usuario remetente = entityManager.persistAndFlush(DadosTeste.novoUsuario("remetente", 0));
+		Usuario destinatario = entityManager.persistAndFlush(DadosTeste.novoUsuario("destinatario", 0));
+		Transacao transacao = entityManager.persistFlushFind(Transacao.builder()
+			.valor(BigDecimal.TEN)
+			.remetente(remetente)
+			.destinatario(destinatario)
+			.build());
+
+		assertNotNull(transacao.getId());
+		assertEquals(2, jdbcTemplate.queryForObject(
+			"SELECT COUNT(*) FROM bloco_id WHERE nome IN ('usuario', 'transacao')", Integer.class));
+	}
+}
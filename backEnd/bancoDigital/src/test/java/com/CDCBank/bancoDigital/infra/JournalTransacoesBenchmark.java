@@ -0,0 +1,39 @@
+package com.CDCBank.bancoDigital.infra;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Vazão de gravação do journal em cada política de fsync. Não roda com os testes:
+ * executar a classe diretamente, opcionalmente passando a quantidade de registros.
+ */
+public class JournalTransacoesBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		int registros = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+		for (PoliticaFsync politica : PoliticaFsync.values()) {
+			// Com fsync a cada registro, uma amostra menor já é representativa
+			int total = politica == PoliticaFsync.SEMPRE ? Math.min(registros, 20_000) : registros;
+			Path diretorio = Files.createTempDirectory("journal-benchmark");
+			try (JournalTransacoes journal = new JournalTransacoes(diretorio, 16_384, politica, Duration.ofMillis(10))) {
+				aquecer(journal);
+				long inicio = System.nanoTime();
+				for (int i = 0; i < total; i++) {
+					journal.marcarAplicado(journal.registrar(UUID.randomUUID(), i, i + 1, 1_000, "Pagamento de serviços"));
+				}
+				double segundos = (System.nanoTime() - inicio) / 1e9;
+				System.out.printf("%-9s %,12.0f registros/s (%,d registros em %.2fs)%n",
+					politica, total / segundos, total, segundos);
+			}
+		}
+	}
+
+	private static void aquecer(JournalTransacoes journal) {
+		for (int i = 0; i < 20_000; i++) {
+			journal.marcarAplicado(journal.registrar(UUID.randomUUID(), i, i + 1, 1_000, null));
+		}
+	}
+}
@@ -0,0 +1,166 @@
+package com.CDCBank.bancoDigital.infra;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalTransacoesTest {
+
+	@TempDir
+	Path diretorio;
+
+	@Test
+	void recuperaApenasRegistrosPendentes() {
+		UUID aplicado = UUID.randomUUID();
+		UUID pendente = UUID.randomUUID();
+		try (JournalTransacoes journal = abrir(PoliticaFsync.SEMPRE)) {
+			long posicao = journal.registrar(aplicado, 1L, 2L, 10_050L, "Aluguel");
+			journal.registrar(pendente, 3L, 4L, 1L, null);
+			journal.marcarAplicado(posicao);
+		}
+
+		try (JournalTransacoes journal = abrir(PoliticaFsync.SEMPRE)) {
+			List<JournalTransacoes.Registro> pendentes = journal.pendentes();
+			assertEquals(1, pendentes.size());
+			JournalTransacoes.Registro registro = pendentes.get(0);
+			assertEquals(pendente, registro.protocolo());
+			assertEquals(3L, registro.idRemetente());
+			assertEquals(4L, registro.idDestinatario());
+			assertEquals(1L, registro.valorCentavos());
+			assertNull(registro.descricao());
+		}
+	}
+
+	@Test
+	void rotacionaEApagaSegmentosConcluidos() throws IOException {
+		try (JournalTransacoes journal = abrir(PoliticaFsync.NUNCA)) {
+			long[] posicoes = new long[10];
+			for (int i = 0; i < posicoes.length; i++) {
+				posicoes[i] = journal.registrar(UUID.randomUUID(), i, i + 1, 100, "Pagamento " + i);
+			}
+			assertEquals(3, contarSegmentos());
+
+			for (int i = 0; i < 8; i++) {
+				journal.marcarAplicado(posicoes[i]);
+			}
+			// Os dois primeiros segmentos ficaram sem pendentes; o ativo permanece
+			assertEquals(1, contarSegmentos());
+		}
+	}
+
+	@Test
+	void ignoraRegistroComCrcInvalido() throws IOException {
+		try (JournalTransacoes journal = abrir(PoliticaFsync.SEMPRE)) {
+			journal.registrar(UUID.randomUUID(), 1L, 2L, 500L, "Íntegro");
+			journal.registrar(UUID.randomUUID(), 1L, 2L, 700L, "Corrompido");
+		}
+
+		// Simula página do corpo perdida numa queda do SO: magic presente, dados zerados
+		Path segmento = segmentos().get(0);
+		try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+			canal.write(ByteBuffer.allocate(32), JournalTransacoes.TAMANHO_REGISTRO + 24L);
+		}
+
+		try (JournalTransacoes journal = abrir(PoliticaFsync.SEMPRE)) {
+			assertEquals(1, journal.pendentes().size());
+			assertEquals(500L, journal.pendentes().get(0).valorCentavos());
+		}
+	}
+
+	@Test
+	void rejeitaIntervaloDeFsyncMenorQueUmMilissegundo() {
+		for (Duration intervalo : List.of(Duration.ZERO, Duration.ofNanos(500_000), Duration.ofMillis(-1))) {
+			IllegalArgumentException erro = assertThrows(IllegalArgumentException.class,
+				() -> new JournalTransacoes(diretorio, 16, PoliticaFsync.INTERVALO, intervalo));
+			assertTrue(erro.getMessage().contains("transacao.journal.intervalo-fsync"), erro.getMessage());
+		}
+		// Sem fsync periódico o intervalo não é usado
+		new JournalTransacoes(diretorio, 16, PoliticaFsync.NUNCA, Duration.ZERO).close();
+	}
+
+	@Test
+	void recuperaTudoQueFoiAceitoQuandoProcessoEMortoDuranteGravacao() throws Exception {
+		Path progresso = diretorio.resolve("progresso");
+		Process processo = new ProcessBuilder(
+				Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+				"-cp", System.getProperty("java.class.path"),
+				GravadorContinuo.class.getName(), diretorio.toString(), progresso.toString())
+			.redirectErrorStream(true)
+			.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+			.start();
+
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (lerProgresso(progresso) < 5_000 && System.nanoTime() < limite) {
+			Thread.sleep(20);
+		}
+		processo.destroyForcibly().waitFor(10, TimeUnit.SECONDS);
+		long confirmados = lerProgresso(progresso);
+		assertTrue(confirmados >= 5_000, "gravador não progrediu: " + confirmados);
+
+		try (JournalTransacoes journal = abrir(PoliticaFsync.NUNCA)) {
+			List<JournalTransacoes.Registro> pendentes = journal.pendentes();
+			// Todo registro devolvido ao chamador sobrevive, na ordem e sem lacunas
+			assertTrue(pendentes.size() >= confirmados);
+			for (int i = 0; i < pendentes.size(); i++) {
+				JournalTransacoes.Registro registro = pendentes.get(i);
+				assertEquals(i, registro.idRemetente());
+				assertEquals(i * 3L, registro.valorCentavos());
+				assertEquals("Transferência " + i, registro.descricao());
+			}
+		}
+	}
+
+	/**
+	 * Processo filho que grava registros sem parar até ser morto, anotando de tempos em
+	 * tempos quantos registros já foram aceitos pelo journal.
+	 */
+	public static class GravadorContinuo {
+		public static void main(String[] args) throws IOException {
+			JournalTransacoes journal = new JournalTransacoes(Path.of(args[0]), 4096, PoliticaFsync.NUNCA, Duration.ZERO);
+			Path progresso = Path.of(args[1]);
+			for (long i = 0; ; i++) {
+				journal.registrar(UUID.randomUUID(), i, i + 1, i * 3, "Transferência " + i);
+				if (i % 500 == 0) {
+					Path temporario = Path.of(args[1] + ".tmp");
+					Files.writeString(temporario, Long.toString(i + 1));
+					Files.move(temporario, progresso, StandardCopyOption.ATOMIC_MOVE);
+				}
+			}
+		}
+	}
+
+	private JournalTransacoes abrir(PoliticaFsync politica) {
+		return new JournalTransacoes(diretorio, 4, politica, Duration.ofMillis(10));
+	}
+
+	private long lerProgresso(Path progresso) throws IOException {
+		return Files.exists(progresso) ? Long.parseLong(Files.readString(progresso).trim()) : 0;
+	}
+
+	private long contarSegmentos() throws IOException {
+		return segmentos().size();
+	}
+
+	private List<Path> segmentos() throws IOException {
+		try (Stream<Path> arquivos = Files.list(diretorio)) {
+			return arquivos.filter(p -> p.getFileName().toString().endsWith(".wal")).sorted().toList();
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.CDCBank.bancoDigital.infra;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Custo por requisição do {@link LimitadorTaxa}, com 1 e com várias threads disputando
+ * os mesmos usuários. Não roda com os testes: executar a classe diretamente.
+ */
+public class LimitadorTaxaBenchmark {
+
+	private static final int USUARIOS = 10_000;
+	private static final int OPERACOES = 20_000_000;
+
+	public static void main(String[] args) throws InterruptedException {
+		LimitadorTaxa limitador = new LimitadorTaxa("benchmark", 1_000, 1_000, 600_000, 100_000);
+		executar(limitador, 1, OPERACOES / 4);
+		// Até o número de núcleos, para medir contenção no CAS e não escalonamento do SO
+		int nucleos = Runtime.getRuntime().availableProcessors();
+		for (int threads = 1; threads <= nucleos; threads = threads == nucleos ? nucleos + 1 : Math.min(threads * 2, nucleos)) {
+			double nanos = executar(limitador, threads, OPERACOES);
+			System.out.printf("%2d threads: %6.1f ns por requisição%n", threads, nanos);
+		}
+	}
+
+	private static double executar(LimitadorTaxa limitador, int threads, int operacoes) throws InterruptedException {
+		int porThread = operacoes / threads;
+		CountDownLatch fim = new CountDownLatch(threads);
+		long inicio = System.nanoTime();
+		for (int t = 0; t < threads; t++) {
+			Thread thread = new Thread(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int i = 0; i < porThread; i++) {
+					limitador.tentarConsumir((long) random.nextInt(USUARIOS));
+				}
+				fim.countDown();
+			});
+			thread.start();
+		}
+		fim.await();
+		return (System.nanoTime() - inicio) / (double) porThread;
+	}
+}
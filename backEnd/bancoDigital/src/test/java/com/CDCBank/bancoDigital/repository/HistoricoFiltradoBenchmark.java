@@ -0,0 +1,347 @@
+package com.CDCBank.bancoDigital.repository;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.Predicate;
+
+import com.CDCBank.bancoDigital.service.FiltroHistorico;
+
+/**
+ * Histórico filtrado no servidor contra o padrão atual do frontend: baixar todas as páginas
+ * de {@code /historico} e filtrar no cliente. O usuário 1 tem {@code transacoesUsuario}
+ * transações (50 mil por padrão) num ano, no meio de {@code linhas} transações de outros
+ * usuários. Para cada filtro, mede a primeira página filtrada (20 itens) e todas as páginas
+ * filtradas por cursor, contra ler o histórico inteiro por OFFSET e por cursor (100 por
+ * página). Não roda com os testes:
+ *
+ * <pre>
+ * java ... HistoricoFiltradoBenchmark "jdbc:mysql://localhost:3306/BancoDigital?rewriteBatchedStatements=true" root root 50000 1000000
+ * </pre>
+ *
+ * As consultas são as de TransacaoRepository, sem o JOIN com usuario.
+ */
+public class HistoricoFiltradoBenchmark {
+
+	private static final int USUARIOS = 10_000;
+	private static final long USUARIO = 1;
+	private static final int LOTE_JDBC = 1_000;
+	private static final int REPETICOES = 5;
+	private static final int PAGINA_CLIENTE = 100;
+	private static final int PAGINA_FILTRADA = 20;
+	private static final LocalDateTime INICIO_DADOS = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+	// TransacaoRepository.findHistoricoPagina
+	private static final String OFFSET = """
+		SELECT h.* FROM (
+		    SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, 'ENVIADA' AS tipo FROM benchmark_historico t
+		     WHERE t.id_remetente = ? ORDER BY t.data_transacao DESC, t.id DESC LIMIT ?) enviadas
+		    UNION ALL
+		    SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, 'RECEBIDA' AS tipo FROM benchmark_historico t
+		     WHERE t.id_destinatario = ? ORDER BY t.data_transacao DESC, t.id DESC LIMIT ?) recebidas
+		) h
+		ORDER BY h.data_transacao DESC, h.id DESC
+		LIMIT ? OFFSET ?
+		""";
+
+	// TransacaoRepository.findHistoricoApos
+	private static final String CURSOR = """
+		SELECT h.* FROM (
+		    SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, 'ENVIADA' AS tipo FROM benchmark_historico t
+		     WHERE t.id_remetente = ? AND t.data_transacao <= ? AND (t.data_transacao < ? OR t.id < ?)
+		     ORDER BY t.data_transacao DESC, t.id DESC LIMIT ?) enviadas
+		    UNION ALL
+		    SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, 'RECEBIDA' AS tipo FROM benchmark_historico t
+		     WHERE t.id_destinatario = ? AND t.data_transacao <= ? AND (t.data_transacao < ? OR t.id < ?)
+		     ORDER BY t.data_transacao DESC, t.id DESC LIMIT ?) recebidas
+		) h
+		ORDER BY h.data_transacao DESC, h.id DESC
+		LIMIT ?
+		""";
+
+	// TransacaoRepository.findHistoricoFiltradoApos
+	private static final String FILTRADO = """
+		SELECT h.* FROM (
+		    SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, 'ENVIADA' AS tipo FROM benchmark_historico t
+		     WHERE ? = 1 AND t.id_remetente = ?
+		       AND t.data_transacao >= ? AND t.data_transacao <= ? AND (t.data_transacao < ? OR t.id < ?)
+		       AND t.valor BETWEEN ? AND ?
+		     ORDER BY t.data_transacao DESC, t.id DESC LIMIT ?) enviadas
+		    UNION ALL
+		    SELECT * FROM (SELECT t.id, t.data_transacao, t.valor, 'RECEBIDA' AS tipo FROM benchmark_historico t
+		     WHERE ? = 1 AND t.id_destinatario = ?
+		       AND t.data_transacao >= ? AND t.data_transacao <= ? AND (t.data_transacao < ? OR t.id < ?)
+		       AND t.valor BETWEEN ? AND ?
+		     ORDER BY t.data_transacao DESC, t.id DESC LIMIT ?) recebidas
+		) h
+		ORDER BY h.data_transacao DESC, h.id DESC
+		LIMIT ?
+		""";
+
+	private record Linha(long id, LocalDateTime data, BigDecimal valor, String tipo) {}
+
+	public static void main(String[] args) throws SQLException {
+		String url = args[0];
+		int transacoesUsuario = args.length > 3 ? Integer.parseInt(args[3]) : 50_000;
+		long linhas = args.length > 4 ? Long.parseLong(args[4]) : 1_000_000L;
+
+		try (Connection conexao = DriverManager.getConnection(url, args[1], args[2])) {
+			popular(conexao, transacoesUsuario, linhas);
+
+			FiltroHistorico[] filtros = {
+				FiltroHistorico.de(LocalDate.of(2025, 12, 1), LocalDate.of(2025, 12, 31), null, null, null),
+				FiltroHistorico.de(null, null, new BigDecimal("500.00"), new BigDecimal("510.00"), null),
+				FiltroHistorico.de(null, null, null, null, "RECEBIDA"),
+				FiltroHistorico.de(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 8, 31), new BigDecimal("100.00"),
+					new BigDecimal("200.00"), "ENVIADA")
+			};
+			String[] nomes = {"dezembro", "valor 500 a 510", "só recebidas", "jun-ago, 100 a 200, enviadas"};
+
+			System.out.printf("%n%-30s %8s %14s %14s %14s %14s%n", "filtro", "linhas",
+				"1ª pág filtr.", "todas filtr.", "todas OFFSET", "todas cursor");
+			for (int i = 0; i < filtros.length; i++) {
+				FiltroHistorico filtro = filtros[i];
+				Predicate<Linha> noCliente = linha -> !linha.data().isBefore(filtro.inicio())
+					&& linha.data().isBefore(filtro.fim())
+					&& linha.valor().compareTo(filtro.valorMinimo()) >= 0
+					&& linha.valor().compareTo(filtro.valorMaximo()) <= 0
+					&& (linha.tipo().equals("ENVIADA") ? filtro.enviadas() : filtro.recebidas());
+
+				long[] encontradas = new long[4];
+				double primeira = medir(() -> encontradas[0] = filtrado(conexao, filtro, PAGINA_FILTRADA, true));
+				double todas = medir(() -> encontradas[1] = filtrado(conexao, filtro, PAGINA_CLIENTE, false));
+				double offset = medir(() -> encontradas[2] = todasPorOffset(conexao, noCliente));
+				double cursor = medir(() -> encontradas[3] = todasPorCursor(conexao, noCliente));
+				if (encontradas[1] != encontradas[2] || encontradas[2] != encontradas[3]) {
+					throw new IllegalStateException("Resultados diferentes: " + Arrays.toString(encontradas));
+				}
+				System.out.printf("%-30s %8d %11.2f ms %11.2f ms %11.2f ms %11.2f ms%n", nomes[i], encontradas[1],
+					primeira, todas, offset, cursor);
+			}
+
+			System.out.println();
+			System.out.println("-- plano da consulta filtrada (" + nomes[3] + ")");
+			try (PreparedStatement explain = conexao.prepareStatement("EXPLAIN " + FILTRADO)) {
+				definirFiltrado(explain, filtros[3], Timestamp.valueOf(filtros[3].fim()), 0, PAGINA_FILTRADA);
+				imprimirPlano(explain);
+			}
+		}
+	}
+
+	@FunctionalInterface
+	private interface Execucao {
+		void executar() throws SQLException;
+	}
+
+	/**
+	 * Mediana de {@link #REPETICOES} execuções, depois de uma de aquecimento.
+	 */
+	private static double medir(Execucao execucao) throws SQLException {
+		long[] tempos = new long[REPETICOES];
+		for (int i = -1; i < REPETICOES; i++) {
+			long inicio = System.nanoTime();
+			execucao.executar();
+			if (i >= 0) {
+				tempos[i] = System.nanoTime() - inicio;
+			}
+		}
+		Arrays.sort(tempos);
+		return tempos[REPETICOES / 2] / 1e6;
+	}
+
+	private static long filtrado(Connection conexao, FiltroHistorico filtro, int pagina, boolean soPrimeira)
+			throws SQLException {
+		long total = 0;
+		Timestamp data = Timestamp.valueOf(filtro.fim());
+		long id = 0;
+		try (PreparedStatement consulta = conexao.prepareStatement(FILTRADO)) {
+			while (true) {
+				definirFiltrado(consulta, filtro, data, id, pagina);
+				int lidas = 0;
+				try (ResultSet rs = consulta.executeQuery()) {
+					while (rs.next()) {
+						id = rs.getLong(1);
+						data = rs.getTimestamp(2);
+						lidas++;
+					}
+				}
+				total += lidas;
+				if (soPrimeira || lidas < pagina) {
+					return total;
+				}
+			}
+		}
+	}
+
+	private static long todasPorOffset(Connection conexao, Predicate<Linha> filtro) throws SQLException {
+		long encontradas = 0;
+		for (long deslocamento = 0; ; deslocamento += PAGINA_CLIENTE) {
+			// Uma requisição por página, como o cliente faz
+			int lidas = 0;
+			try (PreparedStatement consulta = conexao.prepareStatement(OFFSET)) {
+				definir(consulta, USUARIO, deslocamento + PAGINA_CLIENTE, USUARIO, deslocamento + PAGINA_CLIENTE,
+					PAGINA_CLIENTE, deslocamento);
+				try (ResultSet rs = consulta.executeQuery()) {
+					while (rs.next()) {
+						lidas++;
+						if (filtro.test(linha(rs))) {
+							encontradas++;
+						}
+					}
+				}
+			}
+			if (lidas < PAGINA_CLIENTE) {
+				return encontradas;
+			}
+		}
+	}
+
+	private static long todasPorCursor(Connection conexao, Predicate<Linha> filtro) throws SQLException {
+		long encontradas = 0;
+		Timestamp data = Timestamp.valueOf(LocalDateTime.of(9999, 1, 1, 0, 0));
+		long id = 0;
+		try (PreparedStatement consulta = conexao.prepareStatement(CURSOR)) {
+			while (true) {
+				definir(consulta, USUARIO, data, data, id, PAGINA_CLIENTE, USUARIO, data, data, id, PAGINA_CLIENTE,
+					PAGINA_CLIENTE);
+				int lidas = 0;
+				try (ResultSet rs = consulta.executeQuery()) {
+					while (rs.next()) {
+						Linha linha = linha(rs);
+						id = linha.id();
+						data = Timestamp.valueOf(linha.data());
+						lidas++;
+						if (filtro.test(linha)) {
+							encontradas++;
+						}
+					}
+				}
+				if (lidas < PAGINA_CLIENTE) {
+					return encontradas;
+				}
+			}
+		}
+	}
+
+	private static Linha linha(ResultSet rs) throws SQLException {
+		return new Linha(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime(), rs.getBigDecimal(3), rs.getString(4));
+	}
+
+	private static void definirFiltrado(PreparedStatement consulta, FiltroHistorico filtro, Timestamp data, long id,
+			int limite) throws SQLException {
+		Timestamp inicio = Timestamp.valueOf(filtro.inicio());
+		definir(consulta,
+			filtro.enviadas() ? 1 : 0, USUARIO, inicio, data, data, id, filtro.valorMinimo(), filtro.valorMaximo(), limite,
+			filtro.recebidas() ? 1 : 0, USUARIO, inicio, data, data, id, filtro.valorMinimo(), filtro.valorMaximo(), limite,
+			limite);
+	}
+
+	private static void popular(Connection conexao, int transacoesUsuario, long linhas) throws SQLException {
+		try (Statement ddl = conexao.createStatement()) {
+			ddl.execute("""
+				CREATE TABLE IF NOT EXISTS benchmark_historico (
+				    id BIGINT PRIMARY KEY,
+				    data_transacao DATETIME(6) NOT NULL,
+				    valor DECIMAL(19,2) NOT NULL,
+				    id_remetente BIGINT NOT NULL,
+				    id_destinatario BIGINT NOT NULL
+				)
+				""");
+			try (ResultSet rs = ddl.executeQuery(
+					"SELECT COUNT(*), SUM(CASE WHEN id_remetente = 1 OR id_destinatario = 1 THEN 1 ELSE 0 END) "
+					+ "FROM benchmark_historico")) {
+				rs.next();
+				if (rs.getLong(1) == linhas && rs.getLong(2) == transacoesUsuario) {
+					return;
+				}
+			}
+			ddl.execute("DROP TABLE benchmark_historico");
+			ddl.execute("""
+				CREATE TABLE benchmark_historico (
+				    id BIGINT PRIMARY KEY,
+				    data_transacao DATETIME(6) NOT NULL,
+				    valor DECIMAL(19,2) NOT NULL,
+				    id_remetente BIGINT NOT NULL,
+				    id_destinatario BIGINT NOT NULL
+				)
+				""");
+			ddl.execute("CREATE INDEX idx_bench_hist_remetente ON benchmark_historico (id_remetente, data_transacao, id)");
+			ddl.execute("CREATE INDEX idx_bench_hist_destinatario ON benchmark_historico (id_destinatario, data_transacao, id)");
+		}
+
+		System.out.printf("Populando %,d transações, %,d do usuário %d...%n", linhas, transacoesUsuario, USUARIO);
+		SplittableRandom random = new SplittableRandom(42);
+		long umAnoSegundos = 365L * 24 * 3600;
+		// As transações do usuário ficam espalhadas uniformemente entre as demais
+		long intervalo = Math.max(1, linhas / transacoesUsuario);
+		conexao.setAutoCommit(false);
+		try (PreparedStatement insert = conexao.prepareStatement(
+				"INSERT INTO benchmark_historico (id, data_transacao, valor, id_remetente, id_destinatario) "
+				+ "VALUES (?, ?, ?, ?, ?)")) {
+			int doUsuario = 0;
+			for (long id = 1; id <= linhas; id++) {
+				long remetente = 2 + random.nextInt(USUARIOS - 1);
+				long destinatario = 2 + random.nextInt(USUARIOS - 1);
+				if (id % intervalo == 0 && doUsuario < transacoesUsuario) {
+					doUsuario++;
+					if (random.nextBoolean()) {
+						remetente = USUARIO;
+					} else {
+						destinatario = USUARIO;
+					}
+				}
+				if (remetente == destinatario) {
+					destinatario = remetente % USUARIOS + 1;
+				}
+				insert.setLong(1, id);
+				insert.setTimestamp(2, Timestamp.valueOf(INICIO_DADOS.plusSeconds(id * umAnoSegundos / linhas)));
+				insert.setBigDecimal(3, BigDecimal.valueOf(random.nextLong(1, 100_000), 2));
+				insert.setLong(4, remetente);
+				insert.setLong(5, destinatario);
+				insert.addBatch();
+				if (id % LOTE_JDBC == 0) {
+					insert.executeBatch();
+					conexao.commit();
+				}
+			}
+			insert.executeBatch();
+			conexao.commit();
+		} finally {
+			conexao.setAutoCommit(true);
+		}
+	}
+
+	private static void imprimirPlano(PreparedStatement explain) throws SQLException {
+		try (ResultSet rs = explain.executeQuery()) {
+			ResultSetMetaData meta = rs.getMetaData();
+			while (rs.next()) {
+				StringBuilder linha = new StringBuilder("   ");
+				// Colunas do EXPLAIN do MySQL; PLAN é a do H2
+				for (String coluna : new String[] {"select_type", "table", "type", "key", "rows", "Extra", "PLAN"}) {
+					for (int i = 1; i <= meta.getColumnCount(); i++) {
+						if (meta.getColumnLabel(i).equalsIgnoreCase(coluna)) {
+							linha.append(coluna).append('=').append(rs.getString(i)).append(' ');
+						}
+					}
+				}
+				System.out.println(linha);
+			}
+		}
+	}
+
+	private static void definir(PreparedStatement statement, Object... parametros) throws SQLException {
+		for (int i = 0; i < parametros.length; i++) {
+			statement.setObject(i + 1, parametros[i]);
+		}
+	}
+}
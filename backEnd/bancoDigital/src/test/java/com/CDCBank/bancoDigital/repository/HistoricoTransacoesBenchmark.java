@@ -0,0 +1,242 @@
+package com.CDCBank.bancoDigital.repository;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Latência e plano (EXPLAIN) das consultas de histórico em MySQL, antes e depois dos
+ * índices compostos por lado da transação. A tabela benchmark_transacao tem as mesmas
+ * colunas de transacao e é populada com {@code linhas} transações (10M por padrão) entre
+ * 100 mil usuários; o usuário 1 participa de ~100 mil delas. Não roda com os testes:
+ *
+ * <pre>
+ * java ... HistoricoTransacoesBenchmark "jdbc:mysql://localhost:3306/BancoDigital?rewriteBatchedStatements=true" root root 10000000
+ * </pre>
+ *
+ * "Antes" usa só os índices de uma coluna que as FKs criam; "depois" usa
+ * (id_remetente, data_transacao, id) e (id_destinatario, data_transacao, id).
+ */
+public class HistoricoTransacoesBenchmark {
+
+	private static final int USUARIOS = 100_000;
+	private static final long USUARIO_QUENTE = 1;
+	private static final int LOTE_JDBC = 1_000;
+	private static final int REPETICOES = 20;
+
+	private static final String OR_OFFSET = """
+		SELECT t.* FROM benchmark_transacao t WHERE t.id_remetente = ? OR t.id_destinatario = ?
+		ORDER BY t.data_transacao DESC, t.id DESC LIMIT ? OFFSET ?
+		""";
+
+	// Mesmas consultas de TransacaoRepository.findHistoricoPagina e findHistoricoApos
+	private static final String UNION_OFFSET = """
+		SELECT h.* FROM (
+		    (SELECT t.* FROM benchmark_transacao t WHERE t.id_remetente = ?
+		     ORDER BY t.data_transacao DESC, t.id DESC LIMIT ?)
+		    UNION ALL
+		    (SELECT t.* FROM benchmark_transacao t WHERE t.id_destinatario = ?
+		     ORDER BY t.data_transacao DESC, t.id DESC LIMIT ?)
+		) h
+		ORDER BY h.data_transacao DESC, h.id DESC
+		LIMIT ? OFFSET ?
+		""";
+
+	private static final String UNION_CURSOR = """
+		SELECT h.* FROM (
+		    (SELECT t.* FROM benchmark_transacao t WHERE t.id_remetente = ?
+		       AND t.data_transacao <= ? AND (t.data_transacao < ? OR t.id < ?)
+		     ORDER BY t.data_transacao DESC, t.id DESC LIMIT ?)
+		    UNION ALL
+		    (SELECT t.* FROM benchmark_transacao t WHERE t.id_destinatario = ?
+		       AND t.data_transacao <= ? AND (t.data_transacao < ? OR t.id < ?)
+		     ORDER BY t.data_transacao DESC, t.id DESC LIMIT ?)
+		) h
+		ORDER BY h.data_transacao DESC, h.id DESC
+		LIMIT ?
+		""";
+
+	public static void main(String[] args) throws SQLException {
+		String url = args[0];
+		long linhas = args.length > 3 ? Long.parseLong(args[3]) : 10_000_000L;
+
+		try (Connection conexao = DriverManager.getConnection(url, args[1], args[2])) {
+			popular(conexao, linhas);
+
+			try (Statement ddl = conexao.createStatement()) {
+				ddl.execute("DROP INDEX idx_bench_remetente_data ON benchmark_transacao");
+				ddl.execute("DROP INDEX idx_bench_destinatario_data ON benchmark_transacao");
+			} catch (SQLException e) {
+				// Primeira execução: os índices compostos ainda não existem
+			}
+			executar(conexao, "ANTES (índices de uma coluna)");
+
+			try (Statement ddl = conexao.createStatement()) {
+				ddl.execute("CREATE INDEX idx_bench_remetente_data ON benchmark_transacao (id_remetente, data_transacao, id)");
+				ddl.execute("CREATE INDEX idx_bench_destinatario_data ON benchmark_transacao (id_destinatario, data_transacao, id)");
+				ddl.execute("ANALYZE TABLE benchmark_transacao");
+			}
+			executar(conexao, "DEPOIS (índices compostos)");
+		}
+	}
+
+	private static void popular(Connection conexao, long linhas) throws SQLException {
+		try (Statement ddl = conexao.createStatement()) {
+			ddl.execute("""
+				CREATE TABLE IF NOT EXISTS benchmark_transacao (
+				    id BIGINT PRIMARY KEY,
+				    data_transacao DATETIME(6) NOT NULL,
+				    valor DECIMAL(19,2) NOT NULL,
+				    id_remetente BIGINT NOT NULL,
+				    id_destinatario BIGINT NOT NULL,
+				    descricao VARCHAR(500),
+				    protocolo VARCHAR(36),
+				    INDEX idx_bench_remetente (id_remetente),
+				    INDEX idx_bench_destinatario (id_destinatario)
+				)
+				""");
+			try (ResultSet rs = ddl.executeQuery("SELECT COUNT(*) FROM benchmark_transacao")) {
+				rs.next();
+				if (rs.getLong(1) >= linhas) {
+					return;
+				}
+			}
+			ddl.execute("TRUNCATE TABLE benchmark_transacao");
+		}
+
+		System.out.printf("Populando %,d transações...%n", linhas);
+		SplittableRandom random = new SplittableRandom(42);
+		long agora = System.currentTimeMillis();
+		long umAno = 365L * 24 * 3600 * 1000;
+		conexao.setAutoCommit(false);
+		try (PreparedStatement insert = conexao.prepareStatement(
+				"INSERT INTO benchmark_transacao (id, data_transacao, valor, id_remetente, id_destinatario, descricao) "
+				+ "VALUES (?, ?, ?, ?, ?, ?)")) {
+			for (long id = 1; id <= linhas; id++) {
+				long remetente = 1 + random.nextInt(USUARIOS);
+				long destinatario = 1 + random.nextInt(USUARIOS);
+				// ~1% das transações envolvem o usuário quente
+				if (random.nextInt(100) == 0) {
+					if (random.nextBoolean()) {
+						remetente = USUARIO_QUENTE;
+					} else {
+						destinatario = USUARIO_QUENTE;
+					}
+				}
+				if (remetente == destinatario) {
+					destinatario = remetente % USUARIOS + 1;
+				}
+				insert.setLong(1, id);
+				insert.setTimestamp(2, new Timestamp(agora - umAno + id * umAno / linhas));
+				insert.setBigDecimal(3, BigDecimal.valueOf(random.nextLong(1, 100_000), 2));
+				insert.setLong(4, remetente);
+				insert.setLong(5, destinatario);
+				insert.setString(6, "Transferência " + id);
+				insert.addBatch();
+				if (id % LOTE_JDBC == 0) {
+					insert.executeBatch();
+					conexao.commit();
+				}
+				if (id % 1_000_000 == 0) {
+					System.out.printf("  %,d%n", id);
+				}
+			}
+			insert.executeBatch();
+			conexao.commit();
+		} finally {
+			conexao.setAutoCommit(true);
+		}
+		try (Statement ddl = conexao.createStatement()) {
+			ddl.execute("ANALYZE TABLE benchmark_transacao");
+		}
+	}
+
+	private static void executar(Connection conexao, String titulo) throws SQLException {
+		System.out.println();
+		System.out.println("=== " + titulo + " ===");
+		int tamanho = 10;
+		long profundo = 50_000;
+
+		medir(conexao, "OR + OFFSET, página 0", OR_OFFSET, USUARIO_QUENTE, USUARIO_QUENTE, tamanho, 0);
+		medir(conexao, "OR + OFFSET, offset " + profundo, OR_OFFSET, USUARIO_QUENTE, USUARIO_QUENTE, tamanho, profundo);
+		medir(conexao, "UNION ALL + OFFSET, página 0", UNION_OFFSET,
+			USUARIO_QUENTE, tamanho, USUARIO_QUENTE, tamanho, tamanho, 0);
+		medir(conexao, "UNION ALL + OFFSET, offset " + profundo, UNION_OFFSET,
+			USUARIO_QUENTE, profundo + tamanho, USUARIO_QUENTE, profundo + tamanho, tamanho, profundo);
+
+		// Cursor na mesma profundidade: posição da linha de número "profundo" do histórico
+		Timestamp data;
+		long id;
+		try (PreparedStatement posicao = conexao.prepareStatement(UNION_OFFSET)) {
+			definir(posicao, USUARIO_QUENTE, profundo, USUARIO_QUENTE, profundo, 1, profundo - 1);
+			try (ResultSet rs = posicao.executeQuery()) {
+				if (!rs.next()) {
+					System.out.println("Histórico do usuário quente menor que " + profundo + " linhas");
+					return;
+				}
+				data = rs.getTimestamp("data_transacao");
+				id = rs.getLong("id");
+			}
+		}
+		medir(conexao, "UNION ALL + cursor, profundidade " + profundo, UNION_CURSOR,
+			USUARIO_QUENTE, data, data, id, tamanho, USUARIO_QUENTE, data, data, id, tamanho, tamanho);
+	}
+
+	private static void medir(Connection conexao, String nome, String sql, Object... parametros) throws SQLException {
+		try (PreparedStatement explain = conexao.prepareStatement("EXPLAIN " + sql)) {
+			definir(explain, parametros);
+			System.out.println("-- " + nome);
+			imprimirPlano(explain);
+		}
+
+		long[] tempos = new long[REPETICOES];
+		try (PreparedStatement consulta = conexao.prepareStatement(sql)) {
+			definir(consulta, parametros);
+			for (int i = -3; i < REPETICOES; i++) {
+				long inicio = System.nanoTime();
+				try (ResultSet rs = consulta.executeQuery()) {
+					while (rs.next()) {
+						rs.getLong(1);
+					}
+				}
+				if (i >= 0) {
+					tempos[i] = System.nanoTime() - inicio;
+				}
+			}
+		}
+		Arrays.sort(tempos);
+		System.out.printf("   latência p50=%.2f ms p95=%.2f ms%n",
+			tempos[REPETICOES / 2] / 1e6, tempos[(int) (REPETICOES * 0.95)] / 1e6);
+	}
+
+	private static void imprimirPlano(PreparedStatement explain) throws SQLException {
+		try (ResultSet rs = explain.executeQuery()) {
+			ResultSetMetaData meta = rs.getMetaData();
+			while (rs.next()) {
+				StringBuilder linha = new StringBuilder("   ");
+				for (String coluna : new String[] {"select_type", "table", "type", "key", "rows", "Extra"}) {
+					for (int i = 1; i <= meta.getColumnCount(); i++) {
+						if (meta.getColumnLabel(i).equalsIgnoreCase(coluna)) {
+							linha.append(coluna).append('=').append(rs.getString(i)).append(' ');
+						}
+					}
+				}
+				System.out.println(linha);
+			}
+		}
+	}
+
+	private static void definir(PreparedStatement statement, Object... parametros) throws SQLException {
+		for (int i = 0; i < parametros.length; i++) {
+			statement.setObject(i + 1, parametros[i]);
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package com.CDCBank.bancoDigital.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.CDCBank.bancoDigital.dto.projection.HistoricoTransacaoResumo;
+import com.CDCBank.bancoDigital.models.Transacao;
+import com.CDCBank.bancoDigital.models.Usuario;
+import com.CDCBank.bancoDigital.service.DadosTeste;
+import com.CDCBank.bancoDigital.service.FiltroHistorico;
+
+@DataJpaTest(properties = {
+	"teste.banco=historico",
+	"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class HistoricoTransacoesRepositoryTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private TransacaoRepository transacaoRepository;
+
+	private Usuario titular;
+	private Statistics estatisticas;
+
+	@BeforeEach
+	void popular() {
+		titular = DadosTeste.usuario(entityManager, "titular");
+		List<Usuario> outros = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			outros.add(DadosTeste.usuario(entityManager, "outro" + i));
+		}
+		for (int i = 0; i < 37; i++) {
+			Usuario outro = outros.get(i % outros.size());
+			boolean enviada = i % 3 != 0;
+			DadosTeste.transacao(entityManager, enviada ? titular : outro, enviada ? outro : titular, 100 + i, null,
+				"Transação " + i);
+		}
+		// Transações entre terceiros não aparecem no histórico
+		DadosTeste.transacao(entityManager, outros.get(0), outros.get(1), 1_000, null, null);
+		entityManager.clear();
+
+		estatisticas = entityManager.getEntityManager().getEntityManagerFactory()
+			.unwrap(SessionFactory.class).getStatistics();
+		estatisticas.clear();
+	}
+
+	@Test
+	void paginaDoHistoricoEhUmaUnicaConsulta() {
+		List<HistoricoTransacaoResumo> pagina = transacaoRepository.findHistoricoPagina(titular.getId(), 20, 10, 10);
+
+		assertEquals(10, pagina.size());
+		for (HistoricoTransacaoResumo linha : pagina) {
+			// Todos os campos do DTO, inclusive os do outro usuário, já vêm na linha
+			assertNotNull(linha.getDataTransacao());
+			assertNotNull(linha.getValor());
+			assertNotNull(linha.getDescricao());
+			assertNotNull(linha.getTipoTransacao());
+			assertNotNull(linha.getIdOutroUsuario());
+			assertNotNull(linha.getNomeOutroUsuario());
+			assertNotNull(linha.getEmailOutroUsuario());
+		}
+		assertEquals(1, estatisticas.getPrepareStatementCount());
+		assertEquals(0, estatisticas.getEntityLoadCount());
+	}
+
+	@Test
+	void cursorPercorreOMesmoHistoricoQueAsPaginas() {
+		List<HistoricoTransacaoResumo> porPagina = transacaoRepository.findHistoricoPagina(titular.getId(), 1000, 1000, 0);
+		assertEquals(37, porPagina.size());
+		assertEquals(37, transacaoRepository.countHistorico(titular.getId()));
+
+		estatisticas.clear();
+		List<HistoricoTransacaoResumo> porCursor = new ArrayList<>(transacaoRepository.findHistorico(titular.getId(), 8));
+		int consultas = 1;
+		while (porCursor.size() % 8 == 0) {
+			HistoricoTransacaoResumo ultima = porCursor.get(porCursor.size() - 1);
+			List<HistoricoTransacaoResumo> proxima = transacaoRepository.findHistoricoApos(
+				titular.getId(), ultima.getDataTransacao(), ultima.getId(), 8);
+			consultas++;
+			if (proxima.isEmpty()) {
+				break;
+			}
+			porCursor.addAll(proxima);
+		}
+		assertEquals(consultas, estatisticas.getPrepareStatementCount());
+
+		assertEquals(porPagina.stream().map(HistoricoTransacaoResumo::getId).toList(),
+			porCursor.stream().map(HistoricoTransacaoResumo::getId).toList());
+		for (HistoricoTransacaoResumo linha : porPagina) {
+			int indice = Integer.parseInt(linha.getDescricao().substring("Transação ".length()));
+			assertEquals(indice % 3 != 0 ? "ENVIADA" : "RECEBIDA", linha.getTipoTransacao());
+			assertEquals("outro" + (indice % 5), linha.getNomeOutroUsuario());
+		}
+	}
+
+	@Test
+	void filtrosDevolvemAsMesmasLinhasQueFiltrarOHistoricoInteiro() {
+		// Um dia por transação a partir de 1º de janeiro, na ordem de criação
+		for (Transacao transacao : entityManager.getEntityManager()
+				.createQuery("SELECT t FROM Transacao t", Transacao.class).getResultList()) {
+			if (transacao.getDescricao() != null) {
+				int indice = Integer.parseInt(transacao.getDescricao().substring("Transação ".length()));
+				transacao.setDataTransacao(LocalDateTime.of(2025, 1, 1, 12, 0).plusDays(indice));
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+		List<HistoricoTransacaoResumo> todas = transacaoRepository.findHistoricoPagina(titular.getId(), 1000, 1000, 0);
+
+		List<FiltroHistorico> filtros = List.of(
+			FiltroHistorico.de(LocalDate.of(2025, 1, 5), LocalDate.of(2025, 1, 20), null, null, null),
+			FiltroHistorico.de(null, null, new BigDecimal("1.10"), new BigDecimal("1.25"), null),
+			FiltroHistorico.de(LocalDate.of(2025, 1, 3), null, null, new BigDecimal("1.30"), "RECEBIDA"),
+			FiltroHistorico.de(null, LocalDate.of(2025, 1, 30), new BigDecimal("1.02"), null, "enviada"));
+		for (FiltroHistorico filtro : filtros) {
+			List<Long> esperado = todas.stream()
+				.filter(linha -> !linha.getDataTransacao().isBefore(filtro.inicio())
+					&& linha.getDataTransacao().isBefore(filtro.fim())
+					&& linha.getValor().compareTo(filtro.valorMinimo()) >= 0
+					&& linha.getValor().compareTo(filtro.valorMaximo()) <= 0
+					&& (linha.getTipoTransacao().equals("ENVIADA") ? filtro.enviadas() : filtro.recebidas()))
+				.map(HistoricoTransacaoResumo::getId)
+				.toList();
+			int enviadas = filtro.enviadas() ? 1 : 0;
+			int recebidas = filtro.recebidas() ? 1 : 0;
+
+			assertEquals(esperado.size(), transacaoRepository.countHistoricoFiltrado(titular.getId(), filtro.inicio(),
+				filtro.fim(), filtro.valorMinimo(), filtro.valorMaximo(), enviadas, recebidas));
+			assertEquals(esperado.subList(Math.min(2, esperado.size()), Math.min(5, esperado.size())),
+				transacaoRepository.findHistoricoFiltradoPagina(titular.getId(), filtro.inicio(), filtro.fim(),
+						filtro.valorMinimo(), filtro.valorMaximo(), enviadas, recebidas, 5, 3, 2)
+					.stream().map(HistoricoTransacaoResumo::getId).toList());
+
+			// Cursor a partir de (fim, 0), de 3 em 3
+			List<Long> porCursor = new ArrayList<>();
+			LocalDateTime data = filtro.fim();
+			long id = 0;
+			List<HistoricoTransacaoResumo> pagina;
+			do {
+				pagina = transacaoRepository.findHistoricoFiltradoApos(titular.getId(), filtro.inicio(),
+					filtro.valorMinimo(), filtro.valorMaximo(), enviadas, recebidas, data, id, 3);
+				pagina.forEach(linha -> porCursor.add(linha.getId()));
+				if (!pagina.isEmpty()) {
+					data = pagina.get(pagina.size() - 1).getDataTransacao();
+					id = pagina.get(pagina.size() - 1).getId();
+				}
+			} while (pagina.size() == 3);
+			assertEquals(esperado, porCursor);
+		}
+	}
+}
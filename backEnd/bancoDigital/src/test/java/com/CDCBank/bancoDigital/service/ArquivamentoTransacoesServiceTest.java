@@ -0,0 +1,195 @@
+package com.CDCBank.bancoDigital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.CDCBank.bancoDigital.dto.response.ArquivamentoDTO;
+import com.CDCBank.bancoDigital.dto.response.HistoricoCursorDTO;
+import com.CDCBank.bancoDigital.dto.response.HistoricoTransacaoDTO;
+import com.CDCBank.bancoDigital.models.Usuario;
+import com.CDCBank.bancoDigital.repository.TransacaoArquivoRepository;
+import com.CDCBank.bancoDigital.repository.TransacaoRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest(properties = "teste.banco=arquivamento")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class ArquivamentoTransacoesServiceTest {
+
+	private static final LocalDateTime JANEIRO = LocalDateTime.of(2025, 1, 1, 0, 0);
+	private static final int PAGINA = 7;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private TransacaoRepository transacaoRepository;
+
+	@Autowired
+	private TransacaoArquivoRepository transacaoArquivoRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private ArquivamentoTransacoesService arquivamento;
+	private TransacaoService transacaoService;
+	private IndiceBuscaTransacoes indice;
+	private List<Usuario> usuarios;
+
+	@BeforeEach
+	void criar() {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+		arquivamento = new ArquivamentoTransacoesService(jdbcTemplate, transactionTemplate, registry);
+		ReflectionTestUtils.setField(arquivamento, "idade", Duration.ofDays(180));
+		// Lotes pequenos e sem pausa: vários lotes por execução
+		ReflectionTestUtils.setField(arquivamento, "lote", 10);
+		ReflectionTestUtils.setField(arquivamento, "pausa", Duration.ZERO);
+		arquivamento.iniciar();
+
+		indice = new IndiceBuscaTransacoes(jdbcTemplate, registry);
+		ReflectionTestUtils.setField(indice, "habilitado", true);
+		// O H2 não aceita o fetch size negativo do streaming do MySQL
+		ReflectionTestUtils.setField(indice, "fetchSize", 1_000);
+		indice.iniciar();
+
+		// Sem o cache do histórico recente: toda página vem do banco
+		transacaoService = DadosTeste.transacaoService(transacaoRepository, transacaoArquivoRepository,
+			transactionTemplate, mock(HistoricoRecenteCache.class), indice);
+		transacaoService.iniciar();
+
+		usuarios = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			usuarios.add(DadosTeste.usuario(entityManager, "usuario" + i));
+		}
+	}
+
+	@Test
+	void historicoIgualAntesEDepoisDoArquivamento() {
+		Random random = new Random(7);
+		for (int i = 0; i < 150; i++) {
+			Usuario remetente = usuarios.get(random.nextInt(4));
+			Usuario destinatario = usuarios.get((usuarios.indexOf(remetente) + 1 + random.nextInt(3)) % 4);
+			// Horas repetidas: várias transações com a mesma data, desempatadas pelo id
+			DadosTeste.transacao(entityManager, remetente, destinatario, 1 + random.nextInt(50_000),
+				JANEIRO.plusHours(random.nextInt(200)), (i % 3 == 0 ? "Aluguel " : "Mercado ") + i);
+		}
+		entityManager.clear();
+		indice.reconstruir();
+		List<List<Object>> antes = historicos();
+
+		// Arquivamento parcial, outro que avança o corte e por fim tudo no arquivo
+		long arquivadas = 0;
+		for (LocalDateTime corte : List.of(JANEIRO.plusHours(60), JANEIRO.plusHours(140), JANEIRO.plusYears(1))) {
+			ArquivamentoDTO progresso = arquivamento.arquivar(corte);
+
+			assertEquals(ExecucaoEmSegundoPlano.CONCLUIDA, progresso.getEstado());
+			assertEquals(progresso.getPendentesNoInicio(), progresso.getTransacoesMovidas());
+			assertTrue(progresso.getLotes() >= progresso.getTransacoesMovidas() / 10);
+			arquivadas += progresso.getTransacoesMovidas();
+			assertEquals(arquivadas, transacaoArquivoRepository.count());
+			assertEquals(150 - arquivadas, transacaoRepository.count());
+			assertEquals(0, linhas("SELECT COUNT(*) FROM transacao WHERE data_transacao < ?", corte));
+
+			indice.reconstruir();
+			List<List<Object>> depois = historicos();
+			for (int i = 0; i < antes.size(); i++) {
+				assertEquals(antes.get(i), depois.get(i), "corte " + corte + ", histórico " + i);
+			}
+		}
+		assertEquals(150, arquivadas);
+	}
+
+	@Test
+	void idadeMinimaDeUmDia() {
+		ReflectionTestUtils.setField(arquivamento, "idade", Duration.ofHours(12));
+
+		assertThrows(IllegalStateException.class, arquivamento::iniciar);
+	}
+
+	/**
+	 * Para cada usuário: todas as páginas por cursor e por OFFSET (com os totais), com e sem
+	 * filtros, e a busca nas descrições.
+	 */
+	private List<List<Object>> historicos() {
+		List<FiltroHistorico> filtros = List.of(FiltroHistorico.NENHUM,
+			FiltroHistorico.de(LocalDate.of(2025, 1, 3), LocalDate.of(2025, 1, 6), new BigDecimal("100.00"), null, null),
+			FiltroHistorico.de(null, null, null, new BigDecimal("250.00"), "RECEBIDA"));
+		List<List<Object>> resultado = new ArrayList<>();
+		for (Usuario usuario : usuarios) {
+			for (FiltroHistorico filtro : filtros) {
+				resultado.add(porCursor(usuario.getId(), filtro));
+				resultado.add(porDeslocamento(usuario.getId(), filtro));
+			}
+			resultado.add(busca(usuario.getId(), "alug"));
+		}
+		return resultado;
+	}
+
+	private List<Object> porCursor(Long usuarioId, FiltroHistorico filtro) {
+		List<Object> paginas = new ArrayList<>();
+		String cursor = null;
+		do {
+			HistoricoCursorDTO pagina = transacaoService.obterHistoricoPorCursor(usuarioId, cursor, PAGINA, filtro);
+			paginas.add(pagina.getContent());
+			cursor = pagina.getNextCursor();
+			paginas.add(cursor);
+		} while (cursor != null);
+		return paginas;
+	}
+
+	private List<Object> porDeslocamento(Long usuarioId, FiltroHistorico filtro) {
+		List<Object> paginas = new ArrayList<>();
+		for (int numero = 0; ; numero++) {
+			Page<HistoricoTransacaoDTO> pagina = transacaoService.obterHistoricoTransacoes(usuarioId, numero, PAGINA, filtro);
+			paginas.add(pagina.getContent());
+			paginas.add(pagina.getTotalElements());
+			if (pagina.getContent().isEmpty()) {
+				return paginas;
+			}
+		}
+	}
+
+	private List<Object> busca(Long usuarioId, String consulta) {
+		List<Object> paginas = new ArrayList<>();
+		String cursor = null;
+		do {
+			HistoricoCursorDTO pagina = transacaoService.buscarTransacoes(usuarioId, consulta, cursor, PAGINA);
+			paginas.add(pagina.getContent());
+			cursor = pagina.getNextCursor();
+		} while (cursor != null);
+		return paginas;
+	}
+
+	private long linhas(String sql, Object... argumentos) {
+		return jdbcTemplate.queryForObject(sql, Long.class, argumentos);
+	}
+}
@@ -0,0 +1,164 @@
+package com.CDCBank.bancoDigital.service;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.CDCBank.bancoDigital.dto.response.TransacaoResponseDTO;
+import com.CDCBank.bancoDigital.dto.response.UsuarioResponseDTO;
+import com.CDCBank.bancoDigital.util.Tokenizador;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Construção e consulta do {@link IndiceBuscaTransacoes} com descrições sintéticas (10
+ * milhões por padrão; a quantidade pode vir no primeiro argumento) entre 10 mil usuários,
+ * um deles com 1% de todas as transações. Compara a busca do usuário mais movimentado com
+ * uma varredura das descrições dele já normalizadas, o melhor caso de um LIKE '%termo%'.
+ * Não roda com os testes: executar a classe diretamente, com heap suficiente (-Xmx4g).
+ */
+public class BuscaTransacoesBenchmark {
+
+	private static final int USUARIOS = 10_000;
+	private static final long USUARIO_MOVIMENTADO = 1;
+	private static final int CONSULTAS = 2_000;
+	private static final int LIMITE = 20;
+	private static final String[] PALAVRAS = {
+		"aluguel", "agua", "luz", "energia", "internet", "telefone", "mercado", "supermercado", "farmacia",
+		"padaria", "restaurante", "almoco", "jantar", "cafe", "lanche", "uber", "taxi", "combustivel", "gasolina",
+		"estacionamento", "pedagio", "academia", "mensalidade", "escola", "faculdade", "curso", "livro",
+		"presente", "aniversario", "casamento", "viagem", "hotel", "passagem", "ingresso", "cinema", "show",
+		"condominio", "iptu", "ipva", "seguro", "consulta", "dentista", "medico", "exame", "reembolso",
+		"emprestimo", "parcela", "divida", "acerto", "racha", "conta", "pix", "transferencia", "salario",
+		"freela", "servico", "conserto", "reforma", "material", "roupa", "sapato", "janeiro", "fevereiro",
+		"marco", "abril", "maio", "junho", "julho", "agosto", "setembro", "outubro", "novembro", "dezembro"
+	};
+
+	public static void main(String[] args) {
+		int transacoes = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+		SplittableRandom random = new SplittableRandom(42);
+
+		IndiceBuscaTransacoes indice = new IndiceBuscaTransacoes(new JdbcTemplate(mock(DataSource.class)),
+			new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(indice, "habilitado", true);
+		indice.iniciar();
+		ReflectionTestUtils.setField(indice, "pronto", true);
+
+		List<String> doMovimentado = new ArrayList<>();
+		System.gc();
+		long heapAntes = heapUsado();
+		long inicio = System.nanoTime();
+		for (long id = 1; id <= transacoes; id++) {
+			long remetente = random.nextInt(100) == 0 ? USUARIO_MOVIMENTADO : 2 + random.nextInt(USUARIOS - 1);
+			long destinatario = 2 + random.nextInt(USUARIOS - 1);
+			String descricao = descricao(random);
+			indice.registrar(transacao(id, remetente, destinatario, descricao));
+			if (remetente == USUARIO_MOVIMENTADO) {
+				// Com espaço antes, "contains(' ' + prefixo)" é o início de uma palavra
+				doMovimentado.add(" " + String.join(" ", Tokenizador.termos(descricao)));
+			}
+		}
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+		System.gc();
+		long heapDepois = heapUsado() - doMovimentado.stream().mapToLong(d -> 40 + d.length()).sum();
+		System.out.printf("construção: %,d transações em %.1f s (%,.0f por segundo)%n",
+			transacoes, segundos, transacoes / segundos);
+		System.out.printf("índice: %s%n", indice.estatisticas());
+		System.out.printf("heap do índice: ~%,d MB%n", (heapDepois - heapAntes) >> 20);
+		System.out.printf("usuário movimentado: %,d transações%n", doMovimentado.size());
+
+		String[][] consultas = new String[CONSULTAS][];
+		for (int i = 0; i < CONSULTAS; i++) {
+			consultas[i] = random.nextBoolean()
+				? new String[] {prefixo(random)}
+				: new String[] {prefixo(random), prefixo(random)};
+		}
+		for (int rodada = 0; rodada < 2; rodada++) {
+			// A primeira rodada é aquecimento do JIT
+			long[] indiceNanos = new long[CONSULTAS];
+			long[] varreduraNanos = new long[CONSULTAS];
+			for (int i = 0; i < CONSULTAS; i++) {
+				String consulta = String.join(" ", consultas[i]);
+				long t0 = System.nanoTime();
+				long[] ids = indice.buscar(USUARIO_MOVIMENTADO, consulta, Long.MAX_VALUE, LIMITE);
+				long t1 = System.nanoTime();
+				int encontradas = varrer(doMovimentado, consultas[i]);
+				long t2 = System.nanoTime();
+				indiceNanos[i] = t1 - t0;
+				varreduraNanos[i] = t2 - t1;
+				if (ids.length != Math.min(LIMITE, encontradas)) {
+					throw new IllegalStateException("Resultados diferentes para '" + consulta + "'");
+				}
+			}
+			if (rodada == 1) {
+				imprimir("índice", indiceNanos);
+				imprimir("varredura", varreduraNanos);
+			}
+		}
+	}
+
+	private static int varrer(List<String> descricoes, String[] prefixos) {
+		int encontradas = 0;
+		for (String descricao : descricoes) {
+			boolean todos = true;
+			for (String prefixo : prefixos) {
+				if (!descricao.contains(" " + prefixo)) {
+					todos = false;
+					break;
+				}
+			}
+			if (todos) {
+				encontradas++;
+			}
+		}
+		return encontradas;
+	}
+
+	private static String descricao(SplittableRandom random) {
+		StringBuilder descricao = new StringBuilder();
+		int palavras = 2 + random.nextInt(3);
+		for (int i = 0; i < palavras; i++) {
+			descricao.append(i == 0 ? "" : " ").append(PALAVRAS[random.nextInt(PALAVRAS.length)]);
+		}
+		if (random.nextInt(4) == 0) {
+			// Números de pedido ou nota aumentam o vocabulário como em descrições reais
+			descricao.append(" pedido ").append(random.nextInt(1_000_000));
+		}
+		return descricao.toString();
+	}
+
+	private static String prefixo(SplittableRandom random) {
+		String palavra = PALAVRAS[random.nextInt(PALAVRAS.length)];
+		return palavra.substring(0, Math.min(palavra.length(), 2 + random.nextInt(4)));
+	}
+
+	private static TransacaoResponseDTO transacao(long id, long remetente, long destinatario, String descricao) {
+		return TransacaoResponseDTO.builder()
+			.id(id)
+			.descricao(descricao)
+			.remetente(UsuarioResponseDTO.builder().id(remetente).build())
+			.destinatario(UsuarioResponseDTO.builder().id(destinatario).build())
+			.build();
+	}
+
+	private static void imprimir(String nome, long[] nanos) {
+		long[] ordenados = nanos.clone();
+		Arrays.sort(ordenados);
+		System.out.printf("%-10s p50 %8.1f µs   p99 %8.1f µs   máx %8.1f µs%n", nome,
+			ordenados[ordenados.length / 2] / 1e3, ordenados[ordenados.length * 99 / 100] / 1e3,
+			ordenados[ordenados.length - 1] / 1e3);
+	}
+
+	private static long heapUsado() {
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
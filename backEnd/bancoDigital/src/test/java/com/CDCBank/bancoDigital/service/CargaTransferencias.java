@@ -0,0 +1,82 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.CDCBank.bancoDigital.dto.request.TransacaoRequestDTO;
+
+/**
+ * Transferências cruzadas entre poucas contas, disparadas por várias threads ao mesmo
+ * tempo: cada par de contas recebe transferências nos dois sentidos (A->B e B->A), o
+ * cenário que entra em deadlock quando os locks não seguem uma ordem única. Usada pelo
+ * teste de concorrência e pelo benchmark de transferências por segundo.
+ */
+final class CargaTransferencias {
+
+	record Resultado(long realizadas, long recusadas, long duracaoNs, List<Throwable> erros) {
+
+		double porSegundo() {
+			return realizadas * 1e9 / duracaoNs;
+		}
+	}
+
+	private CargaTransferencias() {
+	}
+
+	/**
+	 * Cada thread faz {@code porThread} transferências de até {@code valorMaximoCentavos}
+	 * entre contas sorteadas. Saldo insuficiente conta como recusada; qualquer outra falha
+	 * vai para {@link Resultado#erros()}.
+	 */
+	static Resultado executar(TransacaoService transacaoService, List<Long> contas, int threads, int porThread,
+			long valorMaximoCentavos, long semente) throws InterruptedException {
+		AtomicLong realizadas = new AtomicLong();
+		AtomicLong recusadas = new AtomicLong();
+		Queue<Throwable> erros = new ConcurrentLinkedQueue<>();
+		CountDownLatch largada = new CountDownLatch(1);
+		Thread[] execucoes = new Thread[threads];
+
+		for (int t = 0; t < threads; t++) {
+			SplittableRandom random = new SplittableRandom(semente + t);
+			execucoes[t] = new Thread(() -> {
+				try {
+					largada.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				for (int i = 0; i < porThread; i++) {
+					int origem = random.nextInt(contas.size());
+					int destino = (origem + 1 + random.nextInt(contas.size() - 1)) % contas.size();
+					TransacaoRequestDTO request = new TransacaoRequestDTO();
+					request.setIdDestinatario(contas.get(destino));
+					request.setValor(BigDecimal.valueOf(random.nextLong(1, valorMaximoCentavos + 1), 2));
+					request.setDescricao("Carga " + i);
+					try {
+						transacaoService.realizarTransacao(contas.get(origem), request);
+						realizadas.incrementAndGet();
+					} catch (RuntimeException e) {
+						if (e.getMessage() != null && e.getMessage().startsWith("Saldo insuficiente")) {
+							recusadas.incrementAndGet();
+						} else {
+							erros.add(e);
+						}
+					}
+				}
+			}, "carga-transferencias-" + t);
+			execucoes[t].start();
+		}
+
+		long inicio = System.nanoTime();
+		largada.countDown();
+		for (Thread execucao : execucoes) {
+			execucao.join();
+		}
+		return new Resultado(realizadas.get(), recusadas.get(), System.nanoTime() - inicio, List.copyOf(erros));
+	}
+}
@@ -0,0 +1,133 @@
+package com.CDCBank.bancoDigital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.CDCBank.bancoDigital.dto.request.TransacaoRequestDTO;
+import com.CDCBank.bancoDigital.dto.response.ConciliacaoSaldosDTO;
+import com.CDCBank.bancoDigital.dto.response.DivergenciaConciliacaoDTO;
+import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+import com.CDCBank.bancoDigital.util.Centavos;
+
+@DataJpaTest(properties = {
+	"teste.banco=conciliacao",
+	"transacao.saldo-distribuido.faixas=4"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(ServicosTransferencia.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ConciliacaoSaldosServiceTest {
+
+	private static final int CONTAS_POR_FAIXA = 3;
+
+	@Autowired
+	private TransacaoService transacaoService;
+
+	@Autowired
+	private SaldoDistribuidoService saldoDistribuidoService;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Test
+	void encontraSoADivergenciaEIgnoraContasCriadasDepoisDaDivisao() throws InterruptedException {
+		List<Long> contas = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			contas.add(DadosTeste.conta(usuarioRepository, "conciliacao" + i, UsuarioService.SALDO_INICIAL_CENTAVOS));
+		}
+		// Uma conta com faixas: o saldo armazenado inclui sub_saldo
+		Long loja = contas.get(7);
+		transactionTemplate.executeWithoutResult(s -> saldoDistribuidoService.ativar(loja));
+		for (int i = 0; i < 40; i++) {
+			Long remetente = contas.get(i % 7);
+			Long destinatario = i % 3 == 0 ? loja : contas.get((i + 1) % 7);
+			transacaoService.realizarTransacao(remetente, pedido(destinatario, "1.25"));
+		}
+		transacaoService.realizarLote(loja, List.of(pedido(contas.get(0), "2.00"), pedido(contas.get(1), "3.00")));
+
+		Long adulterada = contas.get(4);
+		long armazenado = usuarioRepository.findById(adulterada).orElseThrow().getSaldoCentavos();
+		new JdbcTemplate(dataSource).update("UPDATE usuario SET saldo_centavos = saldo_centavos + 123 WHERE id = ?", adulterada);
+
+		ConciliacaoSaldosDTO resultado = conciliar();
+
+		assertEquals(ExecucaoEmSegundoPlano.CONCLUIDA, resultado.getEstado(), resultado.getErro());
+		// As 5 contas criadas entre a leitura do maior id e a conciliação ficam de fora
+		assertEquals(8, resultado.getContasVerificadas());
+		assertEquals(3, resultado.getFaixasTotal());
+		assertEquals(1, resultado.getDivergenciasEncontradas());
+		DivergenciaConciliacaoDTO divergencia = resultado.getDivergencias().get(0);
+		assertEquals(adulterada, divergencia.getIdUsuario());
+		assertEquals(Centavos.paraValor(armazenado + 123), divergencia.getSaldoArmazenado());
+		assertEquals(Centavos.paraValor(armazenado), divergencia.getSaldoEsperado());
+	}
+
+	/**
+	 * Concilia com faixas de {@value #CONTAS_POR_FAIXA} contas, criando mais contas que uma
+	 * faixa inteira logo depois de lido o maior id, como cadastros chegando durante a execução.
+	 */
+	private ConciliacaoSaldosDTO conciliar() throws InterruptedException {
+		AtomicBoolean criadas = new AtomicBoolean();
+		JdbcTemplate comCadastrosConcorrentes = new JdbcTemplate(dataSource) {
+			@Override
+			public <T> T queryForObject(String sql, Class<T> tipo) {
+				T resultado = super.queryForObject(sql, tipo);
+				if (sql.contains("MAX(id)") && criadas.compareAndSet(false, true)) {
+					for (int i = 0; i < 5; i++) {
+						DadosTeste.conta(usuarioRepository, "depois" + i, UsuarioService.SALDO_INICIAL_CENTAVOS);
+					}
+				}
+				return resultado;
+			}
+		};
+		ConciliacaoSaldosService servico = new ConciliacaoSaldosService(comCadastrosConcorrentes, transactionTemplate);
+		ReflectionTestUtils.setField(servico, "paralelismo", 2);
+		ReflectionTestUtils.setField(servico, "contasPorFaixa", CONTAS_POR_FAIXA);
+		ReflectionTestUtils.setField(servico, "maximoDivergencias", 10);
+		ReflectionTestUtils.setField(servico, "fetchSize", 100);
+		ReflectionTestUtils.invokeMethod(servico, "iniciar");
+
+		servico.iniciarConciliacao();
+		long limite = System.currentTimeMillis() + 10_000;
+		while (ExecucaoEmSegundoPlano.EXECUTANDO.equals(servico.progresso().getEstado())) {
+			assertTrue(System.currentTimeMillis() < limite, "conciliação não terminou");
+			Thread.sleep(20);
+		}
+		assertTrue(criadas.get());
+		return servico.progresso();
+	}
+
+	private TransacaoRequestDTO pedido(Long idDestinatario, String valor) {
+		TransacaoRequestDTO request = new TransacaoRequestDTO();
+		request.setIdDestinatario(idDestinatario);
+		request.setValor(new BigDecimal(valor));
+		request.setDescricao("Conciliação");
+		return request;
+	}
+}
@@ -0,0 +1,132 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.CDCBank.bancoDigital.BancoDigitalApplication;
+import com.CDCBank.bancoDigital.dto.request.TransacaoRequestDTO;
+import com.CDCBank.bancoDigital.models.Usuario;
+import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+
+/**
+ * Muitos remetentes pagando a mesma conta ao mesmo tempo, com a destinatária comum e com
+ * saldo distribuído, em cada modo do {@link TransacaoService}. Sobe a aplicação sem o
+ * servidor web contra o banco informado. Não roda com os testes:
+ *
+ * <pre>
+ * java ... ContaDistribuidaBenchmark "jdbc:mysql://localhost:3306/BancoDigital" root root 64 100
+ * </pre>
+ *
+ * Os argumentos são url, usuário, senha, remetentes (uma thread cada) e transferências por
+ * remetente; os seguintes ({@code --propriedade=valor}) vão para a aplicação.
+ */
+public class ContaDistribuidaBenchmark {
+
+	private static final long SALDO_INICIAL = 1_000_000;
+	private static final BigDecimal VALOR = new BigDecimal("1.00");
+
+	public static void main(String[] args) throws InterruptedException {
+		int remetentes = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+		int porRemetente = args.length > 4 ? Integer.parseInt(args[4]) : 100;
+		// O restart do devtools executaria o main de novo numa outra thread
+		System.setProperty("spring.devtools.restart.enabled", "false");
+
+		// Como argumentos da linha de comando: têm precedência sobre o application.properties
+		List<String> argumentos = new ArrayList<>(List.of(
+			"--spring.datasource.url=" + args[0],
+			"--spring.datasource.username=" + args[1],
+			"--spring.datasource.password=" + args[2],
+			"--spring.jpa.show-sql=false",
+			"--api.security.token.secret=benchmark",
+			"--transacao.limite-diario.habilitado=false",
+			"--transacao.limite.habilitado=false"));
+		argumentos.addAll(Arrays.asList(args).subList(Math.min(args.length, 5), args.length));
+
+		try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(BancoDigitalApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(argumentos.toArray(String[]::new))) {
+			TransacaoService transacaoService = contexto.getBean(TransacaoService.class);
+			SaldoDistribuidoService saldoDistribuidoService = contexto.getBean(SaldoDistribuidoService.class);
+			UsuarioRepository usuarioRepository = contexto.getBean(UsuarioRepository.class);
+
+			for (ModoTransacao modo : ModoTransacao.values()) {
+				ReflectionTestUtils.setField(transacaoService, "modo", modo);
+				for (boolean distribuida : new boolean[] {false, true}) {
+					String prefixo = "contencao-" + modo.name().toLowerCase() + "-" + distribuida + "-" + System.nanoTime();
+					Long destinataria = criar(usuarioRepository, prefixo + "-destinataria", 0);
+					if (distribuida) {
+						saldoDistribuidoService.ativar(destinataria);
+					}
+					List<Long> pagadores = new ArrayList<>(remetentes);
+					for (int i = 0; i < remetentes; i++) {
+						pagadores.add(criar(usuarioRepository, prefixo + "-" + i, SALDO_INICIAL));
+					}
+
+					AtomicLong erros = new AtomicLong();
+					long duracao = pagarAoMesmoTempo(transacaoService, pagadores, destinataria, porRemetente, erros);
+
+					Usuario conta = usuarioRepository.findById(destinataria).orElseThrow();
+					long recebido = saldoDistribuidoService.saldoTotalCentavos(conta);
+					long realizadas = (long) remetentes * porRemetente - erros.get();
+					System.out.printf("%-11s %-10s %d remetentes: %,.0f transferências/s, %,d erros, recebido %s%n",
+						modo, distribuida ? "distribuída" : "comum", remetentes, realizadas * 1e9 / duracao, erros.get(),
+						recebido == realizadas * 100 ? "confere" : "NÃO CONFERE: " + recebido);
+				}
+			}
+		}
+	}
+
+	private static long pagarAoMesmoTempo(TransacaoService transacaoService, List<Long> pagadores, Long destinataria,
+			int porRemetente, AtomicLong erros) throws InterruptedException {
+		CountDownLatch largada = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>(pagadores.size());
+		for (Long pagador : pagadores) {
+			threads.add(Thread.ofPlatform().start(() -> {
+				try {
+					largada.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				for (int i = 0; i < porRemetente; i++) {
+					TransacaoRequestDTO request = new TransacaoRequestDTO();
+					request.setIdDestinatario(destinataria);
+					request.setValor(VALOR);
+					request.setDescricao("Compra " + i);
+					try {
+						transacaoService.realizarTransacao(pagador, request);
+					} catch (RuntimeException e) {
+						erros.incrementAndGet();
+					}
+				}
+			}));
+		}
+		long inicio = System.nanoTime();
+		largada.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		return System.nanoTime() - inicio;
+	}
+
+	private static Long criar(UsuarioRepository usuarioRepository, String nome, long saldoCentavos) {
+		Usuario usuario = new Usuario();
+		usuario.setNome(nome);
+		usuario.setEmail(nome + "@benchmark.com");
+		usuario.setIdFiscal(nome);
+		usuario.setSenha("senha");
+		usuario.setDataNascimento(new Date(0));
+		usuario.setSaldoCentavos(saldoCentavos);
+		return usuarioRepository.save(usuario).getId();
+	}
+}
@@ -0,0 +1,89 @@
+package com.CDCBank.bancoDigital.service;
+
+import static org.mockito.Mockito.mock;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.CDCBank.bancoDigital.models.Transacao;
+import com.CDCBank.bancoDigital.models.Usuario;
+import com.CDCBank.bancoDigital.repository.TransacaoArquivoRepository;
+import com.CDCBank.bancoDigital.repository.TransacaoRepository;
+import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+import com.CDCBank.bancoDigital.util.Centavos;
+
+/**
+ * Usuários, transações e o {@link TransacaoService} dos testes. Os que rodam dentro da
+ * transação do teste gravam pelo {@link TestEntityManager}; os que rodam sem ela
+ * ({@link ServicosTransferencia}) criam contas pelo repositório, com nomes únicos porque o
+ * banco da classe guarda os dados de todos os testes.
+ */
+public final class DadosTeste {
+
+	public static final long SALDO_CENTAVOS = 10_000;
+
+	private DadosTeste() {
+	}
+
+	/**
+	 * Usuário ainda não gravado, com e-mail e id fiscal derivados do nome.
+	 */
+	public static Usuario novoUsuario(String nome, long saldoCentavos) {
+		Usuario usuario = new Usuario();
+		usuario.setNome(nome);
+		usuario.setEmail(nome + "@email.com");
+		usuario.setIdFiscal(nome);
+		usuario.setSenha("senha");
+		usuario.setDataNascimento(new Date(0));
+		usuario.setSaldoCentavos(saldoCentavos);
+		return usuario;
+	}
+
+	public static Usuario usuario(TestEntityManager entityManager, String nome) {
+		return entityManager.persist(novoUsuario(nome, SALDO_CENTAVOS));
+	}
+
+	/**
+	 * Grava e confirma uma conta com o nome seguido de um sufixo único.
+	 *
+	 * @return o id da conta
+	 */
+	public static Long conta(UsuarioRepository usuarioRepository, String nome, long saldoCentavos) {
+		return usuarioRepository.save(novoUsuario(nome + System.nanoTime(), saldoCentavos)).getId();
+	}
+
+	/**
+	 * Grava a transação e faz o flush. A data vem do @PrePersist; com {@code data} diferente
+	 * de null ela é trocada depois do persist e a alteração sai no mesmo flush.
+	 */
+	public static Transacao transacao(TestEntityManager entityManager, Usuario remetente, Usuario destinatario,
+			long centavos, LocalDateTime data, String descricao) {
+		Transacao transacao = entityManager.persist(Transacao.builder()
+			.valor(Centavos.paraValor(centavos))
+			.remetente(remetente)
+			.destinatario(destinatario)
+			.descricao(descricao)
+			.build());
+		if (data != null) {
+			transacao.setDataTransacao(data);
+		}
+		entityManager.flush();
+		return transacao;
+	}
+
+	/**
+	 * {@link TransacaoService} só para as consultas do histórico e da busca: os serviços de
+	 * transferência são mocks.
+	 */
+	public static TransacaoService transacaoService(TransacaoRepository transacaoRepository,
+			TransacaoArquivoRepository transacaoArquivoRepository, TransactionTemplate transactionTemplate,
+			HistoricoRecenteCache historicoRecenteCache, IndiceBuscaTransacoes indiceBusca) {
+		return new TransacaoService(transacaoRepository, mock(UsuarioRepository.class), mock(LedgerEngine.class),
+			transactionTemplate, mock(IdempotenciaService.class), mock(SaldoDistribuidoService.class),
+			mock(LivroRazaoService.class), mock(RetentativaOtimista.class), mock(LimiteDiarioService.class),
+			historicoRecenteCache, mock(ResumoMensalService.class), indiceBusca, transacaoArquivoRepository);
+	}
+}
@@ -0,0 +1,198 @@
+package com.CDCBank.bancoDigital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.CDCBank.bancoDigital.exception.FilaCheiaException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ExportacaoTransacoesServiceTest {
+
+	private static final int TRANSACOES = 1_000_000;
+	private static final String HEAP = "-Xmx48m";
+
+	/**
+	 * Exporta 1M transações numa JVM filha com heap fixo e pequeno: um OutOfMemoryError
+	 * termina a JVM com código diferente de zero. O banco é um H2 em arquivo, para que os
+	 * dados não ocupem o heap.
+	 */
+	@Test
+	void exportaUmMilhaoDeTransacoesComHeapPequeno(@TempDir Path diretorio) throws Exception {
+		String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+		Process processo = new ProcessBuilder(java, HEAP, "-XX:+ExitOnOutOfMemoryError", "-Dstdout.encoding=UTF-8",
+				"-cp", System.getProperty("java.class.path"),
+				ExportacaoTransacoesServiceTest.class.getName(), diretorio.toString())
+			.redirectErrorStream(true)
+			.start();
+		String saida = new String(processo.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+		assertTrue(processo.waitFor(5, TimeUnit.MINUTES), saida);
+		System.out.print(saida.lines().filter(l -> l.startsWith("Exportação:")).map(l -> l + "\n").reduce("", String::concat));
+
+		assertEquals(0, processo.exitValue(), saida);
+		// Cabeçalho + uma linha por transação; o histórico é o de um dia inteiro no filtro
+		assertTrue(saida.contains("Exportação: CSV linhas=" + (TRANSACOES + 1) + " "), saida);
+		assertTrue(saida.contains("Exportação: NDJSON linhas=" + TRANSACOES + " "), saida);
+		assertTrue(saida.contains("Exportação: CSV 2024-01-02 linhas=" + (86_400 + 1) + " "), saida);
+	}
+
+	@Test
+	void csvEscapaTextoLivre() throws Exception {
+		ExportacaoTransacoesService service = criar(new JdbcTemplate(
+			new SingleConnectionDataSource("jdbc:h2:mem:exportacao;MODE=MySQL", "sa", "", true)));
+		popular(service, 3);
+
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+		service.exportar(1L, FormatoExportacao.CSV, null, null).writeTo(saida);
+		String[] linhas = saida.toString(StandardCharsets.UTF_8).split("\n");
+
+		assertEquals(4, linhas.length);
+		assertEquals("1,2024-01-01T00:00:01,RECEBIDA,0.01,'=Transferência 1,2,\"Maria, \"\"Santos\"\"\",maria@email.com",
+			linhas[1]);
+		assertEquals("2,2024-01-01T00:00:02,ENVIADA,0.02,'=Transferência 2,2,\"Maria, \"\"Santos\"\"\",maria@email.com",
+			linhas[2]);
+
+		saida.reset();
+		service.exportar(2L, FormatoExportacao.NDJSON, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 1)).writeTo(saida);
+		assertEquals("""
+			{"id":1,"dataTransacao":"2024-01-01T00:00:01","valor":0.01,"descricao":"=Transferência 1","tipoTransacao":"ENVIADA","outroUsuario":{"id":1,"nome":"Titular","email":"titular@email.com"}}
+			""", saida.toString(StandardCharsets.UTF_8).lines().findFirst().orElseThrow() + "\n");
+	}
+
+	@Test
+	void vagaVoltaQuandoORequestTerminaSemRodarOCorpo() throws Exception {
+		ExportacaoTransacoesService service = criar(new JdbcTemplate(
+			new SingleConnectionDataSource("jdbc:h2:mem:exportacao-vaga;MODE=MySQL", "sa", "", true)));
+		popular(service, 3);
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAsyncSupported(true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+		try {
+			WebAsyncManager async = WebAsyncUtils.getAsyncManager(request);
+			async.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+			// Executor que descarta a tarefa, como um corpo que nunca chega a rodar
+			async.setTaskExecutor(new SimpleAsyncTaskExecutor() {
+				@Override
+				public void execute(Runnable task) {
+				}
+			});
+
+			StreamingResponseBody corpo = service.exportar(1L, FormatoExportacao.CSV, null, null);
+			assertThrows(FilaCheiaException.class, () -> service.exportar(1L, FormatoExportacao.CSV, null, null));
+			async.startCallableProcessing(() -> {
+				corpo.writeTo(new ByteArrayOutputStream());
+				return null;
+			});
+			// Timeout ou cliente que desistiu: o container conclui o request assíncrono
+			request.getAsyncContext().complete();
+		} finally {
+			RequestContextHolder.resetRequestAttributes();
+		}
+
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+		service.exportar(1L, FormatoExportacao.CSV, null, null).writeTo(saida);
+		assertEquals(4, saida.toString(StandardCharsets.UTF_8).split("\n").length);
+	}
+
+	public static void main(String[] args) throws Exception {
+		String url = "jdbc:h2:file:" + Path.of(args[0], "exportacao")
+			+ ";MODE=MySQL;LAZY_QUERY_EXECUTION=1;CACHE_SIZE=4096";
+		ExportacaoTransacoesService service = criar(new JdbcTemplate(new SingleConnectionDataSource(url, "sa", "", true)));
+		popular(service, TRANSACOES);
+
+		exportar(service, "CSV", FormatoExportacao.CSV, null);
+		exportar(service, "NDJSON", FormatoExportacao.NDJSON, null);
+		exportar(service, "CSV 2024-01-02", FormatoExportacao.CSV, LocalDate.of(2024, 1, 2));
+	}
+
+	private static void exportar(ExportacaoTransacoesService service, String nome, FormatoExportacao formato,
+			LocalDate dia) throws Exception {
+		long[] contagem = {0, 0};
+		OutputStream contador = new OutputStream() {
+			@Override
+			public void write(int b) {
+				contagem[1]++;
+				if (b == '\n') {
+					contagem[0]++;
+				}
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+				for (int i = off; i < off + len; i++) {
+					write(b[i]);
+				}
+			}
+		};
+		long inicio = System.currentTimeMillis();
+		service.exportar(1L, formato, dia, dia).writeTo(contador);
+		Runtime runtime = Runtime.getRuntime();
+		System.out.printf("Exportação: %s linhas=%d bytes=%d tempo=%dms heap-max=%dMB%n", nome, contagem[0],
+			contagem[1], System.currentTimeMillis() - inicio, runtime.maxMemory() / (1024 * 1024));
+	}
+
+	private static ExportacaoTransacoesService criar(JdbcTemplate jdbcTemplate) {
+		ExportacaoTransacoesService service =
+			new ExportacaoTransacoesService(jdbcTemplate, new ObjectMapper(), new SimpleMeterRegistry());
+		// O H2 não aceita o fetch size negativo do streaming do MySQL
+		ReflectionTestUtils.setField(service, "fetchSize", 1_000);
+		ReflectionTestUtils.setField(service, "maximoSimultaneas", 1);
+		service.iniciar();
+		return service;
+	}
+
+	/**
+	 * Transações alternadas entre os usuários 1 e 2, uma por segundo a partir de 2024-01-01.
+	 */
+	private static void popular(ExportacaoTransacoesService service, int transacoes) {
+		JdbcTemplate jdbc = (JdbcTemplate) ReflectionTestUtils.getField(service, "jdbcTemplate");
+		jdbc.execute("CREATE TABLE usuario (id BIGINT PRIMARY KEY, nome VARCHAR(255), email VARCHAR(255))");
+		jdbc.execute("""
+			CREATE TABLE transacao (id BIGINT PRIMARY KEY, data_transacao TIMESTAMP(6) NOT NULL,
+			    valor DECIMAL(19,2) NOT NULL, id_remetente BIGINT NOT NULL, id_destinatario BIGINT NOT NULL,
+			    descricao VARCHAR(500))
+			""");
+		jdbc.execute("CREATE INDEX idx_remetente ON transacao (id_remetente, data_transacao, id)");
+		jdbc.execute("CREATE INDEX idx_destinatario ON transacao (id_destinatario, data_transacao, id)");
+		jdbc.execute("CREATE TABLE transacao_arquivo AS SELECT * FROM transacao WITH NO DATA");
+		jdbc.execute("CREATE INDEX idx_arquivo_remetente ON transacao_arquivo (id_remetente, data_transacao, id)");
+		jdbc.execute("CREATE INDEX idx_arquivo_destinatario ON transacao_arquivo (id_destinatario, data_transacao, id)");
+		jdbc.update("INSERT INTO usuario VALUES (1, 'Titular', 'titular@email.com'), (2, 'Maria, \"Santos\"', 'maria@email.com')");
+		for (int de = 1; de <= transacoes; de += 100_000) {
+			jdbc.update("""
+				INSERT INTO transacao
+				SELECT X, DATEADD('SECOND', X, TIMESTAMP '2024-01-01 00:00:00'), MOD(X, 10000) / 100.0,
+				       CASE WHEN MOD(X, 2) = 0 THEN 1 ELSE 2 END, CASE WHEN MOD(X, 2) = 0 THEN 2 ELSE 1 END,
+				       CONCAT('=Transferência ', X)
+				FROM SYSTEM_RANGE(?, ?)
+				""", de, Math.min(transacoes, de + 99_999));
+		}
+	}
+}
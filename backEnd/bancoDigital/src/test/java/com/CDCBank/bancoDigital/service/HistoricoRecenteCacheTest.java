@@ -0,0 +1,208 @@
+package com.CDCBank.bancoDigital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.CDCBank.bancoDigital.dto.projection.HistoricoTransacaoResumo;
+import com.CDCBank.bancoDigital.dto.response.HistoricoCursorDTO;
+import com.CDCBank.bancoDigital.dto.response.HistoricoTransacaoDTO;
+import com.CDCBank.bancoDigital.dto.response.TransacaoResponseDTO;
+import com.CDCBank.bancoDigital.dto.response.UsuarioResponseDTO;
+import com.CDCBank.bancoDigital.repository.TransacaoArquivoRepository;
+import com.CDCBank.bancoDigital.repository.TransacaoRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class HistoricoRecenteCacheTest {
+
+	private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+	private SimpleMeterRegistry registry;
+	private HistoricoRecenteCache cache;
+
+	@BeforeEach
+	void criar() {
+		registry = new SimpleMeterRegistry();
+		cache = new HistoricoRecenteCache(registry);
+		ReflectionTestUtils.setField(cache, "habilitado", true);
+		ReflectionTestUtils.setField(cache, "tamanho", 5);
+		ReflectionTestUtils.setField(cache, "maximoUsuarios", 3);
+		cache.iniciar();
+	}
+
+	@Test
+	void bufferCheioMantemAsMaisRecentesEmOrdem() {
+		carregar(1L, List.of(), 0);
+		// Fora de ordem, como commits concorrentes
+		for (int segundo : new int[] {3, 1, 2, 7, 5, 6, 4, 0}) {
+			cache.registrar(transacao(100 + segundo, segundo, 1L, 2L));
+		}
+		HistoricoRecenteCache.Pagina pagina = cache.primeiraPagina(1L, 5);
+
+		assertEquals(List.of(107L, 106L, 105L, 104L, 103L), pagina.itens().stream().map(HistoricoTransacaoDTO::getId).toList());
+		assertEquals(8, pagina.total());
+		assertEquals("ENVIADA", pagina.itens().get(0).getTipoTransacao());
+		assertEquals(2L, pagina.itens().get(0).getOutroUsuario().getId());
+	}
+
+	@Test
+	void destinatarioRecebeAEntradaComOTipoInverso() {
+		carregar(2L, List.of(), 0);
+		cache.registrar(transacao(1, 1, 1L, 2L));
+
+		HistoricoTransacaoDTO recebida = cache.primeiraPagina(2L, 5).itens().get(0);
+		assertEquals("RECEBIDA", recebida.getTipoTransacao());
+		assertEquals(1L, recebida.getOutroUsuario().getId());
+	}
+
+	@Test
+	void soAplicaDepoisDoCommit() {
+		carregar(1L, List.of(), 0);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			cache.registrar(transacao(1, 1, 1L, 2L));
+			assertEquals(0, cache.primeiraPagina(1L, 5).itens().size());
+
+			TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertEquals(1, cache.primeiraPagina(1L, 5).itens().size());
+	}
+
+	@Test
+	void cargaDescartadaSeHouveCommitDuranteALeitura() {
+		HistoricoRecenteCache.Carga carga = cache.iniciarCarga(1L);
+		// Commit entre a leitura no banco e a instalação: a leitura pode não ter visto a transação
+		cache.registrar(transacao(9, 9, 1L, 2L));
+		cache.concluirCarga(carga, List.of(), 0);
+		assertNull(cache.primeiraPagina(1L, 5));
+
+		carregar(1L, List.of(historico(9, 9)), 1);
+		assertEquals(1, cache.primeiraPagina(1L, 5).total());
+	}
+
+	@Test
+	void paginaMaiorQueOCarregadoSoServeComHistoricoCompleto() {
+		carregar(1L, List.of(historico(2, 2), historico(1, 1)), 2);
+		assertEquals(2, cache.primeiraPagina(1L, 5).itens().size());
+
+		carregar(2L, List.of(historico(2, 2), historico(1, 1)), 40);
+		assertNull(cache.primeiraPagina(2L, 5));
+		assertEquals(2, cache.primeiraPagina(2L, 2).itens().size());
+	}
+
+	@Test
+	void removeOUsuarioUsadoHaMaisTempo() {
+		carregar(1L, List.of(), 0);
+		carregar(2L, List.of(), 0);
+		carregar(3L, List.of(), 0);
+		cache.primeiraPagina(1L, 5);
+		carregar(4L, List.of(), 0);
+
+		assertEquals(3, cache.quantidadeUsuarios());
+		assertNotNull(cache.primeiraPagina(1L, 5));
+		assertNull(cache.primeiraPagina(2L, 5));
+	}
+
+	@Test
+	void metricasDeAcertoEMemoria() {
+		assertNull(cache.primeiraPagina(1L, 5));
+		carregar(1L, List.of(historico(1, 1)), 1);
+		cache.primeiraPagina(1L, 5);
+
+		assertEquals(0.5, registry.get("historico.recente.taxa-acerto").gauge().value());
+		assertTrue(registry.get("historico.recente.bytes-por-usuario").gauge().value() > 300);
+
+		cache.limpar();
+		assertEquals(0, registry.get("historico.recente.bytes-por-usuario").gauge().value());
+	}
+
+	@Test
+	void primeiraPaginaSemConsultasDepoisDeCarregada() {
+		TransacaoRepository transacaoRepository = mock(TransacaoRepository.class);
+		TransacaoService service = DadosTeste.transacaoService(transacaoRepository, mock(TransacaoArquivoRepository.class),
+			new TransactionTemplate(mock(PlatformTransactionManager.class)), cache, mock(IndiceBuscaTransacoes.class));
+		service.iniciar();
+		List<HistoricoTransacaoResumo> linhas = new ArrayList<>();
+		for (int i = 5; i >= 1; i--) {
+			linhas.add(resumo(i, i));
+		}
+		when(transacaoRepository.findHistorico(1L, 5)).thenReturn(linhas);
+		when(transacaoRepository.countHistorico(1L)).thenReturn(12L);
+
+		Page<HistoricoTransacaoDTO> primeira = service.obterHistoricoTransacoes(1L, 0, 3);
+		verify(transacaoRepository).findHistorico(1L, 5);
+		verify(transacaoRepository).countHistorico(1L);
+		assertEquals(12, primeira.getTotalElements());
+
+		cache.registrar(transacao(6, 6, 2L, 1L));
+		Page<HistoricoTransacaoDTO> pagina = service.obterHistoricoTransacoes(1L, 0, 3);
+		HistoricoCursorDTO cursor = service.obterHistoricoPorCursor(1L, null, 3);
+		verifyNoMoreInteractions(transacaoRepository);
+
+		assertEquals(List.of(6L, 5L, 4L), pagina.getContent().stream().map(HistoricoTransacaoDTO::getId).toList());
+		assertEquals(13, pagina.getTotalElements());
+		assertEquals(pagina.getContent(), cursor.getContent());
+		assertNotNull(cursor.getNextCursor());
+	}
+
+	private void carregar(Long usuarioId, List<HistoricoTransacaoDTO> recentes, long total) {
+		cache.concluirCarga(cache.iniciarCarga(usuarioId), recentes, total);
+	}
+
+	private static TransacaoResponseDTO transacao(long id, int segundo, Long remetente, Long destinatario) {
+		return TransacaoResponseDTO.builder()
+			.id(id)
+			.dataTransacao(BASE.plusSeconds(segundo))
+			.valor(BigDecimal.TEN)
+			.descricao("Transação " + id)
+			.remetente(UsuarioResponseDTO.builder().id(remetente).nome("Usuário " + remetente).email(remetente + "@email.com").build())
+			.destinatario(UsuarioResponseDTO.builder().id(destinatario).nome("Usuário " + destinatario).email(destinatario + "@email.com").build())
+			.build();
+	}
+
+	private static HistoricoTransacaoDTO historico(long id, int segundo) {
+		return HistoricoTransacaoDTO.builder()
+			.id(id)
+			.dataTransacao(BASE.plusSeconds(segundo))
+			.valor(BigDecimal.TEN)
+			.descricao("Transação " + id)
+			.tipoTransacao("ENVIADA")
+			.outroUsuario(UsuarioResponseDTO.builder().id(2L).nome("Usuário 2").email("2@email.com").build())
+			.build();
+	}
+
+	private static HistoricoTransacaoResumo resumo(long id, int segundo) {
+		return new HistoricoTransacaoResumo() {
+			public Long getId() { return id; }
+			public LocalDateTime getDataTransacao() { return BASE.plusSeconds(segundo); }
+			public BigDecimal getValor() { return BigDecimal.TEN; }
+			public String getDescricao() { return "Transação " + id; }
+			public String getTipoTransacao() { return "RECEBIDA"; }
+			public Long getIdOutroUsuario() { return 2L; }
+			public String getNomeOutroUsuario() { return "Usuário 2"; }
+			public String getEmailOutroUsuario() { return "2@email.com"; }
+		};
+	}
+}
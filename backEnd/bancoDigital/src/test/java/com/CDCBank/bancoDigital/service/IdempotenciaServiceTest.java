@@ -0,0 +1,122 @@
+package com.CDCBank.bancoDigital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.CDCBank.bancoDigital.dto.request.TransacaoRequestDTO;
+import com.CDCBank.bancoDigital.dto.response.TransacaoResponseDTO;
+import com.CDCBank.bancoDigital.exception.ChaveIdempotenciaReutilizadaException;
+import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+
+// Sem a transação do teste: a chave só existe depois do commit da transferência
+@DataJpaTest(properties = {
+	"teste.banco=idempotencia",
+	"transacao.idempotencia.ttl=1h"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(ServicosTransferencia.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotenciaServiceTest {
+
+	@Autowired
+	private TransacaoService transacaoService;
+
+	@Autowired
+	private IdempotenciaService idempotenciaService;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Long remetente;
+	private Long destinatario;
+
+	@BeforeEach
+	void criarContas() {
+		remetente = DadosTeste.conta(usuarioRepository, "remetente", 10_000);
+		destinatario = DadosTeste.conta(usuarioRepository, "destinatario", 0);
+	}
+
+	@Test
+	void mesmaChaveEMesmoPedidoTransfereUmaVez() {
+		TransacaoResponseDTO primeira = transacaoService.realizarTransacao(remetente, pedido(destinatario, "10.00"), "pix-1");
+		TransacaoResponseDTO repetida = transacaoService.realizarTransacao(remetente, pedido(destinatario, "10.0"), "pix-1");
+		esvaziarCache();
+		TransacaoResponseDTO doBanco = transacaoService.realizarTransacao(remetente, pedido(destinatario, "10"), "pix-1");
+
+		assertEquals(primeira.getId(), repetida.getId());
+		assertEquals(primeira.getId(), doBanco.getId());
+		assertEquals(9_000, saldo(remetente));
+		assertEquals(1_000, saldo(destinatario));
+	}
+
+	@Test
+	void mesmaChaveComOutroPedidoERecusada() {
+		Long outro = DadosTeste.conta(usuarioRepository, "outro", 0);
+		transacaoService.realizarTransacao(remetente, pedido(destinatario, "10.00"), "pix-2");
+
+		// Pela resposta em cache e depois pela linha gravada
+		assertThrows(ChaveIdempotenciaReutilizadaException.class,
+			() -> transacaoService.realizarTransacao(remetente, pedido(destinatario, "99.00"), "pix-2"));
+		esvaziarCache();
+		assertThrows(ChaveIdempotenciaReutilizadaException.class,
+			() -> transacaoService.realizarTransacao(remetente, pedido(outro, "10.00"), "pix-2"));
+		TransacaoRequestDTO outraDescricao = pedido(destinatario, "10.00");
+		outraDescricao.setDescricao("Outra coisa");
+		assertThrows(ChaveIdempotenciaReutilizadaException.class,
+			() -> transacaoService.realizarTransacao(remetente, outraDescricao, "pix-2"));
+
+		assertEquals(9_000, saldo(remetente));
+		assertEquals(0, saldo(outro));
+	}
+
+	@Test
+	void chaveExpiradaEhTratadaComoNova() {
+		TransacaoResponseDTO primeira = transacaoService.realizarTransacao(remetente, pedido(destinatario, "10.00"), "pix-3");
+		// A limpeza ainda não passou: a linha expirada continua na tabela
+		jdbcTemplate.update("UPDATE chave_idempotencia SET criada_em = DATEADD('HOUR', -2, criada_em) WHERE id_usuario = ?",
+			remetente);
+		esvaziarCache();
+
+		TransacaoResponseDTO nova = transacaoService.realizarTransacao(remetente, pedido(destinatario, "25.00"), "pix-3");
+
+		assertNotEquals(primeira.getId(), nova.getId());
+		assertEquals(6_500, saldo(remetente));
+		assertEquals(1, jdbcTemplate.queryForObject(
+			"SELECT COUNT(*) FROM chave_idempotencia WHERE id_usuario = ? AND chave = 'pix-3'", Integer.class, remetente));
+	}
+
+	private void esvaziarCache() {
+		ReflectionTestUtils.invokeMethod(idempotenciaService, "iniciar");
+	}
+
+	private TransacaoRequestDTO pedido(Long idDestinatario, String valor) {
+		TransacaoRequestDTO request = new TransacaoRequestDTO();
+		request.setIdDestinatario(idDestinatario);
+		request.setValor(new BigDecimal(valor));
+		request.setDescricao("Pix");
+		return request;
+	}
+
+	private long saldo(Long id) {
+		return usuarioRepository.findById(id).orElseThrow().getSaldoCentavos();
+	}
+}
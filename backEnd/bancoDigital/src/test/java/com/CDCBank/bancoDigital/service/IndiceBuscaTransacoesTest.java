@@ -0,0 +1,162 @@
+package com.CDCBank.bancoDigital.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.CDCBank.bancoDigital.dto.response.HistoricoCursorDTO;
+import com.CDCBank.bancoDigital.dto.response.HistoricoTransacaoDTO;
+import com.CDCBank.bancoDigital.dto.response.TransacaoResponseDTO;
+import com.CDCBank.bancoDigital.dto.response.UsuarioResponseDTO;
+import com.CDCBank.bancoDigital.models.Transacao;
+import com.CDCBank.bancoDigital.models.Usuario;
+import com.CDCBank.bancoDigital.repository.TransacaoArquivoRepository;
+import com.CDCBank.bancoDigital.repository.TransacaoRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest(properties = "teste.banco=busca")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class IndiceBuscaTransacoesTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private TransacaoRepository transacaoRepository;
+
+	@Autowired
+	private TransacaoArquivoRepository transacaoArquivoRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private IndiceBuscaTransacoes indice;
+	private TransacaoService transacaoService;
+	private Usuario ana;
+	private Usuario bruno;
+	private Usuario carla;
+
+	@BeforeEach
+	void criar() {
+		indice = new IndiceBuscaTransacoes(jdbcTemplate, new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(indice, "habilitado", true);
+		// O H2 não aceita o fetch size negativo do streaming do MySQL
+		ReflectionTestUtils.setField(indice, "fetchSize", 1_000);
+		indice.iniciar();
+		transacaoService = DadosTeste.transacaoService(transacaoRepository, transacaoArquivoRepository,
+			mock(TransactionTemplate.class), mock(HistoricoRecenteCache.class), indice);
+
+		ana = DadosTeste.usuario(entityManager, "ana");
+		bruno = DadosTeste.usuario(entityManager, "bruno");
+		carla = DadosTeste.usuario(entityManager, "carla");
+	}
+
+	@Test
+	void buscaPorPrefixoIgnorandoAcentosEMaiusculas() {
+		Transacao aluguel = DadosTeste.transacao(entityManager, ana, bruno, 1_000, null, "Aluguel de JANEIRO");
+		Transacao agua = DadosTeste.transacao(entityManager, ana, bruno, 1_000, null, "Conta de água");
+		Transacao mercado = DadosTeste.transacao(entityManager, bruno, ana, 1_000, null, "Mercado - janta de sábado");
+		DadosTeste.transacao(entityManager, bruno, carla, 1_000, null, "Aluguel da carla");
+		indice.reconstruir();
+
+		assertArrayEquals(new long[] {aluguel.getId()}, indice.buscar(ana.getId(), "alug", Long.MAX_VALUE, 10));
+		assertArrayEquals(new long[] {agua.getId()}, indice.buscar(ana.getId(), "AGUA", Long.MAX_VALUE, 10));
+		// "jan" casa com "janeiro" e com "janta"; "sab" só com "sábado"
+		assertArrayEquals(new long[] {mercado.getId(), aluguel.getId()},
+			indice.buscar(ana.getId(), "jan", Long.MAX_VALUE, 10));
+		assertArrayEquals(new long[] {mercado.getId()}, indice.buscar(ana.getId(), "jan sab", Long.MAX_VALUE, 10));
+		// Transações de outros usuários não aparecem
+		assertEquals(0, indice.buscar(carla.getId(), "janeiro", Long.MAX_VALUE, 10).length);
+		assertThrows(IllegalArgumentException.class, () -> indice.buscar(ana.getId(), "a -", Long.MAX_VALUE, 10));
+	}
+
+	@Test
+	void paginasPorCursorCobremTodosOsResultados() {
+		List<Long> esperado = new ArrayList<>();
+		for (int i = 0; i < 25; i++) {
+			Transacao transacao = DadosTeste.transacao(entityManager, i % 2 == 0 ? ana : bruno, i % 2 == 0 ? bruno : ana,
+				1_000, null, "Pix mensalidade " + i);
+			esperado.add(0, transacao.getId());
+		}
+		DadosTeste.transacao(entityManager, ana, carla, 1_000, null, "Outra coisa");
+		indice.reconstruir();
+
+		List<Long> lidos = new ArrayList<>();
+		String cursor = null;
+		do {
+			HistoricoCursorDTO pagina = transacaoService.buscarTransacoes(ana.getId(), "mensal", cursor, 10);
+			pagina.getContent().stream().map(HistoricoTransacaoDTO::getId).forEach(lidos::add);
+			cursor = pagina.getNextCursor();
+		} while (cursor != null);
+
+		assertEquals(esperado, lidos);
+		HistoricoTransacaoDTO primeira = transacaoService.buscarTransacoes(ana.getId(), "mensal", null, 1)
+			.getContent().get(0);
+		assertEquals("ENVIADA", primeira.getTipoTransacao());
+		assertEquals(bruno.getId(), primeira.getOutroUsuario().getId());
+	}
+
+	@Test
+	void novasTransacoesEntramDepoisDoCommitSemDuplicar() {
+		DadosTeste.transacao(entityManager, ana, bruno, 1_000, null, "Presente");
+		indice.reconstruir();
+		long postagens = indice.estatisticas().getPostagens();
+
+		Transacao nova = DadosTeste.transacao(entityManager, carla, ana, 1_000, null, "Presente de aniversário");
+		// O teste roda numa transação: a inclusão espera o commit
+		int registradas = TransactionSynchronizationManager.getSynchronizations().size();
+		indice.registrar(resposta(nova));
+		assertEquals(1, indice.buscar(ana.getId(), "pres", Long.MAX_VALUE, 10).length);
+		List<TransactionSynchronization> sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+		sincronizacoes.subList(registradas, sincronizacoes.size()).forEach(TransactionSynchronization::afterCommit);
+		assertArrayEquals(new long[] {nova.getId()}, indice.buscar(carla.getId(), "aniv", Long.MAX_VALUE, 10));
+		assertEquals(2, indice.buscar(ana.getId(), "pres", Long.MAX_VALUE, 10).length);
+
+		// A mesma transação vinda de novo (lida pela reconstrução e registrada) não muda o índice
+		long depois = indice.estatisticas().getPostagens();
+		TransactionSynchronizationManager.getSynchronizations().get(registradas).afterCommit();
+		assertEquals(depois, indice.estatisticas().getPostagens());
+		assertEquals(postagens + 2 * 3, depois);
+	}
+
+	@Test
+	void indiceNaoConstruidoRecusaBusca() {
+		assertThrows(IllegalStateException.class, () -> indice.buscar(ana.getId(), "pix", Long.MAX_VALUE, 10));
+
+		indice.reconstruir();
+		HistoricoCursorDTO vazio = transacaoService.buscarTransacoes(ana.getId(), "pix", null, 10);
+		assertEquals(0, vazio.getContent().size());
+		assertNull(vazio.getNextCursor());
+		assertNotNull(indice.estatisticas().getReconstruidoEm());
+	}
+
+	private TransacaoResponseDTO resposta(Transacao transacao) {
+		return TransacaoResponseDTO.builder()
+			.id(transacao.getId())
+			.descricao(transacao.getDescricao())
+			.remetente(UsuarioResponseDTO.builder().id(transacao.getRemetente().getId()).build())
+			.destinatario(UsuarioResponseDTO.builder().id(transacao.getDestinatario().getId()).build())
+			.build();
+	}
+}
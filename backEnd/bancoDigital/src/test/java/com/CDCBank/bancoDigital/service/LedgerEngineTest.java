@@ -0,0 +1,463 @@
+package com.CDCBank.bancoDigital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LedgerEngineTest {
+
+	private static final String SQL_SALDO = "SELECT saldo_centavos FROM usuario WHERE id = ?";
+	private static final String SQL_ALTERAR_SALDO =
+		"UPDATE usuario SET saldo_centavos = saldo_centavos + ?, versao = versao + 1 WHERE id = ? AND saldo_centavos + ? >= 0";
+	private static final String SALDO_INSUFICIENTE = "Saldo insuficiente do remetente para realizar a transação";
+
+	private final Transacoes transacoes = new Transacoes();
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	// Quem chama o engine fica bloqueado até o commit: uma thread por chamada
+	private final ExecutorService chamadores = Executors.newCachedThreadPool();
+	private LedgerEngine engine;
+
+	@AfterEach
+	void parar() {
+		chamadores.shutdownNow();
+		if (engine != null) {
+			engine.parar();
+		}
+	}
+
+	@Test
+	void operacoesDeCadaContaNaOrdemDeChegadaUmaPorVezNoShard() throws Exception {
+		engine = engine(4, 16);
+		Map<Long, List<Integer>> ordemPorConta = new ConcurrentHashMap<>();
+		Map<Long, String> threadPorConta = new ConcurrentHashMap<>();
+		Map<String, AtomicInteger> emExecucao = new ConcurrentHashMap<>();
+		List<String> erros = new CopyOnWriteArrayList<>();
+
+		List<Thread> produtores = new ArrayList<>();
+		for (long conta = 1; conta <= 12; conta++) {
+			long idConta = conta;
+			ordemPorConta.put(idConta, new CopyOnWriteArrayList<>());
+			produtores.add(Thread.ofPlatform().start(() -> {
+				for (int i = 0; i < 200; i++) {
+					int sequencia = i;
+					engine.executar(idConta, List.of(idConta), () -> {
+						String thread = Thread.currentThread().getName();
+						AtomicInteger ativos = emExecucao.computeIfAbsent(thread, t -> new AtomicInteger());
+						if (ativos.incrementAndGet() != 1) {
+							erros.add("duas operações ao mesmo tempo em " + thread);
+						}
+						if (!thread.equals(threadPorConta.computeIfAbsent(idConta, c -> thread))) {
+							erros.add("conta " + idConta + " em mais de um shard");
+						}
+						ordemPorConta.get(idConta).add(sequencia);
+						ativos.decrementAndGet();
+						return sequencia;
+					});
+				}
+			}));
+		}
+		for (Thread produtor : produtores) {
+			produtor.join();
+		}
+
+		assertEquals(List.of(), erros);
+		for (List<Integer> ordem : ordemPorConta.values()) {
+			for (int i = 0; i < 200; i++) {
+				assertEquals(i, ordem.get(i));
+			}
+		}
+		// 12 contas em 4 shards: as threads escritoras foram compartilhadas
+		assertTrue(emExecucao.size() <= 4);
+	}
+
+	@Test
+	void operacoesEnfileiradasSaoConfirmadasNumUnicoCommit() throws Exception {
+		engine = engine(1, 64);
+		CountDownLatch liberar = new CountDownLatch(1);
+		CompletableFuture<Integer> bloqueio = bloquearShard(liberar);
+
+		List<CompletableFuture<Integer>> resultados = new ArrayList<>();
+		for (int i = 1; i <= 10; i++) {
+			int valor = i;
+			resultados.add(enfileirar(1L, () -> valor, i));
+		}
+		liberar.countDown();
+
+		assertEquals(0, bloqueio.get(5, TimeUnit.SECONDS));
+		for (int i = 0; i < 10; i++) {
+			assertEquals(i + 1, resultados.get(i).get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(2, transacoes.commits.get());
+		assertEquals(0, transacoes.rollbacks.get());
+	}
+
+	@Test
+	void falhaDeUmaOperacaoSoDesfazElaNoLote() throws Exception {
+		engine = engine(1, 64);
+		CountDownLatch liberar = new CountDownLatch(1);
+		CompletableFuture<Integer> bloqueio = bloquearShard(liberar);
+		AtomicInteger execucoesPrimeira = new AtomicInteger();
+		AtomicInteger execucoesUltima = new AtomicInteger();
+
+		CompletableFuture<Integer> primeira = enfileirar(1L, () -> execucoesPrimeira.incrementAndGet(), 1);
+		CompletableFuture<Integer> falha = enfileirar(1L, () -> {
+			throw new RuntimeException("Saldo insuficiente do remetente para realizar a transação");
+		}, 2);
+		CompletableFuture<Integer> ultima = enfileirar(1L, () -> 10 + execucoesUltima.incrementAndGet(), 3);
+		liberar.countDown();
+
+		bloqueio.get(5, TimeUnit.SECONDS);
+		assertEquals(2, primeira.get(5, TimeUnit.SECONDS));
+		assertEquals(11, ultima.get(5, TimeUnit.SECONDS));
+		Exception erro = assertThrows(Exception.class, () -> falha.get(5, TimeUnit.SECONDS));
+		assertTrue(erro.getCause().getMessage().startsWith("Saldo insuficiente"));
+
+		// O lote desfeito roda de novo sem a operação que falhou: 2 commits e 1 rollback
+		assertEquals(2, transacoes.commits.get());
+		assertEquals(1, transacoes.rollbacks.get());
+		assertEquals(1, execucoesUltima.get());
+	}
+
+	@Test
+	void loteBloqueiaTodasAsContasEmOrdemCrescente() throws Exception {
+		engine = engine(1, 64);
+		CountDownLatch liberar = new CountDownLatch(1);
+		CompletableFuture<Integer> bloqueio = bloquearShard(liberar);
+
+		CompletableFuture<Integer> primeira = enfileirar(1L, List.of(1L, 9L), () -> 1, 1);
+		CompletableFuture<Integer> segunda = enfileirar(1L, List.of(1L, 5L), () -> 2, 2);
+		liberar.countDown();
+
+		bloqueio.get(5, TimeUnit.SECONDS);
+		assertEquals(1, primeira.get(5, TimeUnit.SECONDS));
+		assertEquals(2, segunda.get(5, TimeUnit.SECONDS));
+		verify(jdbcTemplate).queryForList(
+			eq("SELECT id FROM usuario WHERE id IN (?, ?, ?) ORDER BY id FOR UPDATE"), eq(Long.class), eq(1L), eq(5L), eq(9L));
+	}
+
+	@Test
+	void transferenciasDoLoteGravamUmUpdatePorConta() throws Exception {
+		engine = engine(1, 64);
+		when(jdbcTemplate.queryForList(SQL_SALDO, Long.class, 1L)).thenReturn(List.of(10_000L));
+		when(jdbcTemplate.update(eq(SQL_ALTERAR_SALDO), any(), any(), any())).thenReturn(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		CompletableFuture<Integer> bloqueio = bloquearShard(liberar);
+
+		List<CompletableFuture<Integer>> resultados = new ArrayList<>();
+		for (int i = 1; i <= 3; i++) {
+			int valor = i;
+			resultados.add(enfileirarTransferencia(1L, 100, Map.of(2L, 100L), () -> valor, i));
+		}
+		resultados.add(enfileirarTransferencia(1L, 50, Map.of(3L, 50L), () -> 4, 4));
+		liberar.countDown();
+
+		bloqueio.get(5, TimeUnit.SECONDS);
+		for (int i = 0; i < 4; i++) {
+			assertEquals(i + 1, resultados.get(i).get(5, TimeUnit.SECONDS));
+		}
+		verify(jdbcTemplate).update(SQL_ALTERAR_SALDO, -350L, 1L, -350L);
+		verify(jdbcTemplate).update(SQL_ALTERAR_SALDO, 300L, 2L, 300L);
+		verify(jdbcTemplate).update(SQL_ALTERAR_SALDO, 50L, 3L, 50L);
+		verify(jdbcTemplate).queryForList(SQL_SALDO, Long.class, 1L);
+		assertEquals(2, transacoes.commits.get());
+	}
+
+	@Test
+	void reservaSemSaldoRecusaSemAbrirTransacao() {
+		engine = engine(1, 64);
+		// Na releitura o banco já tem o débito confirmado
+		when(jdbcTemplate.queryForList(SQL_SALDO, Long.class, 1L)).thenReturn(List.of(150L), List.of(50L));
+		when(jdbcTemplate.update(eq(SQL_ALTERAR_SALDO), any(), any(), any())).thenReturn(1);
+
+		assertEquals(1, transferir(1L, 100, Map.of(2L, 100L)));
+		RuntimeException recusa = assertThrows(RuntimeException.class, () -> transferir(1L, 100, Map.of(2L, 100L)));
+
+		assertEquals(SALDO_INSUFICIENTE, recusa.getMessage());
+		// A memória (50) não cobria o débito: relida uma vez antes da recusa, sem transação
+		verify(jdbcTemplate, times(2)).queryForList(SQL_SALDO, Long.class, 1L);
+		assertEquals(1, transacoes.commits.get());
+		assertEquals(0, transacoes.rollbacks.get());
+		assertEquals(2, registry.get("ledger.saldo.leituras").counter().count());
+	}
+
+	@Test
+	void creditoConfirmadoEmOutroShardChegaAMemoriaDoDono() {
+		engine = engine(2, 64);
+		long a = 1;
+		long outra = 2;
+		while (shard(outra) == shard(a)) {
+			outra++;
+		}
+		long b = outra;
+		when(jdbcTemplate.queryForList(SQL_SALDO, Long.class, a)).thenReturn(List.of(1_000L));
+		when(jdbcTemplate.queryForList(SQL_SALDO, Long.class, b)).thenReturn(List.of(0L));
+		when(jdbcTemplate.update(eq(SQL_ALTERAR_SALDO), any(), any(), any())).thenReturn(1);
+
+		// Carrega b na memória do shard dele com saldo 0
+		assertThrows(RuntimeException.class, () -> transferir(b, 100, Map.of(a, 100L)));
+		verify(jdbcTemplate, times(2)).queryForList(SQL_SALDO, Long.class, b);
+
+		assertEquals(1, transferir(a, 600, Map.of(b, 600L)));
+		assertEquals(1, transferir(b, 500, Map.of(a, 500L)));
+
+		// O shard de b debitou pelo crédito avisado pelo shard de a, sem reler o banco
+		verify(jdbcTemplate, times(2)).queryForList(SQL_SALDO, Long.class, b);
+		verify(jdbcTemplate).update(SQL_ALTERAR_SALDO, -500L, b, -500L);
+	}
+
+	@Test
+	void debitoQueNaoCabeNoBancoReleAContaEReservaDeNovo() {
+		engine = engine(1, 64);
+		// Memória com 1000; outro escritor deixou 50 no banco
+		when(jdbcTemplate.queryForList(SQL_SALDO, Long.class, 1L)).thenReturn(List.of(1_000L), List.of(50L));
+		when(jdbcTemplate.update(SQL_ALTERAR_SALDO, -100L, 1L, -100L)).thenReturn(0);
+		AtomicInteger registros = new AtomicInteger();
+
+		RuntimeException recusa = assertThrows(RuntimeException.class,
+			() -> engine.transferir(transferencia(1L, 100, Map.of(2L, 100L)), registros::incrementAndGet));
+
+		assertEquals(SALDO_INSUFICIENTE, recusa.getMessage());
+		assertEquals(0, registros.get());
+		verify(jdbcTemplate, never()).update(SQL_ALTERAR_SALDO, 100L, 2L, 100L);
+		assertEquals(0, transacoes.commits.get());
+		assertEquals(1, transacoes.rollbacks.get());
+	}
+
+	@Test
+	void creditoParaContaInexistenteRecusaSoAsTransferenciasParaEla() throws Exception {
+		engine = engine(1, 64);
+		when(jdbcTemplate.queryForList(SQL_SALDO, Long.class, 1L)).thenReturn(List.of(1_000L));
+		when(jdbcTemplate.update(eq(SQL_ALTERAR_SALDO), any(), any(), any())).thenReturn(1);
+		when(jdbcTemplate.update(SQL_ALTERAR_SALDO, 200L, 9L, 200L)).thenReturn(0);
+		CountDownLatch liberar = new CountDownLatch(1);
+		CompletableFuture<Integer> bloqueio = bloquearShard(liberar);
+
+		CompletableFuture<Integer> valida = enfileirarTransferencia(1L, 100, Map.of(2L, 100L), () -> 1, 1);
+		CompletableFuture<Integer> inexistente = enfileirarTransferencia(1L, 200, Map.of(9L, 200L), () -> 2, 2);
+		liberar.countDown();
+
+		bloqueio.get(5, TimeUnit.SECONDS);
+		assertEquals(1, valida.get(5, TimeUnit.SECONDS));
+		Exception erro = assertThrows(Exception.class, () -> inexistente.get(5, TimeUnit.SECONDS));
+		assertEquals("Usuário destinatário não encontrado", erro.getCause().getMessage());
+		verify(jdbcTemplate).update(SQL_ALTERAR_SALDO, -100L, 1L, -100L);
+	}
+
+	@Test
+	void conflitoDeLockRepeteOLote() {
+		engine = engine(2, 64);
+		AtomicInteger tentativas = new AtomicInteger();
+
+		int resultado = engine.executar(7L, List.of(7L), () -> {
+			if (tentativas.incrementAndGet() < 3) {
+				throw new PessimisticLockingFailureException("Deadlock found when trying to get lock");
+			}
+			return 42;
+		});
+
+		assertEquals(42, resultado);
+		assertEquals(1, transacoes.commits.get());
+		assertEquals(2, transacoes.rollbacks.get());
+	}
+
+	@Test
+	void quantidadeDeShardsPrecisaSerPositiva() {
+		LedgerEngine invalido = new LedgerEngine(registry, new TransactionTemplate(transacoes), jdbcTemplate);
+		ReflectionTestUtils.setField(invalido, "habilitado", true);
+		ReflectionTestUtils.setField(invalido, "quantidadeShards", 0);
+		ReflectionTestUtils.setField(invalido, "capacidadeFila", 16);
+		ReflectionTestUtils.setField(invalido, "tamanhoLote", 16);
+		ReflectionTestUtils.setField(invalido, "contasPorShard", 16);
+
+		assertThrows(IllegalStateException.class, invalido::iniciar);
+	}
+
+	@Test
+	void retentativaOtimistaNaoEsperaNaThreadDoShard() throws Exception {
+		engine = engine(1, 16);
+		// Um backoff que estouraria o timeout do teste se a thread do shard dormisse nele
+		RetentativaOtimista retentativa = new RetentativaOtimista(registry, engine);
+		ReflectionTestUtils.setField(retentativa, "tentativas", 5);
+		ReflectionTestUtils.setField(retentativa, "backoffInicial", Duration.ofSeconds(30));
+		ReflectionTestUtils.setField(retentativa, "backoffMaximo", Duration.ofSeconds(30));
+		ReflectionTestUtils.setField(retentativa, "contasMonitoradas", 10);
+		AtomicInteger execucoes = new AtomicInteger();
+
+		CompletableFuture<Integer> resultado = enviar(1L, () -> retentativa.executar("teste", 1L, () -> {
+			if (execucoes.incrementAndGet() == 1) {
+				throw new ObjectOptimisticLockingFailureException(Object.class, 1L);
+			}
+			return execucoes.get();
+		}));
+
+		// O conflito volta para o engine, que repete o lote
+		assertEquals(2, resultado.get(5, TimeUnit.SECONDS));
+		assertEquals(1, transacoes.rollbacks.get());
+		assertEquals(1, registry.get("usuario.otimista.conflitos").counter().count());
+		assertEquals(0, registry.get("usuario.otimista.retentativas").counter().count());
+
+		// Fora do shard a espera continua valendo
+		ReflectionTestUtils.setField(retentativa, "backoffInicial", Duration.ofMillis(1));
+		ReflectionTestUtils.setField(retentativa, "backoffMaximo", Duration.ofMillis(1));
+		execucoes.set(0);
+		assertEquals(2, retentativa.executar("teste", 1L, () -> {
+			if (execucoes.incrementAndGet() == 1) {
+				throw new ObjectOptimisticLockingFailureException(Object.class, 1L);
+			}
+			return execucoes.get();
+		}));
+		assertEquals(1, registry.get("usuario.otimista.retentativas").counter().count());
+	}
+
+	private int shard(long idConta) {
+		return ReflectionTestUtils.invokeMethod(engine, "indiceShard", idConta);
+	}
+
+	private int transferir(Long idRemetente, long debito, Map<Long, Long> creditos) {
+		return engine.transferir(transferencia(idRemetente, debito, creditos), () -> 1);
+	}
+
+	private static LedgerEngine.Transferencia transferencia(Long idRemetente, long debito, Map<Long, Long> creditos) {
+		return new LedgerEngine.Transferencia(idRemetente, debito, creditos, SALDO_INSUFICIENTE);
+	}
+
+	private <T> CompletableFuture<T> enfileirarTransferencia(Long idRemetente, long debito, Map<Long, Long> creditos,
+			Supplier<T> registro, int profundidade) {
+		CompletableFuture<T> resultado = CompletableFuture.supplyAsync(
+			() -> engine.transferir(transferencia(idRemetente, debito, creditos), registro), chamadores);
+		aguardarProfundidade(profundidade);
+		return resultado;
+	}
+
+	private LedgerEngine engine(int shards, int tamanhoLote) {
+		LedgerEngine novo = new LedgerEngine(registry, new TransactionTemplate(transacoes), jdbcTemplate);
+		ReflectionTestUtils.setField(novo, "habilitado", true);
+		ReflectionTestUtils.setField(novo, "quantidadeShards", shards);
+		ReflectionTestUtils.setField(novo, "capacidadeFila", 1024);
+		ReflectionTestUtils.setField(novo, "tamanhoLote", tamanhoLote);
+		ReflectionTestUtils.setField(novo, "timeoutEnfileiramentoMs", 5_000L);
+		ReflectionTestUtils.setField(novo, "contasPorShard", 1024);
+		novo.iniciar();
+		return novo;
+	}
+
+	/**
+	 * Ocupa a thread do shard 1 até {@code liberar}; o que chegar nesse meio tempo fica na fila.
+	 */
+	private CompletableFuture<Integer> bloquearShard(CountDownLatch liberar) throws InterruptedException {
+		CountDownLatch comecou = new CountDownLatch(1);
+		CompletableFuture<Integer> bloqueio = enviar(1L, () -> {
+			comecou.countDown();
+			return aguardar(liberar, 0);
+		});
+		assertTrue(comecou.await(5, TimeUnit.SECONDS));
+		return bloqueio;
+	}
+
+	private <T> CompletableFuture<T> enviar(Long idConta, Supplier<T> operacao) {
+		return enviar(idConta, List.of(idConta), operacao);
+	}
+
+	private <T> CompletableFuture<T> enviar(Long idConta, Collection<Long> contas, Supplier<T> operacao) {
+		return CompletableFuture.supplyAsync(() -> engine.executar(idConta, contas, operacao), chamadores);
+	}
+
+	/**
+	 * Envia e espera a operação entrar na fila, para que as seguintes fiquem atrás dela.
+	 */
+	private <T> CompletableFuture<T> enfileirar(Long idConta, Supplier<T> operacao, int profundidade) {
+		return enfileirar(idConta, List.of(idConta), operacao, profundidade);
+	}
+
+	private <T> CompletableFuture<T> enfileirar(Long idConta, Collection<Long> contas, Supplier<T> operacao,
+			int profundidade) {
+		CompletableFuture<T> resultado = enviar(idConta, contas, operacao);
+		aguardarProfundidade(profundidade);
+		return resultado;
+	}
+
+	private void aguardarProfundidade(int profundidade) {
+		long limite = System.currentTimeMillis() + 5_000;
+		while (registry.get("ledger.fila.profundidade").gauge().value() < profundidade) {
+			assertTrue(System.currentTimeMillis() < limite, "operação não entrou na fila");
+			Thread.onSpinWait();
+		}
+	}
+
+	private static int aguardar(CountDownLatch liberar, int valor) {
+		try {
+			assertTrue(liberar.await(5, TimeUnit.SECONDS));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return valor;
+	}
+
+	/**
+	 * Gerenciador de transações sem banco que só conta commits e rollbacks.
+	 */
+	private static final class Transacoes extends AbstractPlatformTransactionManager {
+
+		final AtomicInteger commits = new AtomicInteger();
+		final AtomicInteger rollbacks = new AtomicInteger();
+
+		@Override
+		protected Object doGetTransaction() {
+			return new Object();
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+			commits.incrementAndGet();
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+			rollbacks.incrementAndGet();
+		}
+
+		@Override
+		protected void doSetRollbackOnly(DefaultTransactionStatus status) {
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package com.CDCBank.bancoDigital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.CDCBank.bancoDigital.dto.request.TransacaoRequestDTO;
+import com.CDCBank.bancoDigital.dto.response.ReconstrucaoSaldosDTO;
+import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+
+// Snapshots a cada 5 lançamentos e faixas de 2 contas, para que a reconstrução atravesse
+// vários snapshots e rode em paralelo
+@DataJpaTest(properties = {
+	"teste.banco=livro-razao",
+	"transacao.livro-razao.lancamentos-por-snapshot=5",
+	"transacao.livro-razao.reconstrucao.paralelismo=3",
+	"transacao.livro-razao.reconstrucao.contas-por-faixa=2"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({ServicosTransferencia.class, ReconstrucaoSaldosService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LivroRazaoServiceTest {
+
+	private static final int CONTAS = 7;
+	private static final long SALDO_INICIAL = 100_000;
+
+	@Autowired
+	private TransacaoService transacaoService;
+
+	@Autowired
+	private LivroRazaoService livroRazaoService;
+
+	@Autowired
+	private ReconstrucaoSaldosService reconstrucaoSaldosService;
+
+	@Autowired
+	private SaldoDistribuidoService saldoDistribuidoService;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void lancamentosFechamESnapshotsReproduzemOsSaldos() {
+		List<Long> contas = new ArrayList<>();
+		for (int i = 0; i < CONTAS; i++) {
+			contas.add(criar("razao" + i));
+		}
+		// Uma conta com faixas, para que o saldo comparado inclua sub_saldo
+		transactionTemplate.executeWithoutResult(s -> saldoDistribuidoService.ativar(contas.get(0)));
+
+		SplittableRandom random = new SplittableRandom(7);
+		ModoTransacao[] modos = ModoTransacao.values();
+		for (int i = 0; i < 300; i++) {
+			ReflectionTestUtils.setField(transacaoService, "modo", modos[i % modos.length]);
+			Long remetente = contas.get(random.nextInt(CONTAS));
+			Long destinatario = contas.get((contas.indexOf(remetente) + 1 + random.nextInt(CONTAS - 1)) % CONTAS);
+			BigDecimal valor = BigDecimal.valueOf(random.nextLong(1, 5_000), 2);
+			try {
+				if (i % 50 == 49) {
+					transacaoService.realizarLote(remetente, List.of(pedido(destinatario, valor), pedido(contas.get(0), valor)));
+				} else {
+					transacaoService.realizarTransacao(remetente, pedido(destinatario, valor));
+				}
+			} catch (RuntimeException e) {
+				// Saldo insuficiente: nada foi lançado
+			}
+			if (i % 60 == 59) {
+				livroRazaoService.gerarSnapshots();
+			}
+		}
+
+		// Partidas dobradas: cada transação tem um débito e um crédito de mesmo valor
+		assertEquals(List.of(), jdbcTemplate.queryForList("""
+			SELECT id_transacao FROM lancamento
+			GROUP BY id_transacao
+			HAVING COUNT(*) <> 2 OR SUM(valor_centavos) <> 0
+			   OR SUM(CASE WHEN tipo = 'DEBITO' AND valor_centavos < 0 THEN 1 ELSE 0 END) <> 1
+			""", Long.class));
+		assertEquals(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transacao", Long.class) * 2,
+			jdbcTemplate.queryForObject("SELECT COUNT(*) FROM lancamento", Long.class));
+		assertTrue(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM snapshot_saldo WHERE abertura = false", Long.class) > 0);
+
+		// Último snapshot mais os lançamentos seguintes: o saldo de usuario e faixas
+		long total = 0;
+		for (Long conta : contas) {
+			long armazenado = saldoDistribuidoService.saldoTotalCentavos(usuarioRepository.findById(conta).orElseThrow());
+			assertEquals(armazenado, livroRazaoService.saldoCentavos(conta), "conta " + conta);
+			total += armazenado;
+		}
+		assertEquals(SALDO_INICIAL * CONTAS, total);
+
+		ReconstrucaoSaldosDTO semDivergencia = reconstrucaoSaldosService.reconstruir(false);
+		assertEquals(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usuario", Long.class),
+			semDivergencia.getContasVerificadas());
+		assertEquals(List.of(), semDivergencia.getDivergencias());
+
+		// Um saldo alterado por fora do razão é encontrado e volta ao valor dos lançamentos
+		Long adulterada = contas.get(3);
+		long correto = livroRazaoService.saldoCentavos(adulterada);
+		jdbcTemplate.update("UPDATE usuario SET saldo_centavos = saldo_centavos + 1 WHERE id = ?", adulterada);
+		ReconstrucaoSaldosDTO corrigida = reconstrucaoSaldosService.reconstruir(true);
+		assertEquals(1, corrigida.getDivergencias().size());
+		assertEquals(adulterada, corrigida.getDivergencias().get(0).getIdUsuario());
+		assertEquals(1, corrigida.getContasCorrigidas());
+		assertEquals(correto, usuarioRepository.findById(adulterada).orElseThrow().getSaldoCentavos());
+		assertEquals(List.of(), reconstrucaoSaldosService.reconstruir(false).getDivergencias());
+	}
+
+	@Test
+	void idsEsparsosNaoGeramFaixasVazias() {
+		// Como ids Snowflake: poucas contas espalhadas por um espaço de 2^50 ids
+		Long primeira = criar("esparsa-a", 1L);
+		Long segunda = criar("esparsa-b", 1L << 50);
+		transacaoService.realizarTransacao(primeira, pedido(segunda, new BigDecimal("12.34")));
+
+		ReconstrucaoSaldosDTO resultado = reconstrucaoSaldosService.reconstruir(false);
+
+		assertEquals(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usuario", Long.class), resultado.getContasVerificadas());
+		assertEquals(List.of(), resultado.getDivergencias());
+		assertEquals(SALDO_INICIAL + 1_234, livroRazaoService.saldoCentavos(segunda));
+	}
+
+	private TransacaoRequestDTO pedido(Long idDestinatario, BigDecimal valor) {
+		TransacaoRequestDTO request = new TransacaoRequestDTO();
+		request.setIdDestinatario(idDestinatario);
+		request.setValor(valor);
+		request.setDescricao("Razão");
+		return request;
+	}
+
+	private Long criar(String nome) {
+		return criar(nome, null);
+	}
+
+	/**
+	 * @param id id fixo para a conta, ou null para o do gerador
+	 */
+	private Long criar(String nome, Long id) {
+		Long gerado = DadosTeste.conta(usuarioRepository, nome, SALDO_INICIAL);
+		if (id != null) {
+			jdbcTemplate.update("UPDATE usuario SET id = ? WHERE id = ?", id, gerado);
+		}
+		Long conta = id != null ? id : gerado;
+		transactionTemplate.executeWithoutResult(s -> livroRazaoService.abrirConta(conta, SALDO_INICIAL));
+		return conta;
+	}
+}
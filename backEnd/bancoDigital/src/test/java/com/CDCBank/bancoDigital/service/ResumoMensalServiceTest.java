@@ -0,0 +1,157 @@
+package com.CDCBank.bancoDigital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.CDCBank.bancoDigital.dto.response.ResumoMensalDTO;
+import com.CDCBank.bancoDigital.models.Transacao;
+import com.CDCBank.bancoDigital.models.Usuario;
+import com.CDCBank.bancoDigital.repository.ResumoMensalRepository;
+import com.CDCBank.bancoDigital.util.Centavos;
+
+@DataJpaTest(properties = "teste.banco=resumo")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class ResumoMensalServiceTest {
+
+	private static final LocalDateTime JANEIRO = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private ResumoMensalRepository resumoMensalRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private ResumoMensalService service;
+	private List<Usuario> usuarios;
+
+	@BeforeEach
+	void criar() {
+		service = new ResumoMensalService(resumoMensalRepository, jdbcTemplate);
+		ReflectionTestUtils.setField(service, "quantidadeFaixas", 4);
+		// O H2 não aceita o fetch size negativo do streaming do MySQL
+		ReflectionTestUtils.setField(service, "fetchSize", 1_000);
+		service.iniciar();
+
+		usuarios = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			usuarios.add(DadosTeste.usuario(entityManager, "usuario" + i));
+		}
+	}
+
+	@Test
+	void upsertsIncrementaisBatemComORecalculo() {
+		Random random = new Random(42);
+		List<Transacao> transacoes = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			Usuario remetente = usuarios.get(random.nextInt(4));
+			Usuario destinatario = usuarios.get((usuarios.indexOf(remetente) + 1 + random.nextInt(3)) % 4);
+			Transacao transacao = DadosTeste.transacao(entityManager, remetente, destinatario,
+				1 + random.nextInt(100_000), JANEIRO.plusDays(random.nextInt(90)), null);
+			// usuario3 recebe como conta distribuída: os créditos se espalham pelas faixas
+			service.registrar(transacao, destinatario == usuarios.get(3));
+			transacoes.add(transacao);
+		}
+
+		for (Usuario usuario : usuarios) {
+			for (int mes = 1; mes <= 4; mes++) {
+				assertEquals(esperado(transacoes, usuario.getId(), mes), service.consultar(usuario.getId(), 2025, mes));
+			}
+		}
+		Long distribuida = usuarios.get(3).getId();
+		assertEquals(0, linhas("faixa > 0 AND id_usuario <> " + distribuida));
+		assertTrue(linhas("faixa > 0 AND id_usuario = " + distribuida) > 3);
+
+		// Recalcular descarta os upserts e chega nos mesmos totais, tudo na faixa 0
+		service.recalcularContas(usuarios.get(0).getId(), usuarios.get(3).getId());
+		for (Usuario usuario : usuarios) {
+			for (int mes = 1; mes <= 4; mes++) {
+				assertEquals(esperado(transacoes, usuario.getId(), mes), service.consultar(usuario.getId(), 2025, mes));
+			}
+		}
+		assertEquals(0, linhas("faixa > 0 AND quantidade_recebidas <> 0"));
+	}
+
+	@Test
+	void loteAtualizaCadaLinhaUmaVez() {
+		Usuario remetente = usuarios.get(0);
+		List<Transacao> lote = List.of(
+			DadosTeste.transacao(entityManager, remetente, usuarios.get(1), 1_000, JANEIRO, null),
+			DadosTeste.transacao(entityManager, remetente, usuarios.get(2), 5_000, JANEIRO.plusDays(3), null),
+			DadosTeste.transacao(entityManager, remetente, usuarios.get(1), 2_500, JANEIRO.plusDays(5), null));
+		service.registrar(lote, Set.of());
+
+		ResumoMensalDTO resumo = service.consultar(remetente.getId(), 2025, 1);
+		assertEquals(3, resumo.getQuantidadeEnviadas());
+		assertEquals(new BigDecimal("85.00"), resumo.getTotalEnviado());
+		assertEquals(new BigDecimal("50.00"), resumo.getMaiorEnviada());
+		assertEquals(2, service.consultar(usuarios.get(1).getId(), 2025, 1).getQuantidadeRecebidas());
+		assertEquals(3, linhas("ano_mes = 202501"));
+	}
+
+	@Test
+	void mesSemTransacoesVemZerado() {
+		ResumoMensalDTO resumo = service.consultar(usuarios.get(0).getId(), 2030, 12);
+
+		assertEquals(0, resumo.getQuantidadeEnviadas());
+		assertEquals(0, resumo.getQuantidadeRecebidas());
+		assertEquals(new BigDecimal("0.00"), resumo.getTotalEnviado());
+		assertEquals(new BigDecimal("0.00"), resumo.getMaiorRecebida());
+		assertThrows(IllegalArgumentException.class, () -> service.consultar(usuarios.get(0).getId(), 2025, 13));
+	}
+
+	private ResumoMensalDTO esperado(List<Transacao> transacoes, Long usuarioId, int mes) {
+		long enviado = 0, enviadas = 0, maiorEnvio = 0, recebido = 0, recebidas = 0, maiorRecebimento = 0;
+		for (Transacao transacao : transacoes) {
+			if (transacao.getDataTransacao().getMonthValue() != mes) {
+				continue;
+			}
+			long valor = Centavos.de(transacao.getValor());
+			if (transacao.getRemetente().getId().equals(usuarioId)) {
+				enviado += valor;
+				enviadas++;
+				maiorEnvio = Math.max(maiorEnvio, valor);
+			}
+			if (transacao.getDestinatario().getId().equals(usuarioId)) {
+				recebido += valor;
+				recebidas++;
+				maiorRecebimento = Math.max(maiorRecebimento, valor);
+			}
+		}
+		return ResumoMensalDTO.builder()
+			.ano(2025)
+			.mes(mes)
+			.totalEnviado(Centavos.paraValor(enviado))
+			.quantidadeEnviadas(enviadas)
+			.maiorEnviada(Centavos.paraValor(maiorEnvio))
+			.totalRecebido(Centavos.paraValor(recebido))
+			.quantidadeRecebidas(recebidas)
+			.maiorRecebida(Centavos.paraValor(maiorRecebimento))
+			.build();
+	}
+
+	private int linhas(String condicao) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM resumo_mensal WHERE " + condicao, Integer.class);
+	}
+}
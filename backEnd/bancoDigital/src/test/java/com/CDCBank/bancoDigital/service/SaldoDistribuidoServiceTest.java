@@ -0,0 +1,132 @@
+package com.CDCBank.bancoDigital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.CDCBank.bancoDigital.dto.request.TransacaoRequestDTO;
+import com.CDCBank.bancoDigital.models.SubSaldo;
+import com.CDCBank.bancoDigital.models.Usuario;
+import com.CDCBank.bancoDigital.repository.SubSaldoRepository;
+import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+
+// Lock timeout curto: uma transferência que esperasse pela linha da destinatária falharia
+@DataJpaTest(properties = {
+	"teste.banco=saldo-distribuido",
+	"teste.banco-opcoes=;LOCK_TIMEOUT=1000",
+	"transacao.saldo-distribuido.faixas=4"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(ServicosTransferencia.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SaldoDistribuidoServiceTest {
+
+	@Autowired
+	private TransacaoService transacaoService;
+
+	@Autowired
+	private SaldoDistribuidoService saldoDistribuidoService;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private SubSaldoRepository subSaldoRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@ParameterizedTest
+	@EnumSource(ModoTransacao.class)
+	void creditoEmContaDistribuidaNaoEsperaPelaLinhaDaConta(ModoTransacao modo) throws Exception {
+		ReflectionTestUtils.setField(transacaoService, "modo", modo);
+		Long remetente = DadosTeste.conta(usuarioRepository, "remetente", 10_000);
+		Long lojista = DadosTeste.conta(usuarioRepository, "lojista", 0);
+		saldoDistribuidoService.ativar(lojista);
+		assertTrue(saldoDistribuidoService.isDistribuida(lojista));
+
+		CountDownLatch liberar = new CountDownLatch(1);
+		CompletableFuture<Void> bloqueio = segurarLinha(lojista, liberar);
+		try {
+			transacaoService.realizarTransacao(remetente, pedido(lojista, "12.34"));
+			transacaoService.realizarLote(remetente, List.of(pedido(lojista, "1.00"), pedido(lojista, "2.00")));
+		} finally {
+			liberar.countDown();
+			bloqueio.get(5, TimeUnit.SECONDS);
+		}
+
+		Usuario conta = usuarioRepository.findById(lojista).orElseThrow();
+		assertEquals(0, conta.getSaldoCentavos());
+		assertEquals(1_534, saldoDistribuidoService.saldoTotalCentavos(conta));
+		assertEquals(10_000 - 1_534, usuarioRepository.findById(remetente).orElseThrow().getSaldoCentavos());
+	}
+
+	@Test
+	void contaAtivadaForaDestaInstanciaEhReconhecidaNoPrimeiroCredito() {
+		Long remetente = DadosTeste.conta(usuarioRepository, "remetente", 10_000);
+		Long lojista = DadosTeste.conta(usuarioRepository, "lojista", 0);
+		// Como se outra instância tivesse ativado: faixas e sinalizador gravados direto no banco
+		for (int faixa = 0; faixa < 4; faixa++) {
+			subSaldoRepository.save(SubSaldo.builder().usuarioId(lojista).faixa(faixa).saldoCentavos(0L).build());
+		}
+		jdbcTemplate.update("UPDATE usuario SET conta_distribuida = true WHERE id = ?", lojista);
+		assertFalse(saldoDistribuidoService.isDistribuida(lojista));
+
+		transacaoService.realizarTransacao(remetente, pedido(lojista, "5.00"));
+
+		assertTrue(saldoDistribuidoService.isDistribuida(lojista));
+		Usuario conta = usuarioRepository.findById(lojista).orElseThrow();
+		assertEquals(0, conta.getSaldoCentavos());
+		assertEquals(500, saldoDistribuidoService.saldoTotalCentavos(conta));
+	}
+
+	/**
+	 * Bloqueia a linha da conta em usuario numa outra transação até {@code liberar}.
+	 */
+	private CompletableFuture<Void> segurarLinha(Long id, CountDownLatch liberar) throws InterruptedException {
+		CountDownLatch bloqueada = new CountDownLatch(1);
+		CompletableFuture<Void> bloqueio = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+			jdbcTemplate.queryForList("SELECT id FROM usuario WHERE id = ? FOR UPDATE", Long.class, id);
+			bloqueada.countDown();
+			try {
+				liberar.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}));
+		assertTrue(bloqueada.await(5, TimeUnit.SECONDS));
+		return bloqueio;
+	}
+
+	private TransacaoRequestDTO pedido(Long idDestinatario, String valor) {
+		TransacaoRequestDTO request = new TransacaoRequestDTO();
+		request.setIdDestinatario(idDestinatario);
+		request.setValor(new BigDecimal(valor));
+		request.setDescricao("Compra");
+		return request;
+	}
+}
@@ -0,0 +1,29 @@
+package com.CDCBank.bancoDigital.service;
+
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Os serviços reais de uma transferência, para testes {@code @DataJpaTest} que passam pelo
+ * {@link TransacaoService} no H2, com o perfil {@code test} (application-test.properties),
+ * que desliga o limite diário e a busca e ajusta o fetch size do resumo mensal. As contas
+ * saem de {@link DadosTeste#conta}.
+ */
+@TestConfiguration
+@Import({TransacaoService.class, LedgerEngine.class, IdempotenciaService.class, SaldoDistribuidoService.class,
+	LivroRazaoService.class, RetentativaOtimista.class, LimiteDiarioService.class, HistoricoRecenteCache.class,
+	ResumoMensalService.class, IndiceBuscaTransacoes.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class ServicosTransferencia {
+
+	@Bean
+	MeterRegistry meterRegistry() {
+		return new SimpleMeterRegistry();
+	}
+}
@@ -0,0 +1,225 @@
+package com.CDCBank.bancoDigital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.CDCBank.bancoDigital.dto.request.TransacaoRequestDTO;
+import com.CDCBank.bancoDigital.dto.response.StatusTransacaoDTO;
+import com.CDCBank.bancoDigital.exception.ResourceNotFoundException;
+import com.CDCBank.bancoDigital.infra.JournalTransacoes;
+import com.CDCBank.bancoDigital.infra.PoliticaFsync;
+import com.CDCBank.bancoDigital.repository.TransacaoArquivoRepository;
+import com.CDCBank.bancoDigital.repository.TransacaoRepository;
+import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Cada teste monta o próprio serviço sem workers e drena a fila na thread do teste,
+// para que os lotes tenham exatamente os pedidos enfileirados
+@DataJpaTest(properties = "teste.banco=assincrona")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(ServicosTransferencia.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransacaoAssincronaServiceTest {
+
+	private static final long INEXISTENTE = Long.MAX_VALUE;
+
+	@Autowired
+	private TransacaoService transacaoService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private TransacaoRepository transacaoRepository;
+
+	@Autowired
+	private TransacaoArquivoRepository transacaoArquivoRepository;
+
+	@Autowired
+	private RetentativaOtimista retentativaOtimista;
+
+	@Autowired
+	private LimiteDiarioService limiteDiarioService;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void loteDeVariosRemetentesEhConfirmadoNumUnicoCommit() {
+		Long ana = DadosTeste.conta(usuarioRepository, "ana", 10_000);
+		Long bruno = DadosTeste.conta(usuarioRepository, "bruno", 10_000);
+		Long loja = DadosTeste.conta(usuarioRepository, "loja", 0);
+		TransacaoAssincronaService servico = servico(Optional.empty());
+
+		List<String> protocolos = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			protocolos.add(servico.enfileirar(i % 2 == 0 ? ana : bruno, pedido(loja, "1.50"), null).getId());
+		}
+		// A loja repassa parte do que recebe no mesmo lote
+		protocolos.add(servico.enfileirar(loja, pedido(ana, "3.00"), null).getId());
+		drenar(servico);
+
+		for (int i = 0; i < protocolos.size(); i++) {
+			Long remetente = i == 10 ? loja : i % 2 == 0 ? ana : bruno;
+			assertEquals(TransacaoAssincronaService.CONCLUIDA, servico.consultarStatus(remetente, protocolos.get(i)).getStatus());
+		}
+		DistributionSummary lotes = meterRegistry.get("transacao.assincrona.lote.tamanho").summary();
+		assertEquals(1, lotes.count());
+		assertEquals(11, lotes.totalAmount());
+		assertEquals(10_000 - 750 + 300, saldo(ana));
+		assertEquals(10_000 - 750, saldo(bruno));
+		assertEquals(1_500 - 300, saldo(loja));
+	}
+
+	@Test
+	void itensRecusadosFalhamSemDesfazerOsDemais() {
+		Long ana = DadosTeste.conta(usuarioRepository, "ana", 1_000);
+		Long loja = DadosTeste.conta(usuarioRepository, "loja", 0);
+		TransacaoAssincronaService servico = servico(Optional.empty());
+
+		String primeiro = servico.enfileirar(ana, pedido(loja, "6.00"), null).getId();
+		// Cabe no saldo inicial, mas não depois do primeiro item
+		String semSaldo = servico.enfileirar(ana, pedido(loja, "5.00"), null).getId();
+		String semDestinatario = servico.enfileirar(ana, pedido(INEXISTENTE, "1.00"), null).getId();
+		String ultimo = servico.enfileirar(ana, pedido(loja, "4.00"), null).getId();
+		drenar(servico);
+
+		assertEquals(TransacaoAssincronaService.CONCLUIDA, servico.consultarStatus(ana, primeiro).getStatus());
+		StatusTransacaoDTO recusado = servico.consultarStatus(ana, semSaldo);
+		assertEquals(TransacaoAssincronaService.FALHOU, recusado.getStatus());
+		assertTrue(recusado.getMensagem().startsWith("Saldo insuficiente"), recusado.getMensagem());
+		assertEquals(TransacaoAssincronaService.FALHOU, servico.consultarStatus(ana, semDestinatario).getStatus());
+		assertEquals(TransacaoAssincronaService.CONCLUIDA, servico.consultarStatus(ana, ultimo).getStatus());
+
+		DistributionSummary lotes = meterRegistry.get("transacao.assincrona.lote.tamanho").summary();
+		assertEquals(1, lotes.count());
+		assertEquals(2, lotes.totalAmount());
+		assertEquals(0, saldo(ana));
+		assertEquals(1_000, saldo(loja));
+	}
+
+	@Test
+	void pendentesDoJournalSaoReaplicadosUmaUnicaVez(@TempDir Path diretorio) throws Exception {
+		Long ana = DadosTeste.conta(usuarioRepository, "ana", 10_000);
+		Long loja = DadosTeste.conta(usuarioRepository, "loja", 0);
+
+		UUID confirmada = UUID.randomUUID();
+		UUID pendente = UUID.randomUUID();
+		try (JournalTransacoes journal = journal(diretorio)) {
+			journal.registrar(confirmada, ana, loja, 2_000, "Confirmada antes da queda");
+			journal.registrar(pendente, ana, loja, 500, "Pendente");
+		}
+		// A primeira chegou a ser confirmada no banco, mas a queda veio antes de marcá-la no journal
+		transactionTemplate.execute(s -> transacaoService.realizarNaTransacaoCorrente(ana,
+			pedido(loja, "20.00"), confirmada.toString()));
+
+		try (JournalTransacoes journal = journal(diretorio)) {
+			TransacaoAssincronaService servico = servico(Optional.of(journal));
+			drenar(servico);
+
+			StatusTransacaoDTO jaRealizada = servico.consultarStatus(ana, confirmada.toString());
+			assertEquals(TransacaoAssincronaService.CONCLUIDA, jaRealizada.getStatus());
+			assertEquals("Transação já havia sido realizada", jaRealizada.getMensagem());
+			assertEquals(TransacaoAssincronaService.CONCLUIDA, servico.consultarStatus(ana, pendente.toString()).getStatus());
+		}
+		// Os dois foram marcados no journal: uma nova abertura não tem o que reaplicar
+		try (JournalTransacoes journal = journal(diretorio)) {
+			assertTrue(journal.pendentes().isEmpty());
+		}
+		assertEquals(10_000 - 2_500, saldo(ana));
+		assertEquals(2_500, saldo(loja));
+	}
+
+	@Test
+	void statusPendenteNuncaSaiPorCapacidade() {
+		Long ana = DadosTeste.conta(usuarioRepository, "ana", 10_000);
+		Long loja = DadosTeste.conta(usuarioRepository, "loja", 0);
+		TransacaoAssincronaService servico = servico(Optional.empty(), 2);
+
+		List<String> protocolos = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			protocolos.add(servico.enfileirar(ana, pedido(loja, "1.00"), null).getId());
+		}
+		// Fila acumulada além da capacidade: todos continuam consultáveis
+		for (String protocolo : protocolos) {
+			assertEquals(TransacaoAssincronaService.PENDENTE, servico.consultarStatus(ana, protocolo).getStatus());
+		}
+		drenar(servico);
+
+		// Depois de concluídos ficam só os dois mais recentes
+		for (int i = 0; i < 3; i++) {
+			String protocolo = protocolos.get(i);
+			assertThrows(ResourceNotFoundException.class, () -> servico.consultarStatus(ana, protocolo));
+		}
+		assertEquals(TransacaoAssincronaService.CONCLUIDA, servico.consultarStatus(ana, protocolos.get(3)).getStatus());
+		assertEquals(TransacaoAssincronaService.CONCLUIDA, servico.consultarStatus(ana, protocolos.get(4)).getStatus());
+		assertEquals(10_000 - 500, saldo(ana));
+	}
+
+	private TransacaoAssincronaService servico(Optional<JournalTransacoes> journal) {
+		return servico(journal, 1_000);
+	}
+
+	/**
+	 * Serviço sem workers; {@code iniciar} já recoloca na fila os pendentes do journal.
+	 */
+	private TransacaoAssincronaService servico(Optional<JournalTransacoes> journal, int capacidadeStatus) {
+		TransacaoAssincronaService servico = new TransacaoAssincronaService(transacaoService, transactionTemplate,
+			meterRegistry, transacaoRepository, transacaoArquivoRepository, journal, retentativaOtimista,
+			limiteDiarioService);
+		ReflectionTestUtils.setField(servico, "capacidadeFila", 1_000);
+		ReflectionTestUtils.setField(servico, "quantidadeWorkers", 0);
+		ReflectionTestUtils.setField(servico, "tamanhoLote", 50);
+		ReflectionTestUtils.setField(servico, "capacidadeStatus", capacidadeStatus);
+		ReflectionTestUtils.invokeMethod(servico, "iniciar");
+		return servico;
+	}
+
+	// Como um worker no encerramento: consome a fila em lotes até esvaziá-la
+	private void drenar(TransacaoAssincronaService servico) {
+		ReflectionTestUtils.setField(servico, "ativo", false);
+		ReflectionTestUtils.invokeMethod(servico, "consumir");
+	}
+
+	private JournalTransacoes journal(Path diretorio) {
+		return new JournalTransacoes(diretorio, 16, PoliticaFsync.NUNCA, Duration.ZERO);
+	}
+
+	private long saldo(Long id) {
+		return usuarioRepository.findById(id).orElseThrow().getSaldoCentavos();
+	}
+
+	private TransacaoRequestDTO pedido(Long idDestinatario, String valor) {
+		TransacaoRequestDTO request = new TransacaoRequestDTO();
+		request.setIdDestinatario(idDestinatario);
+		request.setValor(new BigDecimal(valor));
+		request.setDescricao("Compra");
+		return request;
+	}
+}
@@ -0,0 +1,105 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.CDCBank.bancoDigital.BancoDigitalApplication;
+import com.CDCBank.bancoDigital.dto.request.TransacaoRequestDTO;
+import com.CDCBank.bancoDigital.models.Usuario;
+import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+
+/**
+ * Uma folha de pagamento (um pagador, muitos destinatários) enviada transação a transação
+ * e como um único lote em {@link TransacaoService#realizarLote}. Sobe a aplicação sem o
+ * servidor web contra o banco informado. Não roda com os testes:
+ *
+ * <pre>
+ * java ... TransacaoLoteBenchmark "jdbc:mysql://localhost:3306/BancoDigital" root root 500 5
+ * </pre>
+ *
+ * Os argumentos são url, usuário, senha, itens da folha e repetições; os seguintes
+ * ({@code --propriedade=valor}) vão para a aplicação.
+ */
+public class TransacaoLoteBenchmark {
+
+	public static void main(String[] args) {
+		int itens = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+		int repeticoes = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+		// O restart do devtools executaria o main de novo numa outra thread
+		System.setProperty("spring.devtools.restart.enabled", "false");
+
+		// Como argumentos da linha de comando: têm precedência sobre o application.properties
+		List<String> argumentos = new ArrayList<>(List.of(
+			"--spring.datasource.url=" + args[0],
+			"--spring.datasource.username=" + args[1],
+			"--spring.datasource.password=" + args[2],
+			"--spring.jpa.show-sql=false",
+			"--api.security.token.secret=benchmark",
+			// Uma folha inteira passa do limite diário de qualquer renda
+			"--transacao.limite-diario.habilitado=false",
+			"--transacao.limite.habilitado=false"));
+		argumentos.addAll(Arrays.asList(args).subList(Math.min(args.length, 5), args.length));
+
+		try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(BancoDigitalApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(argumentos.toArray(String[]::new))) {
+			TransacaoService transacaoService = contexto.getBean(TransacaoService.class);
+			UsuarioRepository usuarioRepository = contexto.getBean(UsuarioRepository.class);
+
+			String prefixo = "folha-" + System.currentTimeMillis() + "-";
+			Long pagador = criar(usuarioRepository, prefixo + "pagador", Long.MAX_VALUE / 2);
+			List<TransacaoRequestDTO> folha = new ArrayList<>(itens);
+			for (int i = 0; i < itens; i++) {
+				TransacaoRequestDTO request = new TransacaoRequestDTO();
+				request.setIdDestinatario(criar(usuarioRepository, prefixo + i, 0));
+				request.setValor(new BigDecimal("1500.00"));
+				request.setDescricao("Salário");
+				folha.add(request);
+			}
+
+			// Aquecimento do JIT, do pool de conexões e dos caches de statement
+			medir(transacaoService, pagador, folha, false);
+			medir(transacaoService, pagador, folha, true);
+
+			long individual = Long.MAX_VALUE;
+			long lote = Long.MAX_VALUE;
+			for (int r = 0; r < repeticoes; r++) {
+				individual = Math.min(individual, medir(transacaoService, pagador, folha, false));
+				lote = Math.min(lote, medir(transacaoService, pagador, folha, true));
+			}
+			System.out.printf("folha de %d itens: uma a uma %,.1f ms, em lote %,.1f ms (%.1fx)%n",
+				itens, individual / 1e6, lote / 1e6, (double) individual / lote);
+		}
+	}
+
+	private static long medir(TransacaoService transacaoService, Long pagador, List<TransacaoRequestDTO> folha,
+			boolean emLote) {
+		long inicio = System.nanoTime();
+		if (emLote) {
+			transacaoService.realizarLote(pagador, folha);
+		} else {
+			for (TransacaoRequestDTO request : folha) {
+				transacaoService.realizarTransacao(pagador, request);
+			}
+		}
+		return System.nanoTime() - inicio;
+	}
+
+	private static Long criar(UsuarioRepository usuarioRepository, String nome, long saldoCentavos) {
+		Usuario usuario = new Usuario();
+		usuario.setNome(nome);
+		usuario.setEmail(nome + "@benchmark.com");
+		usuario.setIdFiscal(nome);
+		usuario.setSenha("senha");
+		usuario.setDataNascimento(new Date(0));
+		usuario.setSaldoCentavos(saldoCentavos);
+		return usuarioRepository.save(usuario).getId();
+	}
+}
@@ -0,0 +1,131 @@
+package com.CDCBank.bancoDigital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.CDCBank.bancoDigital.dto.request.TransacaoRequestDTO;
+import com.CDCBank.bancoDigital.dto.response.ItemLoteResponseDTO;
+import com.CDCBank.bancoDigital.dto.response.LoteTransacaoResponseDTO;
+import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+
+// Sem a transação do teste: o lote confirma a sua, como em produção
+@DataJpaTest(properties = "teste.banco=lote")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(ServicosTransferencia.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransacaoLoteTest {
+
+	private static final long INEXISTENTE = Long.MAX_VALUE;
+
+	@Autowired
+	private TransacaoService transacaoService;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Long pagador;
+	private Long ana;
+	private Long bruno;
+	private Long carla;
+
+	@BeforeEach
+	void criarContas() {
+		pagador = DadosTeste.conta(usuarioRepository, "pagador", 100_000);
+		ana = DadosTeste.conta(usuarioRepository, "ana", 0);
+		bruno = DadosTeste.conta(usuarioRepository, "bruno", 500);
+		carla = DadosTeste.conta(usuarioRepository, "carla", 0);
+	}
+
+	@Test
+	void loteValidoTransfereTodosOsItens() {
+		LoteTransacaoResponseDTO resposta = transacaoService.realizarLote(pagador, List.of(
+			item(ana, "300.00"), item(bruno, "150.50"), item(carla, "49.50"), item(ana, "100.00")));
+
+		assertEquals(4, resposta.getTotalProcessadas());
+		assertEquals(0, resposta.getTotalRejeitadas());
+		assertEquals(0, new BigDecimal("600.00").compareTo(resposta.getValorTotal()));
+		assertTrue(resposta.getItens().stream().allMatch(ItemLoteResponseDTO::isSucesso));
+
+		assertEquals(40_000, saldo(pagador));
+		assertEquals(40_000, saldo(ana));
+		assertEquals(15_550, saldo(bruno));
+		assertEquals(4_950, saldo(carla));
+		assertEquals(4, transacoesDo(pagador));
+	}
+
+	@Test
+	void itensInvalidosSaoRejeitadosUmAUm() {
+		LoteTransacaoResponseDTO resposta = transacaoService.realizarLote(pagador, List.of(
+			item(ana, "10.00"), item(pagador, "20.00"), item(INEXISTENTE, "30.00"), item(bruno, "40.00")));
+
+		assertEquals(2, resposta.getTotalProcessadas());
+		assertEquals(2, resposta.getTotalRejeitadas());
+		assertEquals(0, new BigDecimal("50.00").compareTo(resposta.getValorTotal()));
+
+		List<ItemLoteResponseDTO> itens = resposta.getItens();
+		assertTrue(itens.get(0).isSucesso());
+		assertFalse(itens.get(1).isSucesso());
+		assertEquals("Não é possível fazer transação para si mesmo", itens.get(1).getMensagem());
+		assertFalse(itens.get(2).isSucesso());
+		assertEquals("Usuário destinatário não encontrado", itens.get(2).getMensagem());
+		assertTrue(itens.get(3).isSucesso());
+		for (int i = 0; i < itens.size(); i++) {
+			assertEquals(i, itens.get(i).getIndice());
+		}
+
+		assertEquals(95_000, saldo(pagador));
+		assertEquals(1_000, saldo(ana));
+		assertEquals(4_500, saldo(bruno));
+		assertEquals(2, transacoesDo(pagador));
+	}
+
+	@Test
+	void saldoInsuficienteParaOTotalRecusaOLoteInteiro() {
+		// Cada item cabe no saldo sozinho; a soma não
+		RuntimeException erro = assertThrows(RuntimeException.class, () -> transacaoService.realizarLote(pagador,
+			List.of(item(ana, "600.00"), item(bruno, "300.00"), item(carla, "200.00"))));
+
+		assertTrue(erro.getMessage().startsWith("Saldo insuficiente"));
+		assertEquals(100_000, saldo(pagador));
+		assertEquals(0, saldo(ana));
+		assertEquals(500, saldo(bruno));
+		assertEquals(0, saldo(carla));
+		assertEquals(0, transacoesDo(pagador));
+	}
+
+	private TransacaoRequestDTO item(Long idDestinatario, String valor) {
+		TransacaoRequestDTO request = new TransacaoRequestDTO();
+		request.setIdDestinatario(idDestinatario);
+		request.setValor(new BigDecimal(valor));
+		request.setDescricao("Folha");
+		return request;
+	}
+
+	private long saldo(Long id) {
+		return usuarioRepository.findById(id).orElseThrow().getSaldoCentavos();
+	}
+
+	private long transacoesDo(Long idRemetente) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transacao WHERE id_remetente = ?", Long.class, idRemetente);
+	}
+}
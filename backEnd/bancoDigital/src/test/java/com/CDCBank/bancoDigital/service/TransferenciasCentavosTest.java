@@ -0,0 +1,82 @@
+package com.CDCBank.bancoDigital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.CDCBank.bancoDigital.dto.request.TransacaoRequestDTO;
+import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+import com.CDCBank.bancoDigital.util.Centavos;
+
+// Sem a transação do teste: cada transferência confirma a sua, como em produção
+@DataJpaTest(properties = "teste.banco=centavos")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(ServicosTransferencia.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransferenciasCentavosTest {
+
+	private static final int CONTAS = 8;
+	// Acima de 2^24 centavos um float já não representa todos os centavos
+	private static final BigDecimal SALDO_INICIAL = new BigDecimal("98765432.10");
+
+	@Autowired
+	private TransacaoService transacaoService;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Test
+	void saldosPermanecemExatosComparadosAUmModeloDecimal() {
+		List<Long> contas = new ArrayList<>();
+		BigDecimal[] referencia = new BigDecimal[CONTAS];
+		for (int i = 0; i < CONTAS; i++) {
+			contas.add(DadosTeste.conta(usuarioRepository, "centavos" + i, Centavos.de(SALDO_INICIAL)));
+			referencia[i] = SALDO_INICIAL;
+		}
+
+		SplittableRandom random = new SplittableRandom(42);
+		for (int i = 0; i < 800; i++) {
+			int remetente = random.nextInt(CONTAS);
+			int destinatario = (remetente + 1 + random.nextInt(CONTAS - 1)) % CONTAS;
+			// De centavos a alguns milhões, sempre com as duas casas
+			BigDecimal valor = BigDecimal.valueOf(random.nextLong(1, 500_000_000L), 2);
+			TransacaoRequestDTO request = new TransacaoRequestDTO();
+			request.setIdDestinatario(contas.get(destinatario));
+			request.setValor(valor);
+			request.setDescricao("Propriedade " + i);
+
+			boolean cabe = referencia[remetente].compareTo(valor) >= 0;
+			try {
+				transacaoService.realizarTransacao(contas.get(remetente), request);
+				assertTrue(cabe, "transferência " + i + " deveria ter sido recusada");
+				referencia[remetente] = referencia[remetente].subtract(valor);
+				referencia[destinatario] = referencia[destinatario].add(valor);
+			} catch (RuntimeException e) {
+				assertFalse(cabe, "transferência " + i + " recusada: " + e.getMessage());
+			}
+		}
+
+		BigDecimal total = BigDecimal.ZERO;
+		for (int i = 0; i < CONTAS; i++) {
+			long saldo = usuarioRepository.findById(contas.get(i)).orElseThrow().getSaldoCentavos();
+			assertEquals(referencia[i], Centavos.paraValor(saldo), "saldo da conta " + i);
+			total = total.add(Centavos.paraValor(saldo));
+		}
+		assertEquals(SALDO_INICIAL.multiply(BigDecimal.valueOf(CONTAS)), total);
+	}
+}
@@ -0,0 +1,96 @@
+package com.CDCBank.bancoDigital.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.CDCBank.bancoDigital.BancoDigitalApplication;
+import com.CDCBank.bancoDigital.models.Usuario;
+import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+
+/**
+ * Transferências por segundo com muitas threads cruzando transferências entre poucas
+ * contas, em cada modo do {@link TransacaoService}, e a conferência de que a soma dos
+ * saldos não mudou. Sobe a aplicação sem o servidor web contra o banco informado. Não
+ * roda com os testes:
+ *
+ * <pre>
+ * java ... TransferenciasConcorrentesBenchmark "jdbc:mysql://localhost:3306/BancoDigital" root root 64 200 20
+ * </pre>
+ *
+ * Os argumentos são url, usuário, senha, threads, transferências por thread e contas;
+ * os seguintes ({@code --propriedade=valor}) vão para a aplicação.
+ */
+public class TransferenciasConcorrentesBenchmark {
+
+	private static final long SALDO_INICIAL = 1_000_000;
+
+	public static void main(String[] args) throws InterruptedException {
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+		int porThread = args.length > 4 ? Integer.parseInt(args[4]) : 200;
+		int quantidadeContas = args.length > 5 ? Integer.parseInt(args[5]) : 20;
+		// O restart do devtools executaria o main de novo numa outra thread
+		System.setProperty("spring.devtools.restart.enabled", "false");
+
+		// Como argumentos da linha de comando: têm precedência sobre o application.properties
+		List<String> argumentos = new ArrayList<>(List.of(
+			"--spring.datasource.url=" + args[0],
+			"--spring.datasource.username=" + args[1],
+			"--spring.datasource.password=" + args[2],
+			"--spring.jpa.show-sql=false",
+			"--api.security.token.secret=benchmark",
+			// Sem limites: a carga passa muito do limite diário de qualquer renda
+			"--transacao.limite-diario.habilitado=false",
+			"--transacao.limite.habilitado=false"));
+		argumentos.addAll(Arrays.asList(args).subList(Math.min(args.length, 6), args.length));
+
+		try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(BancoDigitalApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(argumentos.toArray(String[]::new))) {
+			TransacaoService transacaoService = contexto.getBean(TransacaoService.class);
+			UsuarioRepository usuarioRepository = contexto.getBean(UsuarioRepository.class);
+
+			for (ModoTransacao modo : ModoTransacao.values()) {
+				List<Long> contas = criarContas(usuarioRepository, quantidadeContas, modo);
+				ReflectionTestUtils.setField(transacaoService, "modo", modo);
+
+				CargaTransferencias.Resultado resultado =
+					CargaTransferencias.executar(transacaoService, contas, threads, porThread, 10_000, 42);
+
+				long total = 0;
+				for (Long id : contas) {
+					total += usuarioRepository.findById(id).orElseThrow().getSaldoCentavos();
+				}
+				System.out.printf("%-11s %d threads, %d contas: %,d realizadas, %,d recusadas, %,d erros, %,.0f transferências/s,"
+						+ " soma dos saldos %s%n",
+					modo, threads, quantidadeContas, resultado.realizadas(), resultado.recusadas(), resultado.erros().size(),
+					resultado.porSegundo(), total == quantidadeContas * SALDO_INICIAL ? "conservada" : "ALTERADA: " + total);
+				if (!resultado.erros().isEmpty()) {
+					System.out.println("   primeiro erro: " + resultado.erros().get(0));
+				}
+			}
+		}
+	}
+
+	private static List<Long> criarContas(UsuarioRepository usuarioRepository, int quantidade, ModoTransacao modo) {
+		List<Long> contas = new ArrayList<>(quantidade);
+		String prefixo = "benchmark-" + modo.name().toLowerCase() + "-" + System.currentTimeMillis() + "-";
+		for (int i = 0; i < quantidade; i++) {
+			Usuario usuario = new Usuario();
+			usuario.setNome(prefixo + i);
+			usuario.setEmail(prefixo + i + "@benchmark.com");
+			usuario.setIdFiscal(prefixo + i);
+			usuario.setSenha("senha");
+			usuario.setDataNascimento(new Date(0));
+			usuario.setSaldoCentavos(SALDO_INICIAL);
+			contas.add(usuarioRepository.save(usuario).getId());
+		}
+		return contas;
+	}
+}
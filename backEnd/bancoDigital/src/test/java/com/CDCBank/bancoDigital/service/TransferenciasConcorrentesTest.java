@@ -0,0 +1,82 @@
+package com.CDCBank.bancoDigital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+
+// Sem a transação do teste: cada transferência confirma a sua, como em produção
+@DataJpaTest(properties = {
+	"teste.banco=concorrencia",
+	"teste.banco-opcoes=;LOCK_TIMEOUT=10000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(ServicosTransferencia.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransferenciasConcorrentesTest {
+
+	private static final int CONTAS = 6;
+	private static final long SALDO_INICIAL = 10_000;
+
+	@Autowired
+	private TransacaoService transacaoService;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private List<Long> contas;
+
+	@BeforeEach
+	void criarContas() {
+		contas = new ArrayList<>();
+		for (int i = 0; i < CONTAS; i++) {
+			contas.add(DadosTeste.conta(usuarioRepository, "concorrencia" + i + "-", SALDO_INICIAL));
+		}
+	}
+
+	// O modo OTIMISTA desiste depois das tentativas configuradas, então não entra aqui
+	@ParameterizedTest
+	@EnumSource(value = ModoTransacao.class, names = {"BLOQUEIO", "CONDICIONAL"})
+	void transferenciasCruzadasConservamODinheiro(ModoTransacao modo) throws InterruptedException {
+		ReflectionTestUtils.setField(transacaoService, "modo", modo);
+
+		// Valores altos para o saldo das contas: parte das transferências é recusada
+		CargaTransferencias.Resultado resultado = CargaTransferencias.executar(transacaoService, contas, 8, 60, 4_000, 1);
+
+		assertEquals(List.of(), resultado.erros());
+		assertEquals(8 * 60, resultado.realizadas() + resultado.recusadas());
+		assertTrue(resultado.realizadas() > 0);
+
+		long total = 0;
+		for (Long id : contas) {
+			long saldo = usuarioRepository.findById(id).orElseThrow().getSaldoCentavos();
+			assertTrue(saldo >= 0, "saldo negativo na conta " + id + ": " + saldo);
+			total += saldo;
+		}
+		assertEquals(CONTAS * SALDO_INICIAL, total);
+
+		String ids = contas.toString().replaceAll("[\\[\\]]", "");
+		assertEquals(resultado.realizadas(), jdbcTemplate.queryForObject(
+			"SELECT COUNT(*) FROM transacao WHERE id_remetente IN (" + ids + ")", Long.class));
+	}
+}
@@ -0,0 +1,143 @@
+package com.CDCBank.bancoDigital.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.CDCBank.bancoDigital.dto.request.TransacaoRequestDTO;
+import com.CDCBank.bancoDigital.dto.response.LoteTransacaoResponseDTO;
+import com.CDCBank.bancoDigital.repository.UsuarioRepository;
+
+// Poucas contas em memória por shard: a carga também passa por contas despejadas e relidas
+@DataJpaTest(properties = {
+	"teste.banco=ledger",
+	"teste.banco-opcoes=;LOCK_TIMEOUT=10000",
+	"transacao.ledger.habilitado=true",
+	"transacao.ledger.shards=3",
+	"transacao.ledger.tamanho-lote=16",
+	"transacao.ledger.contas-por-shard=2"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(ServicosTransferencia.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransferenciasLedgerTest {
+
+	private static final long SALDO_INICIAL = 10_000;
+
+	@Autowired
+	private TransacaoService transacaoService;
+
+	@Autowired
+	private SaldoDistribuidoService saldoDistribuidoService;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void cargaCruzadaConservaODinheiro() throws InterruptedException {
+		List<Long> contas = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			contas.add(DadosTeste.conta(usuarioRepository, "ledger" + i + "-", SALDO_INICIAL));
+		}
+
+		CargaTransferencias.Resultado resultado = CargaTransferencias.executar(transacaoService, contas, 8, 60, 4_000, 1);
+
+		assertEquals(List.of(), resultado.erros());
+		assertEquals(8 * 60, resultado.realizadas() + resultado.recusadas());
+		assertTrue(resultado.realizadas() > 0);
+		assertTrue(resultado.recusadas() > 0);
+
+		long total = 0;
+		for (Long id : contas) {
+			long saldo = usuarioRepository.findById(id).orElseThrow().getSaldoCentavos();
+			assertTrue(saldo >= 0, "saldo negativo na conta " + id + ": " + saldo);
+			total += saldo;
+		}
+		assertEquals(contas.size() * SALDO_INICIAL, total);
+		String ids = contas.toString().replaceAll("[\\[\\]]", "");
+		assertEquals(resultado.realizadas(), jdbcTemplate.queryForObject(
+			"SELECT COUNT(*) FROM transacao WHERE id_remetente IN (" + ids + ")", Long.class));
+	}
+
+	@Test
+	void saldoAlteradoForaDoLedgerPrevaleceSobreAMemoria() {
+		Long remetente = DadosTeste.conta(usuarioRepository, "forado", SALDO_INICIAL);
+		Long destinatario = DadosTeste.conta(usuarioRepository, "foradodestino", SALDO_INICIAL);
+		transacaoService.realizarTransacao(remetente, pedido(destinatario, "10.00"));
+
+		// Débito fora do shard: a memória fica acima do banco e o UPDATE condicional recusa
+		jdbcTemplate.update("UPDATE usuario SET saldo_centavos = saldo_centavos - 8500 WHERE id = ?", remetente);
+		RuntimeException recusa = assertThrows(RuntimeException.class,
+			() -> transacaoService.realizarTransacao(remetente, pedido(destinatario, "10.00")));
+		assertEquals("Saldo insuficiente do remetente para realizar a transação", recusa.getMessage());
+		assertEquals(500, saldo(remetente));
+
+		// Crédito fora do shard: a memória fica abaixo do banco e é relida antes de recusar
+		jdbcTemplate.update("UPDATE usuario SET saldo_centavos = saldo_centavos + 2000 WHERE id = ?", remetente);
+		transacaoService.realizarTransacao(remetente, pedido(destinatario, "20.00"));
+		assertEquals(500, saldo(remetente));
+		assertEquals(SALDO_INICIAL + 3_000, saldo(destinatario));
+	}
+
+	@Test
+	void loteReservaOTotalECreditaContasDistribuidas() {
+		Long remetente = DadosTeste.conta(usuarioRepository, "loteledger", SALDO_INICIAL);
+		Long comum = DadosTeste.conta(usuarioRepository, "loteledgercomum", SALDO_INICIAL);
+		Long loja = DadosTeste.conta(usuarioRepository, "loteledgerloja", SALDO_INICIAL);
+		transactionTemplate.executeWithoutResult(s -> saldoDistribuidoService.ativar(loja));
+
+		LoteTransacaoResponseDTO lote = transacaoService.realizarLote(remetente, List.of(
+			pedido(comum, "10.00"), pedido(loja, "15.00"), pedido(-1L, "1.00"), pedido(comum, "5.00")));
+
+		assertEquals(3, lote.getTotalProcessadas());
+		assertEquals(1, lote.getTotalRejeitadas());
+		assertEquals("Usuário destinatário não encontrado", lote.getItens().get(2).getMensagem());
+		assertEquals(SALDO_INICIAL - 3_000, saldo(remetente));
+		assertEquals(SALDO_INICIAL + 1_500, saldo(comum));
+		assertEquals(SALDO_INICIAL + 1_500, totalDistribuido(loja));
+
+		RuntimeException recusa = assertThrows(RuntimeException.class,
+			() -> transacaoService.realizarLote(remetente, List.of(pedido(comum, "60.00"), pedido(loja, "20.00"))));
+		assertEquals("Saldo insuficiente do remetente para realizar o lote de transações", recusa.getMessage());
+		assertEquals(SALDO_INICIAL - 3_000, saldo(remetente));
+	}
+
+	private long saldo(Long id) {
+		return jdbcTemplate.queryForObject("SELECT saldo_centavos FROM usuario WHERE id = ?", Long.class, id);
+	}
+
+	private long totalDistribuido(Long id) {
+		return saldo(id) + jdbcTemplate.queryForObject(
+			"SELECT COALESCE(SUM(saldo_centavos), 0) FROM sub_saldo WHERE id_usuario = ?", Long.class, id);
+	}
+
+	private TransacaoRequestDTO pedido(Long idDestinatario, String valor) {
+		TransacaoRequestDTO request = new TransacaoRequestDTO();
+		request.setIdDestinatario(idDestinatario);
+		request.setValor(new BigDecimal(valor));
+		request.setDescricao("Ledger");
+		return request;
+	}
+}
@@ -0,0 +1,58 @@
+package com.CDCBank.bancoDigital.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class BaldeTokensTest {
+
+	@Test
+	void permiteRajadaEDepoisInformaEspera() {
+		BaldeTokens balde = new BaldeTokens(3, 2, 0);
+
+		assertEquals(0, balde.tentarConsumir(0));
+		assertEquals(0, balde.tentarConsumir(0));
+		assertEquals(0, balde.tentarConsumir(0));
+		// 2 tokens/s: o próximo token chega em 500 ms
+		assertEquals(500, balde.tentarConsumir(0));
+		assertEquals(100, balde.tentarConsumir(400));
+		assertEquals(0, balde.tentarConsumir(500));
+	}
+
+	@Test
+	void recargaNaoPassaDaCapacidade() {
+		BaldeTokens balde = new BaldeTokens(2, 10, 0);
+
+		int permitidas = 0;
+		while (balde.tentarConsumir(1_000_000) == 0) {
+			permitidas++;
+		}
+		assertEquals(2, permitidas);
+	}
+
+	@Test
+	void consumoConcorrenteNuncaExcedeOsTokens() throws InterruptedException {
+		BaldeTokens balde = new BaldeTokens(10_000, 1, 0);
+		AtomicInteger permitidas = new AtomicInteger();
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		for (int t = 0; t < 8; t++) {
+			executor.execute(() -> {
+				for (int i = 0; i < 5_000; i++) {
+					if (balde.tentarConsumir(0) == 0) {
+						permitidas.incrementAndGet();
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(30, TimeUnit.SECONDS);
+
+		assertEquals(10_000, permitidas.get());
+	}
+}
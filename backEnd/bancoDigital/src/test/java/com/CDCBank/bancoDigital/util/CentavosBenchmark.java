@@ -0,0 +1,89 @@
+package com.CDCBank.bancoDigital.util;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A aritmética de saldo antiga (Float na entidade, ida e volta por BigDecimal a cada
+ * transferência) contra a atual (centavos em {@code long}), com os mesmos valores
+ * sorteados. Mostra o tempo por transferência e quanto a soma dos saldos se afastou do
+ * total inicial. Não roda com os testes:
+ *
+ * <pre>
+ * java ... CentavosBenchmark 1000 5000000
+ * </pre>
+ *
+ * Os argumentos são a quantidade de contas e de transferências por rodada.
+ */
+public class CentavosBenchmark {
+
+	private static final BigDecimal SALDO_INICIAL = new BigDecimal("1000000.00");
+
+	public static void main(String[] args) {
+		int contas = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+		int transferencias = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+
+		// Os mesmos valores para as duas versões, gerados fora da medição
+		SplittableRandom random = new SplittableRandom(42);
+		int[] remetentes = new int[transferencias];
+		int[] destinatarios = new int[transferencias];
+		BigDecimal[] valores = new BigDecimal[transferencias];
+		for (int i = 0; i < transferencias; i++) {
+			remetentes[i] = random.nextInt(contas);
+			destinatarios[i] = (remetentes[i] + 1 + random.nextInt(contas - 1)) % contas;
+			valores[i] = BigDecimal.valueOf(random.nextLong(1, 500_000L), 2);
+		}
+
+		for (int rodada = 1; rodada <= 3; rodada++) {
+			long inicio = System.nanoTime();
+			BigDecimal totalFloat = comFloat(contas, remetentes, destinatarios, valores);
+			long duracaoFloat = System.nanoTime() - inicio;
+
+			inicio = System.nanoTime();
+			BigDecimal totalCentavos = comCentavos(contas, remetentes, destinatarios, valores);
+			long duracaoCentavos = System.nanoTime() - inicio;
+
+			BigDecimal esperado = SALDO_INICIAL.multiply(BigDecimal.valueOf(contas));
+			System.out.printf("rodada %d: Float+BigDecimal %.1f ns/transferência (desvio %s), long %.1f ns/transferência"
+					+ " (desvio %s), %.1fx%n",
+				rodada, (double) duracaoFloat / transferencias, totalFloat.subtract(esperado),
+				(double) duracaoCentavos / transferencias, totalCentavos.subtract(esperado),
+				(double) duracaoFloat / duracaoCentavos);
+		}
+	}
+
+	// Como o TransacaoService fazia antes: saldo Float, conta em BigDecimal, grava floatValue()
+	private static BigDecimal comFloat(int contas, int[] remetentes, int[] destinatarios, BigDecimal[] valores) {
+		Float[] saldos = new Float[contas];
+		Arrays.fill(saldos, SALDO_INICIAL.floatValue());
+		for (int i = 0; i < valores.length; i++) {
+			BigDecimal saldoRemetente = BigDecimal.valueOf(saldos[remetentes[i]]);
+			if (saldoRemetente.compareTo(valores[i]) < 0) {
+				continue;
+			}
+			BigDecimal saldoDestinatario = BigDecimal.valueOf(saldos[destinatarios[i]]);
+			saldos[remetentes[i]] = saldoRemetente.subtract(valores[i]).floatValue();
+			saldos[destinatarios[i]] = saldoDestinatario.add(valores[i]).floatValue();
+		}
+		BigDecimal total = BigDecimal.ZERO;
+		for (Float saldo : saldos) {
+			total = total.add(BigDecimal.valueOf(saldo));
+		}
+		return total;
+	}
+
+	private static BigDecimal comCentavos(int contas, int[] remetentes, int[] destinatarios, BigDecimal[] valores) {
+		long[] saldos = new long[contas];
+		Arrays.fill(saldos, Centavos.de(SALDO_INICIAL));
+		for (int i = 0; i < valores.length; i++) {
+			long valor = Centavos.de(valores[i]);
+			if (saldos[remetentes[i]] < valor) {
+				continue;
+			}
+			saldos[remetentes[i]] -= valor;
+			saldos[destinatarios[i]] = Math.addExact(saldos[destinatarios[i]], valor);
+		}
+		return Centavos.paraValor(Arrays.stream(saldos).sum());
+	}
+}
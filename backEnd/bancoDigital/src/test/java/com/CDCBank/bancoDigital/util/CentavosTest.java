@@ -0,0 +1,19 @@
+package com.CDCBank.bancoDigital.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+class CentavosTest {
+
+	@Test
+	void converteEntreDecimalECentavos() {
+		assertEquals(10050L, Centavos.de(new BigDecimal("100.50")));
+		assertEquals(1L, Centavos.de(new BigDecimal("0.01")));
+		assertEquals(new BigDecimal("123456789.99"), Centavos.paraValor(12345678999L));
+		assertThrows(ArithmeticException.class, () -> Centavos.de(new BigDecimal("1.005")));
+	}
+}
@@ -0,0 +1,28 @@
+package com.CDCBank.bancoDigital.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+class CursorHistoricoTest {
+
+	@Test
+	void codificaEDecodificaComMicrossegundos() {
+		CursorHistorico cursor = new CursorHistorico(LocalDateTime.of(2025, 8, 9, 14, 30, 0, 123_456_000), 9_007_199_254_740_991L);
+		String opaco = cursor.codificar();
+		assertTrue(opaco.matches("[A-Za-z0-9_-]+"), opaco);
+		assertEquals(cursor, CursorHistorico.decodificar(opaco));
+	}
+
+	@Test
+	void rejeitaCursorInvalido() {
+		assertThrows(IllegalArgumentException.class, () -> CursorHistorico.decodificar("não é base64"));
+		assertThrows(IllegalArgumentException.class, () -> CursorHistorico.decodificar("YWJj"));
+		assertThrows(IllegalArgumentException.class,
+			() -> CursorHistorico.decodificar(new CursorHistorico(LocalDateTime.now(), 1).codificar().substring(3)));
+	}
+}
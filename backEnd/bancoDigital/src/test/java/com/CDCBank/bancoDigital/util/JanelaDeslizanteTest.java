@@ -0,0 +1,53 @@
+package com.CDCBank.bancoDigital.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class JanelaDeslizanteTest {
+
+	@Test
+	void valoresSaemDaJanelaAposOUltimoBalde() {
+		JanelaDeslizante janela = new JanelaDeslizante(1440, 0);
+		janela.somar(0, 100);
+		janela.somar(10, 50);
+
+		assertEquals(150, janela.total(1439));
+		assertEquals(50, janela.total(1440));
+		assertEquals(0, janela.total(1450));
+	}
+
+	@Test
+	void somarSeCouberRespeitaOLimite() {
+		JanelaDeslizante janela = new JanelaDeslizante(60, 0);
+
+		assertTrue(janela.somarSeCouber(5, 700, 1000));
+		assertFalse(janela.somarSeCouber(6, 400, 1000));
+		assertTrue(janela.somarSeCouber(6, 300, 1000));
+		// O primeiro valor sai da janela e libera espaço
+		assertTrue(janela.somarSeCouber(65, 700, 1000));
+	}
+
+	@Test
+	void liberacaoEValoresAntigosForaDaJanelaSaoIgnorados() {
+		JanelaDeslizante janela = new JanelaDeslizante(10, 100);
+		janela.somar(95, 40);
+		janela.somar(95, -40);
+		janela.somar(80, 500);
+
+		assertEquals(0, janela.total(100));
+	}
+
+	@Test
+	void saltoMaiorQueAJanelaZeraTudo() {
+		JanelaDeslizante janela = new JanelaDeslizante(10, 0);
+		for (int p = 0; p < 10; p++) {
+			janela.somar(p, 1);
+		}
+
+		assertEquals(10, janela.total(9));
+		assertEquals(0, janela.total(1_000_000));
+	}
+}
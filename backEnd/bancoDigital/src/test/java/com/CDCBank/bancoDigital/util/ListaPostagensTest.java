@@ -0,0 +1,79 @@
+package com.CDCBank.bancoDigital.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+class ListaPostagensTest {
+
+	@Test
+	void idsCrescentesOcupamPoucosBytes() {
+		ListaPostagens lista = new ListaPostagens();
+		for (long id = 1_000_000_000L; id < 1_000_010_000L; id++) {
+			assertTrue(lista.adicionar(id));
+		}
+
+		assertEquals(10_000, lista.quantidade());
+		assertEquals(1_000_000_000L, lista.decodificar()[0]);
+		assertEquals(1_000_009_999L, lista.decodificar()[9_999]);
+		// Diferença 1 ocupa um byte; a folga do array fica abaixo de 50%
+		assertTrue(lista.bytes() < 16_000, "bytes: " + lista.bytes());
+	}
+
+	@Test
+	void foraDeOrdemERepetidosBatemComUmConjunto() {
+		SplittableRandom random = new SplittableRandom(7);
+		ListaPostagens lista = new ListaPostagens();
+		TreeSet<Long> esperado = new TreeSet<>();
+		for (int i = 0; i < 5_000; i++) {
+			// Maioria crescente, com ids antigos e repetidos misturados
+			long id = random.nextInt(10) == 0 ? random.nextLong(1, 2_000_000) : 2_000_000L + i * 37L;
+			assertEquals(esperado.add(id), lista.adicionar(id));
+		}
+
+		assertArrayEquals(esperado.stream().mapToLong(Long::longValue).toArray(), lista.decodificar());
+		assertEquals(esperado.size(), lista.quantidade());
+	}
+
+	@Test
+	void arquivadasDepoisDaListaCheiaEntramEmLotes() {
+		SplittableRandom random = new SplittableRandom(11);
+		ListaPostagens lista = new ListaPostagens();
+		TreeSet<Long> esperado = new TreeSet<>();
+		// Como na reconstrução do índice: transacao em ordem, depois as arquivadas, mais antigas
+		for (long id = 1_000_000; id < 1_200_000; id += 3) {
+			lista.adicionar(id);
+			esperado.add(id);
+		}
+		for (int i = 0; i < 5_000; i++) {
+			long id = random.nextLong(1, 1_200_000);
+			assertEquals(esperado.add(id), lista.adicionar(id), "id " + id);
+			assertEquals(esperado.size(), lista.quantidade());
+			if (i % 1_000 == 999) {
+				// Com e sem ids ainda no buffer
+				assertArrayEquals(esperado.stream().mapToLong(Long::longValue).toArray(), lista.decodificar());
+			}
+		}
+
+		assertArrayEquals(esperado.stream().mapToLong(Long::longValue).toArray(), lista.decodificar());
+		assertFalse(lista.adicionar(esperado.first()));
+		assertFalse(lista.adicionar(esperado.last()));
+	}
+
+	@Test
+	void rejeitaIdNegativo() {
+		ListaPostagens lista = new ListaPostagens();
+
+		assertThrows(IllegalArgumentException.class, () -> lista.adicionar(-1));
+		assertEquals(0, lista.decodificar().length);
+		assertTrue(lista.adicionar(0));
+		assertFalse(lista.adicionar(0));
+	}
+}
@@ -0,0 +1,66 @@
+package com.CDCBank.bancoDigital.util;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memória por agendamento e atraso real de disparo da {@link RodaTemporal} avançada pelo
+ * relógio, como no AgendamentoService. Depende da máquina e do GC, por isso não roda
+ * com os testes:
+ *
+ * <pre>
+ * java ... RodaTemporalBenchmark 1000000 10
+ * </pre>
+ *
+ * Os argumentos são a quantidade de agendamentos e a duração do tick em ms; os
+ * vencimentos ficam espalhados entre 0,5s e 3s.
+ */
+public class RodaTemporalBenchmark {
+
+	public static void main(String[] args) throws InterruptedException {
+		int quantidade = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		long tickMs = args.length > 1 ? Long.parseLong(args[1]) : 10;
+		SplittableRandom random = new SplittableRandom(11);
+
+		// Vencimentos em ms desde a origem
+		long[] vencimentos = new long[quantidade];
+		for (int i = 0; i < quantidade; i++) {
+			vencimentos[i] = random.nextLong(500, 3_000);
+		}
+
+		long memoriaAntes = memoriaUsada();
+		RodaTemporal roda = new RodaTemporal(0);
+		for (int i = 0; i < quantidade; i++) {
+			// Arredonda para cima, como o AgendamentoService, para nunca disparar antes do vencimento
+			roda.agendar(i, (vencimentos[i] + tickMs - 1) / tickMs);
+		}
+		long bytesPorEntrada = (memoriaUsada() - memoriaAntes) / quantidade;
+
+		long origem = System.nanoTime();
+		long[] atrasos = new long[quantidade];
+		int[] disparadas = {0};
+		while (roda.tamanho() > 0) {
+			long agoraMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - origem);
+			roda.avancarAte(agoraMs / tickMs, (id, tick) -> {
+				long disparoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - origem);
+				atrasos[disparadas[0]++] = disparoMs - vencimentos[(int) id];
+			});
+			Thread.sleep(1);
+		}
+
+		Arrays.sort(atrasos);
+		System.out.printf("RodaTemporal: %,d agendamentos, ~%d bytes/entrada, atraso min=%dms p50=%dms p99=%dms max=%dms%n",
+			quantidade, bytesPorEntrada, atrasos[0], atrasos[quantidade / 2], atrasos[(int) (quantidade * 0.99)],
+			atrasos[quantidade - 1]);
+	}
+
+	private static long memoriaUsada() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
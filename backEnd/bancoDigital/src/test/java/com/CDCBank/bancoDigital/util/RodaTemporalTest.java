@@ -0,0 +1,87 @@
+package com.CDCBank.bancoDigital.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class RodaTemporalTest {
+
+	@Test
+	void cadaEntradaDisparaUmaVezNoSeuTick() {
+		RodaTemporal roda = new RodaTemporal(1_000);
+		SplittableRandom random = new SplittableRandom(7);
+		int quantidade = 200_000;
+		long[] ticks = new long[quantidade];
+		for (int i = 0; i < quantidade; i++) {
+			// Até ~4 níveis acima do atual, mais alguns já vencidos
+			ticks[i] = 1_000 + random.nextLong(-50, 1L << 24);
+			roda.agendar(i, ticks[i]);
+		}
+
+		int[] disparos = new int[quantidade];
+		long[] anterior = {Long.MIN_VALUE};
+		long destino = 1_000;
+		while (roda.tamanho() > 0) {
+			destino += random.nextLong(1, 5_000);
+			roda.avancarAte(destino, (id, tick) -> {
+				disparos[(int) id]++;
+				assertEquals(ticks[(int) id], tick);
+				if (tick > 1_000) {
+					assertEquals(tick, roda.tickAtual());
+				}
+				assertTrue(tick >= anterior[0], "disparos fora de ordem");
+				anterior[0] = tick;
+			});
+		}
+		for (int i = 0; i < quantidade; i++) {
+			assertEquals(1, disparos[i], "entrada " + i);
+		}
+	}
+
+	@Test
+	void entradaAgendadaNoDisparoVaiParaOProximoAvanco() {
+		RodaTemporal roda = new RodaTemporal(0);
+		roda.agendar(1, 10);
+		int[] disparos = {0};
+		roda.avancarAte(10, (id, tick) -> {
+			disparos[0]++;
+			if (id == 1) {
+				roda.agendar(2, tick);
+				roda.agendar(3, tick + 100);
+			}
+		});
+		assertEquals(1, disparos[0]);
+		assertEquals(1, roda.avancarAte(10, (id, tick) -> assertEquals(2, id)));
+		assertEquals(1, roda.avancarAte(110, (id, tick) -> assertEquals(3, id)));
+		assertEquals(0, roda.tamanho());
+	}
+
+	@Test
+	void vencimentoArredondadoParaCimaDisparaNoPrimeiroTickSeguinte() {
+		long tickMs = 10;
+		int quantidade = 100_000;
+		SplittableRandom random = new SplittableRandom(11);
+		long[] vencimentos = new long[quantidade];
+		RodaTemporal roda = new RodaTemporal(0);
+		for (int i = 0; i < quantidade; i++) {
+			vencimentos[i] = random.nextLong(500, 3_000);
+			// Como o AgendamentoService: para cima, para nunca disparar antes do vencimento
+			roda.agendar(i, (vencimentos[i] + tickMs - 1) / tickMs);
+		}
+
+		// Relógio simulado avançando um tick por vez
+		int[] disparadas = {0};
+		for (long agoraMs = 0; roda.tamanho() > 0; agoraMs += tickMs) {
+			long relogio = agoraMs;
+			roda.avancarAte(agoraMs / tickMs, (id, tick) -> {
+				long atraso = relogio - vencimentos[(int) id];
+				assertTrue(atraso >= 0 && atraso < tickMs, "entrada " + id + " com atraso de " + atraso + "ms");
+				disparadas[0]++;
+			});
+		}
+		assertEquals(quantidade, disparadas[0]);
+	}
+}